@@ -0,0 +1,50 @@
+package com.natswarchuan.payment.demo.config;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Xóa các index đã được thay thế bởi index rộng hơn.
+ *
+ * <p>Với {@code ddl-auto=update}, Hibernate chỉ tạo index mới theo tên và không bao giờ xóa index
+ * cũ, nên index {@code (status, type)} của bảng {@code transactions} (đã được thay bằng {@code
+ * (status, type, created_at, id)}) vẫn tồn tại trên các cơ sở dữ liệu cũ và làm tăng chi phí ghi.
+ * Việc xóa index trong MySQL chỉ sửa metadata, không chép lại bảng.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LegacyIndexCleaner implements CommandLineRunner {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public void run(String... args) {
+    dropIfExists(EntityConstant.TABLE_TRANSACTIONS, EntityConstant.INDEX_TXN_STATUS_TYPE_LEGACY);
+  }
+
+  private void dropIfExists(final String table, final String index) {
+    try {
+      final Integer count =
+          jdbcTemplate.queryForObject(
+              "SELECT COUNT(*) FROM information_schema.STATISTICS"
+                  + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?",
+              Integer.class,
+              table,
+              index);
+      if (count == null || count == 0) {
+        return;
+      }
+      jdbcTemplate.execute("ALTER TABLE " + table + " DROP INDEX " + index);
+      log.info(LogConstant.LEGACY_INDEX_DROPPED, index, table);
+    } catch (DataAccessException e) {
+      log.warn(LogConstant.LEGACY_INDEX_DROP_FAILED, index, table, e);
+    }
+  }
+}
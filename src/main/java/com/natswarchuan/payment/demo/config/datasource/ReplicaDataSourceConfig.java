@@ -0,0 +1,152 @@
+package com.natswarchuan.payment.demo.config.datasource;
+
+import com.natswarchuan.payment.demo.constant.DataSourceConstant;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Cấu hình DataSource định tuyến giao dịch chỉ đọc sang các read replica.
+ *
+ * <p>Thay thế DataSource tự cấu hình của Spring Boot: pool của primary vẫn được tạo từ {@code
+ * spring.datasource.*}, mỗi URL trong {@code app.datasource.replica.urls} có một pool riêng, và
+ * DataSource chính của ứng dụng là {@link ReplicaRoutingDataSource} bọc trong {@link
+ * LazyConnectionDataSourceProxy}. Yêu cầu {@code spring.jpa.open-in-view=false}, vì EntityManager
+ * mở suốt request giữ kết nối của giao dịch đầu tiên cho mọi giao dịch sau, kể cả giao dịch ghi.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+  private final DataSourceProperties properties;
+  private final List<DataSource> replicas;
+  private final long maxLagMillis;
+  private final long heartbeatIntervalMillis;
+  private final int queryTimeoutSeconds;
+
+  /**
+   * Khởi tạo ReplicaDataSourceConfig và các pool kết nối (chưa mở kết nối) của replica.
+   *
+   * @param properties Cấu hình {@code spring.datasource.*} của primary.
+   * @param urls URL JDBC của các replica.
+   * @param username Tên đăng nhập trên replica.
+   * @param password Mật khẩu trên replica.
+   * @param maximumPoolSize Số kết nối tối đa của mỗi pool replica.
+   * @param maxLagMillis Độ trễ tối đa để một replica còn nhận giao dịch chỉ đọc.
+   * @param heartbeatIntervalMillis Khoảng nghỉ giữa hai chu kỳ heartbeat.
+   * @param connectionTimeoutMillis Thời gian chờ lấy kết nối từ pool replica; giữ ngắn để replica
+   *     không phản hồi bị loại nhanh thay vì giữ luồng gọi tới 30 giây mặc định của Hikari.
+   * @param validationTimeoutMillis Thời gian chờ kiểm tra kết nối replica (nhỏ hơn thời gian chờ
+   *     lấy kết nối).
+   * @param queryTimeoutSeconds Thời gian chờ tối đa của câu lệnh heartbeat.
+   * @param openInView Giá trị của {@code spring.jpa.open-in-view}.
+   * @throws IllegalStateException nếu open-in-view đang bật.
+   */
+  public ReplicaDataSourceConfig(
+      final DataSourceProperties properties,
+      @Value("${app.datasource.replica.urls}") final String[] urls,
+      @Value("${app.datasource.replica.username:${spring.datasource.username}}")
+          final String username,
+      @Value("${app.datasource.replica.password:${spring.datasource.password}}")
+          final String password,
+      @Value("${app.datasource.replica.maximum-pool-size:10}") final int maximumPoolSize,
+      @Value("${app.datasource.replica.max-lag-ms:2000}") final long maxLagMillis,
+      @Value("${app.datasource.replica.heartbeat-interval-ms:500}")
+          final long heartbeatIntervalMillis,
+      @Value("${app.datasource.replica.connection-timeout-ms:1000}")
+          final long connectionTimeoutMillis,
+      @Value("${app.datasource.replica.validation-timeout-ms:500}")
+          final long validationTimeoutMillis,
+      @Value("${app.datasource.replica.heartbeat-query-timeout-seconds:1}")
+          final int queryTimeoutSeconds,
+      @Value("${spring.jpa.open-in-view:true}") final boolean openInView) {
+    if (openInView) {
+      throw new IllegalStateException(DataSourceConstant.OPEN_IN_VIEW_UNSUPPORTED);
+    }
+    this.properties = properties;
+    this.maxLagMillis = maxLagMillis;
+    this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+    this.queryTimeoutSeconds = queryTimeoutSeconds;
+    this.replicas = new ArrayList<>(urls.length);
+    for (int i = 0; i < urls.length; i++) {
+      final HikariDataSource replica =
+          DataSourceBuilder.create()
+              .type(HikariDataSource.class)
+              .driverClassName(properties.determineDriverClassName())
+              .url(urls[i].trim())
+              .username(username)
+              .password(password)
+              .build();
+      replica.setPoolName(DataSourceConstant.REPLICA_PREFIX + i);
+      replica.setMaximumPoolSize(maximumPoolSize);
+      replica.setConnectionTimeout(connectionTimeoutMillis);
+      replica.setValidationTimeout(validationTimeoutMillis);
+      replica.setReadOnly(true);
+      replicas.add(replica);
+    }
+  }
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource() {
+    return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean
+  public ReplicaLagMonitor replicaLagMonitor(
+      final HikariDataSource primaryDataSource, final MeterRegistry meterRegistry) {
+    return new ReplicaLagMonitor(
+        primaryDataSource,
+        replicas,
+        maxLagMillis,
+        heartbeatIntervalMillis,
+        queryTimeoutSeconds,
+        meterRegistry);
+  }
+
+  @Bean
+  public ReplicaRoutingDataSource replicaRoutingDataSource(
+      final HikariDataSource primaryDataSource,
+      final ReplicaLagMonitor replicaLagMonitor,
+      final MeterRegistry meterRegistry) {
+    return new ReplicaRoutingDataSource(
+        primaryDataSource, replicas, replicaLagMonitor, meterRegistry);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(final ReplicaRoutingDataSource replicaRoutingDataSource) {
+    return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+  }
+
+  @Bean
+  public FilterRegistrationBean<ReplicaRoutingContextFilter> replicaRoutingContextFilter() {
+    final FilterRegistrationBean<ReplicaRoutingContextFilter> registration =
+        new FilterRegistrationBean<>(new ReplicaRoutingContextFilter());
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
+
+  /**
+   * Giới hạn {@link ReplicaRoutingContext} trong từng tác vụ của executor mặc định của Spring Boot
+   * ({@code applicationTaskExecutor}, cũng là executor xử lý request bất đồng bộ của Spring MVC).
+   */
+  @Bean
+  public TaskDecorator replicaRoutingTaskDecorator() {
+    return ReplicaRoutingContext::isolated;
+  }
+}
@@ -0,0 +1,188 @@
+package com.natswarchuan.payment.demo.config.datasource;
+
+import com.natswarchuan.payment.demo.constant.DataSourceConstant;
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Theo dõi độ trễ sao chép của các read replica bằng bảng heartbeat.
+ *
+ * <p>Mỗi chu kỳ, thời điểm hiện tại được ghi lên primary, sau đó hàng heartbeat được đọc trên từng
+ * replica; độ trễ là khoảng cách giữa lúc đọc và giá trị replica đang thấy, nên luôn bao gồm tối đa
+ * một chu kỳ heartbeat. Cách đo này không phụ thuộc {@code SHOW REPLICA STATUS} (vốn báo {@code 0}
+ * khi luồng SQL của replica rảnh dù luồng IO đang tụt lại) và chạy được trên mọi cơ sở dữ liệu.
+ * Replica có độ trễ vượt {@code max-lag-ms} hoặc không đọc được bị loại khỏi định tuyến cho đến lần
+ * kiểm tra tiếp theo.
+ *
+ * <p>Heartbeat chạy trên một luồng riêng chứ không trên luồng dùng chung của các tác vụ {@code
+ * Scheduled}: khi một replica không phản hồi, mỗi lần kiểm tra có thể chờ tới hết thời gian chờ kết
+ * nối và thời gian chờ truy vấn, và không được làm chậm các worker khác.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+  private static final String UPDATE_HEARTBEAT =
+      "UPDATE " + EntityConstant.TABLE_REPLICATION_HEARTBEAT + " SET beat_at = ? WHERE id = ?";
+  private static final String INSERT_HEARTBEAT =
+      "INSERT INTO " + EntityConstant.TABLE_REPLICATION_HEARTBEAT + " (id, beat_at) VALUES (?, ?)";
+  private static final String SELECT_HEARTBEAT =
+      "SELECT beat_at FROM " + EntityConstant.TABLE_REPLICATION_HEARTBEAT + " WHERE id = ?";
+
+  private final JdbcTemplate primary;
+  private final List<JdbcTemplate> replicas;
+  private final AtomicLongArray lagMillis;
+  private final long maxLagMillis;
+  private final long heartbeatIntervalMillis;
+  private final ScheduledExecutorService executor;
+
+  /**
+   * Khởi tạo ReplicaLagMonitor. Mọi replica được coi là trễ cho đến lần kiểm tra đầu tiên.
+   *
+   * @param primary DataSource của primary, nơi ghi heartbeat.
+   * @param replicas DataSource của các replica, theo thứ tự khóa định tuyến.
+   * @param maxLagMillis Độ trễ tối đa để một replica còn nhận giao dịch chỉ đọc.
+   * @param heartbeatIntervalMillis Khoảng nghỉ giữa hai chu kỳ heartbeat.
+   * @param queryTimeoutSeconds Thời gian chờ tối đa của mỗi câu lệnh heartbeat.
+   * @param meterRegistry Registry để ghi nhận độ trễ của từng replica.
+   */
+  public ReplicaLagMonitor(
+      final DataSource primary,
+      final List<DataSource> replicas,
+      final long maxLagMillis,
+      final long heartbeatIntervalMillis,
+      final int queryTimeoutSeconds,
+      final MeterRegistry meterRegistry) {
+    this.primary = new JdbcTemplate(primary);
+    this.primary.setQueryTimeout(queryTimeoutSeconds);
+    this.replicas = new ArrayList<>(replicas.size());
+    for (final DataSource replica : replicas) {
+      final JdbcTemplate template = new JdbcTemplate(replica);
+      template.setQueryTimeout(queryTimeoutSeconds);
+      this.replicas.add(template);
+    }
+    this.lagMillis = new AtomicLongArray(replicas.size());
+    this.maxLagMillis = maxLagMillis;
+    this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+    this.executor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, DataSourceConstant.MONITOR_THREAD_NAME);
+              thread.setDaemon(true);
+              return thread;
+            });
+    for (int i = 0; i < replicas.size(); i++) {
+      lagMillis.set(i, DataSourceConstant.UNKNOWN_LAG);
+      final int index = i;
+      Gauge.builder(
+              MetricConstant.DATASOURCE_REPLICA_LAG,
+              lagMillis,
+              lags -> {
+                final long lag = lags.get(index);
+                return lag == DataSourceConstant.UNKNOWN_LAG ? -1 : lag;
+              })
+          .tag(MetricConstant.TAG_REPLICA, DataSourceConstant.REPLICA_PREFIX + i)
+          .baseUnit("milliseconds")
+          .register(meterRegistry);
+    }
+  }
+
+  /** Bắt đầu chu kỳ heartbeat trên luồng riêng của bộ theo dõi. */
+  @PostConstruct
+  public void start() {
+    executor.scheduleWithFixedDelay(this::beat, 0, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Dừng chu kỳ heartbeat. */
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /** Ghi heartbeat lên primary rồi đo lại độ trễ của mọi replica. */
+  void beat() {
+    try {
+      writeHeartbeat(Instant.now());
+      checkReplicas(Instant.now());
+    } catch (RuntimeException e) {
+      // Ngoại lệ lọt ra khỏi tác vụ sẽ hủy mọi chu kỳ sau của executor.
+      log.error(LogConstant.REPLICA_MONITOR_FAILED, e);
+    }
+  }
+
+  /**
+   * Kiểm tra replica có được nhận giao dịch chỉ đọc hay không.
+   *
+   * @param replica Chỉ số của replica.
+   * @return {@code true} nếu độ trễ đo gần nhất không vượt ngưỡng.
+   */
+  public boolean isHealthy(final int replica) {
+    return lagMillis.get(replica) <= maxLagMillis;
+  }
+
+  /**
+   * Số replica được theo dõi.
+   *
+   * @return số replica.
+   */
+  public int replicaCount() {
+    return replicas.size();
+  }
+
+  void writeHeartbeat(final Instant now) {
+    final LocalDateTime beatAt = LocalDateTime.ofInstant(now, ZoneOffset.UTC);
+    try {
+      if (primary.update(UPDATE_HEARTBEAT, beatAt, DataSourceConstant.HEARTBEAT_ID) == 0) {
+        primary.update(INSERT_HEARTBEAT, DataSourceConstant.HEARTBEAT_ID, beatAt);
+      }
+    } catch (DuplicateKeyException e) {
+      // Một instance khác vừa tạo hàng heartbeat; lần ghi sau sẽ cập nhật hàng đó.
+    } catch (DataAccessException e) {
+      log.warn(LogConstant.REPLICA_HEARTBEAT_FAILED, e);
+    }
+  }
+
+  void checkReplicas(final Instant now) {
+    for (int i = 0; i < replicas.size(); i++) {
+      long lag;
+      try {
+        final LocalDateTime beatAt =
+            replicas
+                .get(i)
+                .queryForObject(
+                    SELECT_HEARTBEAT, LocalDateTime.class, DataSourceConstant.HEARTBEAT_ID);
+        lag = Math.max(0, now.toEpochMilli() - beatAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+      } catch (DataAccessException e) {
+        log.warn(LogConstant.REPLICA_LAG_CHECK_FAILED, DataSourceConstant.REPLICA_PREFIX + i, e);
+        lag = DataSourceConstant.UNKNOWN_LAG;
+      }
+      final boolean wasHealthy = isHealthy(i);
+      lagMillis.set(i, lag);
+      if (wasHealthy != isHealthy(i)) {
+        log.info(
+            LogConstant.REPLICA_STATE_CHANGED,
+            DataSourceConstant.REPLICA_PREFIX + i,
+            wasHealthy ? DataSourceConstant.STATE_LAGGING : DataSourceConstant.STATE_HEALTHY,
+            lag == DataSourceConstant.UNKNOWN_LAG ? -1 : lag);
+      }
+    }
+  }
+}
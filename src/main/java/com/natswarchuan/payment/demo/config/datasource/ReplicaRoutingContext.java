@@ -0,0 +1,78 @@
+package com.natswarchuan.payment.demo.config.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Trạng thái "đọc lại dữ liệu vừa ghi" của luồng hiện tại.
+ *
+ * <p>Khi một giao dịch ghi lấy kết nối, luồng được đánh dấu; mọi giao dịch chỉ đọc sau đó trên
+ * cùng luồng đều chạy trên primary, để một đơn vị công việc không đọc phải bản sao chưa nhận thay
+ * đổi của chính nó. Vì các luồng được dùng lại, trạng thái phải được giới hạn trong từng đơn vị
+ * công việc: {@link ReplicaRoutingContextFilter} làm việc này cho request HTTP, {@link #run} cho
+ * tác vụ định kỳ và việc của worker, còn {@link #isolated} được dùng làm {@code TaskDecorator} cho
+ * executor của Spring (ví dụ luồng ghi phần thân response bất đồng bộ).
+ */
+public final class ReplicaRoutingContext {
+  private ReplicaRoutingContext() {}
+
+  private static final ThreadLocal<Boolean> WRITTEN = new ThreadLocal<>();
+
+  /** Ghi nhận luồng hiện tại đã mở một giao dịch ghi. */
+  public static void markWritten() {
+    WRITTEN.set(Boolean.TRUE);
+  }
+
+  /**
+   * Kiểm tra luồng hiện tại đã mở giao dịch ghi kể từ lần xóa gần nhất hay chưa.
+   *
+   * @return {@code true} nếu các giao dịch chỉ đọc tiếp theo phải chạy trên primary.
+   */
+  public static boolean hasWritten() {
+    return WRITTEN.get() != null;
+  }
+
+  /** Xóa trạng thái của luồng hiện tại. */
+  public static void clear() {
+    WRITTEN.remove();
+  }
+
+  /**
+   * Chạy một đơn vị công việc nền với trạng thái riêng, xóa trạng thái trước và sau khi chạy.
+   *
+   * @param work Công việc cần chạy.
+   */
+  public static void run(final Runnable work) {
+    clear();
+    try {
+      work.run();
+    } finally {
+      clear();
+    }
+  }
+
+  /**
+   * Chạy một đơn vị công việc nền có kết quả với trạng thái riêng (xem {@link #run}).
+   *
+   * @param work Công việc cần chạy.
+   * @param <T> Kiểu kết quả.
+   * @return kết quả của công việc.
+   */
+  public static <T> T call(final Supplier<T> work) {
+    clear();
+    try {
+      return work.get();
+    } finally {
+      clear();
+    }
+  }
+
+  /**
+   * Bọc một công việc để khi chạy nó có trạng thái riêng (xem {@link #run}).
+   *
+   * @param work Công việc cần bọc.
+   * @return công việc đã bọc.
+   */
+  public static Runnable isolated(final Runnable work) {
+    return () -> run(work);
+  }
+}
@@ -0,0 +1,26 @@
+package com.natswarchuan.payment.demo.config.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/** Filter giới hạn phạm vi của {@link ReplicaRoutingContext} trong một request HTTP. */
+public class ReplicaRoutingContextFilter extends OncePerRequestFilter {
+
+  @Override
+  protected void doFilterInternal(
+      final HttpServletRequest request,
+      final HttpServletResponse response,
+      final FilterChain filterChain)
+      throws ServletException, IOException {
+    ReplicaRoutingContext.clear();
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      ReplicaRoutingContext.clear();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.natswarchuan.payment.demo.config.datasource;
+
+import com.natswarchuan.payment.demo.constant.DataSourceConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource định tuyến giao dịch chỉ đọc sang các read replica.
+ *
+ * <p>Khóa định tuyến được chọn lúc kết nối vật lý được lấy, nên DataSource này phải được bọc trong
+ * một {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: trình quản lý giao
+ * dịch mở kết nối trước khi cờ chỉ đọc của giao dịch được gắn vào luồng, còn proxy chỉ lấy kết nối
+ * thật ở câu lệnh đầu tiên. Quy tắc chọn:
+ *
+ * <ul>
+ *   <li>ngoài giao dịch, hoặc trong giao dịch ghi: primary; giao dịch ghi còn đánh dấu {@link
+ *       ReplicaRoutingContext} để các lần đọc sau trong cùng đơn vị công việc (request, tác vụ định
+ *       kỳ, việc của worker) thấy được dữ liệu vừa ghi;
+ *   <li>giao dịch chỉ đọc sau một lần ghi trong cùng đơn vị công việc: primary;
+ *   <li>giao dịch chỉ đọc còn lại: lần lượt xoay vòng qua các replica có độ trễ trong ngưỡng (theo
+ *       {@link ReplicaLagMonitor}); nếu không còn replica nào, quay về primary.
+ * </ul>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+  private final List<DataSource> replicas;
+  private final List<String> replicaKeys;
+  private final ReplicaLagMonitor lagMonitor;
+  private final AtomicInteger next = new AtomicInteger();
+  private final Counter fallbackCounter;
+
+  /**
+   * Khởi tạo ReplicaRoutingDataSource.
+   *
+   * @param primary DataSource của primary.
+   * @param replicas DataSource của các replica, cùng thứ tự với {@code lagMonitor}.
+   * @param lagMonitor Bộ theo dõi độ trễ của các replica.
+   * @param meterRegistry Registry để đếm số lần quay về primary vì mọi replica đều trễ.
+   */
+  public ReplicaRoutingDataSource(
+      final DataSource primary,
+      final List<DataSource> replicas,
+      final ReplicaLagMonitor lagMonitor,
+      final MeterRegistry meterRegistry) {
+    this.replicas = List.copyOf(replicas);
+    this.replicaKeys = new ArrayList<>(replicas.size());
+    this.lagMonitor = lagMonitor;
+    this.fallbackCounter = meterRegistry.counter(MetricConstant.DATASOURCE_REPLICA_FALLBACK);
+    final Map<Object, Object> targets = new HashMap<>();
+    targets.put(DataSourceConstant.PRIMARY, primary);
+    for (int i = 0; i < replicas.size(); i++) {
+      final String key = DataSourceConstant.REPLICA_PREFIX + i;
+      replicaKeys.add(key);
+      targets.put(key, replicas.get(i));
+    }
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+    setLenientFallback(false);
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+      return DataSourceConstant.PRIMARY;
+    }
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      ReplicaRoutingContext.markWritten();
+      return DataSourceConstant.PRIMARY;
+    }
+    if (ReplicaRoutingContext.hasWritten()) {
+      return DataSourceConstant.PRIMARY;
+    }
+    final int count = replicaKeys.size();
+    final int start = Math.floorMod(next.getAndIncrement(), count);
+    for (int i = 0; i < count; i++) {
+      final int replica = (start + i) % count;
+      if (lagMonitor.isHealthy(replica)) {
+        return replicaKeys.get(replica);
+      }
+    }
+    fallbackCounter.increment();
+    return DataSourceConstant.PRIMARY;
+  }
+
+  /** Đóng pool kết nối của các replica; pool của primary do Spring quản lý. */
+  @Override
+  public void destroy() throws Exception {
+    for (final DataSource replica : replicas) {
+      if (replica instanceof AutoCloseable closeable) {
+        closeable.close();
+      }
+    }
+  }
+}
@@ -5,9 +5,12 @@ import com.natswarchuan.payment.demo.constant.SecurityConstant;
 import com.natswarchuan.payment.demo.entity.User;
 import com.natswarchuan.payment.demo.exception.HttpException;
 import com.natswarchuan.payment.demo.interfaces.services.IUserService;
+import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
@@ -34,4 +37,20 @@ public class SecurityUtil {
                     HttpStatus.INTERNAL_SERVER_ERROR,
                     String.format(MessageConstant.User.AUTHENTICATED_USER_NOT_IN_DB, identifier)));
   }
+
+  /**
+   * Lấy các quyền (vai trò có tiền tố {@code ROLE_} và permission) của người dùng hiện tại từ
+   * security context, không truy vấn cơ sở dữ liệu.
+   *
+   * @return tập tên quyền; rỗng nếu chưa xác thực.
+   */
+  public Set<String> getCurrentAuthorities() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null) {
+      return Set.of();
+    }
+    return authentication.getAuthorities().stream()
+        .map(GrantedAuthority::getAuthority)
+        .collect(Collectors.toSet());
+  }
 }
@@ -12,6 +12,8 @@ public final class ApiConstant {
   public static final String PAYMENT_METHODS_ENDPOINT = API_V1_PREFIX + "/payment-methods";
   public static final String BANKS_ENDPOINT = API_V1_PREFIX + "/banks";
   public static final String PROVIDERS_ENDPOINT = API_V1_PREFIX + "/providers";
+  public static final String RECONCILIATIONS_ENDPOINT = API_V1_PREFIX + "/reconciliations";
+  public static final String STATEMENTS_ENDPOINT = API_V1_PREFIX + "/statements";
 
   public static final String REGISTER_OTP_REQUEST = "/register/otp/request";
   public static final String REGISTER_OTP_VERIFY = "/register/otp/verify";
@@ -21,8 +23,16 @@ public final class ApiConstant {
   public static final String LOGOUT = "/logout";
   public static final String USERS_ME = "/me";
   public static final String USERS_ME_EKYC_COMPLETE = "/me/ekyc/complete";
+  public static final String WALLETS_BALANCE_SHARDS = "/{number}/balance-shards";
+  public static final String WALLETS_LEDGER_BALANCE = "/{number}/ledger-balance";
+  public static final String WALLETS_BALANCE_AS_OF = "/{number}/balance-as-of";
+  public static final String WALLETS_AGGREGATES = "/aggregates";
+  public static final String WALLETS_AGGREGATES_BY_NUMBER = "/{number}/aggregates";
+  public static final String WALLETS_AGGREGATES_BACKFILL = "/aggregates/backfill";
   public static final String TRANSACTIONS_TRANSFER = "/transfer";
   public static final String TRANSACTIONS_TRANSFER_SECRET_KEY = "/transfer/secret-key";
+  public static final String TRANSACTIONS_CURSOR = "/cursor";
+  public static final String TRANSACTIONS_EXPORT = "/export";
 
   public static final String PAYMENTS_DEPOSIT = "/deposit/{provider}";
   public static final String PAYMENTS_WITHDRAW = "/withdraw/{provider}";
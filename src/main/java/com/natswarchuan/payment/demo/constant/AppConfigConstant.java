@@ -1,5 +1,7 @@
 package com.natswarchuan.payment.demo.constant;
 
+import java.util.Set;
+
 public final class AppConfigConstant {
   private AppConfigConstant() {}
 
@@ -8,15 +10,31 @@ public final class AppConfigConstant {
   public static final String REDIS_RATE_LIMIT_PREFIX = "rate_limit:";
   public static final String REDIS_SECRET_KEY_PREFIX = "secret_key:";
   public static final String REDIS_USER_SESSION_HASH = "user_sessions";
+  public static final String REDIS_IDEMPOTENCY_PREFIX = "idempotency:";
+  public static final String REDIS_IPN_FINALIZED_PREFIX = "ipn_finalized:";
+  public static final String REDIS_SPEND_LIMIT_PREFIX = "spend_limit:";
+  public static final String HEADER_IDEMPOTENCY_KEY = "Idempotency-Key";
+
+  /** Các trường thông tin xác thực không được đưa vào dấu vân tay của yêu cầu idempotent. */
+  public static final Set<String> IDEMPOTENCY_EXCLUDED_FIELDS = Set.of("pin", "secretKey");
+
   public static final String COMMA_DELIMITER = ",";
   public static final String UNKNOWN_IP = "unknown";
   public static final String EMAIL_AT_SIGN = "@";
   public static final String OTP_FORMAT = "000000";
 
+  // Cursor pagination
+  public static final int CURSOR_PAGE_DEFAULT_SIZE = 20;
+  public static final int CURSOR_PAGE_MAX_SIZE = 100;
+
   // Date and Time
   public static final String DATE_FORMAT_YYYYMMDDHHMMSS = "yyyyMMddHHmmss";
   public static final String TIMEZONE_GMT7 = "Etc/GMT+7";
 
+  // Database (MySQL error codes)
+  public static final int MYSQL_ERROR_DEADLOCK = 1213;
+  public static final int MYSQL_ERROR_LOCK_WAIT_TIMEOUT = 1205;
+
   // Network
   public static final String DEFAULT_IP_ADDRESS = "127.0.0.1";
 
@@ -0,0 +1,51 @@
+package com.natswarchuan.payment.demo.constant;
+
+import java.time.format.DateTimeFormatter;
+
+/** Lớp chứa các hằng số của kho lưu trữ lạnh giao dịch (file segment dạng cột). */
+public final class ArchiveConstant {
+  private ArchiveConstant() {}
+
+  /** Chữ ký đầu file segment ({@code TXSG}). */
+  public static final int MAGIC = 0x54585347;
+
+  public static final short VERSION = 1;
+  public static final String FILE_SUFFIX = ".seg";
+  public static final String TEMP_SUFFIX = ".tmp";
+  public static final String COLUMN_SUFFIX = ".col";
+  public static final int FILE_BUFFER_BYTES = 64 * 1024;
+
+  /** Thư mục của tháng trong thư mục lưu trữ. */
+  public static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+  /** Số chữ số thập phân khi quy đổi số tiền sang số nguyên (theo cột DECIMAL(19,4)). */
+  public static final int AMOUNT_SCALE = 4;
+
+  /** Giá trị đánh dấu {@code null} của các cột số nguyên có thể rỗng. */
+  public static final long NULL_LONG = Long.MIN_VALUE;
+
+  /** Thứ tự các cột trong file segment; mỗi cột là một luồng nén riêng. */
+  public static final class Column {
+    private Column() {}
+
+    public static final int ID = 0;
+    public static final int WALLET_ID = 1; // (ví, số hàng) theo từng đoạn liên tiếp
+    public static final int CREATED_AT = 2;
+    public static final int UPDATED_AT = 3;
+    public static final int DELETED_AT = 4;
+    public static final int TYPE = 5;
+    public static final int STATUS = 6;
+    public static final int AMOUNT = 7;
+    public static final int TRANSACTION_FEE = 8;
+    public static final int NET_AMOUNT = 9;
+    public static final int BALANCE_BEFORE = 10;
+    public static final int BALANCE_AFTER = 11;
+    public static final int DESCRIPTION = 12;
+    public static final int PROVIDER_TRANSACTION_ID = 13;
+    public static final int PROVIDER_RESPONSE = 14;
+    public static final int PAYMENT_METHOD_ID = 15;
+    public static final int RELATED_TRANSACTION_ID = 16;
+    public static final int IP_ADDRESS = 17;
+    public static final int COUNT = 18;
+  }
+}
@@ -0,0 +1,28 @@
+package com.natswarchuan.payment.demo.constant;
+
+/** Lớp chứa các hằng số của việc định tuyến kết nối giữa primary và các read replica. */
+public final class DataSourceConstant {
+  private DataSourceConstant() {}
+
+  /** Khóa định tuyến của primary. */
+  public static final String PRIMARY = "primary";
+
+  /** Khóa định tuyến của replica thứ {@code i}: {@code replica-} + {@code i}. */
+  public static final String REPLICA_PREFIX = "replica-";
+
+  /** ID của hàng duy nhất trong bảng heartbeat. */
+  public static final int HEARTBEAT_ID = 1;
+
+  /** Độ trễ ghi nhận cho replica chưa đọc được heartbeat (luôn vượt ngưỡng). */
+  public static final long UNKNOWN_LAG = Long.MAX_VALUE;
+
+  /** Tên luồng riêng của bộ theo dõi độ trễ replica. */
+  public static final String MONITOR_THREAD_NAME = "replica-lag-monitor";
+
+  public static final String STATE_HEALTHY = "healthy";
+  public static final String STATE_LAGGING = "lagging";
+
+  public static final String OPEN_IN_VIEW_UNSUPPORTED =
+      "app.datasource.replica.enabled=true requires spring.jpa.open-in-view=false: an open"
+          + " EntityManager keeps the first connection of the request for every later transaction";
+}
@@ -13,6 +13,16 @@ public final class EntityConstant {
   public static final String TABLE_PERMISSIONS = "permissions";
   public static final String TABLE_USERS_ROLES = "users_roles";
   public static final String TABLE_ROLES_PERMISSIONS = "roles_permissions";
+  public static final String TABLE_WALLET_BALANCE_SHARDS = "wallet_balance_shards";
+  public static final String TABLE_LEDGER_CHECKPOINTS = "ledger_checkpoints";
+  public static final String TABLE_LEDGER_ENTRIES = "ledger_entries";
+  public static final String TABLE_WALLET_BALANCE_SNAPSHOTS = "wallet_balance_snapshots";
+  public static final String TABLE_PAYOUT_OUTBOX = "payout_outbox";
+  public static final String TABLE_OUTBOX_EVENTS = "outbox_events";
+  public static final String TABLE_OUTBOX_PARTITIONS = "outbox_partitions";
+  public static final String TABLE_IPN_INBOX = "ipn_inbox";
+  public static final String TABLE_WALLET_DAILY_AGGREGATES = "wallet_daily_aggregates";
+  public static final String TABLE_REPLICATION_HEARTBEAT = "replication_heartbeat";
 
   // General Column Names
   public static final String FIELD_ID = "id";
@@ -27,13 +37,29 @@ public final class EntityConstant {
   public static final String COLUMN_ROLE_ID = "role_id";
   public static final String COLUMN_PERMISSION_ID = "permission_id";
   public static final String COLUMN_PARENT_ID = "parent_id";
+  public static final String COLUMN_SHARD_INDEX = "shard_index";
+  public static final String COLUMN_MOVEMENT_ID = "movement_id";
+  public static final String COLUMN_CREATED_AT = "created_at";
+  public static final String COLUMN_SNAPSHOT_AT = "snapshot_at";
+  public static final String COLUMN_TRANSACTION_ID = "transaction_id";
+  public static final String COLUMN_BUSINESS_DATE = "business_date";
 
   // Index Names
   public static final String INDEX_USER_NICKNAME = "idx_user_nickname";
   public static final String INDEX_TXN_WALLET_CREATED = "idx_transaction_wallet_created";
-  public static final String INDEX_TXN_STATUS_TYPE = "idx_transaction_status_type";
+  public static final String INDEX_TXN_STATUS_TYPE_CREATED = "idx_txn_status_type_created";
+  // Thay bằng INDEX_TXN_STATUS_TYPE_CREATED; bị xóa khi khởi động bởi LegacyIndexCleaner.
+  public static final String INDEX_TXN_STATUS_TYPE_LEGACY = "idx_transaction_status_type";
   public static final String INDEX_PM_WALLET = "idx_paymentmethod_wallet";
   public static final String INDEX_TXN_PROVIDER_ID = "idx_txn_provider_id";
+  public static final String UK_SHARD_WALLET_INDEX = "uk_shard_wallet_index";
+  public static final String INDEX_LEDGER_WALLET_CREATED = "idx_ledger_wallet_created";
+  public static final String INDEX_LEDGER_MOVEMENT = "idx_ledger_movement";
+  public static final String INDEX_SNAPSHOT_WALLET_AT = "uk_snapshot_wallet_at";
+  public static final String INDEX_PAYOUT_OUTBOX_DUE = "idx_payout_outbox_due";
+  public static final String INDEX_OUTBOX_PARTITION_PENDING = "idx_outbox_partition_pending";
+  public static final String INDEX_IPN_INBOX_DUE = "idx_ipn_inbox_due";
+  public static final String INDEX_IPN_INBOX_TRANSACTION = "idx_ipn_inbox_transaction";
 
   // Wallet Entity
   public static final String WALLET_FIELD_SELF = "wallet";
@@ -65,6 +91,7 @@ public final class EntityConstant {
   public static final String TXN_FIELD_STATUS = "status";
   public static final String TXN_FIELD_AMOUNT = "amount";
   public static final String TXN_FIELD_CREATED_AT = "createdAt";
+  public static final String TXN_FIELD_DESCRIPTION = "description";
 
   // Role Entity
   public static final String ROLE_FIELD_PARENT = "parent";
@@ -0,0 +1,32 @@
+package com.natswarchuan.payment.demo.constant;
+
+/** Lớp chứa các hằng số của chức năng xuất sao kê giao dịch. */
+public final class ExportConstant {
+  private ExportConstant() {}
+
+  public static final String CSV_HEADER = "id,created_at,type,status,amount,description";
+  public static final char CSV_SEPARATOR = ',';
+  public static final char CSV_QUOTE = '"';
+  // Ô bắt đầu bằng một trong các ký tự này bị bảng tính hiểu là công thức.
+  public static final String CSV_FORMULA_PREFIXES = "=+-@\t\r";
+  public static final char CSV_FORMULA_ESCAPE = '\'';
+  public static final char LINE_SEPARATOR = '\n';
+  public static final String FILE_NAME = "transactions";
+  public static final String CONTENT_DISPOSITION_FORMAT = "attachment; filename=\"%s.%s\"";
+
+  /** Định dạng xuất được hỗ trợ. */
+  public static final class Format {
+    private Format() {}
+
+    public static final String CSV = "CSV";
+    public static final String NDJSON = "NDJSON";
+  }
+
+  /** Kiểu nội dung (Content-Type) tương ứng với từng định dạng. */
+  public static final class ContentType {
+    private ContentType() {}
+
+    public static final String CSV = "text/csv;charset=UTF-8";
+    public static final String NDJSON = "application/x-ndjson";
+  }
+}
@@ -0,0 +1,31 @@
+package com.natswarchuan.payment.demo.constant;
+
+/** Lớp chứa các hằng số của bước chấm điểm gian lận (velocity) trong luồng chuyển tiền. */
+public final class FraudConstant {
+  private FraudConstant() {}
+
+  /** Kết quả chấm điểm, cũng là giá trị tag {@code decision} của số liệu. */
+  public static final class Decision {
+    private Decision() {}
+
+    public static final String ALLOW = "allow";
+    public static final String FLAG = "flag";
+    public static final String BLOCK = "block";
+    public static final String UNTRACKED = "untracked";
+  }
+
+  /** Tên các luật và điểm cộng khi luật bị kích hoạt. */
+  public static final class Rule {
+    private Rule() {}
+
+    // Nhiều giao dịch nhỏ tới nhiều người nhận khác nhau trong cửa sổ.
+    public static final String SMALL_BURST = "small_burst";
+    public static final int SMALL_BURST_WEIGHT = 50;
+    // Cùng số tiền lặp lại tới cùng một ví.
+    public static final String REPEATED_AMOUNT = "repeated_amount";
+    public static final int REPEATED_AMOUNT_WEIGHT = 40;
+    // Nhiều địa chỉ IP cho cùng một ví.
+    public static final String IP_SPREAD = "ip_spread";
+    public static final int IP_SPREAD_WEIGHT = 40;
+  }
+}
@@ -0,0 +1,23 @@
+package com.natswarchuan.payment.demo.constant;
+
+/**
+ * Lớp chứa các hằng số liên quan đến sổ cái kép (bảng {@code ledger_entries}).
+ */
+public final class LedgerConstant {
+  private LedgerConstant() {}
+
+  /** Hằng số cho chiều của một bút toán. */
+  public static final class Direction {
+    private Direction() {}
+    public static final Integer DEBIT = 1; // Ghi nợ: tiền đi ra khỏi tài khoản
+    public static final Integer CREDIT = 2; // Ghi có: tiền đi vào tài khoản
+  }
+
+  /** Hằng số cho loại tài khoản của một bút toán. */
+  public static final class Account {
+    private Account() {}
+    public static final Integer WALLET = 1; // Ví của người dùng
+    public static final Integer GATEWAY_CLEARING = 2; // Tài khoản trung gian với cổng thanh toán
+    public static final Integer OPENING_BALANCE = 3; // Số dư đầu kỳ khi bật sổ cái
+  }
+}
@@ -0,0 +1,37 @@
+package com.natswarchuan.payment.demo.constant;
+
+/** Lớp chứa các hằng số của hạn mức giao dịch theo cửa sổ trượt. */
+public final class LimitConstant {
+  private LimitConstant() {}
+
+  public static final String RESERVE_SCRIPT = "scripts/spend-limit-reserve.lua";
+  public static final String RELEASE_SCRIPT = "scripts/spend-limit-release.lua";
+
+  /** Thao tác bị giới hạn. */
+  public static final class Operation {
+    private Operation() {}
+
+    public static final String WITHDRAWAL = "WITHDRAWAL";
+    public static final String TRANSFER = "TRANSFER";
+  }
+
+  /** Các cửa sổ trượt: kích thước bucket (giây) và số bucket. */
+  public static final class Period {
+    private Period() {}
+
+    public static final String DAY = "DAY";
+    public static final long DAY_BUCKET_SECONDS = 3600; // 24 bucket 1 giờ
+    public static final int DAY_BUCKETS = 24;
+    public static final String MONTH = "MONTH";
+    public static final long MONTH_BUCKET_SECONDS = 86400; // 30 bucket 1 ngày
+    public static final int MONTH_BUCKETS = 30;
+  }
+
+  /** Kết quả từ chối của script giữ chỗ. */
+  public static final class Rejection {
+    private Rejection() {}
+
+    public static final long AMOUNT = 1;
+    public static final long COUNT = 2;
+  }
+}
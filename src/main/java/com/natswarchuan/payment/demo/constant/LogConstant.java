@@ -24,6 +24,141 @@ public final class LogConstant {
   // Transaction Service
   public static final String TRANSACTION_ALREADY_PROCESSED =
       "Cố gắng xử lý một giao dịch đã được xử lý: {}";
+  public static final String LOCK_RETRY_ATTEMPT =
+      "Xung đột khóa ({}) khi thực hiện '{}', thử lại lần {} sau {}ms";
+  public static final String LOCK_RETRY_EXHAUSTED =
+      "Đã hết số lần thử lại cho '{}' sau {} lần do xung đột khóa ({})";
+
+  // In-memory ledger
+  public static final String LEDGER_STARTED =
+      "Ledger trong bộ nhớ đã khởi động với {} partition, journal tại {}";
+  public static final String LEDGER_RECOVERY_REPLAY =
+      "Khôi phục ledger: ghi lại {} bản ghi journal chưa được flush";
+  public static final String LEDGER_RECOVERY_CREDIT =
+      "Khôi phục ledger: hoàn tất phần cộng tiền còn thiếu cho giao dịch {}";
+  public static final String LEDGER_FLUSH_FAILED =
+      "Ghi lô {} bản ghi ledger xuống cơ sở dữ liệu thất bại, thử lại sau {}ms";
+  public static final String LEDGER_JOURNAL_ROTATED = "Journal của partition {} đã được quay vòng";
+  public static final String LEDGER_STOPPED = "Ledger trong bộ nhớ đã dừng";
+  public static final String LEDGER_OPENING_BALANCES =
+      "Sổ cái kép: đã ghi số dư đầu kỳ cho {} ví";
+  public static final String BALANCE_SNAPSHOT_TAKEN =
+      "Đã chụp số dư tại {} cho {} ví trong {}ms";
+  public static final String BALANCE_SNAPSHOT_FAILED = "Chụp số dư tại {} thất bại";
+
+  // Payout worker
+  public static final String PAYOUT_SENT = "Cổng thanh toán đã chấp nhận chi trả cho giao dịch {}";
+  public static final String PAYOUT_REJECTED =
+      "Cổng thanh toán từ chối chi trả cho giao dịch {}: {}";
+  public static final String PAYOUT_RETRY =
+      "Gọi cổng thanh toán chi trả cho giao dịch {} thất bại (lần {}), thử lại sau {}ms";
+  public static final String PAYOUT_GAVE_UP =
+      "Chi trả cho giao dịch {} thất bại sau {} lần thử, cần xử lý thủ công";
+  public static final String PAYOUT_FINALIZE_FAILED =
+      "Không thể ghi kết quả chi trả cho giao dịch {}, sẽ xử lý lại khi hết hạn lease";
+
+  // IPN de-duplication
+  public static final String IPN_DUPLICATE_SKIPPED =
+      "Bỏ qua IPN trùng cho giao dịch đã hoàn tất {}";
+  public static final String IPN_DEDUP_UNAVAILABLE =
+      "Không thể truy cập Redis để khử trùng IPN cho giao dịch {}, xử lý qua cơ sở dữ liệu";
+
+  // IPN inbox
+  public static final String IPN_INBOX_BACKLOG_FULL =
+      "Hàng đợi IPN đã đầy ({} IPN đang chờ), từ chối IPN cho giao dịch {}";
+  public static final String IPN_INBOX_RETRY =
+      "Áp dụng IPN {} cho giao dịch {} thất bại (lần {}), thử lại sau {} ms";
+  public static final String IPN_INBOX_GAVE_UP =
+      "Bỏ qua IPN {} cho giao dịch {} sau {} lần thử, cần xử lý thủ công";
+
+  // Reconciliation
+  public static final String RECONCILIATION_STARTED =
+      "Bắt đầu đối soát file {} ({} dòng, {} lượt)";
+  public static final String RECONCILIATION_FINISHED =
+      "Đối soát file {} hoàn tất: {} khớp, {} sai lệch, báo cáo tại {}";
+  public static final String RECONCILIATION_PASS_OVERFLOW =
+      "Đối soát file {} dừng: một lượt có nhiều hơn {} ID giao dịch, cần tăng max-keys-per-pass";
+
+  // Stuck-transaction sweeper
+  public static final String SWEEPER_DEPOSITS_EXPIRED =
+      "Đã hủy {} giao dịch nạp tiền quá hạn (tạo trước {})";
+  public static final String SWEEPER_DEPOSIT_RESOLVED =
+      "Đã ghi kết quả tra cứu cho giao dịch nạp tiền quá hạn {}: trạng thái {}";
+  public static final String SWEEPER_WITHDRAWAL_RESOLVED =
+      "Đã ghi kết quả tra cứu cho giao dịch rút tiền {}: trạng thái {}";
+  public static final String SWEEPER_QUERY_FAILED =
+      "Tra cứu cổng thanh toán cho giao dịch {} thất bại, thử lại ở chu kỳ sau";
+
+  // Monthly statements
+  public static final String STATEMENT_STARTED =
+      "Bắt đầu tạo sao kê tháng {} vào {} (tiếp tục sau ví {})";
+  public static final String STATEMENT_PROGRESS =
+      "Sao kê tháng {}: {} partition, {} ví, {} giao dịch, {} giao dịch/giây";
+  public static final String STATEMENT_PARTITION_FAILED =
+      "Tạo sao kê tháng {} cho partition {} thất bại, chạy lại để tiếp tục từ checkpoint";
+  public static final String STATEMENT_FINISHED =
+      "Tạo sao kê tháng {} hoàn tất: {} ví, {} giao dịch, {} byte trong {} ms ({} partition lỗi)";
+  public static final String STATEMENT_SCHEDULED_SKIPPED =
+      "Bỏ qua lần tạo sao kê theo lịch: {}";
+
+  // Wallet daily aggregates
+  public static final String AGGREGATE_BACKFILL_STARTED =
+      "Bắt đầu dựng lại bảng tổng hợp theo ngày (độ lệch {}, {} ví mỗi partition)";
+  public static final String AGGREGATE_BACKFILL_PARTITION_FAILED =
+      "Dựng lại bảng tổng hợp cho khoảng ví {} - {} thất bại";
+  public static final String AGGREGATE_BACKFILL_FINISHED =
+      "Dựng lại bảng tổng hợp hoàn tất: {} ví, {} dòng trong {} ms ({} partition lỗi)";
+
+  // Transaction partitioning
+  public static final String PARTITION_MAINTENANCE_SKIPPED =
+      "Bỏ qua bảo trì partition: một instance khác đang giữ khóa";
+  public static final String PARTITION_CONVERTING =
+      "Bắt đầu phân vùng bảng {} theo tháng từ {} đến {}";
+  public static final String PARTITION_CONVERTED = "Đã phân vùng bảng {} theo tháng";
+  public static final String PARTITION_CREATED = "Đã tạo partition của bảng {} từ {} đến {}";
+  public static final String PARTITION_DETACHED = "Đã tách partition {} ra bảng {}";
+  public static final String PARTITION_ARCHIVE_EXISTS =
+      "Bỏ qua tách partition {}: bảng {} đã tồn tại";
+
+  // Transaction archive
+  public static final String ARCHIVE_ALREADY_RUNNING =
+      "Bỏ qua lưu trữ giao dịch: một lần lưu trữ khác đang chạy";
+  public static final String ARCHIVE_MONTH_FINISHED =
+      "Đã lưu trữ giao dịch tháng {}: {} ví, {} giao dịch";
+  public static final String ARCHIVE_ROWS_KEPT =
+      "Segment {}: {} giao dịch bị cập nhật trong lúc lưu trữ nên được giữ lại trong MySQL";
+  public static final String ARCHIVE_RANGE_FAILED =
+      "Lưu trữ giao dịch tháng {} cho khoảng ví {} - {} thất bại";
+  public static final String ARCHIVE_CATALOG_FAILED = "Không thể nạp danh mục lưu trữ từ {}";
+
+  // Read replicas
+  public static final String REPLICA_HEARTBEAT_FAILED = "Không thể ghi heartbeat lên primary";
+  public static final String REPLICA_LAG_CHECK_FAILED =
+      "Không thể đọc heartbeat của replica {}, replica bị loại khỏi định tuyến";
+  public static final String REPLICA_STATE_CHANGED = "Replica {}: {} (độ trễ {} ms)";
+  public static final String REPLICA_MONITOR_FAILED = "Lỗi không mong đợi trong chu kỳ heartbeat";
+
+  // Spend limits
+  public static final String SPEND_LIMIT_UNAVAILABLE_FAIL_OPEN =
+      "Không thể kiểm tra hạn mức {} của ví {} qua Redis, bỏ qua kiểm tra";
+  public static final String SPEND_LIMIT_UNAVAILABLE_FAIL_CLOSED =
+      "Không thể kiểm tra hạn mức {} của ví {} qua Redis, từ chối thao tác";
+  public static final String SPEND_LIMIT_RELEASE_FAILED =
+      "Không thể trả lại hạn mức {} của ví {}, hạn mức được tự giải phóng khi bucket hết hạn";
+
+  // Fraud scoring
+  public static final String FRAUD_TRANSFER_BLOCKED =
+      "Chặn chuyển tiền từ ví {}: điểm rủi ro {} (luật {})";
+  public static final String FRAUD_TRANSFER_FLAGGED =
+      "Gắn cờ chuyển tiền từ ví {}: điểm rủi ro {} (luật {})";
+
+  // Outbox relay
+  public static final String OUTBOX_RELAY_FAILED =
+      "Chuyển tiếp sự kiện outbox của partition {} thất bại, sẽ thử lại ở chu kỳ sau";
+
+  // Idempotency
+  public static final String IDEMPOTENCY_REPLAYED = "Phát lại phản hồi đã lưu cho Idempotency-Key {}";
+  public static final String IDEMPOTENCY_STORE_FAILED = "Không thể lưu phản hồi cho Idempotency-Key {}";
 
   // Interceptor
   public static final String INTERCEPTOR_START_PROCESSING =
@@ -73,6 +208,11 @@ public final class LogConstant {
   public static final String CREATING_ROLE = "Đang tạo vai trò: {}";
   public static final String DATA_INIT_FINISH = "Khởi tạo dữ liệu hoàn tất.";
 
+  // Legacy Index Cleaner
+  public static final String LEGACY_INDEX_DROPPED = "Đã xóa index cũ {} của bảng {}";
+  public static final String LEGACY_INDEX_DROP_FAILED =
+      "Không thể xóa index cũ {} của bảng {}, cần xóa thủ công";
+
   // Vnpay Service
   public static final String VNPAY_PAYOUT_INITIATE =
       "Khởi tạo yêu cầu rút tiền VNPAY thực tế cho giao dịch ID: {}";
@@ -83,6 +223,10 @@ public final class LogConstant {
       "Lỗi HTTP trong khi gọi API rút tiền VNPAY: {} - {}";
   public static final String VNPAY_PAYOUT_GENERAL_ERROR =
       "Ngoại lệ trong khi gọi API rút tiền VNPAY";
+  public static final String VNPAY_QUERY_RESPONSE_RECEIVE =
+      "Đã nhận phản hồi tra cứu giao dịch {} từ VNPAY: mã {}, trạng thái {}";
+  public static final String VNPAY_QUERY_ERROR =
+      "Ngoại lệ trong khi tra cứu giao dịch {} với VNPAY";
   public static final String VNPAY_IPN_INVALID_CHECKSUM = "Checksum IPN của VNPAY không hợp lệ";
   public static final String VNPAY_IPN_PROCESSING_ERROR = "Lỗi xử lý IPN của VNPAY";
   public static final String VNPAY_IPN_WITHDRAWAL_PROCESSING =
@@ -81,6 +81,24 @@ public final class MessageConstant {
     public static final String INSUFFICIENT_BALANCE = "Số dư không đủ.";
     public static final String PIN_NOT_SET =
         "Vui lòng đặt mã PIN cho ví của bạn trước khi giao dịch.";
+    public static final String BALANCE_SHARD_MISSING = "Không tìm thấy shard số dư %d của ví %s.";
+    public static final String BALANCE_HISTORY_UNAVAILABLE =
+        "Không thể tra cứu số dư theo thời điểm khi sổ cái kép bị tắt.";
+    public static final String BALANCE_AS_OF_IN_FUTURE = "Thời điểm tra cứu không được ở tương lai.";
+    public static final String AGGREGATE_INVALID_RANGE =
+        "Khoảng ngày không hợp lệ: từ %s đến %s (tối đa %d ngày).";
+    public static final String AGGREGATE_GRANULARITY_UNSUPPORTED =
+        "Kiểu tổng hợp không được hỗ trợ: %s";
+    public static final String SPEND_LIMIT_AMOUNT_EXCEEDED =
+        "Vượt hạn mức số tiền %s trong kỳ %s của ví.";
+    public static final String SPEND_LIMIT_COUNT_EXCEEDED =
+        "Vượt số lần %s cho phép trong kỳ %s của ví.";
+    public static final String SPEND_LIMIT_UNAVAILABLE =
+        "Không thể kiểm tra hạn mức giao dịch, vui lòng thử lại sau.";
+    public static final String SPEND_LIMIT_CONFIG_INVALID =
+        "Cấu hình hạn mức không hợp lệ: %s (định dạng <số tiền>/<số lần>,<số tiền>/<số lần>).";
+    public static final String AGGREGATE_BACKFILL_IN_PROGRESS =
+        "Đang có một lần dựng lại bảng tổng hợp khác chạy.";
   }
 
   public static final class Transaction {
@@ -88,11 +106,15 @@ public final class MessageConstant {
 
     public static final String DEPOSIT_DESCRIPTION = "Nạp tiền vào ví qua %s";
     public static final String TRANSACTION_FAILED = "Giao dịch thất bại: %s";
+    public static final String DEPOSIT_EXPIRED =
+        "Giao dịch nạp tiền đã hết hạn do không nhận được thanh toán sau %d phút.";
     public static final String SELF_TRANSFER_ERROR = "Không thể chuyển tiền vào cùng một ví.";
     public static final String WALLET_INACTIVE_ERROR =
         "Ví của người gửi hoặc người nhận không hoạt động.";
     public static final String TRANSFER_OUT_DESCRIPTION = "Chuyển tiền tới ví %s. Lời nhắn: %s";
     public static final String TRANSFER_IN_DESCRIPTION = "Nhận tiền từ ví %s";
+    public static final String TRANSFER_BLOCKED_BY_RISK =
+        "Giao dịch chuyển tiền bị từ chối do có dấu hiệu bất thường, vui lòng thử lại sau.";
     public static final String WITHDRAW_NOT_IMPLEMENTED =
         "Chức năng rút tiền chưa được triển khai.";
     public static final String AMOUNT_MUST_BE_POSITIVE = "Số tiền phải là số dương.";
@@ -100,15 +122,37 @@ public final class MessageConstant {
         "Khởi tạo yêu cầu rút tiền thất bại: %s";
     public static final String SECRET_KEY_RATE_LIMIT_EXCEEDED =
         "Bạn đã yêu cầu khóa bí mật quá nhiều lần. Vui lòng thử lại sau %d phút.";
+    public static final String CONCURRENT_UPDATE_FAILED =
+        "Ví đang được xử lý bởi một giao dịch khác. Vui lòng thử lại sau.";
+    public static final String LEDGER_BUSY = "Hệ thống đang quá tải. Vui lòng thử lại sau.";
+    public static final String LEDGER_JOURNAL_TOO_SMALL =
+        "Journal của ledger quá nhỏ để chứa một bản ghi.";
+    public static final String IDEMPOTENCY_KEY_INVALID =
+        "Idempotency-Key không hợp lệ (tối đa %d ký tự).";
+    public static final String IDEMPOTENCY_KEY_REUSED =
+        "Idempotency-Key đã được dùng cho một yêu cầu có nội dung khác.";
+    public static final String IDEMPOTENCY_REQUEST_IN_PROGRESS =
+        "Yêu cầu với Idempotency-Key này đang được xử lý. Vui lòng thử lại sau.";
+    public static final String INVALID_CURSOR = "Cursor phân trang không hợp lệ.";
+    public static final String ARCHIVE_PAGE_TOO_DEEP =
+        "Trang quá sâu khi tìm cả trong dữ liệu lưu trữ (tối đa %d hàng), hãy thu hẹp khoảng ngày.";
+    public static final String ARCHIVE_SORT_UNSUPPORTED =
+        "Không hỗ trợ sắp xếp theo %s khi tìm trong dữ liệu lưu trữ.";
+    public static final String EXPORT_FORMAT_UNSUPPORTED =
+        "Định dạng xuất '%s' không được hỗ trợ (CSV hoặc NDJSON).";
   }
 
   public static final class Payment {
     private Payment() {}
 
     public static final String GATEWAY_NOT_SUPPORTED = "Cổng thanh toán không được hỗ trợ: %s";
+    public static final String BALANCE_ENGINE_NOT_SUPPORTED =
+        "Engine cập nhật số dư không được hỗ trợ: %s";
     public static final String PAYMENT_METHOD_NOT_OWNED =
         "Phương thức thanh toán không thuộc sở hữu của người dùng.";
     public static final String IPN_RECEIVED = "Đã nhận IPN";
+    public static final String IPN_BACKLOG_FULL =
+        "Hệ thống đang quá tải, vui lòng gửi lại IPN sau.";
     public static final String INVALID_SIGNATURE = "Chữ ký không hợp lệ.";
     public static final String EWALLET_LINK_SUCCESS = "Liên kết ví điện tử thành công.";
     public static final String EWALLET_UPDATE_SUCCESS = "Cập nhật liên kết ví điện tử thành công.";
@@ -132,5 +176,24 @@ public final class MessageConstant {
     public static final String IPN_PROCESSED_WITH_CODE =
         "IPN đã được xử lý. Mã phản hồi VNPAY: %s";
     public static final String IPN_PROCESSING_ERROR = "Lỗi xử lý IPN";
+    public static final String QUERY_TRANSACTION_STATUS = "Kết quả tra cứu VNPAY, trạng thái: %s";
+    public static final String QUERY_FAILED = "Tra cứu giao dịch VNPAY thất bại: %s";
+  }
+
+  public static final class Reconciliation {
+    private Reconciliation() {}
+
+    public static final String SETTLEMENT_FILE_NOT_FOUND = "Không tìm thấy file quyết toán: %s";
+    public static final String SETTLEMENT_FILE_INVALID = "File quyết toán không hợp lệ: %s";
+    public static final String INVALID_PERIOD = "Thời điểm bắt đầu phải trước thời điểm kết thúc.";
+    public static final String PASS_CAPACITY_EXCEEDED =
+        "Không thể đối soát: một lượt vượt quá dung lượng %d ID giao dịch.";
+  }
+
+  public static final class Statement {
+    private Statement() {}
+
+    public static final String MONTH_NOT_FINISHED = "Tháng %s chưa kết thúc, chưa thể tạo sao kê.";
+    public static final String GENERATION_IN_PROGRESS = "Đang có một lần tạo sao kê khác chạy.";
   }
 }
@@ -0,0 +1,72 @@
+package com.natswarchuan.payment.demo.constant;
+
+/** Lớp chứa tên các metric (Micrometer), tên tag và giá trị tag dùng chung trong ứng dụng. */
+public final class MetricConstant {
+  private MetricConstant() {}
+
+  // Tags
+  public static final String TAG_OPERATION = "operation";
+  public static final String TAG_REASON = "reason";
+
+  // Operations
+  public static final String OPERATION_TRANSFER = "transfer";
+  public static final String OPERATION_DEPOSIT = "deposit";
+  public static final String OPERATION_WITHDRAWAL = "withdrawal";
+
+  // Transaction attempts (mẫu số để tính tỷ lệ xung đột và thử lại)
+  public static final String TX_ATTEMPT = "wallet.tx.attempt";
+
+  // Lock retry
+  public static final String LOCK_RETRY = "wallet.lock.retry";
+  public static final String LOCK_RETRY_EXHAUSTED = "wallet.lock.retry.exhausted";
+  public static final String REASON_DEADLOCK = "deadlock";
+  public static final String REASON_LOCK_TIMEOUT = "lock_timeout";
+  public static final String REASON_OPTIMISTIC_CONFLICT = "optimistic_conflict";
+
+  // IPN
+  public static final String IPN_DUPLICATE = "ipn.duplicate.skipped";
+  public static final String IPN_INBOX_DEPTH = "ipn.inbox.depth";
+  public static final String IPN_INBOX_IN_FLIGHT = "ipn.inbox.in_flight";
+  public static final String IPN_INBOX_REJECTED = "ipn.inbox.rejected";
+  public static final String IPN_INBOX_LAG = "ipn.inbox.lag";
+  public static final String IPN_INBOX_FAILED = "ipn.inbox.failed";
+
+  // Stuck-transaction sweeper
+  public static final String SWEEPER_SWEPT = "transaction.sweeper.swept";
+  public static final String SWEEPER_GATEWAY_QUERY_FAILED = "transaction.sweeper.query.failed";
+
+  // Spend limits
+  public static final String TAG_PERIOD = "period";
+  public static final String SPEND_LIMIT_REJECTED = "spend.limit.rejected";
+  public static final String SPEND_LIMIT_NEAR_CACHE_HIT = "spend.limit.near_cache.hit";
+  public static final String SPEND_LIMIT_UNAVAILABLE = "spend.limit.unavailable";
+
+  // Fraud scoring
+  public static final String TAG_DECISION = "decision";
+  public static final String TAG_RULE = "rule";
+  public static final String FRAUD_SCORING_LATENCY = "fraud.scoring.latency";
+  public static final String FRAUD_SCORING_OVER_BUDGET = "fraud.scoring.over_budget";
+  public static final String FRAUD_DECISION = "fraud.decision";
+  public static final String FRAUD_RULE_TRIGGERED = "fraud.rule.triggered";
+
+  // Transaction archive
+  public static final String ARCHIVE_TRANSACTIONS = "archive.transactions.written";
+  public static final String ARCHIVE_SEGMENTS_SCANNED = "archive.segments.scanned";
+
+  // Read replicas
+  public static final String TAG_REPLICA = "replica";
+  public static final String DATASOURCE_REPLICA_LAG = "datasource.replica.lag";
+  public static final String DATASOURCE_REPLICA_FALLBACK = "datasource.replica.fallback";
+
+  // Monthly statements
+  public static final String STATEMENT_WALLETS = "statement.wallets.written";
+  public static final String STATEMENT_TRANSACTIONS = "statement.transactions.written";
+  public static final String STATEMENT_PARTITIONS_FAILED = "statement.partitions.failed";
+
+  // Outbox relay
+  public static final String TAG_EVENT_TYPE = "event_type";
+  public static final String OUTBOX_PUBLISHED = "outbox.events.published";
+  public static final String OUTBOX_PUBLISH_LAG = "outbox.events.publish.lag";
+  public static final String OUTBOX_BACKLOG_AGE = "outbox.backlog.age";
+  public static final String OUTBOX_RELAY_FAILED = "outbox.relay.failed";
+}
@@ -0,0 +1,16 @@
+package com.natswarchuan.payment.demo.constant;
+
+/** Lớp chứa các hằng số của outbox sự kiện giao dịch ({@code outbox_events}). */
+public final class OutboxConstant {
+  private OutboxConstant() {}
+
+  /** Loại sự kiện được ghi vào outbox. */
+  public static final class EventType {
+    private EventType() {}
+
+    public static final String TRANSACTION_PENDING = "TRANSACTION_PENDING";
+    public static final String TRANSACTION_COMPLETED = "TRANSACTION_COMPLETED";
+    public static final String TRANSACTION_FAILED = "TRANSACTION_FAILED";
+    public static final String TRANSACTION_CANCELLED = "TRANSACTION_CANCELLED";
+  }
+}
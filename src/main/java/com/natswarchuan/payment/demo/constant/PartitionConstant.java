@@ -0,0 +1,37 @@
+package com.natswarchuan.payment.demo.constant;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/** Lớp chứa các hằng số của việc phân vùng (partition) bảng giao dịch theo tháng. */
+public final class PartitionConstant {
+  private PartitionConstant() {}
+
+  /** Tên partition theo tháng: {@code p} + {@code yyyyMM} của tháng mà partition chứa. */
+  public static final String MONTHLY_PREFIX = "p";
+
+  public static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+  /** Partition cuối cùng, nhận mọi hàng vượt quá tháng đã được tạo trước. */
+  public static final String FUTURE_PARTITION = "p_future";
+
+  /** Bảng giữ dữ liệu của partition đã tách: {@code transactions_} + tên partition. */
+  public static final String ARCHIVE_TABLE_SEPARATOR = "_";
+
+  /** Khóa tên (MySQL {@code GET_LOCK}) để chỉ một instance bảo trì partition tại một thời điểm. */
+  public static final String MAINTENANCE_LOCK = "transactions_partition_maintenance";
+
+  /**
+   * Độ lệch cho phép giữa thời điểm trong UUID v7 và {@code created_at} khi suy ra khoảng partition
+   * của một giao dịch từ ID.
+   */
+  public static final Duration ID_TIMESTAMP_SLACK = Duration.ofDays(1);
+
+  /** Khoảng thời gian dùng cho ID không phải UUID v7 (không thu hẹp được partition). */
+  public static final Instant MIN_CREATED_AT = Instant.EPOCH;
+
+  public static final Instant MAX_CREATED_AT = Instant.parse("9999-12-31T23:59:59Z");
+
+  public static final int UUID_VERSION_TIME_ORDERED = 7;
+}
@@ -0,0 +1,28 @@
+package com.natswarchuan.payment.demo.constant;
+
+/** Lớp chứa các hằng số của chức năng đối soát file quyết toán của cổng thanh toán. */
+public final class ReconciliationConstant {
+  private ReconciliationConstant() {}
+
+  /** Số tiền trong file quyết toán của VNPAY được nhân với 100, giống như trong IPN. */
+  public static final int VNPAY_AMOUNT_SCALE = 100;
+
+  public static final char FIELD_SEPARATOR = ',';
+  public static final String REPORT_SUFFIX = ".reconciliation.csv";
+  public static final String REPORT_HEADER =
+      "mismatch,line,transaction_id,provider_transaction_id,file_amount,db_amount,file_success,"
+          + "db_status,db_provider_transaction_id";
+
+  /** Loại sai lệch được ghi vào báo cáo đối soát. */
+  public static final class Mismatch {
+    private Mismatch() {}
+
+    public static final String AMOUNT = "AMOUNT_MISMATCH"; // Số tiền khác nhau
+    public static final String STATUS = "STATUS_MISMATCH"; // Trạng thái khác nhau
+    public static final String PROVIDER_ID = "PROVIDER_ID_MISMATCH"; // Mã giao dịch NCC khác nhau
+    public static final String REFERENCE = "REFERENCE_MISMATCH"; // Mã NCC thuộc giao dịch khác
+    public static final String MISSING_IN_DATABASE = "MISSING_IN_DATABASE"; // Chỉ có trong file
+    public static final String MISSING_IN_FILE = "MISSING_IN_FILE"; // Chỉ có trong cơ sở dữ liệu
+    public static final String MALFORMED = "MALFORMED_ROW"; // Dòng không đọc được
+  }
+}
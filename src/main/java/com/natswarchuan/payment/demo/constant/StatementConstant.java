@@ -0,0 +1,13 @@
+package com.natswarchuan.payment.demo.constant;
+
+/** Lớp chứa các hằng số của tác vụ tạo sao kê hàng tháng. */
+public final class StatementConstant {
+  private StatementConstant() {}
+
+  public static final String CSV_HEADER =
+      "id,created_at,type,status,amount,balance_after,description";
+  public static final String FILE_SUFFIX = ".csv.gz";
+  public static final String TEMP_SUFFIX = ".tmp";
+  public static final String CHECKPOINT_FILE = ".checkpoint";
+  public static final int FILE_BUFFER_BYTES = 64 * 1024;
+}
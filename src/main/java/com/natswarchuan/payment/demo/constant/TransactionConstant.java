@@ -4,6 +4,15 @@ package com.natswarchuan.payment.demo.constant;
 public final class TransactionConstant {
   private TransactionConstant() {}
 
+  /** Số chữ số thập phân của các cột số tiền ({@code DECIMAL(19,4)}). */
+  public static final int AMOUNT_SCALE = 4;
+
+  /**
+   * Số chữ số phần nguyên tối đa của số tiền trong yêu cầu: đủ nhỏ để số tiền quy đổi sang đơn vị
+   * nhỏ nhất ({@link #AMOUNT_SCALE} chữ số thập phân) vẫn nằm trong phạm vi của {@code long}.
+   */
+  public static final int AMOUNT_INTEGER_DIGITS = 14;
+
   /** Hằng số cho thuộc tính 'type' của Transaction. */
   public static final class Type {
     private Type() {}
@@ -26,6 +35,45 @@ public final class TransactionConstant {
     public static final Integer REVIEWING = 2; // Đang xem xét
   }
 
+  /** Tên các engine cập nhật số dư, được chọn qua {@code app.transaction.balance-engine}. */
+  public static final class BalanceEngine {
+    private BalanceEngine() {}
+
+    public static final String PESSIMISTIC = "PESSIMISTIC"; // Khóa bi quan + cập nhật entity
+    public static final String ATOMIC = "ATOMIC"; // UPDATE có điều kiện, không khóa trước
+    public static final String OPTIMISTIC = "OPTIMISTIC"; // Không khóa, kiểm tra @Version
+    public static final String IN_MEMORY = "IN_MEMORY"; // Single-writer trong bộ nhớ + journal
+  }
+
+  /** Trạng thái của một yêu cầu chi trả trong hàng đợi {@code payout_outbox}. */
+  public static final class PayoutStatus {
+    private PayoutStatus() {}
+
+    public static final Integer FAILED = -1; // Hết số lần thử, cần xử lý thủ công
+    public static final Integer PENDING = 0; // Chờ worker nhận
+    public static final Integer PROCESSING = 1; // Worker đang gọi cổng thanh toán
+    public static final Integer SENT = 2; // Cổng thanh toán đã chấp nhận
+    public static final Integer REJECTED = 3; // Cổng thanh toán từ chối, đã hoàn tiền
+  }
+
+  /** Trạng thái của một IPN trong hàng đợi {@code ipn_inbox}. */
+  public static final class IpnInboxStatus {
+    private IpnInboxStatus() {}
+
+    public static final Integer FAILED = -1; // Hết số lần thử hoặc lỗi không thể thử lại
+    public static final Integer PENDING = 0; // Chờ worker nhận
+    public static final Integer PROCESSING = 1; // Worker đang áp dụng IPN
+    public static final Integer DONE = 2; // Đã áp dụng
+  }
+
+  /** Chế độ xử lý IPN, được chọn qua {@code app.ipn.ingestion.mode}. */
+  public static final class IpnIngestionMode {
+    private IpnIngestionMode() {}
+
+    public static final String SYNC = "SYNC"; // Áp dụng IPN trước khi trả lời cổng thanh toán
+    public static final String ASYNC = "ASYNC"; // Ghi vào ipn_inbox, trả lời ngay, worker áp dụng
+  }
+
   /** Hằng số cho các mẫu mô tả giao dịch. */
   public static final class Description {
     private Description() {}
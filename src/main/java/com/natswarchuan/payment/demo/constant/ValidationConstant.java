@@ -10,12 +10,27 @@ public final class ValidationConstant {
   public static final String REFRESH_TOKEN_REQUIRED = "Refresh token là bắt buộc";
   public static final String AMOUNT_REQUIRED = "Số tiền là bắt buộc";
   public static final String AMOUNT_POSITIVE = "Số tiền phải là số dương";
+  public static final String AMOUNT_DIGITS =
+      "Số tiền tối đa {integer} chữ số phần nguyên và {fraction} chữ số thập phân";
   public static final String PAYMENT_METHOD_ID_REQUIRED = "ID phương thức thanh toán là bắt buộc";
   public static final String RECIPIENT_WALLET_NUMBER_REQUIRED = "Số ví người nhận là bắt buộc";
   public static final String PIN_REQUIRED = "Mã PIN là bắt buộc";
   public static final String PIN_LENGTH = "Mã PIN phải có 6 chữ số";
   public static final String SECRET_KEY_REQUIRED = "Khóa bí mật là bắt buộc";
 
+  // Wallet balance shards
+  public static final String SHARD_COUNT_REQUIRED = "Số shard là bắt buộc";
+  public static final String SHARD_COUNT_RANGE =
+      "Số shard phải từ "
+          + WalletConstant.Sharding.UNSHARDED
+          + " đến "
+          + WalletConstant.Sharding.MAX_SHARDS;
+
+  // Settlement reconciliation
+  public static final String SETTLEMENT_FILE_NAME_REQUIRED = "Tên file quyết toán là bắt buộc";
+  public static final String PERIOD_START_REQUIRED = "Thời điểm bắt đầu kỳ quyết toán là bắt buộc";
+  public static final String PERIOD_END_REQUIRED = "Thời điểm kết thúc kỳ quyết toán là bắt buộc";
+
   // E-wallet Linking
   public static final String EWALLET_PROVIDER_REQUIRED = "Nhà cung cấp ví điện tử là bắt buộc";
   public static final String EWALLET_ACCOUNT_REQUIRED = "Số điện thoại hoặc định danh ví là bắt buộc";
@@ -20,6 +20,7 @@ public final class VnpayConstant {
   public static final String VNP_ORDER_TYPE = "vnp_OrderType";
   public static final String VNP_RETURN_URL = "vnp_ReturnUrl";
   public static final String VNP_BANK_CODE = "vnp_BankCode";
+  public static final String VNP_EXPIRE_DATE = "vnp_ExpireDate";
 
   // IPN / Response Params
   public static final String VNP_RESPONSE_CODE = "vnp_ResponseCode";
@@ -38,8 +39,13 @@ public final class VnpayConstant {
   public static final String ORDER_TYPE_OTHER = "other";
   public static final String COMMAND_PAY = "pay";
   public static final String COMMAND_PAYOUT = "payout"; 
+  public static final String COMMAND_QUERY_DR = "querydr";
   public static final String RESPONSE_SUCCESS_CODE = "00";
   public static final String API_RESPONSE_SUCCESS_CODE = "00";
+  public static final String API_RESPONSE_TXN_NOT_FOUND_CODE = "91";
+  public static final String TRANSACTION_STATUS_SUCCESS = "00";
+  public static final String TRANSACTION_STATUS_PENDING = "01";
+  public static final String QUERY_HASH_SEPARATOR = "|";
   public static final String PAY_METHOD_ACCOUNT = "ACCOUNT"; 
   public static final String PAY_METHOD_CARD = "CARD"; 
 }
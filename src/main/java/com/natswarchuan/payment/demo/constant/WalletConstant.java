@@ -15,10 +15,30 @@ public final class WalletConstant {
     public static final Integer CLOSED = -2; // Đã đóng
   }
 
+  /** Số giao dịch gần nhất trả kèm thông tin chi tiết của ví. */
+  public static final int RECENT_TRANSACTIONS_LIMIT = 10;
+
   /** Hằng số cho thuộc tính 'currency' của Wallet. */
   public static final class Currency {
     private Currency() {}
     public static final String VND = "VND";
     public static final String USD = "USD";
   }
+
+  /** Hằng số cho việc chia số dư của ví thành nhiều sub-balance (shard). */
+  public static final class Sharding {
+    private Sharding() {}
+    public static final int UNSHARDED = 1; // Ví không chia shard
+    public static final int MAX_SHARDS = 64;
+    public static final String CREDIT_STRATEGY_RANDOM = "RANDOM"; // Shard ngẫu nhiên
+    public static final String CREDIT_STRATEGY_HASHED = "HASHED"; // Băm theo ví nguồn
+  }
+
+  /** Hằng số cho bảng tổng hợp giao dịch theo ngày của ví ({@code wallet_daily_aggregates}). */
+  public static final class Aggregate {
+    private Aggregate() {}
+    public static final String GRANULARITY_DAILY = "DAILY"; // Mỗi ngày một dòng
+    public static final String GRANULARITY_MONTHLY = "MONTHLY"; // Gộp các ngày trong tháng
+    public static final int MAX_RANGE_DAYS = 1096; // Khoảng tra cứu tối đa (3 năm)
+  }
 }
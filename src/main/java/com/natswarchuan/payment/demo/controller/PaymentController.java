@@ -1,13 +1,18 @@
 package com.natswarchuan.payment.demo.controller;
 
 import com.natswarchuan.payment.demo.constant.ApiConstant;
+import com.natswarchuan.payment.demo.constant.AppConfigConstant;
 import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
 import com.natswarchuan.payment.demo.constant.SecurityConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
 import com.natswarchuan.payment.demo.dto.request.transaction.DepositRequest;
 import com.natswarchuan.payment.demo.dto.request.transaction.WithdrawRequest;
 import com.natswarchuan.payment.demo.dto.response.gateway.CreatePaymentResponse;
 import com.natswarchuan.payment.demo.dto.response.gateway.ProcessIpnResponse;
 import com.natswarchuan.payment.demo.exception.custom.ForbiddenException;
+import com.natswarchuan.payment.demo.helper.IdempotencyHelper;
+import com.natswarchuan.payment.demo.helper.IpnInboxHelper;
 import com.natswarchuan.payment.demo.interfaces.services.IPaymentGatewayService;
 import com.natswarchuan.payment.demo.interfaces.services.ITransactionService;
 import com.natswarchuan.payment.demo.service.PaymentGatewayFactory;
@@ -23,6 +28,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -40,6 +46,8 @@ public class PaymentController {
 
   private final ITransactionService transactionService;
   private final PaymentGatewayFactory paymentGatewayFactory;
+  private final IdempotencyHelper idempotencyHelper;
+  private final IpnInboxHelper ipnInboxHelper;
 
   @Value("${vnpay.allowed-ips}")
   private List<String> allowedIps;
@@ -47,8 +55,12 @@ public class PaymentController {
   /**
    * Endpoint để khởi tạo một yêu cầu nạp tiền.
    *
+   * <p>Nếu có header {@code Idempotency-Key}, các lần gửi lại cùng khóa không tạo thêm giao dịch
+   * đang chờ mà nhận lại URL thanh toán của lần đầu.
+   *
    * @param provider nhà cung cấp cổng thanh toán (ví dụ: VNPAY).
    * @param depositRequest dữ liệu yêu cầu nạp tiền.
+   * @param idempotencyKey khóa idempotency tùy chọn do client tạo.
    * @param httpServletRequest đối tượng request để lấy địa chỉ IP của client.
    * @return phản hồi chứa URL để chuyển hướng người dùng đến trang thanh toán.
    */
@@ -58,10 +70,17 @@ public class PaymentController {
   public ResponseEntity<CreatePaymentResponse> deposit(
       @PathVariable final String provider,
       @Valid @RequestBody final DepositRequest depositRequest,
+      @RequestHeader(value = AppConfigConstant.HEADER_IDEMPOTENCY_KEY, required = false)
+          final String idempotencyKey,
       final HttpServletRequest httpServletRequest) {
-    final CreatePaymentResponse paymentResponse =
-        transactionService.initiateDeposit(depositRequest, provider, httpServletRequest);
-    return ResponseEntity.ok(paymentResponse);
+    return idempotencyHelper.execute(
+        MetricConstant.OPERATION_DEPOSIT + ":" + provider,
+        idempotencyKey,
+        depositRequest,
+        CreatePaymentResponse.class,
+        () ->
+            ResponseEntity.ok(
+                transactionService.initiateDeposit(depositRequest, provider, httpServletRequest)));
   }
 
   /**
@@ -69,6 +88,8 @@ public class PaymentController {
    *
    * @param provider nhà cung cấp dịch vụ rút tiền (ví dụ: VNPAY).
    * @param withdrawRequest dữ liệu yêu cầu rút tiền.
+   * @param idempotencyKey khóa idempotency tùy chọn do client tạo; các lần gửi lại cùng khóa không
+   * rút tiền thêm lần nữa.
    * @param httpServletRequest đối tượng request để lấy địa chỉ IP của client.
    * @return phản hồi với trạng thái 202 (Accepted) để cho biết yêu cầu đã được chấp nhận và đang
    * được xử lý.
@@ -79,9 +100,18 @@ public class PaymentController {
   public ResponseEntity<Void> withdraw(
       @PathVariable final String provider,
       @Valid @RequestBody final WithdrawRequest withdrawRequest,
+      @RequestHeader(value = AppConfigConstant.HEADER_IDEMPOTENCY_KEY, required = false)
+          final String idempotencyKey,
       final HttpServletRequest httpServletRequest) {
-    transactionService.initiateWithdrawal(withdrawRequest, provider, httpServletRequest);
-    return ResponseEntity.accepted().build();
+    return idempotencyHelper.execute(
+        MetricConstant.OPERATION_WITHDRAWAL + ":" + provider,
+        idempotencyKey,
+        withdrawRequest,
+        Void.class,
+        () -> {
+          transactionService.initiateWithdrawal(withdrawRequest, provider, httpServletRequest);
+          return ResponseEntity.accepted().build();
+        });
   }
 
   /**
@@ -90,6 +120,9 @@ public class PaymentController {
    * <p><b>Bảo mật:</b> Endpoint này được bảo vệ bằng cách chỉ cho phép các địa chỉ IP nằm trong
    * danh sách trắng (whitelist) được cấu hình.
    *
+   * <p>Ở chế độ {@code app.ipn.ingestion.mode=ASYNC}, IPN chỉ được xác thực chữ ký và ghi vào
+   * {@code ipn_inbox} trước khi trả lời; việc cập nhật số dư do worker IPN thực hiện sau đó.
+   *
    * @param provider nhà cung cấp đã gửi IPN.
    * @param request đối tượng request chứa dữ liệu IPN.
    * @return phản hồi cho nhà cung cấp dịch vụ.
@@ -102,7 +135,12 @@ public class PaymentController {
     final IPaymentGatewayService gatewayService = paymentGatewayFactory.getGateway(provider);
     final ProcessIpnResponse ipnResponse = gatewayService.processIpn(request);
 
-    transactionService.completeDeposit(ipnResponse);
+    if (ipnInboxHelper.isAsync()) {
+      ipnInboxHelper.accept(
+          TransactionConstant.Type.DEPOSIT, MetricConstant.OPERATION_DEPOSIT, ipnResponse);
+    } else {
+      transactionService.completeDeposit(ipnResponse);
+    }
 
     return ResponseEntity.ok(MessageConstant.Payment.IPN_RECEIVED);
   }
@@ -122,7 +160,12 @@ public class PaymentController {
     final IPaymentGatewayService gatewayService = paymentGatewayFactory.getGateway(provider);
     final ProcessIpnResponse ipnResponse = gatewayService.processIpn(request);
 
-    transactionService.completeWithdrawal(ipnResponse);
+    if (ipnInboxHelper.isAsync()) {
+      ipnInboxHelper.accept(
+          TransactionConstant.Type.WITHDRAWAL, MetricConstant.OPERATION_WITHDRAWAL, ipnResponse);
+    } else {
+      transactionService.completeWithdrawal(ipnResponse);
+    }
 
     return ResponseEntity.ok(MessageConstant.Payment.IPN_RECEIVED);
   }
@@ -0,0 +1,37 @@
+package com.natswarchuan.payment.demo.controller;
+
+import com.natswarchuan.payment.demo.constant.ApiConstant;
+import com.natswarchuan.payment.demo.constant.SecurityConstant;
+import com.natswarchuan.payment.demo.dto.request.reconciliation.ReconcileSettlementRequest;
+import com.natswarchuan.payment.demo.dto.response.reconciliation.ReconciliationSummaryResponse;
+import com.natswarchuan.payment.demo.interfaces.services.IReconciliationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(ApiConstant.RECONCILIATIONS_ENDPOINT)
+@RequiredArgsConstructor
+public class ReconciliationController {
+
+  private final IReconciliationService reconciliationService;
+
+  /**
+   * API dành cho quản trị viên để đối soát một file quyết toán của cổng thanh toán (đã được đặt
+   * trong thư mục {@code app.reconciliation.input-dir}) với bảng giao dịch.
+   *
+   * @param request file quyết toán và kỳ quyết toán.
+   * @return kết quả tổng hợp và đường dẫn file báo cáo sai lệch.
+   */
+  @PostMapping
+  @PreAuthorize("hasRole('" + SecurityConstant.ROLE_ADMIN + "')")
+  public ResponseEntity<ReconciliationSummaryResponse> reconcile(
+      @Valid @RequestBody final ReconcileSettlementRequest request) {
+    return ResponseEntity.ok(reconciliationService.reconcile(request));
+  }
+}
@@ -0,0 +1,37 @@
+package com.natswarchuan.payment.demo.controller;
+
+import com.natswarchuan.payment.demo.constant.ApiConstant;
+import com.natswarchuan.payment.demo.constant.SecurityConstant;
+import com.natswarchuan.payment.demo.dto.request.statement.GenerateStatementsRequest;
+import com.natswarchuan.payment.demo.dto.response.statement.MonthlyStatementSummaryResponse;
+import com.natswarchuan.payment.demo.interfaces.services.IStatementService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(ApiConstant.STATEMENTS_ENDPOINT)
+@RequiredArgsConstructor
+public class StatementController {
+
+  private final IStatementService statementService;
+
+  /**
+   * API dành cho quản trị viên để tạo (hoặc tiếp tục tạo) sao kê của một tháng cho mọi ví đang hoạt
+   * động.
+   *
+   * @param request tháng cần tạo sao kê.
+   * @return kết quả tổng hợp và thông lượng của lần chạy.
+   */
+  @PostMapping
+  @PreAuthorize("hasRole('" + SecurityConstant.ROLE_ADMIN + "')")
+  public ResponseEntity<MonthlyStatementSummaryResponse> generate(
+      @Valid @RequestBody final GenerateStatementsRequest request) {
+    return ResponseEntity.ok(statementService.generate(request.getMonth()));
+  }
+}
@@ -1,23 +1,35 @@
 package com.natswarchuan.payment.demo.controller;
 
 import com.natswarchuan.payment.demo.constant.ApiConstant;
+import com.natswarchuan.payment.demo.constant.AppConfigConstant;
+import com.natswarchuan.payment.demo.constant.ExportConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
 import com.natswarchuan.payment.demo.constant.SecurityConstant;
+import com.natswarchuan.payment.demo.dto.request.transaction.TransactionCursorRequest;
 import com.natswarchuan.payment.demo.dto.request.transaction.TransactionSearchRequest;
 import com.natswarchuan.payment.demo.dto.request.transaction.TransferRequest;
+import com.natswarchuan.payment.demo.dto.response.CursorPageResponse;
 import com.natswarchuan.payment.demo.dto.response.transaction.TransactionSummaryResponse;
+import com.natswarchuan.payment.demo.helper.IdempotencyHelper;
 import com.natswarchuan.payment.demo.interfaces.services.ITransactionService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.util.Locale;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controller chịu trách nhiệm xử lý các yêu cầu liên quan đến giao dịch nội bộ.
@@ -30,20 +42,36 @@ import org.springframework.web.bind.annotation.RestController;
 public class TransactionController {
 
   private final ITransactionService transactionService;
+  private final IdempotencyHelper idempotencyHelper;
 
   /**
    * Endpoint để thực hiện chuyển tiền giữa hai ví trong hệ thống.
    *
+   * <p>Nếu có header {@code Idempotency-Key}, các lần gửi lại cùng khóa không chuyển tiền thêm lần
+   * nữa mà nhận lại phản hồi của lần đầu.
+   *
    * @param transferRequest thông tin chi tiết của yêu cầu chuyển tiền.
+   * @param idempotencyKey khóa idempotency tùy chọn do client tạo.
+   * @param httpServletRequest đối tượng HttpServletRequest để lấy địa chỉ IP của client.
    * @return {@code ResponseEntity} với trạng thái OK nếu yêu cầu hợp lệ.
    */
   @PostMapping(ApiConstant.TRANSACTIONS_TRANSFER)
   @PreAuthorize(
       "isAuthenticated() and hasAuthority('" + SecurityConstant.PERMISSION_FINANCE_TRANSACT + "')")
   public ResponseEntity<Void> transferFunds(
-      @Valid @RequestBody final TransferRequest transferRequest) {
-    transactionService.initiateTransfer(transferRequest);
-    return ResponseEntity.ok().build();
+      @Valid @RequestBody final TransferRequest transferRequest,
+      @RequestHeader(value = AppConfigConstant.HEADER_IDEMPOTENCY_KEY, required = false)
+          final String idempotencyKey,
+      final HttpServletRequest httpServletRequest) {
+    return idempotencyHelper.execute(
+        MetricConstant.OPERATION_TRANSFER,
+        idempotencyKey,
+        transferRequest,
+        Void.class,
+        () -> {
+          transactionService.initiateTransfer(transferRequest, httpServletRequest);
+          return ResponseEntity.ok().build();
+        });
   }
 
   /**
@@ -75,4 +103,54 @@ public class TransactionController {
         transactionService.searchTransactionsForCurrentUser(searchRequest, pageable);
     return ResponseEntity.ok(results);
   }
+
+  /**
+   * Endpoint để duyệt lịch sử giao dịch của người dùng hiện tại theo cursor, mới nhất trước.
+   *
+   * <p>Phù hợp cho cuộn vô hạn trên ví có lịch sử dài: không đếm tổng số giao dịch và thời gian
+   * truy vấn không tăng theo độ sâu của trang.
+   *
+   * @param cursorRequest các tiêu chí tìm kiếm, cursor của trang trước và kích thước trang.
+   * @return các giao dịch của trang và cursor của trang kế tiếp.
+   */
+  @GetMapping(ApiConstant.TRANSACTIONS_CURSOR)
+  @PreAuthorize(
+      "isAuthenticated() and hasAuthority('" + SecurityConstant.PERMISSION_TRANSACTION_READ + "')")
+  public ResponseEntity<CursorPageResponse<TransactionSummaryResponse>> scrollTransactions(
+      @Valid final TransactionCursorRequest cursorRequest) {
+    return ResponseEntity.ok(transactionService.scrollTransactionsForCurrentUser(cursorRequest));
+  }
+
+  /**
+   * Endpoint để xuất toàn bộ lịch sử giao dịch (đã lọc) của người dùng hiện tại, ví dụ sao kê cả
+   * năm, dưới dạng CSV hoặc NDJSON.
+   *
+   * <p>Dữ liệu được đọc từ cơ sở dữ liệu và gửi dần cho client (chunked), không phân trang và không
+   * đếm tổng số.
+   *
+   * @param searchRequest các tiêu chí lọc, giống như khi tìm kiếm.
+   * @param format định dạng xuất: {@code CSV} (mặc định) hoặc {@code NDJSON}.
+   * @return phần thân response dạng streaming.
+   */
+  @GetMapping(ApiConstant.TRANSACTIONS_EXPORT)
+  @PreAuthorize(
+      "isAuthenticated() and hasAuthority('" + SecurityConstant.PERMISSION_TRANSACTION_READ + "')")
+  public ResponseEntity<StreamingResponseBody> exportTransactions(
+      @Valid final TransactionSearchRequest searchRequest,
+      @RequestParam(defaultValue = ExportConstant.Format.CSV) final String format) {
+    final StreamingResponseBody body =
+        transactionService.exportTransactionsForCurrentUser(searchRequest, format);
+    final boolean csv = ExportConstant.Format.CSV.equalsIgnoreCase(format);
+    return ResponseEntity.ok()
+        .contentType(
+            MediaType.parseMediaType(
+                csv ? ExportConstant.ContentType.CSV : ExportConstant.ContentType.NDJSON))
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            String.format(
+                ExportConstant.CONTENT_DISPOSITION_FORMAT,
+                ExportConstant.FILE_NAME,
+                format.toLowerCase(Locale.ROOT)))
+        .body(body);
+  }
 }
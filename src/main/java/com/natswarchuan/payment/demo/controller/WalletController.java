@@ -2,19 +2,30 @@ package com.natswarchuan.payment.demo.controller;
 
 import com.natswarchuan.payment.demo.constant.ApiConstant;
 import com.natswarchuan.payment.demo.constant.SecurityConstant;
+import com.natswarchuan.payment.demo.dto.request.wallet.ConfigureBalanceShardsRequest;
 import com.natswarchuan.payment.demo.dto.request.wallet.SetPinRequest;
+import com.natswarchuan.payment.demo.dto.request.wallet.WalletAggregateRequest;
+import com.natswarchuan.payment.demo.dto.response.wallet.WalletAggregateBackfillResponse;
+import com.natswarchuan.payment.demo.dto.response.wallet.WalletAggregateResponse;
+import com.natswarchuan.payment.demo.dto.response.wallet.WalletBalanceAsOfResponse;
 import com.natswarchuan.payment.demo.dto.response.wallet.WalletDetailResponse;
+import com.natswarchuan.payment.demo.dto.response.wallet.WalletLedgerBalanceResponse;
 import com.natswarchuan.payment.demo.entity.User;
+import com.natswarchuan.payment.demo.interfaces.services.IWalletAggregateService;
 import com.natswarchuan.payment.demo.interfaces.services.IWalletService;
 import jakarta.validation.Valid;
+import java.time.Instant;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -23,6 +34,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class WalletController {
 
   private final IWalletService walletService;
+  private final IWalletAggregateService walletAggregateService;
 
   @GetMapping
   @PreAuthorize("hasAuthority('" + SecurityConstant.PERMISSION_USER_READ + "')")
@@ -40,4 +52,90 @@ public class WalletController {
     walletService.setPin(currentUser.getId(), request.getPin());
     return ResponseEntity.ok().build();
   }
+
+  /**
+   * API dành cho quản trị viên để chia số dư của một ví nhận nhiều giao dịch (merchant, ví khuyến
+   * mãi) thành nhiều shard.
+   *
+   * @param number số ví.
+   * @param request số shard mới.
+   * @return phản hồi rỗng khi thành công.
+   */
+  @PutMapping(ApiConstant.WALLETS_BALANCE_SHARDS)
+  @PreAuthorize("hasRole('" + SecurityConstant.ROLE_ADMIN + "')")
+  public ResponseEntity<Void> configureBalanceShards(
+      @PathVariable final String number,
+      @Valid @RequestBody final ConfigureBalanceShardsRequest request) {
+    walletService.configureBalanceShards(number, request.getShardCount());
+    return ResponseEntity.ok().build();
+  }
+
+  /**
+   * API dành cho quản trị viên để đối soát số dư của một ví với số dư suy ra từ sổ cái kép.
+   *
+   * @param number số ví.
+   * @return số dư hiện tại, số dư theo sổ cái và kết quả so khớp.
+   */
+  @GetMapping(ApiConstant.WALLETS_LEDGER_BALANCE)
+  @PreAuthorize("hasRole('" + SecurityConstant.ROLE_ADMIN + "')")
+  public ResponseEntity<WalletLedgerBalanceResponse> getLedgerBalance(
+      @PathVariable final String number) {
+    return ResponseEntity.ok(walletService.getLedgerBalance(number));
+  }
+
+  /**
+   * API dành cho quản trị viên để tra cứu số dư của một ví tại một thời điểm trong quá khứ.
+   *
+   * @param number số ví.
+   * @param at thời điểm cần tra cứu (ISO-8601, ví dụ {@code 2024-05-01T00:00:00Z}).
+   * @return số dư của ví tại thời điểm đó.
+   */
+  @GetMapping(ApiConstant.WALLETS_BALANCE_AS_OF)
+  @PreAuthorize("hasRole('" + SecurityConstant.ROLE_ADMIN + "')")
+  public ResponseEntity<WalletBalanceAsOfResponse> getBalanceAsOf(
+      @PathVariable final String number, @RequestParam final Instant at) {
+    return ResponseEntity.ok(walletService.getBalanceAsOf(number, at));
+  }
+
+  /**
+   * API lấy tổng giao dịch đã hoàn tất theo ngày hoặc theo tháng của ví người dùng hiện tại.
+   *
+   * @param currentUser người dùng hiện tại.
+   * @param request khoảng ngày ({@code from}, {@code to}) và kiểu tổng hợp ({@code granularity}).
+   * @return tổng theo từng kỳ và loại giao dịch.
+   */
+  @GetMapping(ApiConstant.WALLETS_AGGREGATES)
+  @PreAuthorize("hasAuthority('" + SecurityConstant.PERMISSION_USER_READ + "')")
+  public ResponseEntity<WalletAggregateResponse> getAggregates(
+      @AuthenticationPrincipal final User currentUser,
+      @Valid final WalletAggregateRequest request) {
+    return ResponseEntity.ok(
+        walletAggregateService.getAggregatesForUser(currentUser.getId(), request));
+  }
+
+  /**
+   * API dành cho quản trị viên để lấy tổng giao dịch đã hoàn tất theo ngày hoặc theo tháng của một
+   * ví.
+   *
+   * @param number số ví.
+   * @param request khoảng ngày ({@code from}, {@code to}) và kiểu tổng hợp ({@code granularity}).
+   * @return tổng theo từng kỳ và loại giao dịch.
+   */
+  @GetMapping(ApiConstant.WALLETS_AGGREGATES_BY_NUMBER)
+  @PreAuthorize("hasRole('" + SecurityConstant.ROLE_ADMIN + "')")
+  public ResponseEntity<WalletAggregateResponse> getAggregatesByNumber(
+      @PathVariable final String number, @Valid final WalletAggregateRequest request) {
+    return ResponseEntity.ok(walletAggregateService.getAggregates(number, request));
+  }
+
+  /**
+   * API dành cho quản trị viên để dựng lại bảng tổng hợp theo ngày từ lịch sử giao dịch.
+   *
+   * @return số ví, số dòng đã ghi và thời gian chạy.
+   */
+  @PostMapping(ApiConstant.WALLETS_AGGREGATES_BACKFILL)
+  @PreAuthorize("hasRole('" + SecurityConstant.ROLE_ADMIN + "')")
+  public ResponseEntity<WalletAggregateBackfillResponse> backfillAggregates() {
+    return ResponseEntity.ok(walletAggregateService.backfill());
+  }
 }
@@ -29,6 +29,9 @@ public class VnpayPaymentRequest {
   @JsonProperty(VnpayConstant.VNP_CREATE_DATE)
   private String vnp_CreateDate;
 
+  @JsonProperty(VnpayConstant.VNP_EXPIRE_DATE)
+  private String vnp_ExpireDate;
+
   @JsonProperty(VnpayConstant.VNP_CURR_CODE)
   private String vnp_CurrCode;
 
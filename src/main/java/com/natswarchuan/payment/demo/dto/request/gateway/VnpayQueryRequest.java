@@ -0,0 +1,69 @@
+package com.natswarchuan.payment.demo.dto.request.gateway;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.natswarchuan.payment.demo.constant.VnpayConstant;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Lớp DTO đại diện cho một yêu cầu tra cứu kết quả giao dịch ({@code querydr}) gửi đến VNPAY.
+ *
+ * <p>Khác với yêu cầu thanh toán, chữ ký của yêu cầu tra cứu được tạo từ các trường nối với nhau
+ * bằng dấu {@code |} theo thứ tự cố định do VNPAY quy định (xem {@link #toHashData()}).
+ */
+@Data
+@Builder
+public class VnpayQueryRequest {
+
+  @JsonProperty("vnp_RequestId")
+  private String vnp_RequestId;
+
+  @JsonProperty("vnp_Version")
+  private String vnp_Version;
+
+  @JsonProperty("vnp_Command")
+  private String vnp_Command;
+
+  @JsonProperty("vnp_TmnCode")
+  private String vnp_TmnCode;
+
+  @JsonProperty("vnp_TxnRef")
+  private String vnp_TxnRef;
+
+  @JsonProperty("vnp_OrderInfo")
+  private String vnp_OrderInfo;
+
+  @JsonProperty("vnp_TransactionNo")
+  private String vnp_TransactionNo;
+
+  @JsonProperty("vnp_TransactionDate")
+  private String vnp_TransactionDate;
+
+  @JsonProperty("vnp_CreateDate")
+  private String vnp_CreateDate;
+
+  @JsonProperty("vnp_IpAddr")
+  private String vnp_IpAddr;
+
+  @JsonProperty("vnp_SecureHash")
+  private String vnp_SecureHash;
+
+  /**
+   * Tạo chuỗi dữ liệu dùng để ký yêu cầu tra cứu.
+   *
+   * @return các trường cần ký, nối với nhau bằng dấu {@code |}.
+   */
+  public String toHashData() {
+    return String.join(
+        VnpayConstant.QUERY_HASH_SEPARATOR,
+        vnp_RequestId,
+        vnp_Version,
+        vnp_Command,
+        vnp_TmnCode,
+        vnp_TxnRef,
+        vnp_TransactionDate,
+        vnp_CreateDate,
+        vnp_IpAddr,
+        vnp_OrderInfo);
+  }
+}
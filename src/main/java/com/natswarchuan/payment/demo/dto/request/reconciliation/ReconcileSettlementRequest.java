@@ -0,0 +1,24 @@
+package com.natswarchuan.payment.demo.dto.request.reconciliation;
+
+import com.natswarchuan.payment.demo.constant.ValidationConstant;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
+import lombok.Data;
+
+/** DTO chứa thông tin của một yêu cầu đối soát file quyết toán với các giao dịch trong một kỳ. */
+@Data
+public class ReconcileSettlementRequest {
+
+  /** Tên file quyết toán trong thư mục {@code app.reconciliation.input-dir}. */
+  @NotBlank(message = ValidationConstant.SETTLEMENT_FILE_NAME_REQUIRED)
+  private String fileName;
+
+  /** Thời điểm bắt đầu của kỳ quyết toán (bao gồm). */
+  @NotNull(message = ValidationConstant.PERIOD_START_REQUIRED)
+  private Instant from;
+
+  /** Thời điểm kết thúc của kỳ quyết toán (không bao gồm). */
+  @NotNull(message = ValidationConstant.PERIOD_END_REQUIRED)
+  private Instant to;
+}
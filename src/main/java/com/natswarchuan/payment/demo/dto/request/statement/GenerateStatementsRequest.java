@@ -0,0 +1,13 @@
+package com.natswarchuan.payment.demo.dto.request.statement;
+
+import jakarta.validation.constraints.NotNull;
+import java.time.YearMonth;
+import lombok.Data;
+
+@Data
+public class GenerateStatementsRequest {
+
+  /** Tháng cần tạo sao kê, định dạng {@code yyyy-MM}. */
+  @NotNull(message = "Statement month is required")
+  private YearMonth month;
+}
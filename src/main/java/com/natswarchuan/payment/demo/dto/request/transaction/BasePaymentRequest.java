@@ -1,6 +1,8 @@
 package com.natswarchuan.payment.demo.dto.request.transaction;
 
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
 import com.natswarchuan.payment.demo.constant.ValidationConstant;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import java.math.BigDecimal;
@@ -18,10 +20,15 @@ import lombok.Data;
 public abstract class BasePaymentRequest {
 
   /**
-   * Số tiền của giao dịch. Phải là một số dương.
+   * Số tiền của giao dịch. Phải là một số dương, vừa với cột {@code DECIMAL(19,4)} và quy đổi được
+   * sang đơn vị nhỏ nhất khi kiểm tra hạn mức.
    */
   @NotNull(message = ValidationConstant.AMOUNT_REQUIRED)
   @Positive(message = ValidationConstant.AMOUNT_POSITIVE)
+  @Digits(
+      integer = TransactionConstant.AMOUNT_INTEGER_DIGITS,
+      fraction = TransactionConstant.AMOUNT_SCALE,
+      message = ValidationConstant.AMOUNT_DIGITS)
   private BigDecimal amount;
 
   /**
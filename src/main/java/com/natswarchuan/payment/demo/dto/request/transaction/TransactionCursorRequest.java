@@ -0,0 +1,24 @@
+package com.natswarchuan.payment.demo.dto.request.transaction;
+
+import com.natswarchuan.payment.demo.constant.AppConfigConstant;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * DTO cho truy vấn lịch sử giao dịch theo cursor: cùng các tiêu chí lọc như {@link
+ * TransactionSearchRequest}, cộng với cursor của trang trước và số giao dịch mỗi trang.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class TransactionCursorRequest extends TransactionSearchRequest {
+
+  /** Cursor {@code nextCursor} của trang trước; để trống để lấy trang đầu tiên. */
+  private String cursor;
+
+  /** Số giao dịch tối đa mỗi trang. */
+  @Min(1)
+  @Max(AppConfigConstant.CURSOR_PAGE_MAX_SIZE)
+  private int size = AppConfigConstant.CURSOR_PAGE_DEFAULT_SIZE;
+}
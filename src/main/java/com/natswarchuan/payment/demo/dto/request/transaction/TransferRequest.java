@@ -1,6 +1,8 @@
 package com.natswarchuan.payment.demo.dto.request.transaction;
 
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
 import com.natswarchuan.payment.demo.constant.ValidationConstant;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -16,6 +18,10 @@ public class TransferRequest {
 
   @NotNull(message = ValidationConstant.AMOUNT_REQUIRED)
   @Positive(message = ValidationConstant.AMOUNT_POSITIVE)
+  @Digits(
+      integer = TransactionConstant.AMOUNT_INTEGER_DIGITS,
+      fraction = TransactionConstant.AMOUNT_SCALE,
+      message = ValidationConstant.AMOUNT_DIGITS)
   private BigDecimal amount;
 
   private String description;
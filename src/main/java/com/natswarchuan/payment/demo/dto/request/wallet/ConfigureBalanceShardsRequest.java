@@ -0,0 +1,19 @@
+package com.natswarchuan.payment.demo.dto.request.wallet;
+
+import com.natswarchuan.payment.demo.constant.ValidationConstant;
+import com.natswarchuan.payment.demo.constant.WalletConstant;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/** DTO cho yêu cầu thay đổi số shard số dư của một ví. */
+@Data
+public class ConfigureBalanceShardsRequest {
+
+  /** Số shard mới; {@code 1} để bỏ chia shard. */
+  @NotNull(message = ValidationConstant.SHARD_COUNT_REQUIRED)
+  @Min(value = WalletConstant.Sharding.UNSHARDED, message = ValidationConstant.SHARD_COUNT_RANGE)
+  @Max(value = WalletConstant.Sharding.MAX_SHARDS, message = ValidationConstant.SHARD_COUNT_RANGE)
+  private Integer shardCount;
+}
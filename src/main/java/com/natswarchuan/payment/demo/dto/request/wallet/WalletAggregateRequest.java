@@ -0,0 +1,25 @@
+package com.natswarchuan.payment.demo.dto.request.wallet;
+
+import com.natswarchuan.payment.demo.constant.WalletConstant;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/** Tham số tra cứu tổng giao dịch theo ngày hoặc theo tháng của một ví. */
+@Data
+public class WalletAggregateRequest {
+
+  /** Ngày đầu của khoảng tra cứu (bao gồm). */
+  @NotNull(message = "From date is required")
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate from;
+
+  /** Ngày cuối của khoảng tra cứu (bao gồm). */
+  @NotNull(message = "To date is required")
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate to;
+
+  /** Kiểu tổng hợp: {@code DAILY} hoặc {@code MONTHLY}. */
+  private String granularity = WalletConstant.Aggregate.GRANULARITY_DAILY;
+}
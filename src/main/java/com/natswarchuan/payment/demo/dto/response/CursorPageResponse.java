@@ -0,0 +1,22 @@
+package com.natswarchuan.payment.demo.dto.response;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Một trang kết quả phân trang theo cursor.
+ *
+ * <p>Khác với {@code Page}, trang này không chứa tổng số phần tử hay tổng số trang (nên không cần
+ * truy vấn {@code COUNT}); client lấy trang kế tiếp bằng cách gửi lại {@code nextCursor}, giá trị
+ * {@code null} nghĩa là đã hết dữ liệu.
+ *
+ * @param <T> Kiểu của các phần tử.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+
+  private List<T> items;
+  private String nextCursor;
+}
@@ -1,10 +1,14 @@
 package com.natswarchuan.payment.demo.dto.response.gateway;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class CreatePaymentResponse {
 
   private String paymentUrl;
@@ -0,0 +1,32 @@
+package com.natswarchuan.payment.demo.dto.response.gateway;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Phản hồi của VNPAY cho yêu cầu tra cứu kết quả giao dịch ({@code querydr}). */
+@Data
+@NoArgsConstructor
+public class VnpayQueryResponse {
+
+  @JsonProperty("vnp_ResponseCode")
+  private String responseCode;
+
+  @JsonProperty("vnp_Message")
+  private String message;
+
+  @JsonProperty("vnp_TxnRef")
+  private String txnRef;
+
+  @JsonProperty("vnp_Amount")
+  private String amount;
+
+  @JsonProperty("vnp_TransactionNo")
+  private String transactionNo;
+
+  @JsonProperty("vnp_TransactionStatus")
+  private String transactionStatus;
+
+  @JsonProperty("vnp_SecureHash")
+  private String secureHash;
+}
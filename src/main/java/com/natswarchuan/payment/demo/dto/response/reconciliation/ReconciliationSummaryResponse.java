@@ -0,0 +1,20 @@
+package com.natswarchuan.payment.demo.dto.response.reconciliation;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** DTO trả về kết quả tổng hợp của một lần đối soát file quyết toán. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationSummaryResponse {
+
+  private String fileName;
+  private String reportFile;
+  private long fileRows;
+  private long matched;
+  private int passes;
+  private Map<String, Long> mismatches;
+}
@@ -0,0 +1,24 @@
+package com.natswarchuan.payment.demo.dto.response.statement;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** DTO trả về kết quả tổng hợp và thông lượng của một lần tạo sao kê hàng tháng. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyStatementSummaryResponse {
+
+  private String month;
+  private String outputDir;
+  private String resumedAfterWalletId;
+  private long partitions;
+  private long failedPartitions;
+  private long wallets;
+  private long transactions;
+  private long bytesWritten;
+  private long elapsedMs;
+  private double transactionsPerSecond;
+  private double walletsPerSecond;
+}
@@ -5,9 +5,19 @@ import com.natswarchuan.payment.demo.interfaces.IDto;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
+/**
+ * DTO tóm tắt một giao dịch.
+ *
+ * <p>Constructor đầy đủ tham số được dùng trong các truy vấn projection ({@code SELECT new ...}),
+ * nên thứ tự các trường phải khớp với thứ tự cột trong các truy vấn đó.
+ */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class TransactionSummaryResponse implements IDto<Transaction> {
 
   private UUID id;
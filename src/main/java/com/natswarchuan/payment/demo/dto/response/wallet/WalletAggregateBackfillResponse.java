@@ -0,0 +1,18 @@
+package com.natswarchuan.payment.demo.dto.response.wallet;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** DTO trả về kết quả tổng hợp của một lần dựng lại bảng tổng hợp theo ngày từ lịch sử. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletAggregateBackfillResponse {
+
+  private long partitions;
+  private long failedPartitions;
+  private long wallets;
+  private long rowsWritten;
+  private long elapsedMs;
+}
@@ -0,0 +1,23 @@
+package com.natswarchuan.payment.demo.dto.response.wallet;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO trả về tổng của một loại giao dịch trong một kỳ (một ngày hoặc một tháng).
+ *
+ * <p>{@code periodStart} là ngày của kỳ theo ngày, hoặc ngày đầu tháng của kỳ theo tháng.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletAggregateBucketResponse {
+
+  private LocalDate periodStart;
+  private Integer type;
+  private long count;
+  private BigDecimal amount;
+}
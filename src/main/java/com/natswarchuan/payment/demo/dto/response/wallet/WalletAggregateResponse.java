@@ -0,0 +1,20 @@
+package com.natswarchuan.payment.demo.dto.response.wallet;
+
+import java.time.LocalDate;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** DTO trả về tổng giao dịch theo ngày hoặc theo tháng của một ví trong một khoảng ngày. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletAggregateResponse {
+
+  private String number;
+  private String granularity;
+  private LocalDate from;
+  private LocalDate to;
+  private List<WalletAggregateBucketResponse> buckets;
+}
@@ -0,0 +1,19 @@
+package com.natswarchuan.payment.demo.dto.response.wallet;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** DTO trả về số dư của ví tại một thời điểm trong quá khứ. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletBalanceAsOfResponse {
+
+  private String number;
+  private Instant at;
+  private BigDecimal balance;
+  private Instant snapshotAt;
+}
@@ -0,0 +1,18 @@
+package com.natswarchuan.payment.demo.dto.response.wallet;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** DTO đối soát số dư của ví với số dư suy ra từ sổ cái kép. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletLedgerBalanceResponse {
+
+  private String number;
+  private BigDecimal balance;
+  private BigDecimal ledgerBalance;
+  private boolean consistent;
+}
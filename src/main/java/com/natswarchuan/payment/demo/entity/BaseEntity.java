@@ -10,7 +10,6 @@ import java.util.Random;
 import java.util.UUID;
 import lombok.Getter;
 import lombok.Setter;
-import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 /**
@@ -28,7 +27,10 @@ public abstract class BaseEntity {
   @Column(updatable = false, nullable = false, columnDefinition = "BINARY(16)")
   private UUID id;
 
-  @CreationTimestamp
+  /**
+   * Thời điểm tạo thực thể. Được gán khi lưu lần đầu nếu chưa được cung cấp; các hàng có ID cấp
+   * trước (như giao dịch ghi lại từ journal) gán sẵn giá trị khớp với dấu thời gian trong ID.
+   */
   @Column(updatable = false, nullable = false)
   private Instant createdAt;
 
@@ -47,12 +49,16 @@ public abstract class BaseEntity {
   /**
    * Hàm callback được gọi trước khi một thực thể được lưu lần đầu tiên.
    *
-   * <p>Tự động tạo một UUID v7 (time-ordered) nếu ID chưa được cung cấp.
+   * <p>Tự động tạo một UUID v7 (time-ordered) nếu ID chưa được cung cấp và gán thời điểm tạo nếu
+   * chưa có.
    */
   @PrePersist
   protected void onCreate() {
     if (this.id == null) {
       this.id = Generators.timeBasedEpochGenerator(new Random()).generate();
     }
+    if (this.createdAt == null) {
+      this.createdAt = Instant.now();
+    }
   }
 }
@@ -0,0 +1,89 @@
+package com.natswarchuan.payment.demo.entity;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Lớp Entity đại diện cho một IPN đã được xác thực chữ ký nhưng chưa được áp dụng.
+ *
+ * <p>Ở chế độ xử lý bất đồng bộ, IPN được ghi vào bảng này rồi trả lời cổng thanh toán ngay; worker
+ * IPN áp dụng các hàng theo thứ tự {@code id} trong từng giao dịch. Khi worker nhận một hàng, hàng
+ * được giữ (lease) đến {@code lockedUntil}; nếu tiến trình dừng giữa chừng, hàng được nhận lại sau
+ * khi lease hết hạn.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(
+    name = EntityConstant.TABLE_IPN_INBOX,
+    indexes = {
+      @Index(name = EntityConstant.INDEX_IPN_INBOX_DUE, columnList = "status, nextAttemptAt"),
+      @Index(
+          name = EntityConstant.INDEX_IPN_INBOX_TRANSACTION,
+          columnList = EntityConstant.COLUMN_TRANSACTION_ID + ", id")
+    })
+public class IpnInbox {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(
+      name = EntityConstant.COLUMN_TRANSACTION_ID,
+      nullable = false,
+      columnDefinition = "BINARY(16)")
+  private UUID transactionId;
+
+  /** Loại giao dịch của IPN ({@link TransactionConstant.Type#DEPOSIT} hoặc {@code WITHDRAWAL}). */
+  @Column(nullable = false)
+  private Integer type;
+
+  private String providerTransactionId;
+
+  @Column(precision = 19, scale = 4)
+  private BigDecimal amount;
+
+  @Column(nullable = false)
+  private Integer transactionStatus;
+
+  private String message;
+
+  @Column(nullable = false)
+  @Builder.Default
+  private Integer status = TransactionConstant.IpnInboxStatus.PENDING;
+
+  @Column(nullable = false)
+  @Builder.Default
+  private Integer attempts = 0;
+
+  @Column(nullable = false)
+  private Instant nextAttemptAt;
+
+  private Instant lockedUntil;
+
+  @Column(columnDefinition = "TEXT")
+  private String lastError;
+
+  @Column(nullable = false, updatable = false)
+  private Instant createdAt;
+
+  private Instant updatedAt;
+}
@@ -0,0 +1,41 @@
+package com.natswarchuan.payment.demo.entity;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+
+/**
+ * Lớp Entity ghi nhận vị trí đã được ghi xuống cơ sở dữ liệu của journal của từng partition trong
+ * engine số dư trong bộ nhớ ({@code IN_MEMORY}).
+ *
+ * <p>Checkpoint được cập nhật trong cùng giao dịch với các hàng {@link Transaction} và thay đổi số
+ * dư của một lô, nên khi khởi động lại, mọi bản ghi journal có số thứ tự lớn hơn {@code
+ * lastSequence} chắc chắn chưa có trong cơ sở dữ liệu và cần được ghi lại.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = EntityConstant.TABLE_LEDGER_CHECKPOINTS)
+public class LedgerCheckpoint {
+
+  @Id private Integer partitionId;
+
+  @Column(nullable = false)
+  private Long lastSequence;
+
+  @UpdateTimestamp
+  @Column(nullable = false)
+  private Instant updatedAt;
+}
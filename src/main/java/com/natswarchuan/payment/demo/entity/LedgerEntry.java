@@ -0,0 +1,70 @@
+package com.natswarchuan.payment.demo.entity;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Lớp Entity đại diện cho một bút toán trong sổ cái kép (double-entry).
+ *
+ * <p>Mỗi lần tiền di chuyển (chuyển tiền, nạp tiền, rút tiền, hoàn tiền) tạo đúng hai bút toán có
+ * cùng {@code movementId} và cùng số tiền: một bút toán ghi nợ ở tài khoản nguồn và một bút toán
+ * ghi có ở tài khoản đích. Tài khoản là một ví, hoặc một tài khoản hệ thống (ví dụ: tài khoản trung
+ * gian với cổng thanh toán) khi {@code walletId} là {@code null}.
+ *
+ * <p>Bảng chỉ được ghi thêm, không bao giờ sửa hay xóa. Số dư của ví trên bảng {@code wallets} là
+ * một projection được cập nhật tăng dần; số dư suy ra từ sổ cái (tổng ghi có trừ tổng ghi nợ) dùng
+ * để đối soát và kiểm toán.
+ */
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(
+    name = EntityConstant.TABLE_LEDGER_ENTRIES,
+    indexes = {
+      @Index(
+          name = EntityConstant.INDEX_LEDGER_WALLET_CREATED,
+          columnList = EntityConstant.COLUMN_WALLET_ID + ", " + EntityConstant.COLUMN_CREATED_AT),
+      @Index(name = EntityConstant.INDEX_LEDGER_MOVEMENT, columnList = EntityConstant.COLUMN_MOVEMENT_ID)
+    })
+public class LedgerEntry {
+
+  @Id
+  @Column(updatable = false, nullable = false, columnDefinition = "BINARY(16)")
+  private UUID id;
+
+  @Column(name = EntityConstant.COLUMN_MOVEMENT_ID, nullable = false, columnDefinition = "BINARY(16)")
+  private UUID movementId;
+
+  @Column(name = EntityConstant.COLUMN_WALLET_ID, columnDefinition = "BINARY(16)")
+  private UUID walletId;
+
+  @Column(nullable = false)
+  private Integer accountType;
+
+  @Column(nullable = false)
+  private Integer direction;
+
+  @Column(nullable = false, precision = 19, scale = 4)
+  private BigDecimal amount;
+
+  @Column(columnDefinition = "BINARY(16)")
+  private UUID transactionId;
+
+  @Column(name = EntityConstant.COLUMN_CREATED_AT, nullable = false, updatable = false)
+  private Instant createdAt;
+}
@@ -0,0 +1,84 @@
+package com.natswarchuan.payment.demo.entity;
+
+import com.fasterxml.uuid.Generators;
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.Random;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lớp Entity đại diện cho một sự kiện trong outbox, được ghi trong cùng giao dịch với thay đổi mà
+ * nó mô tả.
+ *
+ * <p>Sự kiện được chia partition theo ví ({@code aggregateId}). {@code id} là UUID v7 do ứng dụng
+ * gán trước khi persist, nên các sự kiện ghi trong một giao dịch được insert theo lô. Vì thứ tự
+ * {@code id} không phản ánh thứ tự commit, relay không chuyển tiếp theo {@code id}: khi giữ lease
+ * của partition, relay nhận (claim) các sự kiện đã commit nhưng chưa có {@code sequenceNo} và cấp
+ * cho chúng số thứ tự tăng dần của partition, rồi chuyển tiếp theo {@code sequenceNo}. Sự kiện
+ * commit muộn luôn nhận số thứ tự sau các sự kiện đã được nhận trước đó.
+ */
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(
+    name = EntityConstant.TABLE_OUTBOX_EVENTS,
+    indexes = {
+      @Index(
+          name = EntityConstant.INDEX_OUTBOX_PARTITION_PENDING,
+          columnList = "partitionNo, publishedAt, sequenceNo")
+    })
+public class OutboxEvent {
+
+  @Id
+  @Column(updatable = false, nullable = false, columnDefinition = "BINARY(16)")
+  private UUID id;
+
+  @Column(nullable = false, columnDefinition = "BINARY(16)")
+  private UUID aggregateId;
+
+  @Column(nullable = false)
+  private Integer partitionNo;
+
+  @Column(nullable = false, length = 64)
+  private String eventType;
+
+  @Column(nullable = false, columnDefinition = "TEXT")
+  private String payload;
+
+  @Column(nullable = false, updatable = false)
+  private Instant createdAt;
+
+  private Instant publishedAt;
+
+  /** Số thứ tự trong partition do relay cấp khi nhận sự kiện; {@code null} nếu chưa được nhận. */
+  private Long sequenceNo;
+
+  /**
+   * Gán số thứ tự chuyển tiếp cho sự kiện.
+   *
+   * @param sequenceNo Số thứ tự trong partition.
+   */
+  public void claim(final long sequenceNo) {
+    this.sequenceNo = sequenceNo;
+  }
+
+  /** Tạo một UUID v7 nếu ID chưa được cung cấp. */
+  @PrePersist
+  protected void onCreate() {
+    if (this.id == null) {
+      this.id = Generators.timeBasedEpochGenerator(new Random()).generate();
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.natswarchuan.payment.demo.entity;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+/**
+ * Lớp Entity đại diện cho một partition của outbox.
+ *
+ * <p>Hàng này đóng vai trò lease: relay khóa hàng ({@code FOR UPDATE SKIP LOCKED}) trong suốt thời
+ * gian chuyển tiếp một lô của partition, nên tại mỗi thời điểm chỉ một instance chuyển tiếp một
+ * partition và thứ tự sự kiện trong partition được giữ nguyên. {@code lastSequence} là số thứ tự
+ * cuối cùng relay đã cấp cho một sự kiện của partition.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = EntityConstant.TABLE_OUTBOX_PARTITIONS)
+public class OutboxPartition {
+
+  @Id private Integer partitionNo;
+
+  @Column(nullable = false)
+  @ColumnDefault("0")
+  private Long lastSequence;
+}
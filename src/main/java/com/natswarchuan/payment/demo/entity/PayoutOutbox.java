@@ -0,0 +1,68 @@
+package com.natswarchuan.payment.demo.entity;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Lớp Entity đại diện cho một yêu cầu chi trả (rút tiền) đang chờ gửi tới cổng thanh toán.
+ *
+ * <p>Hàng này được ghi trong cùng giao dịch với việc giữ chỗ số tiền rút, nên một giao dịch rút
+ * tiền đã commit luôn có đúng một yêu cầu chi trả. Worker chi trả nhận các hàng đến hạn, gọi cổng
+ * thanh toán ngoài mọi giao dịch cơ sở dữ liệu và ghi lại kết quả. Khi worker nhận một hàng, hàng
+ * được giữ (lease) đến {@code lockedUntil}; nếu tiến trình dừng giữa chừng, hàng được nhận lại sau
+ * khi lease hết hạn. {@code spendLimitReservation} lưu giữ chỗ hạn mức rút tiền của yêu cầu, để
+ * được trả lại khi yêu cầu bị từ chối.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(
+    name = EntityConstant.TABLE_PAYOUT_OUTBOX,
+    indexes = {
+      @Index(name = EntityConstant.INDEX_PAYOUT_OUTBOX_DUE, columnList = "status, nextAttemptAt")
+    })
+public class PayoutOutbox extends BaseEntity {
+
+  @Column(
+      name = EntityConstant.COLUMN_TRANSACTION_ID,
+      nullable = false,
+      unique = true,
+      columnDefinition = "BINARY(16)")
+  private UUID transactionId;
+
+  @Column(nullable = false, length = 50)
+  private String provider;
+
+  @Column(nullable = false)
+  @Builder.Default
+  private Integer status = TransactionConstant.PayoutStatus.PENDING;
+
+  @Column(nullable = false)
+  @Builder.Default
+  private Integer attempts = 0;
+
+  @Column(nullable = false)
+  private Instant nextAttemptAt;
+
+  private Instant lockedUntil;
+
+  @Column(columnDefinition = "TEXT")
+  private String lastError;
+
+  @Column(columnDefinition = "TEXT")
+  private String spendLimitReservation;
+}
@@ -0,0 +1,32 @@
+package com.natswarchuan.payment.demo.entity;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Lớp Entity đại diện cho hàng heartbeat dùng để đo độ trễ của read replica.
+ *
+ * <p>Bảng chỉ có một hàng. Primary ghi thời điểm hiện tại vào {@code beatAt} theo chu kỳ; độ trễ
+ * của một replica là khoảng cách giữa lúc đọc và giá trị {@code beatAt} mà replica đang thấy.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = EntityConstant.TABLE_REPLICATION_HEARTBEAT)
+public class ReplicationHeartbeat {
+
+  @Id private Integer id;
+
+  @Column(nullable = false)
+  private Instant beatAt;
+}
@@ -3,26 +3,36 @@ package com.natswarchuan.payment.demo.entity;
 import com.natswarchuan.payment.demo.constant.EntityConstant;
 import com.natswarchuan.payment.demo.constant.TransactionConstant;
 import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 /**
  * Lớp Entity đại diện cho một giao dịch trong hệ thống.
  *
  * <p>Mỗi bản ghi trong bảng này tương ứng với một hành động tài chính như nạp tiền, rút tiền,
  * chuyển tiền.
+ *
+ * <p>Bảng có thể được phân vùng theo tháng trên {@code created_at} (xem {@link
+ * com.natswarchuan.payment.demo.service.partition.TransactionPartitionManager}). MySQL không hỗ
+ * trợ khóa ngoại trên bảng được phân vùng, nên các quan hệ dưới đây không tạo ràng buộc khóa ngoại;
+ * khóa chính của bảng khi đó là {@code (id, created_at)}, còn Hibernate vẫn định danh theo {@code
+ * id}.
  */
 @Getter
 @Setter
@@ -38,8 +48,14 @@ import lombok.Setter;
           columnList =
               EntityConstant.COLUMN_WALLET_ID + ", " + EntityConstant.FIELD_CREATED_AT + " DESC"),
       @Index(
-          name = EntityConstant.INDEX_TXN_STATUS_TYPE,
-          columnList = EntityConstant.TXN_FIELD_STATUS + ", " + EntityConstant.TXN_FIELD_TYPE),
+          name = EntityConstant.INDEX_TXN_STATUS_TYPE_CREATED,
+          columnList =
+              EntityConstant.TXN_FIELD_STATUS
+                  + ", "
+                  + EntityConstant.TXN_FIELD_TYPE
+                  + ", "
+                  + EntityConstant.FIELD_CREATED_AT
+                  + ", id"),
       @Index(
           name = EntityConstant.INDEX_TXN_PROVIDER_ID,
           columnList = "providerTransactionId")
@@ -47,11 +63,16 @@ import lombok.Setter;
 public class Transaction extends BaseEntity {
 
   @ManyToOne(fetch = FetchType.LAZY)
-  @JoinColumn(name = EntityConstant.COLUMN_WALLET_ID, nullable = false)
+  @JoinColumn(
+      name = EntityConstant.COLUMN_WALLET_ID,
+      nullable = false,
+      foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
   private Wallet wallet;
 
   @ManyToOne(fetch = FetchType.LAZY)
-  @JoinColumn(name = EntityConstant.COLUMN_PAYMENT_METHOD_ID)
+  @JoinColumn(
+      name = EntityConstant.COLUMN_PAYMENT_METHOD_ID,
+      foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
   private PaymentMethod paymentMethod;
 
   @Column(nullable = false, precision = 19, scale = 4)
@@ -86,13 +107,28 @@ public class Transaction extends BaseEntity {
   @Column(columnDefinition = "TEXT")
   private String providerResponse;
 
+  /** Cổng thanh toán đã tạo URL thanh toán của giao dịch nạp tiền, dùng để tra cứu lại kết quả. */
+  @Column(length = 50)
+  private String provider;
+
   @ManyToOne(fetch = FetchType.LAZY)
-  @JoinColumn(name = EntityConstant.COLUMN_RELATED_TRANSACTION_ID)
+  @JoinColumn(
+      name = EntityConstant.COLUMN_RELATED_TRANSACTION_ID,
+      foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
   private Transaction relatedTransaction;
 
   @Column(length = 45)
   private String ipAddress; 
 
+  /**
+   * Phiên bản của giao dịch, dùng để phát hiện hai lần xử lý đồng thời của cùng một giao dịch (ví
+   * dụ: hai IPN trùng lặp với engine khóa lạc quan) khi không có khóa hàng nào được giữ.
+   */
+  @Version
+  @Column(nullable = false)
+  @ColumnDefault("0")
+  private Long version;
+
   /**
    * Tự động tính toán giá trị `netAmount` trước khi lưu hoặc cập nhật.
    */
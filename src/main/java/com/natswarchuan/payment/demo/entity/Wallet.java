@@ -10,6 +10,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import java.util.List;
 import lombok.Data;
@@ -24,6 +25,15 @@ import org.hibernate.annotations.SQLRestriction;
  *
  * <p><b>Xóa mềm (Soft Delete):</b> Thực thể này sử dụng cơ chế xóa mềm. Khi một bản ghi bị xóa,
  * trường {@code deleted_at} sẽ được cập nhật thay vì xóa vĩnh viễn.
+ *
+ * <p><b>Khóa lạc quan (Optimistic Locking):</b> Trường {@code version} được tăng sau mỗi lần cập
+ * nhật. Engine {@code OPTIMISTIC} dựa vào nó để phát hiện cập nhật đồng thời thay vì khóa hàng;
+ * các engine khác vẫn giữ cho giá trị này luôn tăng để hai cơ chế có thể cùng tồn tại.
+ *
+ * <p><b>Chia shard số dư:</b> Khi {@code shardCount > 1}, phần lớn tiền nhận vào được ghi vào các
+ * hàng {@link WalletBalanceShard} thay vì hàng ví này, và {@code balance} chỉ là phần số dư "gốc".
+ * Số dư thực của ví là tổng của {@code balance} và mọi shard; luôn đọc qua {@code
+ * WalletBalanceHelper#getTotalBalance(Wallet)}.
  */
 @EqualsAndHashCode(callSuper = true)
 @Entity
@@ -52,6 +62,15 @@ public class Wallet extends BaseEntity {
   @ColumnDefault("1")
   private Integer status = WalletConstant.Status.ACTIVE;
 
+  @Version
+  @Column(nullable = false)
+  @ColumnDefault("0")
+  private Long version;
+
+  @Column(nullable = false)
+  @ColumnDefault("1")
+  private Integer shardCount = WalletConstant.Sharding.UNSHARDED;
+
   @OneToOne
   @JoinColumn(
       name = EntityConstant.COLUMN_USER_ID,
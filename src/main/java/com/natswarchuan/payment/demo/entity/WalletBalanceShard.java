@@ -0,0 +1,51 @@
+package com.natswarchuan.payment.demo.entity;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+/**
+ * Lớp Entity đại diện cho một sub-balance (shard) của một ví có lưu lượng nhận tiền lớn.
+ *
+ * <p>Với các ví nhận hàng nghìn giao dịch mỗi phút (ví dụ: ví của merchant), mọi giao dịch cộng
+ * tiền đều phải tuần tự hóa trên cùng một hàng {@code wallets}. Chia số dư thành N hàng cho phép
+ * các giao dịch cộng tiền đồng thời rơi vào các hàng khác nhau và chỉ khóa hàng của chính nó.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(
+    name = EntityConstant.TABLE_WALLET_BALANCE_SHARDS,
+    uniqueConstraints = {
+      @UniqueConstraint(
+          name = EntityConstant.UK_SHARD_WALLET_INDEX,
+          columnNames = {EntityConstant.COLUMN_WALLET_ID, EntityConstant.COLUMN_SHARD_INDEX})
+    })
+public class WalletBalanceShard extends BaseEntity {
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = EntityConstant.COLUMN_WALLET_ID, nullable = false)
+  private Wallet wallet;
+
+  @Column(name = EntityConstant.COLUMN_SHARD_INDEX, nullable = false)
+  private Integer shardIndex;
+
+  @Column(nullable = false, precision = 19, scale = 4)
+  @ColumnDefault("0.0000")
+  private BigDecimal balance;
+}
@@ -0,0 +1,53 @@
+package com.natswarchuan.payment.demo.entity;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Lớp Entity đại diện cho số dư của một ví tại một thời điểm chụp (snapshot).
+ *
+ * <p>Số dư được tính từ sổ cái kép: số dư của snapshot trước đó cộng các bút toán của ví có {@code
+ * created_at} nằm trong khoảng giữa hai lần chụp. Ví không phát sinh bút toán nào kể từ lần chụp
+ * trước thì không được chụp lại, vì snapshot cũ vẫn đúng. Số dư tại một thời điểm bất kỳ là số dư
+ * của snapshot gần nhất trước đó cộng các bút toán từ đó đến thời điểm cần tra cứu.
+ */
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(
+    name = EntityConstant.TABLE_WALLET_BALANCE_SNAPSHOTS,
+    uniqueConstraints = {
+      @UniqueConstraint(
+          name = EntityConstant.INDEX_SNAPSHOT_WALLET_AT,
+          columnNames = {EntityConstant.COLUMN_WALLET_ID, EntityConstant.COLUMN_SNAPSHOT_AT})
+    })
+public class WalletBalanceSnapshot {
+
+  @Id
+  @Column(updatable = false, nullable = false, columnDefinition = "BINARY(16)")
+  private UUID id;
+
+  @Column(name = EntityConstant.COLUMN_WALLET_ID, nullable = false, columnDefinition = "BINARY(16)")
+  private UUID walletId;
+
+  @Column(name = EntityConstant.COLUMN_SNAPSHOT_AT, nullable = false)
+  private Instant snapshotAt;
+
+  @Column(nullable = false, precision = 19, scale = 4)
+  private BigDecimal balance;
+}
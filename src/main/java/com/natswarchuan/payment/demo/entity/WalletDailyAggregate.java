@@ -0,0 +1,45 @@
+package com.natswarchuan.payment.demo.entity;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Lớp Entity lưu tổng số giao dịch đã hoàn tất và tổng số tiền của một ví theo ngày và loại giao
+ * dịch.
+ *
+ * <p>Bảng được cập nhật cộng dồn bằng một câu lệnh upsert trong cùng giao dịch ghi nhận giao dịch
+ * hoàn tất (xem {@link com.natswarchuan.payment.demo.helper.WalletAggregateHelper}), nên các bảng
+ * điều khiển và kiểm tra hạn mức đọc được tổng theo ngày hoặc theo tháng với chi phí tỉ lệ với số
+ * ngày thay vì số giao dịch. Khóa chính {@code (wallet_id, business_date, type)} cũng là chỉ mục
+ * phục vụ truy vấn theo khoảng ngày của một ví.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = EntityConstant.TABLE_WALLET_DAILY_AGGREGATES)
+public class WalletDailyAggregate {
+
+  @EmbeddedId private WalletDailyAggregateId id;
+
+  @Column(nullable = false)
+  private Long txCount;
+
+  @Column(nullable = false, precision = 19, scale = 4)
+  private BigDecimal totalAmount;
+
+  @Column(nullable = false)
+  private Instant updatedAt;
+}
@@ -0,0 +1,33 @@
+package com.natswarchuan.payment.demo.entity;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/** Khóa chính của {@link WalletDailyAggregate}: ví, ngày nghiệp vụ và loại giao dịch. */
+@Getter
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class WalletDailyAggregateId implements Serializable {
+
+  @Column(
+      name = EntityConstant.COLUMN_WALLET_ID,
+      nullable = false,
+      columnDefinition = "BINARY(16)")
+  private UUID walletId;
+
+  @Column(name = EntityConstant.COLUMN_BUSINESS_DATE, nullable = false)
+  private LocalDate businessDate;
+
+  @Column(nullable = false)
+  private Integer type;
+}
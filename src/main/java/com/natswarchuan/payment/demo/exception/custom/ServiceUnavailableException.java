@@ -0,0 +1,33 @@
+package com.natswarchuan.payment.demo.exception.custom;
+
+import com.natswarchuan.payment.demo.exception.HttpException;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Lớp ngoại lệ (exception) được ném ra khi hệ thống tạm thời không thể nhận thêm yêu cầu (ví dụ
+ * hàng đợi xử lý đã đầy).
+ * <p>
+ * Lớp này mở rộng từ {@link HttpException} và mặc định trả về mã trạng thái HTTP 503 (Service
+ * Unavailable).
+ */
+public class ServiceUnavailableException extends HttpException {
+
+  /**
+   * Khởi tạo một ServiceUnavailableException với một thông báo cụ thể.
+   *
+   * @param message Thông báo lỗi chi tiết.
+   */
+  public ServiceUnavailableException(String message) {
+    super(HttpStatus.SERVICE_UNAVAILABLE, message);
+  }
+
+  /**
+   * Khởi tạo một ServiceUnavailableException với một chuỗi định dạng và các đối số.
+   *
+   * @param format Chuỗi định dạng cho thông báo lỗi.
+   * @param args   Các đối số được tham chiếu bởi các mã định dạng trong chuỗi format.
+   */
+  public ServiceUnavailableException(String format, Object... args) {
+    super(HttpStatus.SERVICE_UNAVAILABLE, format, args);
+  }
+}
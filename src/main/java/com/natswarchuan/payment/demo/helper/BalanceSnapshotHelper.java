@@ -0,0 +1,159 @@
+package com.natswarchuan.payment.demo.helper;
+
+import com.natswarchuan.payment.demo.config.datasource.ReplicaRoutingContext;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.entity.WalletBalanceSnapshot;
+import com.natswarchuan.payment.demo.exception.custom.BadRequestException;
+import com.natswarchuan.payment.demo.repository.LedgerEntryRepository;
+import com.natswarchuan.payment.demo.repository.WalletBalanceSnapshotRepository;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Lớp helper chụp số dư định kỳ của các ví và tra cứu số dư tại một thời điểm trong quá khứ.
+ *
+ * <p>Mỗi lần chụp, các ví được chia thành nhiều partition và mỗi partition được ghi song song bởi
+ * một luồng riêng, trong một giao dịch riêng. Mốc chụp lùi lại một khoảng {@code lag} so với hiện
+ * tại để các giao dịch đang chạy (có bút toán với {@code created_at} trước mốc nhưng chưa commit)
+ * không bị bỏ sót.
+ *
+ * <p>Số dư tại thời điểm {@code at} bằng số dư của snapshot gần nhất trước {@code at} cộng các bút
+ * toán của ví trong khoảng từ snapshot đến {@code at}; khoảng quét vì vậy bị giới hạn bởi chu kỳ
+ * chụp thay vì toàn bộ lịch sử của ví.
+ */
+@Component
+@Slf4j
+public class BalanceSnapshotHelper {
+
+  private final WalletBalanceSnapshotRepository snapshotRepository;
+  private final LedgerEntryRepository ledgerEntryRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final int partitions;
+  private final Duration lag;
+  private final boolean ledgerEnabled;
+  private final ExecutorService executor;
+
+  /**
+   * Khởi tạo BalanceSnapshotHelper.
+   *
+   * @param snapshotRepository Kho lưu trữ cho snapshot số dư.
+   * @param ledgerEntryRepository Kho lưu trữ cho bút toán.
+   * @param transactionManager Trình quản lý giao dịch cho mỗi partition.
+   * @param partitions Số partition được chụp song song.
+   * @param lagSeconds Khoảng lùi (giây) của mốc chụp so với hiện tại.
+   * @param ledgerEnabled Sổ cái kép có đang bật hay không.
+   */
+  public BalanceSnapshotHelper(
+      final WalletBalanceSnapshotRepository snapshotRepository,
+      final LedgerEntryRepository ledgerEntryRepository,
+      final PlatformTransactionManager transactionManager,
+      @Value("${app.ledger.snapshot.partitions:4}") final int partitions,
+      @Value("${app.ledger.snapshot.lag-seconds:60}") final long lagSeconds,
+      @Value("${app.ledger.enabled:true}") final boolean ledgerEnabled) {
+    this.snapshotRepository = snapshotRepository;
+    this.ledgerEntryRepository = ledgerEntryRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.partitions = Math.max(1, partitions);
+    this.lag = Duration.ofSeconds(lagSeconds);
+    this.ledgerEnabled = ledgerEnabled;
+    this.executor = Executors.newFixedThreadPool(this.partitions);
+  }
+
+  /** Chụp số dư của mọi ví có thay đổi kể từ lần chụp trước. */
+  @Scheduled(
+      cron = "${app.ledger.snapshot.cron:0 0 * * * *}",
+      zone = "${app.ledger.snapshot.zone:UTC}")
+  public void takeSnapshots() {
+    ReplicaRoutingContext.clear();
+    try {
+      if (!ledgerEnabled) {
+        return;
+      }
+      final Instant cutoff = Instant.now().minus(lag).truncatedTo(ChronoUnit.SECONDS);
+      final long startedAt = System.currentTimeMillis();
+      final List<CompletableFuture<Integer>> tasks =
+          IntStream.range(0, partitions)
+              .mapToObj(
+                  partition ->
+                      CompletableFuture.supplyAsync(
+                          () ->
+                              ReplicaRoutingContext.call(
+                                  () ->
+                                      transactionTemplate.execute(
+                                          status ->
+                                              snapshotRepository.insertSnapshots(
+                                                  cutoff, partitions, partition))),
+                          executor))
+              .toList();
+      try {
+        final int total = tasks.stream().mapToInt(CompletableFuture::join).sum();
+        log.info(
+            LogConstant.BALANCE_SNAPSHOT_TAKEN,
+            cutoff,
+            total,
+            System.currentTimeMillis() - startedAt);
+      } catch (RuntimeException e) {
+        log.error(LogConstant.BALANCE_SNAPSHOT_FAILED, cutoff, e);
+      }
+    } finally {
+      ReplicaRoutingContext.clear();
+    }
+  }
+
+  /**
+   * Tính số dư của ví tại một thời điểm.
+   *
+   * @param walletId ID của ví.
+   * @param at Thời điểm tra cứu.
+   * @return snapshot được dùng làm mốc (nếu có) và số dư tại {@code at}.
+   * @throws BadRequestException nếu sổ cái kép bị tắt hoặc {@code at} ở tương lai.
+   */
+  public BalanceAsOf getBalanceAsOf(final UUID walletId, final Instant at) {
+    if (!ledgerEnabled) {
+      throw new BadRequestException(MessageConstant.Wallet.BALANCE_HISTORY_UNAVAILABLE);
+    }
+    if (at.isAfter(Instant.now())) {
+      throw new BadRequestException(MessageConstant.Wallet.BALANCE_AS_OF_IN_FUTURE);
+    }
+    final Optional<WalletBalanceSnapshot> snapshot =
+        snapshotRepository.findFirstByWalletIdAndSnapshotAtLessThanEqualOrderBySnapshotAtDesc(
+            walletId, at);
+    final Instant snapshotAt = snapshot.map(WalletBalanceSnapshot::getSnapshotAt).orElse(null);
+    final BigDecimal base = snapshot.map(WalletBalanceSnapshot::getBalance).orElse(BigDecimal.ZERO);
+    final BigDecimal delta =
+        ledgerEntryRepository.sumBalanceDeltaByWalletIdBetween(
+            walletId, snapshotAt == null ? Instant.EPOCH : snapshotAt, at);
+    return new BalanceAsOf(base.add(delta), snapshotAt);
+  }
+
+  /** Dừng các luồng chụp số dư. */
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  /**
+   * Kết quả tra cứu số dư tại một thời điểm.
+   *
+   * @param balance Số dư tại thời điểm tra cứu.
+   * @param snapshotAt Mốc của snapshot được dùng, {@code null} nếu tính từ đầu sổ cái.
+   */
+  public record BalanceAsOf(BigDecimal balance, Instant snapshotAt) {}
+}
@@ -0,0 +1,317 @@
+package com.natswarchuan.payment.demo.helper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.DecimalNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.natswarchuan.payment.demo.constant.AppConfigConstant;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.exception.custom.BadRequestException;
+import com.natswarchuan.payment.demo.exception.custom.ConflictException;
+import com.natswarchuan.payment.demo.repository.IdempotencyKeyRepository;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lớp helper bảo đảm một yêu cầu có header {@code Idempotency-Key} chỉ được thực hiện một lần.
+ *
+ * <p>Khóa được phân phạm vi theo người dùng và loại thao tác. Yêu cầu đầu tiên giữ khóa trong Redis
+ * ({@code SET NX}) rồi thực hiện thao tác; phản hồi thành công được lưu lại và phát lại nguyên văn
+ * cho các lần gửi lại sau đó, kèm một bộ nhớ đệm cục bộ ngắn hạn để không phải đọc Redis cho các
+ * lần gửi lại dồn dập. Một yêu cầu trùng đến khi yêu cầu gốc còn đang chạy sẽ chờ kết quả của yêu
+ * cầu gốc (chờ trực tiếp nếu cùng một instance, thăm dò Redis nếu khác instance) thay vì lấy khóa
+ * ví thêm một lần nữa.
+ *
+ * <p>Nếu thao tác thất bại, khóa được giải phóng để client có thể thử lại; các yêu cầu trùng đang
+ * chờ trên cùng instance nhận lại đúng lỗi đó. Dùng lại một khóa với nội dung yêu cầu khác bị từ
+ * chối.
+ *
+ * <p>Nội dung yêu cầu được so sánh qua một dấu vân tay (SHA-256) được lưu trong Redis. Dấu vân tay
+ * bỏ qua các trường thông tin xác thực ({@link AppConfigConstant#IDEMPOTENCY_EXCLUDED_FIELDS}), để
+ * mã PIN không bị lưu dưới dạng băm dễ dò ngược, và chuẩn hóa số thập phân, để {@code 100} và
+ * {@code 100.00} được coi là cùng một số tiền.
+ */
+@Component
+@Slf4j
+public class IdempotencyHelper {
+
+  private static final int MAX_KEY_LENGTH = 128;
+  private static final long POLL_INTERVAL_MS = 50;
+
+  private final IdempotencyKeyRepository idempotencyKeyRepository;
+  private final ObjectMapper objectMapper;
+  private final Duration responseTtl;
+  private final Duration inProgressTtl;
+  private final long waitTimeoutMs;
+  private final long localCacheTtlMs;
+  private final Map<String, CachedResponse> localCache;
+  private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Khởi tạo IdempotencyHelper.
+   *
+   * @param idempotencyKeyRepository Kho lưu trữ khóa trong Redis.
+   * @param objectMapper Dùng để tuần tự hóa yêu cầu và phản hồi.
+   * @param responseTtlHours Thời gian (giờ) lưu phản hồi đã hoàn tất.
+   * @param inProgressTtlSeconds Thời gian (giây) giữ khóa của một yêu cầu đang chạy.
+   * @param waitTimeoutMs Thời gian tối đa (ms) một yêu cầu trùng chờ yêu cầu gốc.
+   * @param localCacheSize Số phản hồi tối đa trong bộ nhớ đệm cục bộ.
+   * @param localCacheTtlSeconds Thời gian (giây) một phản hồi nằm trong bộ nhớ đệm cục bộ.
+   */
+  public IdempotencyHelper(
+      final IdempotencyKeyRepository idempotencyKeyRepository,
+      final ObjectMapper objectMapper,
+      @Value("${app.idempotency.ttl-hours:24}") final long responseTtlHours,
+      @Value("${app.idempotency.in-progress-ttl-seconds:60}") final long inProgressTtlSeconds,
+      @Value("${app.idempotency.wait-timeout-ms:10000}") final long waitTimeoutMs,
+      @Value("${app.idempotency.local-cache.size:10000}") final int localCacheSize,
+      @Value("${app.idempotency.local-cache.ttl-seconds:60}") final long localCacheTtlSeconds) {
+    this.idempotencyKeyRepository = idempotencyKeyRepository;
+    this.objectMapper = objectMapper;
+    this.responseTtl = Duration.ofHours(responseTtlHours);
+    this.inProgressTtl = Duration.ofSeconds(inProgressTtlSeconds);
+    this.waitTimeoutMs = waitTimeoutMs;
+    this.localCacheTtlMs = TimeUnit.SECONDS.toMillis(localCacheTtlSeconds);
+    this.localCache =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(final Map.Entry<String, CachedResponse> eldest) {
+                return size() > localCacheSize;
+              }
+            });
+  }
+
+  /**
+   * Thực hiện một thao tác đúng một lần cho mỗi {@code Idempotency-Key}.
+   *
+   * @param operation Loại thao tác (phạm vi của khóa).
+   * @param idempotencyKey Giá trị header {@code Idempotency-Key}; {@code null} để bỏ qua cơ chế.
+   * @param request Nội dung yêu cầu, dùng để phát hiện khóa bị dùng lại cho yêu cầu khác.
+   * @param responseType Kiểu của phần thân phản hồi ({@code Void} nếu không có).
+   * @param action Thao tác cần thực hiện.
+   * @param <T> Kiểu của phần thân phản hồi.
+   * @return phản hồi của thao tác, hoặc phản hồi đã lưu nếu khóa đã được xử lý.
+   * @throws BadRequestException nếu khóa không hợp lệ hoặc được dùng lại cho yêu cầu khác.
+   * @throws ConflictException nếu yêu cầu gốc vẫn chưa xong sau thời gian chờ.
+   */
+  public <T> ResponseEntity<T> execute(
+      final String operation,
+      final String idempotencyKey,
+      final Object request,
+      final Class<T> responseType,
+      final Supplier<ResponseEntity<T>> action) {
+    if (idempotencyKey == null || idempotencyKey.isBlank()) {
+      return action.get();
+    }
+    if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+      throw new BadRequestException(
+          MessageConstant.Transaction.IDEMPOTENCY_KEY_INVALID, MAX_KEY_LENGTH);
+    }
+    final String key = operation + ":" + currentPrincipal() + ":" + idempotencyKey;
+    final String fingerprint = fingerprint(request);
+
+    final CachedResponse cached = localCache.get(key);
+    if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+      return replay(key, cached.response(), fingerprint, responseType);
+    }
+
+    final CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+    final CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, mine);
+    if (running != null) {
+      return replay(key, awaitLocal(running), fingerprint, responseType);
+    }
+    try {
+      final StoredResponse pending = new StoredResponse(fingerprint, false, 0, null);
+      if (!idempotencyKeyRepository.reserve(key, write(pending), inProgressTtl)) {
+        final StoredResponse stored = awaitRemote(key);
+        mine.complete(stored);
+        return replay(key, stored, fingerprint, responseType);
+      }
+
+      final ResponseEntity<T> response;
+      try {
+        response = action.get();
+      } catch (RuntimeException e) {
+        idempotencyKeyRepository.delete(key);
+        mine.completeExceptionally(e);
+        throw e;
+      }
+      final StoredResponse completed =
+          new StoredResponse(
+              fingerprint,
+              true,
+              response.getStatusCode().value(),
+              response.getBody() == null ? null : write(response.getBody()));
+      store(key, completed);
+      mine.complete(completed);
+      return response;
+    } catch (RuntimeException e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  private void store(final String key, final StoredResponse completed) {
+    localCache.put(
+        key, new CachedResponse(completed, System.currentTimeMillis() + localCacheTtlMs));
+    try {
+      idempotencyKeyRepository.save(key, write(completed), responseTtl);
+    } catch (RuntimeException e) {
+      // Thao tác đã được thực hiện; chỉ mất khả năng phát lại từ các instance khác.
+      log.error(LogConstant.IDEMPOTENCY_STORE_FAILED, key, e);
+    }
+  }
+
+  private StoredResponse awaitLocal(final CompletableFuture<StoredResponse> running) {
+    try {
+      return running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (TimeoutException e) {
+      throw new ConflictException(MessageConstant.Transaction.IDEMPOTENCY_REQUEST_IN_PROGRESS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ConflictException(MessageConstant.Transaction.IDEMPOTENCY_REQUEST_IN_PROGRESS);
+    }
+  }
+
+  private StoredResponse awaitRemote(final String key) {
+    final long deadline = System.currentTimeMillis() + waitTimeoutMs;
+    while (true) {
+      final Optional<StoredResponse> stored = idempotencyKeyRepository.find(key).map(this::read);
+      if (stored.isPresent() && stored.get().completed()) {
+        return stored.get();
+      }
+      if (stored.isEmpty()) {
+        // Yêu cầu gốc đã thất bại và giải phóng khóa; client có thể gửi lại.
+        throw new ConflictException(MessageConstant.Transaction.IDEMPOTENCY_REQUEST_IN_PROGRESS);
+      }
+      if (System.currentTimeMillis() >= deadline) {
+        throw new ConflictException(MessageConstant.Transaction.IDEMPOTENCY_REQUEST_IN_PROGRESS);
+      }
+      try {
+        TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ConflictException(MessageConstant.Transaction.IDEMPOTENCY_REQUEST_IN_PROGRESS);
+      }
+    }
+  }
+
+  private <T> ResponseEntity<T> replay(
+      final String key,
+      final StoredResponse stored,
+      final String fingerprint,
+      final Class<T> responseType) {
+    if (!stored.fingerprint().equals(fingerprint)) {
+      throw new BadRequestException(MessageConstant.Transaction.IDEMPOTENCY_KEY_REUSED);
+    }
+    log.debug(LogConstant.IDEMPOTENCY_REPLAYED, key);
+    localCache.putIfAbsent(
+        key, new CachedResponse(stored, System.currentTimeMillis() + localCacheTtlMs));
+    try {
+      final T body =
+          stored.body() == null ? null : objectMapper.readValue(stored.body(), responseType);
+      return ResponseEntity.status(stored.status()).body(body);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private String fingerprint(final Object request) {
+    final JsonNode content =
+        request == null ? NullNode.getInstance() : normalize(objectMapper.valueToTree(request));
+    try {
+      final byte[] digest =
+          MessageDigest.getInstance("SHA-256")
+              .digest(objectMapper.writeValueAsString(content).getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Bỏ các trường thông tin xác thực và đưa mọi số về dạng thập phân không có số 0 thừa. */
+  private static JsonNode normalize(final JsonNode node) {
+    if (node.isObject()) {
+      final ObjectNode object = (ObjectNode) node;
+      object.remove(AppConfigConstant.IDEMPOTENCY_EXCLUDED_FIELDS);
+      object.fields().forEachRemaining(field -> field.setValue(normalize(field.getValue())));
+      return object;
+    }
+    if (node.isArray()) {
+      final ArrayNode array = (ArrayNode) node;
+      for (int i = 0; i < array.size(); i++) {
+        array.set(i, normalize(array.get(i)));
+      }
+      return array;
+    }
+    if (node.isNumber()) {
+      return DecimalNode.valueOf(node.decimalValue().stripTrailingZeros());
+    }
+    return node;
+  }
+
+  private static String currentPrincipal() {
+    final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    return authentication == null ? "" : authentication.getName();
+  }
+
+  private String write(final Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private StoredResponse read(final String value) {
+    try {
+      return objectMapper.readValue(value, StoredResponse.class);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Trạng thái của một khóa được lưu trong Redis.
+   *
+   * @param fingerprint Băm SHA-256 của nội dung yêu cầu gốc (không gồm thông tin xác thực).
+   * @param completed Yêu cầu gốc đã hoàn tất hay chưa.
+   * @param status Mã trạng thái HTTP của phản hồi.
+   * @param body Phần thân phản hồi dạng JSON ({@code null} nếu không có).
+   */
+  public record StoredResponse(String fingerprint, boolean completed, int status, String body) {}
+
+  private record CachedResponse(StoredResponse response, long expiresAt) {}
+}
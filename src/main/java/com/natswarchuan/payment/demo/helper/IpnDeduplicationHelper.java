@@ -0,0 +1,105 @@
+package com.natswarchuan.payment.demo.helper;
+
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.repository.FinalizedIpnRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lớp helper nhận diện các IPN gửi lại cho giao dịch đã được xử lý xong.
+ *
+ * <p>Sau khi một IPN được xử lý (hoặc bị bỏ qua vì giao dịch đã ở trạng thái cuối), ID giao dịch
+ * được ghi vào một tập cục bộ có giới hạn và vào Redis để các instance khác cũng nhận ra. Các IPN
+ * gửi lại sau đó được trả lời ngay mà không truy vấn MySQL. Tập này chỉ là bộ lọc phía trước:
+ * trạng thái giao dịch trong cơ sở dữ liệu vẫn là nguồn sự thật, nên khi Redis không truy cập được,
+ * IPN được xử lý như bình thường.
+ */
+@Component
+@Slf4j
+public class IpnDeduplicationHelper {
+
+  private final FinalizedIpnRepository finalizedIpnRepository;
+  private final MeterRegistry meterRegistry;
+  private final Duration ttl;
+  private final Set<UUID> localFinalized;
+
+  /**
+   * Khởi tạo IpnDeduplicationHelper.
+   *
+   * @param finalizedIpnRepository Kho lưu trữ các giao dịch đã hoàn tất trong Redis.
+   * @param meterRegistry Registry ghi nhận số IPN trùng bị bỏ qua.
+   * @param ttlHours Thời gian (giờ) ghi nhớ một giao dịch đã hoàn tất.
+   * @param localCacheSize Số giao dịch tối đa trong tập cục bộ.
+   */
+  public IpnDeduplicationHelper(
+      final FinalizedIpnRepository finalizedIpnRepository,
+      final MeterRegistry meterRegistry,
+      @Value("${app.ipn.dedup.ttl-hours:72}") final long ttlHours,
+      @Value("${app.ipn.dedup.local-cache.size:100000}") final int localCacheSize) {
+    this.finalizedIpnRepository = finalizedIpnRepository;
+    this.meterRegistry = meterRegistry;
+    this.ttl = Duration.ofHours(ttlHours);
+    this.localFinalized =
+        Collections.newSetFromMap(
+            Collections.synchronizedMap(
+                new LinkedHashMap<>(16, 0.75f, true) {
+                  @Override
+                  protected boolean removeEldestEntry(final Map.Entry<UUID, Boolean> eldest) {
+                    return size() > localCacheSize;
+                  }
+                }));
+  }
+
+  /**
+   * Kiểm tra IPN của một giao dịch có phải là bản gửi lại của một IPN đã xử lý xong hay không.
+   *
+   * @param operation Loại thao tác, dùng làm nhãn của số liệu.
+   * @param transactionId ID giao dịch ({@code vnp_TxnRef}).
+   * @return {@code true} nếu giao dịch đã được xử lý xong và IPN có thể bỏ qua.
+   */
+  public boolean isDuplicate(final String operation, final UUID transactionId) {
+    boolean duplicate = localFinalized.contains(transactionId);
+    if (!duplicate) {
+      try {
+        duplicate = finalizedIpnRepository.exists(transactionId);
+      } catch (DataAccessException e) {
+        log.warn(LogConstant.IPN_DEDUP_UNAVAILABLE, transactionId, e);
+        return false;
+      }
+      if (duplicate) {
+        localFinalized.add(transactionId);
+      }
+    }
+    if (duplicate) {
+      meterRegistry
+          .counter(MetricConstant.IPN_DUPLICATE, MetricConstant.TAG_OPERATION, operation)
+          .increment();
+      log.info(LogConstant.IPN_DUPLICATE_SKIPPED, transactionId);
+    }
+    return duplicate;
+  }
+
+  /**
+   * Ghi nhận một giao dịch đã ở trạng thái cuối. Chỉ gọi sau khi giao dịch cơ sở dữ liệu đã commit.
+   *
+   * @param transactionId ID giao dịch.
+   */
+  public void markFinalized(final UUID transactionId) {
+    localFinalized.add(transactionId);
+    try {
+      finalizedIpnRepository.save(transactionId, ttl);
+    } catch (DataAccessException e) {
+      log.warn(LogConstant.IPN_DEDUP_UNAVAILABLE, transactionId, e);
+    }
+  }
+}
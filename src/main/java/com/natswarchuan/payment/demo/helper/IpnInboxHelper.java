@@ -0,0 +1,111 @@
+package com.natswarchuan.payment.demo.helper;
+
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.dto.response.gateway.ProcessIpnResponse;
+import com.natswarchuan.payment.demo.entity.IpnInbox;
+import com.natswarchuan.payment.demo.exception.custom.ServiceUnavailableException;
+import com.natswarchuan.payment.demo.repository.IpnInboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lớp helper ghi các IPN đã được xác thực chữ ký vào {@code ipn_inbox} ở chế độ xử lý bất đồng bộ.
+ *
+ * <p>IPN được ghi trong một câu lệnh {@code INSERT} tự commit, nên khi phương thức trả về, IPN đã
+ * được lưu bền vững và có thể trả lời cổng thanh toán. Khi số IPN tồn đọng vượt quá {@code
+ * app.ipn.ingestion.max-backlog}, IPN mới bị từ chối với mã 503 để cổng thanh toán gửi lại sau,
+ * thay vì tích lũy vô hạn. Số IPN tồn đọng được worker IPN làm mới ở mỗi chu kỳ và được tăng ngay
+ * khi nhận IPN, nên giới hạn có hiệu lực cả giữa hai chu kỳ.
+ */
+@Component
+@Slf4j
+public class IpnInboxHelper {
+
+  private final IpnInboxRepository ipnInboxRepository;
+  private final IpnDeduplicationHelper ipnDeduplicationHelper;
+  private final MeterRegistry meterRegistry;
+  private final boolean async;
+  private final long maxBacklog;
+  private final AtomicLong depth = new AtomicLong();
+
+  /**
+   * Khởi tạo IpnInboxHelper.
+   *
+   * @param ipnInboxRepository Kho lưu trữ cho hàng đợi IPN.
+   * @param ipnDeduplicationHelper Helper nhận diện IPN gửi lại cho giao dịch đã hoàn tất.
+   * @param meterRegistry Registry ghi nhận số liệu của hàng đợi.
+   * @param mode Chế độ xử lý IPN ({@code SYNC} hoặc {@code ASYNC}).
+   * @param maxBacklog Số IPN tồn đọng tối đa trước khi từ chối IPN mới.
+   */
+  public IpnInboxHelper(
+      final IpnInboxRepository ipnInboxRepository,
+      final IpnDeduplicationHelper ipnDeduplicationHelper,
+      final MeterRegistry meterRegistry,
+      @Value("${app.ipn.ingestion.mode:SYNC}") final String mode,
+      @Value("${app.ipn.ingestion.max-backlog:50000}") final long maxBacklog) {
+    this.ipnInboxRepository = ipnInboxRepository;
+    this.ipnDeduplicationHelper = ipnDeduplicationHelper;
+    this.meterRegistry = meterRegistry;
+    this.async = TransactionConstant.IpnIngestionMode.ASYNC.equalsIgnoreCase(mode);
+    this.maxBacklog = maxBacklog;
+    meterRegistry.gauge(MetricConstant.IPN_INBOX_DEPTH, depth);
+  }
+
+  /**
+   * Cho biết IPN có được xử lý bất đồng bộ qua {@code ipn_inbox} hay không.
+   *
+   * @return {@code true} ở chế độ {@code ASYNC}.
+   */
+  public boolean isAsync() {
+    return async;
+  }
+
+  /**
+   * Ghi một IPN vào hàng đợi.
+   *
+   * @param type Loại giao dịch của IPN ({@link TransactionConstant.Type#DEPOSIT} hoặc {@link
+   *     TransactionConstant.Type#WITHDRAWAL}).
+   * @param operation Loại thao tác, dùng làm nhãn của số liệu.
+   * @param ipnResponse IPN đã được xác thực chữ ký.
+   * @throws ServiceUnavailableException nếu hàng đợi đã đầy.
+   */
+  public void accept(
+      final Integer type, final String operation, final ProcessIpnResponse ipnResponse) {
+    if (ipnDeduplicationHelper.isDuplicate(operation, ipnResponse.getTransactionId())) {
+      return;
+    }
+    final long backlog = depth.get();
+    if (backlog >= maxBacklog) {
+      meterRegistry
+          .counter(MetricConstant.IPN_INBOX_REJECTED, MetricConstant.TAG_OPERATION, operation)
+          .increment();
+      log.warn(LogConstant.IPN_INBOX_BACKLOG_FULL, backlog, ipnResponse.getTransactionId());
+      throw new ServiceUnavailableException(MessageConstant.Payment.IPN_BACKLOG_FULL);
+    }
+    final Instant now = Instant.now();
+    ipnInboxRepository.save(
+        IpnInbox.builder()
+            .transactionId(ipnResponse.getTransactionId())
+            .type(type)
+            .providerTransactionId(ipnResponse.getProviderTransactionId())
+            .amount(ipnResponse.getAmount())
+            .transactionStatus(ipnResponse.getTransactionStatus())
+            .message(ipnResponse.getMessage())
+            .nextAttemptAt(now)
+            .createdAt(now)
+            .build());
+    depth.incrementAndGet();
+  }
+
+  /** Đọc lại số IPN tồn đọng từ cơ sở dữ liệu. */
+  public void refreshDepth() {
+    depth.set(ipnInboxRepository.countUnfinished());
+  }
+}
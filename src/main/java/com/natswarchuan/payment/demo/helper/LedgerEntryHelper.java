@@ -0,0 +1,185 @@
+package com.natswarchuan.payment.demo.helper;
+
+import com.fasterxml.uuid.Generators;
+import com.natswarchuan.payment.demo.constant.LedgerConstant;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.entity.LedgerEntry;
+import com.natswarchuan.payment.demo.repository.LedgerEntryRepository;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Lớp helper ghi các bút toán kép ({@link LedgerEntry}) cho mọi lần di chuyển tiền.
+ *
+ * <p>Mỗi phương thức ghi đúng một cặp ghi nợ / ghi có và phải được gọi trong giao dịch đang cập
+ * nhật số dư, để sổ cái và projection số dư trên bảng {@code wallets} luôn được commit cùng nhau.
+ * Các bút toán được persist như entity thay vì chạy một câu lệnh native, nên chúng không buộc
+ * Hibernate flush sớm giữa giao dịch: chúng được ghi cùng lần flush cuối, theo lô JDBC với các câu
+ * lệnh {@code INSERT} khác cùng bảng. Tiền vào và ra khỏi hệ thống (nạp, rút, hoàn tiền)
+ * được đối ứng với tài khoản trung gian của cổng thanh toán.
+ *
+ * <p>Khi khởi động, các ví đã có số dư trước khi bật sổ cái được ghi một bút toán số dư đầu kỳ, để
+ * số dư suy ra từ sổ cái khớp với số dư hiện tại. Việc này chạy trước khi ứng dụng nhận yêu cầu.
+ * Có thể tắt toàn bộ sổ cái qua {@code app.ledger.enabled}.
+ */
+@Component
+@Slf4j
+public class LedgerEntryHelper implements SmartInitializingSingleton {
+
+  private final LedgerEntryRepository ledgerEntryRepository;
+  private final EntityManager entityManager;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${app.ledger.enabled:true}")
+  private boolean enabled;
+
+  /**
+   * Khởi tạo LedgerEntryHelper.
+   *
+   * @param ledgerEntryRepository Kho lưu trữ cho bút toán.
+   * @param entityManager EntityManager dùng để persist bút toán trong giao dịch hiện tại.
+   * @param transactionManager Trình quản lý giao dịch dùng khi ghi số dư đầu kỳ.
+   */
+  public LedgerEntryHelper(
+      final LedgerEntryRepository ledgerEntryRepository,
+      final EntityManager entityManager,
+      final PlatformTransactionManager transactionManager) {
+    this.ledgerEntryRepository = ledgerEntryRepository;
+    this.entityManager = entityManager;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Ghi bút toán cho một giao dịch chuyển tiền giữa hai ví.
+   *
+   * @param senderWalletId Ví gửi (bị ghi nợ).
+   * @param senderTransactionId Giao dịch trừ tiền của ví gửi.
+   * @param receiverWalletId Ví nhận (được ghi có).
+   * @param receiverTransactionId Giao dịch nhận tiền của ví nhận.
+   * @param amount Số tiền chuyển.
+   */
+  public void recordTransfer(
+      UUID senderWalletId,
+      UUID senderTransactionId,
+      UUID receiverWalletId,
+      UUID receiverTransactionId,
+      BigDecimal amount) {
+    insertPair(
+        senderWalletId,
+        LedgerConstant.Account.WALLET,
+        senderTransactionId,
+        receiverWalletId,
+        LedgerConstant.Account.WALLET,
+        receiverTransactionId,
+        amount);
+  }
+
+  /**
+   * Ghi bút toán cho tiền đi vào ví từ cổng thanh toán (nạp tiền, hoàn tiền rút).
+   *
+   * @param walletId Ví được ghi có.
+   * @param transactionId Giao dịch tương ứng.
+   * @param amount Số tiền.
+   */
+  public void recordExternalCredit(UUID walletId, UUID transactionId, BigDecimal amount) {
+    insertPair(
+        null,
+        LedgerConstant.Account.GATEWAY_CLEARING,
+        transactionId,
+        walletId,
+        LedgerConstant.Account.WALLET,
+        transactionId,
+        amount);
+  }
+
+  /**
+   * Ghi bút toán cho tiền đi ra khỏi ví tới cổng thanh toán (rút tiền).
+   *
+   * @param walletId Ví bị ghi nợ.
+   * @param transactionId Giao dịch tương ứng.
+   * @param amount Số tiền.
+   */
+  public void recordExternalDebit(UUID walletId, UUID transactionId, BigDecimal amount) {
+    insertPair(
+        walletId,
+        LedgerConstant.Account.WALLET,
+        transactionId,
+        null,
+        LedgerConstant.Account.GATEWAY_CLEARING,
+        transactionId,
+        amount);
+  }
+
+  /**
+   * Tính số dư của ví suy ra từ sổ cái.
+   *
+   * @param walletId ID của ví.
+   * @return tổng ghi có trừ tổng ghi nợ của ví.
+   */
+  public BigDecimal getLedgerBalance(UUID walletId) {
+    return ledgerEntryRepository.sumBalanceByWalletId(walletId);
+  }
+
+  /** Ghi số dư đầu kỳ cho các ví chưa có bút toán nào. */
+  @Override
+  public void afterSingletonsInstantiated() {
+    if (!enabled) {
+      return;
+    }
+    final Instant now = Instant.now();
+    final Integer opened =
+        transactionTemplate.execute(
+            status -> {
+              ledgerEntryRepository.insertOpeningDebits(now);
+              return ledgerEntryRepository.insertOpeningCredits(now);
+            });
+    if (opened != null && opened > 0) {
+      log.info(LogConstant.LEDGER_OPENING_BALANCES, opened);
+    }
+  }
+
+  private void insertPair(
+      UUID debitWalletId,
+      Integer debitAccount,
+      UUID debitTransactionId,
+      UUID creditWalletId,
+      Integer creditAccount,
+      UUID creditTransactionId,
+      BigDecimal amount) {
+    if (!enabled) {
+      return;
+    }
+    final UUID movementId = Generators.timeBasedEpochGenerator().generate();
+    final Instant now = Instant.now();
+    entityManager.persist(
+        LedgerEntry.builder()
+            .id(Generators.timeBasedEpochGenerator().generate())
+            .movementId(movementId)
+            .walletId(debitWalletId)
+            .accountType(debitAccount)
+            .direction(LedgerConstant.Direction.DEBIT)
+            .amount(amount)
+            .transactionId(debitTransactionId)
+            .createdAt(now)
+            .build());
+    entityManager.persist(
+        LedgerEntry.builder()
+            .id(Generators.timeBasedEpochGenerator().generate())
+            .movementId(movementId)
+            .walletId(creditWalletId)
+            .accountType(creditAccount)
+            .direction(LedgerConstant.Direction.CREDIT)
+            .amount(amount)
+            .transactionId(creditTransactionId)
+            .createdAt(now)
+            .build());
+  }
+}
@@ -0,0 +1,92 @@
+package com.natswarchuan.payment.demo.helper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.natswarchuan.payment.demo.entity.OutboxEvent;
+import com.natswarchuan.payment.demo.entity.Transaction;
+import jakarta.persistence.EntityManager;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lớp helper ghi sự kiện của giao dịch vào outbox ({@link OutboxEvent}).
+ *
+ * <p>Phải được gọi trong giao dịch đang thay đổi số dư hoặc trạng thái giao dịch, để sự kiện chỉ
+ * tồn tại khi thay đổi đã được commit. Việc chuyển tiếp sự kiện tới các listener do {@link
+ * com.natswarchuan.payment.demo.service.outbox.OutboxRelay} thực hiện sau khi commit.
+ */
+@Component
+public class OutboxHelper {
+
+  private final EntityManager entityManager;
+  private final ObjectMapper objectMapper;
+  private final int partitions;
+
+  /**
+   * Khởi tạo OutboxHelper.
+   *
+   * @param entityManager EntityManager dùng để persist sự kiện trong giao dịch hiện tại.
+   * @param objectMapper ObjectMapper dùng để tuần tự hóa nội dung sự kiện.
+   * @param partitions Số partition của outbox.
+   */
+  public OutboxHelper(
+      final EntityManager entityManager,
+      final ObjectMapper objectMapper,
+      @Value("${app.outbox.partitions:16}") final int partitions) {
+    this.entityManager = entityManager;
+    this.objectMapper = objectMapper;
+    this.partitions = partitions;
+  }
+
+  /**
+   * Ghi một sự kiện cho giao dịch vào outbox.
+   *
+   * @param walletId Ví của giao dịch, dùng làm khóa partition và thứ tự.
+   * @param eventType Loại sự kiện (xem {@link
+   *     com.natswarchuan.payment.demo.constant.OutboxConstant.EventType}).
+   * @param transaction Giao dịch đã được persist.
+   */
+  public void record(final UUID walletId, final String eventType, final Transaction transaction) {
+    final Map<String, Object> payload = new LinkedHashMap<>();
+    payload.put("transactionId", transaction.getId().toString());
+    payload.put("walletId", walletId.toString());
+    payload.put("type", transaction.getType());
+    payload.put("status", transaction.getStatus());
+    payload.put("amount", transaction.getAmount());
+    payload.put("balanceAfter", transaction.getBalanceAfter());
+    payload.put("description", transaction.getDescription());
+    entityManager.persist(
+        OutboxEvent.builder()
+            .aggregateId(walletId)
+            .partitionNo(partitionOf(walletId))
+            .eventType(eventType)
+            .payload(serialize(payload))
+            .createdAt(Instant.now())
+            .build());
+  }
+
+  /**
+   * Trả về số partition của outbox.
+   *
+   * @return số partition.
+   */
+  public int getPartitions() {
+    return partitions;
+  }
+
+  private int partitionOf(final UUID walletId) {
+    return Math.floorMod(walletId.hashCode(), partitions);
+  }
+
+  private String serialize(final Map<String, Object> payload) {
+    try {
+      return objectMapper.writeValueAsString(payload);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
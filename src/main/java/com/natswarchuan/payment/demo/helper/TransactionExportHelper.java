@@ -0,0 +1,182 @@
+package com.natswarchuan.payment.demo.helper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.natswarchuan.payment.demo.config.datasource.ReplicaRoutingContext;
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import com.natswarchuan.payment.demo.constant.ExportConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.dto.request.transaction.TransactionSearchRequest;
+import com.natswarchuan.payment.demo.dto.response.transaction.TransactionSummaryResponse;
+import com.natswarchuan.payment.demo.entity.Transaction;
+import com.natswarchuan.payment.demo.exception.custom.BadRequestException;
+import com.natswarchuan.payment.demo.interfaces.services.ITransactionArchiveService;
+import com.natswarchuan.payment.demo.repository.TransactionRepository;
+import com.natswarchuan.payment.demo.util.CsvUtil;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Helper xuất lịch sử giao dịch ra CSV hoặc NDJSON theo kiểu streaming.
+ *
+ * <p>Các hàng được đọc qua một con trỏ JDBC chỉ đi tiến ({@link
+ * TransactionRepository#streamSummaries}) và ghi ngay ra response, xả bộ đệm sau mỗi {@code
+ * flush-rows} hàng; response được gửi theo kiểu chunked. Không có hàng nào được giữ lại sau khi đã
+ * ghi (projection DTO không được persistence context theo dõi), nên bộ nhớ sử dụng không phụ thuộc
+ * vào độ dài lịch sử.
+ *
+ * <p>Các giao dịch đã chuyển sang kho lưu trữ lạnh được gộp vào luồng theo đúng thứ tự thời gian
+ * (xem {@link ITransactionArchiveService#mergeChronological}).
+ */
+@Component
+public class TransactionExportHelper {
+
+  private static final int WRITE_BUFFER_CHARS = 16 * 1024;
+  private static final Sort CHRONOLOGICAL =
+      Sort.by(
+          Sort.Order.asc(EntityConstant.TXN_FIELD_CREATED_AT),
+          Sort.Order.asc(EntityConstant.FIELD_ID));
+
+  private final TransactionRepository transactionRepository;
+  private final ITransactionArchiveService transactionArchiveService;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate readOnlyTemplate;
+  private final int fetchSize;
+  private final int flushRows;
+
+  /**
+   * Khởi tạo TransactionExportHelper.
+   *
+   * @param transactionRepository Kho lưu trữ cho giao dịch.
+   * @param transactionArchiveService Kho lưu trữ lạnh, được gộp vào dữ liệu xuất.
+   * @param objectMapper ObjectMapper dùng để ghi NDJSON.
+   * @param transactionManager Trình quản lý giao dịch, dùng để mở giao dịch chỉ đọc khi xuất.
+   * @param fetchSize Fetch size của JDBC; {@link Integer#MIN_VALUE} bật chế độ streaming của MySQL.
+   * @param flushRows Số hàng ghi giữa hai lần xả bộ đệm ra client.
+   */
+  public TransactionExportHelper(
+      final TransactionRepository transactionRepository,
+      final ITransactionArchiveService transactionArchiveService,
+      final ObjectMapper objectMapper,
+      final PlatformTransactionManager transactionManager,
+      @Value("${app.export.fetch-size:-2147483648}") final int fetchSize,
+      @Value("${app.export.flush-rows:500}") final int flushRows) {
+    this.transactionRepository = transactionRepository;
+    this.transactionArchiveService = transactionArchiveService;
+    this.objectMapper = objectMapper;
+    this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+    this.readOnlyTemplate.setReadOnly(true);
+    this.fetchSize = fetchSize;
+    this.flushRows = flushRows;
+  }
+
+  /**
+   * Chuẩn hóa và kiểm tra định dạng xuất.
+   *
+   * @param format Định dạng do client gửi (không phân biệt hoa thường).
+   * @return định dạng đã chuẩn hóa (xem {@link ExportConstant.Format}).
+   * @throws BadRequestException nếu định dạng không được hỗ trợ.
+   */
+  public String resolveFormat(final String format) {
+    final String normalized = format.toUpperCase(Locale.ROOT);
+    if (!ExportConstant.Format.CSV.equals(normalized)
+        && !ExportConstant.Format.NDJSON.equals(normalized)) {
+      throw new BadRequestException(MessageConstant.Transaction.EXPORT_FORMAT_UNSUPPORTED, format);
+    }
+    return normalized;
+  }
+
+  /**
+   * Tạo phần thân response ghi các giao dịch thỏa mãn điều kiện theo thứ tự thời gian.
+   *
+   * <p>Truy vấn chỉ chạy khi Spring MVC gọi phần thân này trên luồng xử lý bất đồng bộ, trong một
+   * giao dịch chỉ đọc riêng.
+   *
+   * @param walletId ID của ví.
+   * @param searchRequest Tiêu chí lọc, dùng cho phần dữ liệu đã lưu trữ.
+   * @param spec Điều kiện lọc tương ứng trên MySQL (đã bao gồm điều kiện theo ví).
+   * @param format Định dạng đã chuẩn hóa bởi {@link #resolveFormat}.
+   * @return phần thân response dạng streaming.
+   */
+  public StreamingResponseBody export(
+      final UUID walletId,
+      final TransactionSearchRequest searchRequest,
+      final Specification<Transaction> spec,
+      final String format) {
+    // Luồng bất đồng bộ được dùng lại giữa các request: trạng thái định tuyến phải bắt đầu từ đầu.
+    return outputStream ->
+        ReplicaRoutingContext.run(
+            () ->
+                readOnlyTemplate.executeWithoutResult(
+                    status -> {
+                      try (Stream<TransactionSummaryResponse> rows =
+                          transactionArchiveService.mergeChronological(
+                              walletId,
+                              searchRequest,
+                              transactionRepository.streamSummaries(
+                                  spec, CHRONOLOGICAL, fetchSize))) {
+                        write(rows, format, outputStream);
+                      } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                      }
+                    }));
+  }
+
+  private void write(
+      final Stream<TransactionSummaryResponse> rows,
+      final String format,
+      final OutputStream outputStream)
+      throws IOException {
+    final Writer writer =
+        new BufferedWriter(
+            new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), WRITE_BUFFER_CHARS);
+    final boolean csv = ExportConstant.Format.CSV.equals(format);
+    if (csv) {
+      writer.write(ExportConstant.CSV_HEADER);
+      writer.write(ExportConstant.LINE_SEPARATOR);
+    }
+    int written = 0;
+    for (final var iterator = rows.iterator(); iterator.hasNext(); ) {
+      final TransactionSummaryResponse row = iterator.next();
+      if (csv) {
+        writeCsvRow(writer, row);
+      } else {
+        writer.write(objectMapper.writeValueAsString(row));
+      }
+      writer.write(ExportConstant.LINE_SEPARATOR);
+      if (++written % flushRows == 0) {
+        writer.flush();
+      }
+    }
+    writer.flush();
+  }
+
+  private void writeCsvRow(final Writer writer, final TransactionSummaryResponse row)
+      throws IOException {
+    writer.write(row.getId().toString());
+    writer.write(ExportConstant.CSV_SEPARATOR);
+    writer.write(row.getCreatedAt().toString());
+    writer.write(ExportConstant.CSV_SEPARATOR);
+    writer.write(String.valueOf(row.getType()));
+    writer.write(ExportConstant.CSV_SEPARATOR);
+    writer.write(String.valueOf(row.getStatus()));
+    writer.write(ExportConstant.CSV_SEPARATOR);
+    writer.write(row.getAmount().toPlainString());
+    writer.write(ExportConstant.CSV_SEPARATOR);
+    CsvUtil.writeText(writer, row.getDescription());
+  }
+}
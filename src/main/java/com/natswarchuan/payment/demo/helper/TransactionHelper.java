@@ -3,6 +3,7 @@ package com.natswarchuan.payment.demo.helper;
 import com.natswarchuan.payment.demo.constant.ApiConstant;
 import com.natswarchuan.payment.demo.constant.LogConstant;
 import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.OutboxConstant;
 import com.natswarchuan.payment.demo.constant.TransactionConstant;
 import com.natswarchuan.payment.demo.constant.WalletConstant;
 import com.natswarchuan.payment.demo.dto.request.gateway.CreatePaymentRequest;
@@ -13,6 +14,7 @@ import com.natswarchuan.payment.demo.dto.response.gateway.CreatePaymentResponse;
 import com.natswarchuan.payment.demo.dto.response.gateway.PayoutResponse;
 import com.natswarchuan.payment.demo.dto.response.gateway.ProcessIpnResponse;
 import com.natswarchuan.payment.demo.entity.PaymentMethod;
+import com.natswarchuan.payment.demo.entity.PayoutOutbox;
 import com.natswarchuan.payment.demo.entity.Transaction;
 import com.natswarchuan.payment.demo.entity.User;
 import com.natswarchuan.payment.demo.entity.Wallet;
@@ -22,13 +24,17 @@ import com.natswarchuan.payment.demo.exception.custom.ResourceNotFoundException;
 import com.natswarchuan.payment.demo.exception.custom.UnauthorizedException;
 import com.natswarchuan.payment.demo.interfaces.services.IPaymentGatewayService;
 import com.natswarchuan.payment.demo.repository.PaymentMethodRepository;
+import com.natswarchuan.payment.demo.repository.PayoutOutboxRepository;
 import com.natswarchuan.payment.demo.repository.SecretKeyRepository;
 import com.natswarchuan.payment.demo.repository.TransactionRepository;
 import com.natswarchuan.payment.demo.repository.WalletRepository;
 import com.natswarchuan.payment.demo.service.PaymentGatewayFactory;
+import com.natswarchuan.payment.demo.service.limit.SpendLimitReservation;
 import com.natswarchuan.payment.demo.util.HttpUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
@@ -57,12 +63,24 @@ public class TransactionHelper {
   /** Record để giữ ví của người gửi và người nhận đã được khóa. */
   public record TransferWallets(Wallet sender, Wallet receiver) {}
 
+  /** Record để giữ số dư trước và sau giao dịch chuyển tiền của cả hai ví. */
+  public record TransferBalances(
+      BigDecimal senderBefore,
+      BigDecimal senderAfter,
+      BigDecimal receiverBefore,
+      BigDecimal receiverAfter) {}
+
   private final WalletRepository walletRepository;
   private final TransactionRepository transactionRepository;
   private final PaymentGatewayFactory paymentGatewayFactory;
   private final PaymentMethodRepository paymentMethodRepository;
   private final PasswordEncoder passwordEncoder;
   private final SecretKeyRepository secretKeyRepository;
+  private final WalletBalanceHelper walletBalanceHelper;
+  private final LedgerEntryHelper ledgerEntryHelper;
+  private final OutboxHelper outboxHelper;
+  private final WalletAggregateHelper walletAggregateHelper;
+  private final PayoutOutboxRepository payoutOutboxRepository;
 
   @Value("${app.base-url}")
   private String appBaseUrl;
@@ -70,6 +88,9 @@ public class TransactionHelper {
   @Value("${app.payment.return-url}")
   private String paymentReturnUrl;
 
+  @Value("${app.transaction.transfer.ordered-locking:true}")
+  private boolean orderedTransferLocking;
+
   /**
    * Tìm và xác thực ví của người dùng.
    *
@@ -107,11 +128,12 @@ public class TransactionHelper {
             .wallet(userWallet)
             .amount(request.getAmount())
             .transactionFee(BigDecimal.ZERO)
-            .balanceBefore(userWallet.getBalance())
+            .balanceBefore(walletBalanceHelper.getTotalBalance(userWallet))
             .type(TransactionConstant.Type.DEPOSIT)
             .status(TransactionConstant.Status.PENDING)
             .description(
                 String.format(MessageConstant.Transaction.DEPOSIT_DESCRIPTION, gatewayProvider))
+            .provider(gatewayProvider)
             .ipAddress(HttpUtil.getClientIp(httpServletRequest))
             .build();
     return transactionRepository.save(transaction);
@@ -152,7 +174,7 @@ public class TransactionHelper {
     if (!userWallet.getStatus().equals(WalletConstant.Status.ACTIVE)) {
       throw new ForbiddenException(MessageConstant.Transaction.WALLET_INACTIVE_ERROR);
     }
-    if (userWallet.getBalance().compareTo(request.getAmount()) < 0) {
+    if (walletBalanceHelper.getTotalBalance(userWallet).compareTo(request.getAmount()) < 0) {
       throw new BadRequestException(MessageConstant.Wallet.INSUFFICIENT_BALANCE);
     }
     PaymentMethod paymentMethod =
@@ -188,7 +210,7 @@ public class TransactionHelper {
         .amount(request.getAmount())
         .paymentMethod(paymentMethod)
         .transactionFee(BigDecimal.ZERO)
-        .balanceBefore(userWallet.getBalance())
+        .balanceBefore(walletBalanceHelper.getTotalBalance(userWallet))
         .type(TransactionConstant.Type.WITHDRAWAL)
         .status(TransactionConstant.Status.REVIEWING)
         .description(request.getDescription())
@@ -196,9 +218,48 @@ public class TransactionHelper {
         .build();
   }
 
+  /**
+   * Ghi một yêu cầu chi trả vào hàng đợi {@code payout_outbox} để worker chi trả gửi tới cổng
+   * thanh toán sau khi giao dịch hiện tại commit.
+   *
+   * @param transaction Giao dịch rút tiền đã được giữ chỗ.
+   * @param provider Nhà cung cấp dịch vụ.
+   * @param reservation Giữ chỗ hạn mức rút tiền, được trả lại nếu yêu cầu bị từ chối.
+   */
+  public void enqueuePayout(
+      Transaction transaction, String provider, SpendLimitReservation reservation) {
+    // Kiểm tra nhà cung cấp ngay trong giao dịch giữ chỗ, để yêu cầu không hợp lệ bị hủy toàn bộ.
+    paymentGatewayFactory.getGateway(provider);
+    payoutOutboxRepository.save(
+        PayoutOutbox.builder()
+            .transactionId(transaction.getId())
+            .provider(provider)
+            .spendLimitReservation(reservation.encode())
+            .nextAttemptAt(Instant.now())
+            .build());
+  }
+
+  /**
+   * Lấy giữ chỗ hạn mức đã được lưu cùng yêu cầu chi trả của một giao dịch rút tiền.
+   *
+   * @param transactionId ID của giao dịch rút tiền.
+   * @return giữ chỗ đã lưu, hoặc {@link SpendLimitReservation#NONE} nếu không có.
+   */
+  public SpendLimitReservation findSpendLimitReservation(UUID transactionId) {
+    return payoutOutboxRepository
+        .findByTransactionId(transactionId)
+        .map(PayoutOutbox::getSpendLimitReservation)
+        .map(SpendLimitReservation::decode)
+        .orElse(SpendLimitReservation.NONE);
+  }
+
   /**
    * Gọi API chi trả của cổng thanh toán.
    *
+   * <p>Lỗi HTTP 4xx được coi là cổng thanh toán từ chối yêu cầu và trả về dưới dạng phản hồi không
+   * thành công; các lỗi khác (kết nối, hết thời gian chờ, 5xx) không cho biết yêu cầu đã tới cổng
+   * thanh toán hay chưa nên được ném ra để người gọi thử lại.
+   *
    * @param transaction Giao dịch rút tiền.
    * @param provider Nhà cung cấp dịch vụ.
    * @return Phản hồi từ cổng thanh toán.
@@ -213,8 +274,10 @@ public class TransactionHelper {
           transaction.getWallet().getId(),
           e.getStatusCode(),
           e.getResponseBodyAsString());
-      throw new BadRequestException(
-          MessageConstant.Transaction.WITHDRAWAL_INITIATION_FAILED, e.getResponseBodyAsString());
+      return PayoutResponse.builder()
+          .isSuccess(false)
+          .message(e.getResponseBodyAsString())
+          .build();
     } catch (ResourceAccessException e) {
       log.error(
           "Lỗi kết nối khi gọi cổng thanh toán rút tiền cho ví {}: {}",
@@ -236,66 +299,259 @@ public class TransactionHelper {
   }
 
   /**
-   * Hoàn tất giao dịch rút tiền sau khi có phản hồi từ cổng thanh toán.
+   * Trừ trước (giữ chỗ) số tiền rút khỏi ví và lưu giao dịch đang chờ xử lý.
    *
-   * @param transaction Giao dịch rút tiền.
-   * @param userWallet Ví của người dùng (đã được khóa).
+   * <p>Được thực hiện và commit trước khi gọi cổng thanh toán, nên mọi xung đột (kiểm tra phiên bản
+   * của khóa lạc quan, deadlock, hết thời gian chờ khóa) xảy ra trước khi có lời gọi ra bên ngoài và
+   * giao dịch có thể được thử lại an toàn; khóa ví cũng không bị giữ trong lúc chờ cổng thanh toán.
+   *
+   * @param transaction Giao dịch rút tiền đang chờ xử lý.
+   * @param userWallet Ví của người dùng.
+   */
+  public void reserveWithdrawalAmount(Transaction transaction, Wallet userWallet) {
+    BigDecimal balanceAfter = walletBalanceHelper.debit(userWallet, transaction.getAmount());
+    walletRepository.flush();
+    transaction.setBalanceAfter(balanceAfter);
+    Transaction saved = transactionRepository.save(transaction);
+    ledgerEntryHelper.recordExternalDebit(userWallet.getId(), saved.getId(), saved.getAmount());
+    outboxHelper.record(userWallet.getId(), OutboxConstant.EventType.TRANSACTION_PENDING, saved);
+  }
+
+  /**
+   * Ghi nhận giao dịch rút tiền đã được cổng thanh toán chấp nhận.
+   *
+   * <p>Số tiền đã được trừ bởi {@link #reserveWithdrawalAmount(Transaction, Wallet)}; giao dịch vẫn
+   * ở trạng thái đang xem xét cho đến khi nhận được IPN.
+   *
+   * @param transactionId ID của giao dịch rút tiền.
    * @param payoutResponse Phản hồi từ cổng thanh toán.
    */
-  public void finalizeWithdrawal(
-      Transaction transaction, Wallet userWallet, PayoutResponse payoutResponse) {
-    if (payoutResponse.isSuccess()) {
-      userWallet.setBalance(userWallet.getBalance().subtract(transaction.getAmount()));
-      walletRepository.save(userWallet);
-      transaction.setProviderTransactionId(payoutResponse.getProviderTransactionId());
-      transaction.setBalanceAfter(userWallet.getBalance());
-      transactionRepository.save(transaction);
-      log.info(
-          "Yêu cầu rút tiền cho giao dịch {} đã được nhà cung cấp chấp nhận.", transaction.getId());
-    } else {
-      log.error(
-          "Cổng thanh toán từ chối yêu cầu rút tiền cho ví {}: {}",
-          userWallet.getId(),
-          payoutResponse.getMessage());
-      throw new BadRequestException(
-          MessageConstant.Transaction.WITHDRAWAL_INITIATION_FAILED, payoutResponse.getMessage());
+  public void finalizeWithdrawal(UUID transactionId, PayoutResponse payoutResponse) {
+    Transaction transaction =
+        transactionRepository
+            .findById(transactionId)
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(
+                        MessageConstant.General.ENTITY_NOT_FOUND_BY_ID, transactionId));
+    transaction.setProviderTransactionId(payoutResponse.getProviderTransactionId());
+    transactionRepository.save(transaction);
+    log.info("Yêu cầu rút tiền cho giao dịch {} đã được nhà cung cấp chấp nhận.", transactionId);
+  }
+
+  /**
+   * Hoàn lại số tiền đã giữ chỗ khi cổng thanh toán từ chối yêu cầu rút tiền.
+   *
+   * <p>Không làm gì nếu giao dịch không còn ở trạng thái đang xem xét (ví dụ IPN rút tiền đã được
+   * xử lý trước).
+   *
+   * @param transactionId ID của giao dịch rút tiền.
+   * @param userWallet Ví của người dùng (đã được bảo vệ theo cơ chế của engine).
+   * @param payoutResponse Phản hồi từ cổng thanh toán.
+   * @return {@code true} nếu số tiền đã được hoàn lại.
+   */
+  public boolean refundRejectedWithdrawal(
+      UUID transactionId, Wallet userWallet, PayoutResponse payoutResponse) {
+    log.error(
+        "Cổng thanh toán từ chối yêu cầu rút tiền cho ví {}: {}",
+        userWallet.getId(),
+        payoutResponse.getMessage());
+    Transaction transaction =
+        transactionRepository
+            .findAndLockById(transactionId)
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(
+                        MessageConstant.General.ENTITY_NOT_FOUND_BY_ID, transactionId));
+    if (!TransactionConstant.Status.REVIEWING.equals(transaction.getStatus())) {
+      log.warn(LogConstant.TRANSACTION_ALREADY_PROCESSED, transactionId);
+      return false;
     }
+    BigDecimal balanceAfter =
+        walletBalanceHelper.credit(userWallet, transaction.getAmount(), null);
+    ledgerEntryHelper.recordExternalCredit(
+        userWallet.getId(), transaction.getId(), transaction.getAmount());
+    transaction.setStatus(TransactionConstant.Status.FAILED);
+    transaction.setBalanceAfter(balanceAfter);
+    transaction.setDescription(
+        String.format(MessageConstant.Transaction.TRANSACTION_FAILED, payoutResponse.getMessage()));
+    transactionRepository.save(transaction);
+    outboxHelper.record(
+        userWallet.getId(), OutboxConstant.EventType.TRANSACTION_FAILED, transaction);
+    return true;
   }
 
   /**
    * Lấy và khóa ví của người gửi và người nhận.
    *
+   * <p>Khi bật {@code app.transaction.transfer.ordered-locking}, ID của hai ví được xác định trước
+   * (không khóa), sau đó các ví được khóa theo thứ tự UUID tăng dần. Nhờ thứ tự khóa toàn cục này,
+   * hai giao dịch chuyển tiền ngược chiều nhau (A chuyển cho B và B chuyển cho A cùng lúc) không
+   * thể gây deadlock.
+   *
+   * <p>Nếu ví người nhận đã chia shard số dư, chỉ ví người gửi bị khóa: tiền được cộng vào một
+   * shard của người nhận mà không cần khóa hàng {@code wallets} của họ.
+   *
    * @param senderUser Người dùng gửi.
    * @param recipientWalletNumber Số ví của người nhận.
    * @return Một record chứa cả hai ví đã được khóa.
    */
   public TransferWallets getAndLockWalletsForTransfer(
       User senderUser, String recipientWalletNumber) {
+    TransferWallets wallets;
+    if (walletBalanceHelper.isSharded(recipientWalletNumber)) {
+      wallets = lockSenderWalletOnly(senderUser, recipientWalletNumber);
+    } else if (orderedTransferLocking) {
+      wallets = lockWalletsInGlobalOrder(senderUser, recipientWalletNumber);
+    } else {
+      wallets = lockWalletsInRequestOrder(senderUser, recipientWalletNumber);
+    }
+    validateTransferWallets(wallets);
+    return wallets;
+  }
+
+  /**
+   * Lấy ví của người gửi và người nhận mà không khóa.
+   *
+   * <p>Dùng cho các engine tự bảo vệ số dư bằng câu lệnh {@code UPDATE} có điều kiện hoặc bằng
+   * kiểm tra phiên bản ({@code @Version}), khi đó các kiểm tra ở đây chỉ để trả lỗi sớm; điều kiện
+   * cuối cùng được kiểm tra lại khi ghi.
+   *
+   * @param senderUser Người dùng gửi.
+   * @param recipientWalletNumber Số ví của người nhận.
+   * @return Một record chứa cả hai ví (chưa khóa).
+   */
+  public TransferWallets getWalletsForTransfer(User senderUser, String recipientWalletNumber) {
     Wallet senderWallet =
         walletRepository
-            .findAndLockByUserId(senderUser.getId())
+            .findWithoutLockByUserId(senderUser.getId())
             .orElseThrow(
                 () ->
                     new ResourceNotFoundException(MessageConstant.Wallet.SENDER_WALLET_NOT_FOUND));
-
     Wallet receiverWallet =
         walletRepository
-            .findAndLockByNumber(recipientWalletNumber)
+            .findByNumber(recipientWalletNumber)
             .orElseThrow(
                 () ->
                     new ResourceNotFoundException(
                         MessageConstant.Wallet.NOT_FOUND_BY_NUMBER, recipientWalletNumber));
+    TransferWallets wallets = new TransferWallets(senderWallet, receiverWallet);
+    validateTransferWallets(wallets);
+    return wallets;
+  }
 
-    if (senderWallet.getId().equals(receiverWallet.getId())) {
+  /**
+   * Kiểm tra hai ví của giao dịch chuyển tiền là khác nhau và đều đang hoạt động.
+   *
+   * @param wallets Các ví liên quan.
+   */
+  private void validateTransferWallets(TransferWallets wallets) {
+    if (wallets.sender().getId().equals(wallets.receiver().getId())) {
       throw new BadRequestException(MessageConstant.Transaction.SELF_TRANSFER_ERROR);
     }
-    if (!senderWallet.getStatus().equals(WalletConstant.Status.ACTIVE)
-        || !receiverWallet.getStatus().equals(WalletConstant.Status.ACTIVE)) {
+    if (!wallets.sender().getStatus().equals(WalletConstant.Status.ACTIVE)
+        || !wallets.receiver().getStatus().equals(WalletConstant.Status.ACTIVE)) {
       throw new ForbiddenException(MessageConstant.Transaction.WALLET_INACTIVE_ERROR);
     }
+  }
+
+  /**
+   * Khóa ví người gửi và tải ví người nhận (đã chia shard) mà không khóa.
+   *
+   * @param senderUser Người dùng gửi.
+   * @param recipientWalletNumber Số ví của người nhận.
+   * @return Một record chứa ví người gửi đã khóa và ví người nhận.
+   */
+  private TransferWallets lockSenderWalletOnly(User senderUser, String recipientWalletNumber) {
+    Wallet senderWallet =
+        walletRepository
+            .findAndLockByUserId(senderUser.getId())
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(MessageConstant.Wallet.SENDER_WALLET_NOT_FOUND));
+    Wallet receiverWallet =
+        walletRepository
+            .findByNumber(recipientWalletNumber)
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(
+                        MessageConstant.Wallet.NOT_FOUND_BY_NUMBER, recipientWalletNumber));
     return new TransferWallets(senderWallet, receiverWallet);
   }
 
+  /**
+   * Khóa ví người gửi rồi đến ví người nhận theo thứ tự của yêu cầu.
+   *
+   * @param senderUser Người dùng gửi.
+   * @param recipientWalletNumber Số ví của người nhận.
+   * @return Một record chứa cả hai ví đã được khóa.
+   */
+  private TransferWallets lockWalletsInRequestOrder(
+      User senderUser, String recipientWalletNumber) {
+    Wallet senderWallet =
+        walletRepository
+            .findAndLockByUserId(senderUser.getId())
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(MessageConstant.Wallet.SENDER_WALLET_NOT_FOUND));
+
+    Wallet receiverWallet =
+        walletRepository
+            .findAndLockByNumber(recipientWalletNumber)
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(
+                        MessageConstant.Wallet.NOT_FOUND_BY_NUMBER, recipientWalletNumber));
+    return new TransferWallets(senderWallet, receiverWallet);
+  }
+
+  /**
+   * Xác định ID của hai ví rồi khóa chúng theo thứ tự UUID tăng dần.
+   *
+   * @param senderUser Người dùng gửi.
+   * @param recipientWalletNumber Số ví của người nhận.
+   * @return Một record chứa cả hai ví đã được khóa.
+   */
+  private TransferWallets lockWalletsInGlobalOrder(
+      User senderUser, String recipientWalletNumber) {
+    UUID senderWalletId =
+        walletRepository
+            .findIdByUserId(senderUser.getId())
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(MessageConstant.Wallet.SENDER_WALLET_NOT_FOUND));
+    UUID receiverWalletId =
+        walletRepository
+            .findIdByNumber(recipientWalletNumber)
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(
+                        MessageConstant.Wallet.NOT_FOUND_BY_NUMBER, recipientWalletNumber));
+    if (senderWalletId.equals(receiverWalletId)) {
+      throw new BadRequestException(MessageConstant.Transaction.SELF_TRANSFER_ERROR);
+    }
+
+    boolean senderFirst = senderWalletId.compareTo(receiverWalletId) < 0;
+    Wallet first = lockWalletById(senderFirst ? senderWalletId : receiverWalletId);
+    Wallet second = lockWalletById(senderFirst ? receiverWalletId : senderWalletId);
+    return senderFirst ? new TransferWallets(first, second) : new TransferWallets(second, first);
+  }
+
+  /**
+   * Khóa một ví theo ID.
+   *
+   * @param walletId ID của ví.
+   * @return Ví đã được khóa.
+   */
+  private Wallet lockWalletById(UUID walletId) {
+    return walletRepository
+        .findAndLockById(walletId)
+        .orElseThrow(
+            () ->
+                new ResourceNotFoundException(
+                    MessageConstant.General.ENTITY_NOT_FOUND_BY_ID, walletId));
+  }
+
   /**
    * Xác thực mã PIN và khóa bí mật cho giao dịch chuyển tiền.
    *
@@ -322,39 +578,41 @@ public class TransactionHelper {
   /**
    * Thực hiện cập nhật số dư cho cả hai ví và lưu lại.
    *
+   * <p>Nếu ví người nhận đã chia shard, tiền được cộng vào một shard của nó qua {@link
+   * WalletBalanceHelper}; số dư trước và sau của người nhận khi đó là tổng các shard tại thời điểm
+   * cộng.
+   *
    * @param wallets Các ví liên quan (đã khóa).
    * @param amount Số tiền chuyển.
+   * @return Số dư trước và sau giao dịch của cả hai ví.
    */
-  public void performBalanceUpdateAndSave(TransferWallets wallets, BigDecimal amount) {
-    if (wallets.sender().getBalance().compareTo(amount) < 0) {
-      throw new BadRequestException(MessageConstant.Wallet.INSUFFICIENT_BALANCE);
-    }
-    wallets.sender().setBalance(wallets.sender().getBalance().subtract(amount));
-    wallets.receiver().setBalance(wallets.receiver().getBalance().add(amount));
-    walletRepository.save(wallets.sender());
-    walletRepository.save(wallets.receiver());
+  public TransferBalances performBalanceUpdateAndSave(TransferWallets wallets, BigDecimal amount) {
+    BigDecimal senderAfter = walletBalanceHelper.debit(wallets.sender(), amount);
+    BigDecimal receiverAfter =
+        walletBalanceHelper.credit(wallets.receiver(), amount, wallets.sender().getId());
+    return new TransferBalances(
+        senderAfter.add(amount), senderAfter, receiverAfter.subtract(amount), receiverAfter);
   }
 
   /**
    * Tạo và lưu các bản ghi giao dịch cho cả người gửi và người nhận.
    *
-   * @param wallets Các ví liên quan (đã khóa).
+   * <p>Hai bản ghi được lưu cùng lúc bằng {@code saveAll}; vì ID được cấp phía ứng dụng, Hibernate
+   * gửi chúng trong cùng một lô {@code INSERT} khi flush.
+   *
+   * @param wallets Các ví liên quan.
    * @param request Yêu cầu chuyển tiền.
-   * @param senderBalanceBefore Số dư của người gửi trước giao dịch.
-   * @param receiverBalanceBefore Số dư của người nhận trước giao dịch.
+   * @param balances Số dư trước và sau giao dịch của cả hai ví.
    */
   public void createTransferTransactions(
-      TransferWallets wallets,
-      TransferRequest request,
-      BigDecimal senderBalanceBefore,
-      BigDecimal receiverBalanceBefore) {
+      TransferWallets wallets, TransferRequest request, TransferBalances balances) {
     Transaction senderTx =
         Transaction.builder()
             .wallet(wallets.sender())
             .amount(request.getAmount())
             .transactionFee(BigDecimal.ZERO)
-            .balanceBefore(senderBalanceBefore)
-            .balanceAfter(wallets.sender().getBalance())
+            .balanceBefore(balances.senderBefore())
+            .balanceAfter(balances.senderAfter())
             .type(TransactionConstant.Type.TRANSFER_OUT)
             .status(TransactionConstant.Status.COMPLETED)
             .description(
@@ -363,24 +621,35 @@ public class TransactionHelper {
                     wallets.receiver().getNumber(),
                     request.getDescription()))
             .build();
-    Transaction savedSenderTx = transactionRepository.save(senderTx);
 
     Transaction receiverTx =
         Transaction.builder()
             .wallet(wallets.receiver())
             .amount(request.getAmount())
             .transactionFee(BigDecimal.ZERO)
-            .balanceBefore(receiverBalanceBefore)
-            .balanceAfter(wallets.receiver().getBalance())
+            .balanceBefore(balances.receiverBefore())
+            .balanceAfter(balances.receiverAfter())
             .type(TransactionConstant.Type.TRANSFER_IN)
             .status(TransactionConstant.Status.COMPLETED)
             .description(
                 String.format(
                     MessageConstant.Transaction.TRANSFER_IN_DESCRIPTION,
                     wallets.sender().getNumber()))
-            .relatedTransaction(savedSenderTx)
+            .relatedTransaction(senderTx)
             .build();
-    transactionRepository.save(receiverTx);
+    transactionRepository.saveAll(List.of(senderTx, receiverTx));
+    ledgerEntryHelper.recordTransfer(
+        wallets.sender().getId(),
+        senderTx.getId(),
+        wallets.receiver().getId(),
+        receiverTx.getId(),
+        request.getAmount());
+    outboxHelper.record(
+        wallets.sender().getId(), OutboxConstant.EventType.TRANSACTION_COMPLETED, senderTx);
+    outboxHelper.record(
+        wallets.receiver().getId(), OutboxConstant.EventType.TRANSACTION_COMPLETED, receiverTx);
+    walletAggregateHelper.record(senderTx);
+    walletAggregateHelper.record(receiverTx);
   }
 
   /**
@@ -391,14 +660,18 @@ public class TransactionHelper {
    */
   public void updateWalletBalanceAndTransactionForDeposit(
       ProcessIpnResponse ipnResponse, LockedTransactionContext context) {
-    BigDecimal balanceBefore = context.wallet().getBalance();
+    BigDecimal balanceBefore = walletBalanceHelper.getTotalBalance(context.wallet());
     context.transaction().setBalanceBefore(balanceBefore);
 
     if (ipnResponse.getTransactionStatus().equals(TransactionConstant.Status.COMPLETED)) {
-      context.wallet().setBalance(balanceBefore.add(context.transaction().getAmount()));
-      walletRepository.save(context.wallet());
+      BigDecimal balanceAfter =
+          walletBalanceHelper.credit(context.wallet(), context.transaction().getAmount(), null);
+      ledgerEntryHelper.recordExternalCredit(
+          context.wallet().getId(),
+          context.transaction().getId(),
+          context.transaction().getAmount());
       context.transaction().setStatus(TransactionConstant.Status.COMPLETED);
-      context.transaction().setBalanceAfter(context.wallet().getBalance());
+      context.transaction().setBalanceAfter(balanceAfter);
     } else {
       context.transaction().setStatus(ipnResponse.getTransactionStatus());
       context.transaction().setBalanceAfter(balanceBefore);
@@ -410,6 +683,7 @@ public class TransactionHelper {
     }
     context.transaction().setProviderTransactionId(ipnResponse.getProviderTransactionId());
     transactionRepository.save(context.transaction());
+    recordOutcome(context);
   }
 
   /**
@@ -422,14 +696,16 @@ public class TransactionHelper {
       ProcessIpnResponse ipnResponse, LockedTransactionContext context) {
     if (ipnResponse.getTransactionStatus().equals(TransactionConstant.Status.COMPLETED)) {
       context.transaction().setStatus(TransactionConstant.Status.COMPLETED);
-      context.transaction().setBalanceAfter(context.wallet().getBalance());
+      context.transaction().setBalanceAfter(walletBalanceHelper.getTotalBalance(context.wallet()));
     } else {
-      context
-          .wallet()
-          .setBalance(context.wallet().getBalance().add(context.transaction().getAmount()));
-      walletRepository.save(context.wallet());
+      BigDecimal balanceAfter =
+          walletBalanceHelper.credit(context.wallet(), context.transaction().getAmount(), null);
+      ledgerEntryHelper.recordExternalCredit(
+          context.wallet().getId(),
+          context.transaction().getId(),
+          context.transaction().getAmount());
       context.transaction().setStatus(TransactionConstant.Status.FAILED);
-      context.transaction().setBalanceAfter(context.wallet().getBalance());
+      context.transaction().setBalanceAfter(balanceAfter);
       context
           .transaction()
           .setDescription(
@@ -438,44 +714,78 @@ public class TransactionHelper {
     }
     context.transaction().setProviderTransactionId(ipnResponse.getProviderTransactionId());
     transactionRepository.save(context.transaction());
+    recordOutcome(context);
+  }
+
+  private void recordOutcome(LockedTransactionContext context) {
+    outboxHelper.record(
+        context.wallet().getId(),
+        TransactionConstant.Status.COMPLETED.equals(context.transaction().getStatus())
+            ? OutboxConstant.EventType.TRANSACTION_COMPLETED
+            : OutboxConstant.EventType.TRANSACTION_FAILED,
+        context.transaction());
+    walletAggregateHelper.record(context.transaction());
   }
 
   /**
    * Tìm, xác thực trạng thái và khóa một giao dịch cùng với ví liên quan của nó.
    *
+   * <p>Giao dịch và ví được tải và khóa trong cùng một câu lệnh. Thứ tự khóa giữa hai hàng do
+   * MySQL quyết định; nếu xảy ra deadlock với một luồng khóa ví trước, giao dịch được thử lại bởi
+   * {@link TransactionRetryHelper}.
+   *
    * @param transactionId ID của giao dịch.
    * @param expectedStatus Trạng thái mong đợi của giao dịch.
    * @return Optional chứa context đã khóa nếu hợp lệ.
    */
   public Optional<LockedTransactionContext> findAndLockTransactionForProcessing(
       UUID transactionId, Integer expectedStatus) {
-    Transaction initialTransaction =
+    Transaction lockedTransaction =
         transactionRepository
-            .findById(transactionId)
+            .findAndLockWithWalletById(transactionId)
             .orElseThrow(
                 () ->
                     new ResourceNotFoundException(
                         MessageConstant.General.ENTITY_NOT_FOUND_BY_ID, transactionId));
-    if (!initialTransaction.getStatus().equals(expectedStatus)) {
-      log.warn(LogConstant.TRANSACTION_ALREADY_PROCESSED, initialTransaction.getId());
+    if (!lockedTransaction.getStatus().equals(expectedStatus)) {
+      log.warn(LogConstant.TRANSACTION_ALREADY_PROCESSED, lockedTransaction.getId());
       return Optional.empty();
     }
-    Wallet lockedWallet =
-        walletRepository
-            .findAndLockById(initialTransaction.getWallet().getId())
-            .orElseThrow(
-                () -> new ResourceNotFoundException(MessageConstant.Wallet.USER_WALLET_NOT_FOUND));
-    Transaction lockedTransaction =
+    return Optional.of(
+        new LockedTransactionContext(lockedTransaction, lockedTransaction.getWallet()));
+  }
+
+  /**
+   * Tìm và xác thực trạng thái của một giao dịch cùng với ví liên quan mà không khóa.
+   *
+   * <p>Dùng cho engine khóa lạc quan: nếu hai IPN cho cùng một giao dịch được xử lý đồng thời, cả
+   * hai đều đọc thấy trạng thái mong đợi, nhưng chỉ một bên vượt qua kiểm tra phiên bản của giao
+   * dịch ({@link Transaction#getVersion()}) khi cập nhật trạng thái. Bên còn lại bị hoàn tác cả phần
+   * cộng tiền vào ví (kể cả trên các ví được chia nhỏ số dư, nơi phiên bản của ví không tăng), được
+   * thử lại, đọc thấy trạng thái đã thay đổi và bỏ qua.
+   *
+   * @param transactionId ID của giao dịch.
+   * @param expectedStatus Trạng thái mong đợi của giao dịch.
+   * @return Optional chứa context nếu hợp lệ.
+   */
+  public Optional<LockedTransactionContext> findTransactionForProcessing(
+      UUID transactionId, Integer expectedStatus) {
+    Transaction transaction =
         transactionRepository
-            .findAndLockById(transactionId)
+            .findById(transactionId)
             .orElseThrow(
                 () ->
                     new ResourceNotFoundException(
                         MessageConstant.General.ENTITY_NOT_FOUND_BY_ID, transactionId));
-    if (!lockedTransaction.getStatus().equals(expectedStatus)) {
-      log.warn(LogConstant.TRANSACTION_ALREADY_PROCESSED, lockedTransaction.getId());
+    if (!transaction.getStatus().equals(expectedStatus)) {
+      log.warn(LogConstant.TRANSACTION_ALREADY_PROCESSED, transaction.getId());
       return Optional.empty();
     }
-    return Optional.of(new LockedTransactionContext(lockedTransaction, lockedWallet));
+    Wallet wallet =
+        walletRepository
+            .findById(transaction.getWallet().getId())
+            .orElseThrow(
+                () -> new ResourceNotFoundException(MessageConstant.Wallet.USER_WALLET_NOT_FOUND));
+    return Optional.of(new LockedTransactionContext(transaction, wallet));
   }
 }
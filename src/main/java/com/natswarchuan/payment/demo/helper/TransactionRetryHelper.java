@@ -0,0 +1,211 @@
+package com.natswarchuan.payment.demo.helper;
+
+import com.natswarchuan.payment.demo.constant.AppConfigConstant;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.exception.custom.ConflictException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PessimisticLockException;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.StaleObjectStateException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Lớp helper thực thi một đơn vị công việc trong một giao dịch cơ sở dữ liệu và tự động thử lại khi
+ * gặp deadlock, hết thời gian chờ khóa hoặc xung đột phiên bản (khóa lạc quan).
+ *
+ * <p>Mỗi lần thử chạy trong một giao dịch mới (thông qua {@link TransactionTemplate}) để toàn bộ
+ * khóa của lần thử trước được giải phóng trước khi thử lại. Thời gian chờ giữa các lần thử tăng
+ * theo cấp số nhân, có giới hạn trên và được thêm nhiễu ngẫu nhiên (full jitter) để các yêu cầu xung
+ * đột không thử lại đồng loạt. Xung đột khóa lạc quan dùng một chính sách thử lại riêng ({@code
+ * app.transaction.optimistic-retry.*}), vì chúng thường được giải quyết ngay ở lần đọc lại.
+ *
+ * <p>Mỗi lần thử, mỗi lần thử lại và mỗi lần hết lượt thử đều được ghi nhận thành counter trong
+ * {@link MeterRegistry}, từ đó tính được tỷ lệ xung đột và thử lại của từng thao tác.
+ */
+@Component
+@Slf4j
+public class TransactionRetryHelper {
+
+  private final TransactionTemplate transactionTemplate;
+  private final MeterRegistry meterRegistry;
+
+  @Value("${app.transaction.lock-retry.max-attempts:3}")
+  private int maxAttempts;
+
+  @Value("${app.transaction.lock-retry.initial-backoff-ms:20}")
+  private long initialBackoffMs;
+
+  @Value("${app.transaction.lock-retry.max-backoff-ms:200}")
+  private long maxBackoffMs;
+
+  @Value("${app.transaction.optimistic-retry.max-attempts:5}")
+  private int optimisticMaxAttempts;
+
+  @Value("${app.transaction.optimistic-retry.initial-backoff-ms:5}")
+  private long optimisticInitialBackoffMs;
+
+  @Value("${app.transaction.optimistic-retry.max-backoff-ms:100}")
+  private long optimisticMaxBackoffMs;
+
+  /**
+   * Khởi tạo TransactionRetryHelper.
+   *
+   * @param transactionManager Trình quản lý giao dịch dùng để mở giao dịch cho mỗi lần thử.
+   * @param meterRegistry Registry để ghi nhận các metric thử lại.
+   */
+  public TransactionRetryHelper(
+      final PlatformTransactionManager transactionManager, final MeterRegistry meterRegistry) {
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Thực thi một hành động trong giao dịch và thử lại khi gặp xung đột khóa hoặc xung đột phiên bản.
+   *
+   * <p>Nếu lời gọi đã nằm trong một giao dịch đang hoạt động, hành động sẽ tham gia giao dịch đó và
+   * chỉ được thực thi một lần, vì không thể thử lại một phần của giao dịch bên ngoài.
+   *
+   * @param operation Tên thao tác, được dùng làm tag cho metric và trong log.
+   * @param action Hành động cần thực thi.
+   * @param <T> Kiểu dữ liệu trả về.
+   * @return Kết quả của hành động.
+   * @throws ConflictException nếu vẫn xung đột khóa sau khi đã hết số lần thử.
+   */
+  public <T> T executeInTransaction(final String operation, final Supplier<T> action) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return transactionTemplate.execute(status -> action.get());
+    }
+    int attempt = 1;
+    while (true) {
+      meterRegistry
+          .counter(MetricConstant.TX_ATTEMPT, MetricConstant.TAG_OPERATION, operation)
+          .increment();
+      try {
+        return transactionTemplate.execute(status -> action.get());
+      } catch (RuntimeException e) {
+        final String reason = classifyLockFailure(e);
+        if (reason == null) {
+          throw e;
+        }
+        final boolean optimistic = MetricConstant.REASON_OPTIMISTIC_CONFLICT.equals(reason);
+        if (attempt >= (optimistic ? optimisticMaxAttempts : maxAttempts)) {
+          meterRegistry
+              .counter(
+                  MetricConstant.LOCK_RETRY_EXHAUSTED,
+                  MetricConstant.TAG_OPERATION,
+                  operation,
+                  MetricConstant.TAG_REASON,
+                  reason)
+              .increment();
+          log.warn(LogConstant.LOCK_RETRY_EXHAUSTED, operation, attempt, reason);
+          throw new ConflictException(MessageConstant.Transaction.CONCURRENT_UPDATE_FAILED);
+        }
+        meterRegistry
+            .counter(
+                MetricConstant.LOCK_RETRY,
+                MetricConstant.TAG_OPERATION,
+                operation,
+                MetricConstant.TAG_REASON,
+                reason)
+            .increment();
+        final long backoffMs =
+            optimistic
+                ? computeBackoff(attempt, optimisticInitialBackoffMs, optimisticMaxBackoffMs)
+                : computeBackoff(attempt, initialBackoffMs, maxBackoffMs);
+        log.info(LogConstant.LOCK_RETRY_ATTEMPT, reason, operation, attempt, backoffMs);
+        sleep(backoffMs, e);
+        attempt++;
+      }
+    }
+  }
+
+  /**
+   * Thực thi một hành động không có giá trị trả về trong giao dịch và thử lại khi gặp xung đột
+   * khóa.
+   *
+   * @param operation Tên thao tác, được dùng làm tag cho metric và trong log.
+   * @param action Hành động cần thực thi.
+   */
+  public void runInTransaction(final String operation, final Runnable action) {
+    executeInTransaction(
+        operation,
+        () -> {
+          action.run();
+          return null;
+        });
+  }
+
+  /**
+   * Xác định một ngoại lệ có phải do xung đột khóa có thể thử lại hay không.
+   *
+   * <p>Ưu tiên mã lỗi MySQL trong chuỗi nguyên nhân để phân biệt deadlock với hết thời gian chờ
+   * khóa; nếu không có, dựa vào các loại ngoại lệ khóa bi quan và khóa lạc quan của
+   * Spring/JPA/Hibernate.
+   *
+   * @param e Ngoại lệ cần phân loại.
+   * @return Lý do xung đột (dùng làm tag metric), hoặc {@code null} nếu không thể thử lại.
+   */
+  private String classifyLockFailure(final Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof SQLException sqlException) {
+        if (sqlException.getErrorCode() == AppConfigConstant.MYSQL_ERROR_DEADLOCK) {
+          return MetricConstant.REASON_DEADLOCK;
+        }
+        if (sqlException.getErrorCode() == AppConfigConstant.MYSQL_ERROR_LOCK_WAIT_TIMEOUT) {
+          return MetricConstant.REASON_LOCK_TIMEOUT;
+        }
+      }
+    }
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof LockTimeoutException) {
+        return MetricConstant.REASON_LOCK_TIMEOUT;
+      }
+      if (cause instanceof PessimisticLockingFailureException
+          || cause instanceof PessimisticLockException) {
+        return MetricConstant.REASON_DEADLOCK;
+      }
+      if (cause instanceof OptimisticLockingFailureException
+          || cause instanceof OptimisticLockException
+          || cause instanceof StaleObjectStateException) {
+        return MetricConstant.REASON_OPTIMISTIC_CONFLICT;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Tính thời gian chờ trước lần thử tiếp theo theo chiến lược "full jitter".
+   *
+   * @param attempt Số thứ tự của lần thử vừa thất bại (bắt đầu từ 1).
+   * @param initialMs Thời gian chờ cơ sở của chính sách.
+   * @param maxMs Thời gian chờ tối đa của chính sách.
+   * @return Thời gian chờ tính bằng mili giây.
+   */
+  private long computeBackoff(final int attempt, final long initialMs, final long maxMs) {
+    final long exponential = initialMs << Math.min(attempt - 1, 16);
+    final long cap = Math.max(1, Math.min(maxMs, exponential));
+    return ThreadLocalRandom.current().nextLong(cap + 1);
+  }
+
+  private void sleep(final long backoffMs, final RuntimeException cause) {
+    try {
+      Thread.sleep(backoffMs);
+    } catch (InterruptedException interrupted) {
+      Thread.currentThread().interrupt();
+      throw cause;
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.natswarchuan.payment.demo.helper;
+
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.entity.Transaction;
+import com.natswarchuan.payment.demo.repository.WalletDailyAggregateRepository;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Helper cập nhật bảng tổng hợp giao dịch theo ngày ({@code wallet_daily_aggregates}).
+ *
+ * <p>Được gọi trong cùng giao dịch cơ sở dữ liệu với việc ghi nhận một giao dịch hoàn tất, nên
+ * bảng tổng hợp luôn nhất quán với bảng {@code transactions}. Một giao dịch được tính vào ngày của
+ * thời điểm tạo (theo độ lệch {@code app.aggregates.utc-offset}), kể cả khi nó hoàn tất vào ngày
+ * sau, để kết quả trùng với lần dựng lại từ lịch sử.
+ */
+@Component
+public class WalletAggregateHelper {
+
+  private final WalletDailyAggregateRepository aggregateRepository;
+  private final ZoneOffset offset;
+
+  /**
+   * Khởi tạo WalletAggregateHelper.
+   *
+   * @param aggregateRepository Kho lưu trữ cho bảng tổng hợp.
+   * @param offset Độ lệch múi giờ xác định ngày nghiệp vụ (ví dụ {@code +07:00}).
+   */
+  public WalletAggregateHelper(
+      final WalletDailyAggregateRepository aggregateRepository,
+      @Value("${app.aggregates.utc-offset:+07:00}") final String offset) {
+    this.aggregateRepository = aggregateRepository;
+    this.offset = ZoneOffset.of(offset);
+  }
+
+  /**
+   * Cộng một giao dịch vào bảng tổng hợp nếu giao dịch đã hoàn tất.
+   *
+   * @param transaction Giao dịch vừa được lưu.
+   */
+  public void record(final Transaction transaction) {
+    if (!TransactionConstant.Status.COMPLETED.equals(transaction.getStatus())) {
+      return;
+    }
+    aggregateRepository.increment(
+        transaction.getWallet().getId(),
+        businessDate(transaction.getCreatedAt()),
+        transaction.getType(),
+        1L,
+        transaction.getAmount(),
+        Instant.now());
+  }
+
+  /**
+   * Tạo một lô cộng dồn, dùng khi ghi nhiều giao dịch trong cùng một giao dịch cơ sở dữ liệu: các
+   * giao dịch cùng ví, ngày và loại được gộp thành một câu lệnh upsert.
+   *
+   * @return lô cộng dồn rỗng.
+   */
+  public Batch batch() {
+    return new Batch();
+  }
+
+  /**
+   * Độ lệch múi giờ xác định ngày nghiệp vụ.
+   *
+   * @return độ lệch so với UTC.
+   */
+  public ZoneOffset offset() {
+    return offset;
+  }
+
+  private LocalDate businessDate(final Instant createdAt) {
+    return LocalDate.ofInstant(createdAt != null ? createdAt : Instant.now(), offset);
+  }
+
+  /** Lô cộng dồn vào bảng tổng hợp, chỉ dùng trong một luồng. */
+  public final class Batch {
+    private final Map<Key, Total> totals = new HashMap<>();
+
+    private Batch() {}
+
+    /**
+     * Thêm một giao dịch đã hoàn tất vào lô.
+     *
+     * @param walletId ID của ví.
+     * @param createdAt Thời điểm tạo giao dịch.
+     * @param type Loại giao dịch.
+     * @param amount Số tiền.
+     */
+    public void add(
+        final UUID walletId, final Instant createdAt, final Integer type, final BigDecimal amount) {
+      final Total total =
+          totals.computeIfAbsent(
+              new Key(walletId, businessDate(createdAt), type), key -> new Total());
+      total.count++;
+      total.amount = total.amount.add(amount);
+    }
+
+    /** Ghi các tổng đã gộp xuống bảng tổng hợp. */
+    public void flush() {
+      final Instant now = Instant.now();
+      totals.forEach(
+          (key, total) ->
+              aggregateRepository.increment(
+                  key.walletId(), key.businessDate(), key.type(), total.count, total.amount, now));
+      totals.clear();
+    }
+  }
+
+  private record Key(UUID walletId, LocalDate businessDate, Integer type) {}
+
+  private static final class Total {
+    private long count;
+    private BigDecimal amount = BigDecimal.ZERO;
+  }
+}
@@ -0,0 +1,238 @@
+package com.natswarchuan.payment.demo.helper;
+
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.WalletConstant;
+import com.natswarchuan.payment.demo.entity.Wallet;
+import com.natswarchuan.payment.demo.entity.WalletBalanceShard;
+import com.natswarchuan.payment.demo.exception.custom.BadRequestException;
+import com.natswarchuan.payment.demo.repository.WalletBalanceShardRepository;
+import com.natswarchuan.payment.demo.repository.WalletRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lớp helper đóng gói mọi thay đổi số dư trên entity {@link Wallet}, bao gồm cả các ví đã chia shard.
+ *
+ * <p>Với ví thường ({@code shardCount = 1}), số dư nằm hoàn toàn trên hàng {@code wallets}. Với ví
+ * đã chia shard, số dư thực là tổng của phần "gốc" trên hàng {@code wallets} và các hàng {@link
+ * WalletBalanceShard}:
+ *
+ * <ul>
+ *   <li><b>Cộng tiền:</b> chọn một shard (ngẫu nhiên, hoặc băm theo ví nguồn) và cộng bằng một câu
+ *       lệnh {@code UPDATE}; không khóa hàng {@code wallets}, nên các giao dịch nhận tiền đồng thời
+ *       không còn tuần tự hóa trên một hàng.
+ *   <li><b>Trừ tiền:</b> người gọi phải đang giữ ví (đã khóa, hoặc được bảo vệ bởi {@code
+ *       @Version}); phần gốc được trừ trước, phần còn lại được rút dần từ các shard đã khóa theo thứ
+ *       tự chỉ số.
+ * </ul>
+ *
+ * <p>{@link #configureShards} giữ khóa hàng {@code wallets} rồi khóa các shard. Khi số shard đọc
+ * được trước đó không còn khớp với các shard thực tế (shard cần cộng đã bị xóa, hoặc số shard khóa
+ * được khác {@code shardCount}), ví được đọc lại dưới khóa hàng ví và thao tác được thực hiện lại
+ * theo cấu hình mới, nên không lần ghi nào bị mất. Trên nhánh ví thường, ví đã được giữ (khóa, hoặc
+ * {@code @Version} mà {@link #configureShards} luôn tăng), nên thay đổi đồng thời bị phát hiện.
+ */
+@Component
+@RequiredArgsConstructor
+public class WalletBalanceHelper {
+
+  private final WalletRepository walletRepository;
+  private final WalletBalanceShardRepository shardRepository;
+  private final EntityManager entityManager;
+
+  @Value("${app.wallet.sharding.credit-strategy:RANDOM}")
+  private String creditStrategy;
+
+  /**
+   * Kiểm tra ví có đang được chia shard hay không.
+   *
+   * @param wallet Ví cần kiểm tra.
+   * @return {@code true} nếu số dư của ví được chia thành nhiều shard.
+   */
+  public boolean isSharded(Wallet wallet) {
+    return wallet.getShardCount() != null
+        && wallet.getShardCount() > WalletConstant.Sharding.UNSHARDED;
+  }
+
+  /**
+   * Kiểm tra ví có đang được chia shard hay không dựa trên số ví, mà không tải hay khóa ví.
+   *
+   * @param walletNumber Số ví.
+   * @return {@code true} nếu ví tồn tại và đang được chia shard.
+   */
+  public boolean isSharded(String walletNumber) {
+    return walletRepository
+        .findShardCountByNumber(walletNumber)
+        .map(count -> count > WalletConstant.Sharding.UNSHARDED)
+        .orElse(false);
+  }
+
+  /**
+   * Lấy số dư thực của ví.
+   *
+   * @param wallet Ví cần đọc số dư.
+   * @return số dư trên hàng ví, cộng tổng các shard nếu ví đã chia shard.
+   */
+  public BigDecimal getTotalBalance(Wallet wallet) {
+    if (!isSharded(wallet)) {
+      return wallet.getBalance();
+    }
+    return wallet.getBalance().add(shardRepository.sumBalanceByWalletId(wallet.getId()));
+  }
+
+  /**
+   * Cộng tiền vào ví.
+   *
+   * @param wallet Ví nhận tiền. Với ví thường, ví phải đang được giữ bởi giao dịch hiện tại.
+   * @param amount Số tiền cần cộng.
+   * @param routingKey Khóa dùng để chọn shard khi chiến lược là {@code HASHED} (thường là ID của
+   *     ví nguồn); có thể {@code null}.
+   * @return số dư thực của ví sau khi cộng.
+   */
+  public BigDecimal credit(Wallet wallet, BigDecimal amount, UUID routingKey) {
+    if (isSharded(wallet) && creditShard(wallet, amount, routingKey)) {
+      return getTotalBalance(wallet);
+    }
+    if (isSharded(wallet)) {
+      // Số shard đã đổi sau khi ví được đọc: đọc lại dưới khóa mà configureShards giữ.
+      lockForShardChange(wallet);
+      if (isSharded(wallet)) {
+        final int shardIndex = pickShard(wallet.getShardCount(), routingKey);
+        if (shardRepository.credit(wallet.getId(), shardIndex, amount, Instant.now()) == 0) {
+          throw new IllegalStateException(
+              String.format(
+                  MessageConstant.Wallet.BALANCE_SHARD_MISSING, shardIndex, wallet.getId()));
+        }
+        return getTotalBalance(wallet);
+      }
+    }
+    wallet.setBalance(wallet.getBalance().add(amount));
+    walletRepository.save(wallet);
+    return wallet.getBalance();
+  }
+
+  /**
+   * Trừ tiền khỏi ví.
+   *
+   * @param wallet Ví bị trừ tiền, đang được giữ bởi giao dịch hiện tại.
+   * @param amount Số tiền cần trừ.
+   * @return số dư thực của ví sau khi trừ.
+   * @throws BadRequestException nếu số dư thực không đủ.
+   */
+  public BigDecimal debit(Wallet wallet, BigDecimal amount) {
+    if (!isSharded(wallet)) {
+      if (wallet.getBalance().compareTo(amount) < 0) {
+        throw new BadRequestException(MessageConstant.Wallet.INSUFFICIENT_BALANCE);
+      }
+      wallet.setBalance(wallet.getBalance().subtract(amount));
+      walletRepository.save(wallet);
+      return wallet.getBalance();
+    }
+
+    List<WalletBalanceShard> shards = shardRepository.findAndLockByWalletId(wallet.getId());
+    if (shards.size() != wallet.getShardCount()) {
+      // configureShards đã đổi số shard sau khi ví được đọc.
+      lockForShardChange(wallet);
+      if (!isSharded(wallet)) {
+        return debit(wallet, amount);
+      }
+      shards = shardRepository.findAndLockByWalletId(wallet.getId());
+    }
+    BigDecimal total = wallet.getBalance();
+    for (WalletBalanceShard shard : shards) {
+      total = total.add(shard.getBalance());
+    }
+    if (total.compareTo(amount) < 0) {
+      throw new BadRequestException(MessageConstant.Wallet.INSUFFICIENT_BALANCE);
+    }
+
+    // Phần gốc có thể âm tạm thời khi engine IN_MEMORY ghi lô thay đổi dạng delta lên hàng ví.
+    final BigDecimal fromHome = wallet.getBalance().max(BigDecimal.ZERO).min(amount);
+    wallet.setBalance(wallet.getBalance().subtract(fromHome));
+    walletRepository.save(wallet);
+
+    BigDecimal remaining = amount.subtract(fromHome);
+    final List<WalletBalanceShard> drained = new ArrayList<>();
+    for (WalletBalanceShard shard : shards) {
+      if (remaining.signum() == 0) {
+        break;
+      }
+      final BigDecimal take = shard.getBalance().min(remaining);
+      if (take.signum() > 0) {
+        shard.setBalance(shard.getBalance().subtract(take));
+        drained.add(shard);
+        remaining = remaining.subtract(take);
+      }
+    }
+    shardRepository.saveAll(drained);
+    return total.subtract(amount);
+  }
+
+  /**
+   * Thay đổi số shard của một ví.
+   *
+   * <p>Các shard còn thiếu được tạo với số dư 0. Khi giảm số shard, số dư của các shard bị bỏ được
+   * dồn về phần gốc trên hàng ví trước khi xóa, nên tổng số dư không đổi. Ví phải đang được khóa
+   * bởi giao dịch hiện tại.
+   *
+   * @param wallet Ví cần cấu hình (đã khóa).
+   * @param shardCount Số shard mới ({@code 1} để bỏ chia shard).
+   */
+  public void configureShards(Wallet wallet, int shardCount) {
+    final List<WalletBalanceShard> shards = shardRepository.findAndLockByWalletId(wallet.getId());
+    final int targetRows = shardCount > WalletConstant.Sharding.UNSHARDED ? shardCount : 0;
+
+    final List<WalletBalanceShard> removed = new ArrayList<>();
+    BigDecimal merged = BigDecimal.ZERO;
+    for (WalletBalanceShard shard : shards) {
+      if (shard.getShardIndex() >= targetRows) {
+        merged = merged.add(shard.getBalance());
+        removed.add(shard);
+      }
+    }
+    shardRepository.deleteAll(removed);
+
+    final List<WalletBalanceShard> created = new ArrayList<>();
+    for (int index = shards.size() - removed.size(); index < targetRows; index++) {
+      created.add(
+          WalletBalanceShard.builder()
+              .wallet(wallet)
+              .shardIndex(index)
+              .balance(BigDecimal.ZERO)
+              .build());
+    }
+    shardRepository.saveAll(created);
+
+    wallet.setBalance(wallet.getBalance().add(merged));
+    wallet.setShardCount(Math.max(shardCount, WalletConstant.Sharding.UNSHARDED));
+    walletRepository.save(wallet);
+  }
+
+  private boolean creditShard(Wallet wallet, BigDecimal amount, UUID routingKey) {
+    final int shardIndex = pickShard(wallet.getShardCount(), routingKey);
+    return shardRepository.credit(wallet.getId(), shardIndex, amount, Instant.now()) > 0;
+  }
+
+  /** Đọc lại ví dưới khóa hàng {@code wallets}, khóa mà {@link #configureShards} giữ trước. */
+  private void lockForShardChange(Wallet wallet) {
+    entityManager.flush();
+    entityManager.refresh(wallet, LockModeType.PESSIMISTIC_WRITE);
+  }
+
+  private int pickShard(int shardCount, UUID routingKey) {
+    if (WalletConstant.Sharding.CREDIT_STRATEGY_HASHED.equalsIgnoreCase(creditStrategy)
+        && routingKey != null) {
+      return Math.floorMod(routingKey.hashCode(), shardCount);
+    }
+    return ThreadLocalRandom.current().nextInt(shardCount);
+  }
+}
@@ -0,0 +1,100 @@
+package com.natswarchuan.payment.demo.interfaces.services;
+
+import com.natswarchuan.payment.demo.dto.request.transaction.TransferRequest;
+import com.natswarchuan.payment.demo.entity.User;
+import com.natswarchuan.payment.demo.entity.Wallet;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.LockedTransactionContext;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferBalances;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferWallets;
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Interface định nghĩa các hợp đồng cho một engine cập nhật số dư ví.
+ *
+ * <p>Mỗi engine là một chiến lược khác nhau để bảo vệ tính toàn vẹn của số dư khi có nhiều giao
+ * dịch đồng thời (ví dụ: khóa bi quan, câu lệnh {@code UPDATE} có điều kiện, hoặc khóa lạc quan
+ * bằng {@code @Version}). Engine được chọn theo từng môi trường triển khai qua thuộc tính {@code
+ * app.transaction.balance-engine}.
+ */
+public interface IBalanceEngine {
+
+  /**
+   * Lấy tên định danh của engine.
+   *
+   * @return chuỗi tên engine (ví dụ: "PESSIMISTIC", "ATOMIC").
+   */
+  String getEngineName();
+
+  /**
+   * Thực hiện toàn bộ giao dịch chuyển tiền: tải ví, xác thực PIN và khóa bí mật, cập nhật số dư
+   * và ghi các bản ghi giao dịch.
+   *
+   * <p>Engine tự quản lý ranh giới giao dịch cơ sở dữ liệu, vì vậy phương thức này không được gọi
+   * bên trong một giao dịch đang hoạt động.
+   *
+   * @param senderUser người dùng gửi tiền.
+   * @param request dữ liệu yêu cầu chuyển tiền.
+   */
+  void transfer(User senderUser, TransferRequest request);
+
+  /**
+   * Tải ví của người gửi và người nhận theo cách engine yêu cầu (có khóa hoặc không).
+   *
+   * <p>Phải được gọi bên trong một giao dịch đang hoạt động.
+   *
+   * @param senderUser người dùng gửi tiền.
+   * @param recipientWalletNumber số ví của người nhận.
+   * @return một record chứa cả hai ví đã được xác thực.
+   */
+  TransferWallets loadTransferWallets(User senderUser, String recipientWalletNumber);
+
+  /**
+   * Chuyển số tiền từ ví người gửi sang ví người nhận.
+   *
+   * <p>Phải được gọi bên trong một giao dịch đang hoạt động, với các ví đã được tải bởi {@link
+   * #loadTransferWallets(User, String)}.
+   *
+   * @param wallets các ví liên quan.
+   * @param amount số tiền chuyển.
+   * @return số dư trước và sau giao dịch của cả hai ví.
+   */
+  TransferBalances moveFunds(TransferWallets wallets, BigDecimal amount);
+
+  /**
+   * Tải ví của một người dùng để thay đổi số dư qua entity (ví dụ: khi rút tiền).
+   *
+   * <p>Phải được gọi bên trong một giao dịch đang hoạt động.
+   *
+   * @param userId ID của người dùng.
+   * @return ví của người dùng, đã được bảo vệ theo cơ chế của engine.
+   */
+  Wallet loadUserWallet(Long userId);
+
+  /**
+   * Tải giao dịch đang chờ xử lý cùng với ví của nó để hoàn tất từ IPN.
+   *
+   * <p>Phải được gọi bên trong một giao dịch đang hoạt động.
+   *
+   * @param transactionId ID của giao dịch.
+   * @param expectedStatus Trạng thái mong đợi của giao dịch.
+   * @return Optional chứa context nếu giao dịch vẫn ở trạng thái mong đợi.
+   */
+  Optional<LockedTransactionContext> loadTransactionForProcessing(
+      UUID transactionId, Integer expectedStatus);
+
+  /**
+   * Thực thi một thao tác thay đổi số dư của ví qua entity (nạp tiền, rút tiền).
+   *
+   * <p>Engine giữ số dư bên ngoài cơ sở dữ liệu dùng phương thức này để đưa thao tác về luồng sở
+   * hữu ví, sau khi đã ghi hết các thay đổi đang chờ; các engine khác chỉ đơn giản thực thi nó.
+   *
+   * @param walletId ID của ví bị thay đổi số dư.
+   * @param operation Thao tác cần thực thi (tự quản lý giao dịch cơ sở dữ liệu của nó).
+   * @param <T> Kiểu dữ liệu trả về.
+   * @return Kết quả của thao tác.
+   */
+  <T> T executeWalletOperation(UUID walletId, Supplier<T> operation);
+}
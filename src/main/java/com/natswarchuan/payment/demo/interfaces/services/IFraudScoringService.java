@@ -0,0 +1,24 @@
+package com.natswarchuan.payment.demo.interfaces.services;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/** Interface cho bước chấm điểm gian lận theo tốc độ giao dịch (velocity) của luồng chuyển tiền. */
+public interface IFraudScoringService {
+
+  /**
+   * Chấm điểm một lần chuyển tiền dựa trên các lần chuyển tiền gần đây của ví gửi.
+   *
+   * <p>Chỉ dùng dữ liệu trong bộ nhớ, không truy vấn cơ sở dữ liệu. Lần chuyển tiền bị gắn cờ vẫn
+   * được thực hiện nhưng được ghi log và số liệu.
+   *
+   * @param walletId ID của ví gửi.
+   * @param recipientWalletNumber Số ví nhận.
+   * @param amount Số tiền chuyển.
+   * @param clientIp Địa chỉ IP của client.
+   * @throws com.natswarchuan.payment.demo.exception.custom.ForbiddenException nếu điểm vượt ngưỡng
+   *     chặn.
+   */
+  void screenTransfer(
+      UUID walletId, String recipientWalletNumber, BigDecimal amount, String clientIp);
+}
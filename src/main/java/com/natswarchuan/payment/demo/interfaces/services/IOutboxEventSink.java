@@ -0,0 +1,20 @@
+package com.natswarchuan.payment.demo.interfaces.services;
+
+import com.natswarchuan.payment.demo.entity.OutboxEvent;
+import java.util.List;
+
+/**
+ * Interface cho đích nhận các sự kiện được chuyển tiếp từ outbox.
+ *
+ * <p>Mỗi lô chỉ chứa sự kiện của một partition, theo thứ tự commit. Nếu phương thức ném ngoại lệ,
+ * cả lô được chuyển tiếp lại ở chu kỳ sau, nên việc xử lý phải chịu được sự kiện bị lặp.
+ */
+public interface IOutboxEventSink {
+
+  /**
+   * Chuyển tiếp một lô sự kiện.
+   *
+   * @param events Các sự kiện theo thứ tự commit.
+   */
+  void publish(List<OutboxEvent> events);
+}
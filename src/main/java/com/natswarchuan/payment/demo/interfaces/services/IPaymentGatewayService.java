@@ -6,6 +6,7 @@ import com.natswarchuan.payment.demo.dto.response.gateway.PayoutResponse;
 import com.natswarchuan.payment.demo.dto.response.gateway.ProcessIpnResponse;
 import com.natswarchuan.payment.demo.entity.Transaction;
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.Optional;
 
 /**
  * Interface chung định nghĩa các hợp đồng cho một dịch vụ cổng thanh toán.
@@ -49,6 +50,20 @@ public interface IPaymentGatewayService {
    */
   ProcessIpnResponse processIpn(HttpServletRequest request);
 
+  /**
+   * Tra cứu kết quả cuối cùng của một giao dịch trực tiếp từ cổng thanh toán.
+   *
+   * <p>Dùng khi không nhận được IPN: kết quả trả về có cùng dạng với kết quả xử lý IPN nên có thể
+   * được ghi theo đúng luồng xử lý IPN.
+   *
+   * @param transaction giao dịch cần tra cứu.
+   * @return kết quả đã chuẩn hóa, hoặc rỗng nếu cổng thanh toán chưa có kết quả cuối cùng (giao
+   *     dịch đang xử lý hoặc không tìm thấy).
+   * @throws com.natswarchuan.payment.demo.exception.custom.ServiceUnavailableException nếu lời gọi
+   *     tra cứu thất bại, để bên gọi không nhầm lỗi tạm thời với "chưa thanh toán".
+   */
+  Optional<ProcessIpnResponse> queryTransaction(Transaction transaction);
+
   /**
    * Lấy tên định danh của nhà cung cấp cổng thanh toán.
    *
@@ -0,0 +1,18 @@
+package com.natswarchuan.payment.demo.interfaces.services;
+
+import com.natswarchuan.payment.demo.dto.request.reconciliation.ReconcileSettlementRequest;
+import com.natswarchuan.payment.demo.dto.response.reconciliation.ReconciliationSummaryResponse;
+
+/** Interface cho dịch vụ đối soát file quyết toán của cổng thanh toán với bảng giao dịch. */
+public interface IReconciliationService {
+
+  /**
+   * Đối soát một file quyết toán với các giao dịch trong kỳ quyết toán và ghi báo cáo sai lệch.
+   *
+   * @param request File quyết toán và kỳ quyết toán.
+   * @return Kết quả tổng hợp và đường dẫn file báo cáo.
+   * @throws com.natswarchuan.payment.demo.exception.custom.BadRequestException nếu file không tồn
+   *     tại, không hợp lệ hoặc kỳ quyết toán không hợp lệ.
+   */
+  ReconciliationSummaryResponse reconcile(ReconcileSettlementRequest request);
+}
@@ -0,0 +1,41 @@
+package com.natswarchuan.payment.demo.interfaces.services;
+
+import com.natswarchuan.payment.demo.service.limit.SpendLimitReservation;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Interface cho dịch vụ hạn mức giao dịch theo ví, thao tác và kỳ (cửa sổ trượt theo ngày và
+ * tháng).
+ */
+public interface ISpendLimitService {
+
+  /**
+   * Kiểm tra và giữ chỗ hạn mức cho một thao tác trong một bước.
+   *
+   * <p>Được gọi trước khi khóa ví; nếu thao tác sau đó thất bại, người gọi phải trả lại bằng {@link
+   * #release(SpendLimitReservation)}.
+   *
+   * @param walletId ID của ví thực hiện thao tác.
+   * @param authorities Quyền của người dùng, dùng để chọn bậc hạn mức (ví dụ {@code
+   *     ROLE_VERIFIED_USER}).
+   * @param operation Thao tác (xem {@link
+   *     com.natswarchuan.payment.demo.constant.LimitConstant.Operation}).
+   * @param amount Số tiền của thao tác.
+   * @return Lần giữ chỗ đã tạo.
+   * @throws com.natswarchuan.payment.demo.exception.custom.RateLimitExceededException nếu thao tác
+   *     vượt hạn mức.
+   * @throws com.natswarchuan.payment.demo.exception.custom.ServiceUnavailableException nếu không
+   *     kiểm tra được hạn mức và cấu hình không cho phép bỏ qua.
+   */
+  SpendLimitReservation reserve(
+      UUID walletId, Collection<String> authorities, String operation, BigDecimal amount);
+
+  /**
+   * Trả lại một lần giữ chỗ khi thao tác không thành công.
+   *
+   * @param reservation Lần giữ chỗ cần trả lại.
+   */
+  void release(SpendLimitReservation reservation);
+}
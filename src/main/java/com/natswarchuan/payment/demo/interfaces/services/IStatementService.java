@@ -0,0 +1,21 @@
+package com.natswarchuan.payment.demo.interfaces.services;
+
+import com.natswarchuan.payment.demo.dto.response.statement.MonthlyStatementSummaryResponse;
+import java.time.YearMonth;
+
+/** Interface cho dịch vụ tạo sao kê hàng tháng của các ví. */
+public interface IStatementService {
+
+  /**
+   * Tạo file sao kê của tháng cho mọi ví đang hoạt động, tiếp tục từ checkpoint nếu lần chạy trước
+   * bị gián đoạn.
+   *
+   * @param month Tháng cần tạo sao kê (phải đã kết thúc).
+   * @return Kết quả tổng hợp và thông lượng của lần chạy.
+   * @throws com.natswarchuan.payment.demo.exception.custom.BadRequestException nếu tháng chưa kết
+   *     thúc.
+   * @throws com.natswarchuan.payment.demo.exception.custom.ConflictException nếu đang có một lần
+   *     tạo sao kê khác chạy.
+   */
+  MonthlyStatementSummaryResponse generate(YearMonth month);
+}
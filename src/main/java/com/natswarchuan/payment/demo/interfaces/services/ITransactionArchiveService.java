@@ -0,0 +1,74 @@
+package com.natswarchuan.payment.demo.interfaces.services;
+
+import com.natswarchuan.payment.demo.dto.request.transaction.TransactionSearchRequest;
+import com.natswarchuan.payment.demo.dto.response.transaction.TransactionSummaryResponse;
+import com.natswarchuan.payment.demo.entity.Transaction;
+import com.natswarchuan.payment.demo.util.CursorUtil;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+/** Interface cho kho lưu trữ lạnh các giao dịch cũ (file segment dạng cột trên đĩa). */
+public interface ITransactionArchiveService {
+
+  /**
+   * Chuyển các giao dịch cũ hơn tuổi cấu hình từ MySQL sang kho lưu trữ.
+   *
+   * @return số giao dịch đã chuyển.
+   */
+  long archive();
+
+  /**
+   * Tìm giao dịch của một ví trên cả MySQL và kho lưu trữ.
+   *
+   * <p>Nếu không có segment nào có thể chứa kết quả (ví dụ {@code fromDate} mới hơn mọi dữ liệu đã
+   * lưu trữ), chỉ truy vấn MySQL như bình thường.
+   *
+   * @param walletId ID của ví.
+   * @param searchRequest Tiêu chí tìm kiếm.
+   * @param spec Điều kiện tương ứng trên MySQL (đã bao gồm điều kiện theo ví).
+   * @param pageable Thông tin phân trang và sắp xếp.
+   * @return một trang kết quả đã gộp.
+   */
+  Page<TransactionSummaryResponse> search(
+      UUID walletId,
+      TransactionSearchRequest searchRequest,
+      Specification<Transaction> spec,
+      Pageable pageable);
+
+  /**
+   * Lấy các giao dịch của một ví nằm sau một cursor (mới nhất trước) trên cả MySQL và kho lưu trữ.
+   *
+   * @param walletId ID của ví.
+   * @param searchRequest Tiêu chí tìm kiếm.
+   * @param spec Điều kiện tương ứng trên MySQL (đã bao gồm điều kiện theo ví và theo cursor).
+   * @param after Vị trí của hàng cuối trang trước, hoặc {@code null} cho trang đầu tiên.
+   * @param limit Số hàng tối đa.
+   * @return tối đa {@code limit} hàng đã gộp, theo {@code created_at} và ID giảm dần.
+   */
+  List<TransactionSummaryResponse> scroll(
+      UUID walletId,
+      TransactionSearchRequest searchRequest,
+      Specification<Transaction> spec,
+      CursorUtil.Position after,
+      int limit);
+
+  /**
+   * Gộp các giao dịch đã lưu trữ của một ví vào luồng đọc từ MySQL, theo thứ tự thời gian.
+   *
+   * <p>Kho lưu trữ được đọc lần lượt từng tháng, nên bộ nhớ chỉ phụ thuộc vào số giao dịch của ví
+   * trong một tháng. Đóng luồng trả về sẽ đóng luồng của MySQL.
+   *
+   * @param walletId ID của ví.
+   * @param searchRequest Tiêu chí lọc.
+   * @param hot Các giao dịch trong MySQL, theo {@code created_at} và ID tăng dần.
+   * @return luồng đã gộp, theo {@code created_at} và ID tăng dần.
+   */
+  Stream<TransactionSummaryResponse> mergeChronological(
+      UUID walletId,
+      TransactionSearchRequest searchRequest,
+      Stream<TransactionSummaryResponse> hot);
+}
@@ -1,9 +1,11 @@
 package com.natswarchuan.payment.demo.interfaces.services;
 
 import com.natswarchuan.payment.demo.dto.request.transaction.DepositRequest;
+import com.natswarchuan.payment.demo.dto.request.transaction.TransactionCursorRequest;
 import com.natswarchuan.payment.demo.dto.request.transaction.TransactionSearchRequest;
 import com.natswarchuan.payment.demo.dto.request.transaction.TransferRequest;
 import com.natswarchuan.payment.demo.dto.request.transaction.WithdrawRequest;
+import com.natswarchuan.payment.demo.dto.response.CursorPageResponse;
 import com.natswarchuan.payment.demo.dto.response.gateway.CreatePaymentResponse;
 import com.natswarchuan.payment.demo.dto.response.gateway.ProcessIpnResponse;
 import com.natswarchuan.payment.demo.dto.response.transaction.TransactionSummaryResponse;
@@ -13,6 +15,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** Interface cho dịch vụ quản lý các nghiệp vụ liên quan đến {@link Transaction}. */
 public interface ITransactionService extends IService<Transaction, UUID> {
@@ -56,8 +59,9 @@ public interface ITransactionService extends IService<Transaction, UUID> {
    * Thực hiện chuyển tiền giữa hai ví.
    *
    * @param request Dữ liệu yêu cầu chuyển tiền.
+   * @param httpServletRequest Đối tượng request để lấy thông tin client.
    */
-  void initiateTransfer(TransferRequest request);
+  void initiateTransfer(TransferRequest request, HttpServletRequest httpServletRequest);
 
   /**
    * Tạo một khóa bí mật dùng một lần cho giao dịch chuyển tiền.
@@ -70,10 +74,40 @@ public interface ITransactionService extends IService<Transaction, UUID> {
   /**
    * Tìm kiếm và phân trang lịch sử giao dịch của người dùng hiện tại dựa trên các tiêu chí lọc.
    *
+   * <p>Kết quả bao gồm cả các giao dịch đã được chuyển sang kho lưu trữ lạnh khi khoảng ngày tìm
+   * kiếm chạm tới dữ liệu đã lưu trữ.
+   *
    * @param searchRequest đối tượng chứa các tiêu chí tìm kiếm.
    * @param pageable thông tin phân trang và sắp xếp.
    * @return một trang (Page) chứa các giao dịch phù hợp.
    */
   Page<TransactionSummaryResponse> searchTransactionsForCurrentUser(
       TransactionSearchRequest searchRequest, Pageable pageable);
+
+  /**
+   * Tìm kiếm lịch sử giao dịch của người dùng hiện tại theo cursor, mới nhất trước.
+   *
+   * <p>Không chạy truy vấn {@code COUNT} và không dùng {@code OFFSET}: mỗi trang tìm thẳng tới vị
+   * trí sau cursor của trang trước.
+   *
+   * @param cursorRequest các tiêu chí tìm kiếm, cursor và kích thước trang.
+   * @return các giao dịch của trang và cursor của trang kế tiếp.
+   */
+  CursorPageResponse<TransactionSummaryResponse> scrollTransactionsForCurrentUser(
+      TransactionCursorRequest cursorRequest);
+
+  /**
+   * Xuất toàn bộ lịch sử giao dịch (đã lọc, kể cả phần đã lưu trữ) của người dùng hiện tại theo
+   * thứ tự thời gian.
+   *
+   * <p>Ví và định dạng được kiểm tra ngay; dữ liệu được đọc và ghi dần khi Spring MVC ghi phần thân
+   * response.
+   *
+   * @param searchRequest các tiêu chí lọc.
+   * @param format định dạng xuất (xem {@link
+   *     com.natswarchuan.payment.demo.constant.ExportConstant.Format}).
+   * @return phần thân response dạng streaming.
+   */
+  StreamingResponseBody exportTransactionsForCurrentUser(
+      TransactionSearchRequest searchRequest, String format);
 }
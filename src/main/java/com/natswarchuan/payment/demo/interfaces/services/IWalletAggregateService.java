@@ -0,0 +1,40 @@
+package com.natswarchuan.payment.demo.interfaces.services;
+
+import com.natswarchuan.payment.demo.dto.request.wallet.WalletAggregateRequest;
+import com.natswarchuan.payment.demo.dto.response.wallet.WalletAggregateBackfillResponse;
+import com.natswarchuan.payment.demo.dto.response.wallet.WalletAggregateResponse;
+
+/** Interface cho dịch vụ đọc và dựng lại bảng tổng hợp giao dịch theo ngày của ví. */
+public interface IWalletAggregateService {
+
+  /**
+   * Đọc tổng giao dịch theo ngày hoặc theo tháng của ví của người dùng hiện tại.
+   *
+   * @param userId ID của người dùng.
+   * @param request Khoảng ngày và kiểu tổng hợp.
+   * @return Tổng theo từng kỳ và loại giao dịch.
+   * @throws com.natswarchuan.payment.demo.exception.custom.BadRequestException nếu khoảng ngày
+   *     hoặc kiểu tổng hợp không hợp lệ.
+   */
+  WalletAggregateResponse getAggregatesForUser(Long userId, WalletAggregateRequest request);
+
+  /**
+   * Đọc tổng giao dịch theo ngày hoặc theo tháng của một ví.
+   *
+   * @param number Số ví.
+   * @param request Khoảng ngày và kiểu tổng hợp.
+   * @return Tổng theo từng kỳ và loại giao dịch.
+   * @throws com.natswarchuan.payment.demo.exception.custom.ResourceNotFoundException nếu không
+   *     tìm thấy ví.
+   */
+  WalletAggregateResponse getAggregates(String number, WalletAggregateRequest request);
+
+  /**
+   * Dựng lại toàn bộ bảng tổng hợp từ lịch sử giao dịch, song song theo khoảng ID ví.
+   *
+   * @return Kết quả tổng hợp của lần dựng lại.
+   * @throws com.natswarchuan.payment.demo.exception.custom.ConflictException nếu đang có một lần
+   *     dựng lại khác chạy.
+   */
+  WalletAggregateBackfillResponse backfill();
+}
@@ -1,9 +1,12 @@
 package com.natswarchuan.payment.demo.interfaces.services;
 
+import com.natswarchuan.payment.demo.dto.response.wallet.WalletBalanceAsOfResponse;
 import com.natswarchuan.payment.demo.dto.response.wallet.WalletDetailResponse;
+import com.natswarchuan.payment.demo.dto.response.wallet.WalletLedgerBalanceResponse;
 import com.natswarchuan.payment.demo.entity.User;
 import com.natswarchuan.payment.demo.entity.Wallet;
 import com.natswarchuan.payment.demo.interfaces.IService;
+import java.time.Instant;
 import java.util.UUID;
 
 /**
@@ -43,6 +46,35 @@ public interface IWalletService extends IService<Wallet, UUID> {
    */
   void setPin(Long userId, String pin);
 
+  /**
+   * Chia số dư của một ví thành nhiều shard (hoặc gộp lại) để giảm tranh chấp khóa khi ví nhận
+   * nhiều giao dịch đồng thời.
+   *
+   * <p>Tổng số dư của ví không thay đổi.
+   *
+   * @param number     Số ví.
+   * @param shardCount Số shard mới ({@code 1} để bỏ chia shard).
+   */
+  void configureBalanceShards(String number, int shardCount);
+
+  /**
+   * Đối soát số dư của một ví với số dư suy ra từ sổ cái kép ({@code ledger_entries}).
+   *
+   * @param number Số ví.
+   * @return Số dư hiện tại, số dư theo sổ cái và kết quả so khớp.
+   */
+  WalletLedgerBalanceResponse getLedgerBalance(String number);
+
+  /**
+   * Tra cứu số dư của một ví tại một thời điểm trong quá khứ, dựa trên snapshot số dư gần nhất và
+   * các bút toán phát sinh sau đó.
+   *
+   * @param number Số ví.
+   * @param at     Thời điểm cần tra cứu.
+   * @return Số dư của ví tại thời điểm {@code at}.
+   */
+  WalletBalanceAsOfResponse getBalanceAsOf(String number, Instant at);
+
   /**
    * Tìm thực thể {@link Wallet} dựa trên ID của người dùng.
    * <p>
@@ -0,0 +1,29 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.constant.AppConfigConstant;
+import java.time.Duration;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+/** Lưu trong Redis ID ({@code vnp_TxnRef}) của các giao dịch đã được IPN xử lý xong. */
+@Repository
+@RequiredArgsConstructor
+public class FinalizedIpnRepository {
+
+  private static final String FINALIZED = "1";
+
+  private final StringRedisTemplate redisTemplate;
+
+  public boolean exists(UUID transactionId) {
+    return Boolean.TRUE.equals(
+        redisTemplate.hasKey(AppConfigConstant.REDIS_IPN_FINALIZED_PREFIX + transactionId));
+  }
+
+  public void save(UUID transactionId, Duration ttl) {
+    redisTemplate
+        .opsForValue()
+        .set(AppConfigConstant.REDIS_IPN_FINALIZED_PREFIX + transactionId, FINALIZED, ttl);
+  }
+}
@@ -0,0 +1,41 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.constant.AppConfigConstant;
+import java.time.Duration;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+/** Lưu trạng thái và phản hồi của các yêu cầu có {@code Idempotency-Key} trong Redis. */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+
+  private final StringRedisTemplate redisTemplate;
+
+  /**
+   * Giữ một khóa nếu chưa có ai giữ ({@code SET NX}).
+   *
+   * @return {@code true} nếu giữ được khóa.
+   */
+  public boolean reserve(String key, String value, Duration ttl) {
+    return Boolean.TRUE.equals(
+        redisTemplate
+            .opsForValue()
+            .setIfAbsent(AppConfigConstant.REDIS_IDEMPOTENCY_PREFIX + key, value, ttl));
+  }
+
+  public Optional<String> find(String key) {
+    return Optional.ofNullable(
+        redisTemplate.opsForValue().get(AppConfigConstant.REDIS_IDEMPOTENCY_PREFIX + key));
+  }
+
+  public void save(String key, String value, Duration ttl) {
+    redisTemplate.opsForValue().set(AppConfigConstant.REDIS_IDEMPOTENCY_PREFIX + key, value, ttl);
+  }
+
+  public void delete(String key) {
+    redisTemplate.delete(AppConfigConstant.REDIS_IDEMPOTENCY_PREFIX + key);
+  }
+}
@@ -0,0 +1,70 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.entity.IpnInbox;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/** Repository để truy cập dữ liệu của thực thể {@link IpnInbox}. */
+@Repository
+public interface IpnInboxRepository extends JpaRepository<IpnInbox, Long> {
+
+  /**
+   * Tìm và khóa các IPN đến hạn: đang chờ và đã tới thời điểm thử, hoặc đang xử lý nhưng lease đã
+   * hết hạn. Một IPN chỉ được nhận khi mọi IPN trước nó của cùng giao dịch đã kết thúc, nên các IPN
+   * của một giao dịch luôn được áp dụng theo thứ tự nhận, kể cả khi nhiều instance cùng nhận việc.
+   *
+   * @param now Thời điểm hiện tại.
+   * @param limit Số hàng tối đa.
+   * @return các IPN đã bị khóa trong giao dịch hiện tại, theo thứ tự nhận.
+   */
+  @Query(
+      value =
+          "SELECT * FROM ipn_inbox i"
+              + " WHERE ((i.status = 0 AND i.next_attempt_at <= :now)"
+              + " OR (i.status = 1 AND i.locked_until < :now))"
+              + " AND NOT EXISTS (SELECT 1 FROM ipn_inbox e"
+              + " WHERE e.transaction_id = i.transaction_id AND e.id < i.id AND e.status IN (0, 1))"
+              + " ORDER BY i.id LIMIT :limit FOR UPDATE SKIP LOCKED",
+      nativeQuery = true)
+  List<IpnInbox> findDueForUpdate(Instant now, int limit);
+
+  /**
+   * Đếm số IPN chưa kết thúc (đang chờ hoặc đang xử lý).
+   *
+   * @return số IPN tồn đọng.
+   */
+  @Query("SELECT COUNT(i) FROM IpnInbox i WHERE i.status IN (0, 1)")
+  long countUnfinished();
+
+  /**
+   * Ghi trạng thái cuối của một IPN và giải phóng lease.
+   *
+   * @param id ID của IPN.
+   * @param status Trạng thái mới.
+   * @param lastError Thông điệp lỗi (có thể {@code null}).
+   * @param now Thời điểm cập nhật.
+   */
+  @Modifying
+  @Query(
+      "UPDATE IpnInbox i SET i.status = :status, i.lastError = :lastError,"
+          + " i.lockedUntil = NULL, i.updatedAt = :now WHERE i.id = :id")
+  void complete(Long id, Integer status, String lastError, Instant now);
+
+  /**
+   * Đưa một IPN về hàng đợi để thử lại sau.
+   *
+   * @param id ID của IPN.
+   * @param nextAttemptAt Thời điểm thử lại.
+   * @param lastError Thông điệp lỗi của lần thử vừa rồi.
+   * @param now Thời điểm cập nhật.
+   */
+  @Modifying
+  @Query(
+      "UPDATE IpnInbox i SET i.status = 0, i.nextAttemptAt = :nextAttemptAt,"
+          + " i.lastError = :lastError, i.lockedUntil = NULL, i.updatedAt = :now WHERE i.id = :id")
+  void reschedule(Long id, Instant nextAttemptAt, String lastError, Instant now);
+}
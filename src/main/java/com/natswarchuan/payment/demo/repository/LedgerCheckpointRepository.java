@@ -0,0 +1,9 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.entity.LedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/** Repository để truy cập dữ liệu của thực thể {@link LedgerCheckpoint}. */
+@Repository
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, Integer> {}
@@ -0,0 +1,90 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.entity.LedgerEntry;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository để truy cập dữ liệu của thực thể {@link LedgerEntry}.
+ *
+ * <p>Các câu lệnh chèn native sinh ID bằng {@code UUID_TO_BIN(UUID(), 1)}: UUID v1 với phần thời
+ * gian được đưa lên đầu, nên ID tăng dần theo thời gian như UUID v7 sinh từ Java và các hàng được
+ * chèn vào cuối khóa chính thay vì vào vị trí ngẫu nhiên.
+ */
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, UUID> {
+
+  /**
+   * Tính số dư của ví suy ra từ sổ cái: tổng ghi có trừ tổng ghi nợ.
+   *
+   * @param walletId ID của ví.
+   * @return số dư suy ra (0 nếu ví chưa có bút toán nào).
+   */
+  @Query(
+      "SELECT COALESCE(SUM(CASE WHEN e.direction = 2 THEN e.amount ELSE -e.amount END), 0)"
+          + " FROM LedgerEntry e WHERE e.walletId = :walletId")
+  BigDecimal sumBalanceByWalletId(UUID walletId);
+
+  /**
+   * Tính tổng thay đổi số dư của ví từ các bút toán có {@code createdAt} trong khoảng {@code (from,
+   * to]}. Truy vấn dùng chỉ mục {@code (wallet_id, created_at)}.
+   *
+   * @param walletId ID của ví.
+   * @param from Mốc bắt đầu (không bao gồm).
+   * @param to Mốc kết thúc (bao gồm).
+   * @return tổng ghi có trừ tổng ghi nợ trong khoảng.
+   */
+  @Query(
+      "SELECT COALESCE(SUM(CASE WHEN e.direction = 2 THEN e.amount ELSE -e.amount END), 0)"
+          + " FROM LedgerEntry e WHERE e.walletId = :walletId"
+          + " AND e.createdAt > :from AND e.createdAt <= :to")
+  BigDecimal sumBalanceDeltaByWalletIdBetween(UUID walletId, Instant from, Instant to);
+
+  /**
+   * Ghi bút toán ghi nợ tài khoản số dư đầu kỳ cho mọi ví có số dư khác 0 nhưng chưa có bút toán
+   * nào; mỗi ví dùng chính ID của nó làm {@code movement_id}. Số dư thực gồm cả các shard của ví.
+   *
+   * @param now Thời điểm ghi.
+   * @return số bút toán được chèn.
+   */
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO ledger_entries"
+              + " (id, movement_id, wallet_id, account_type, direction, amount, transaction_id,"
+              + " created_at)"
+              + " SELECT UUID_TO_BIN(UUID(), 1), t.id, NULL, 3, 1, t.total, NULL, :now"
+              + " FROM (SELECT w.id, w.balance + COALESCE((SELECT SUM(s.balance)"
+              + " FROM wallet_balance_shards s WHERE s.wallet_id = w.id), 0) AS total"
+              + " FROM wallets w"
+              + " WHERE NOT EXISTS (SELECT 1 FROM ledger_entries e WHERE e.wallet_id = w.id)"
+              + " AND NOT EXISTS (SELECT 1 FROM ledger_entries e WHERE e.movement_id = w.id)) t"
+              + " WHERE t.total <> 0",
+      nativeQuery = true)
+  int insertOpeningDebits(Instant now);
+
+  /**
+   * Ghi bút toán ghi có vào ví tương ứng với mọi bút toán số dư đầu kỳ chưa có phần ghi có.
+   *
+   * @param now Thời điểm ghi.
+   * @return số bút toán được chèn.
+   */
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO ledger_entries"
+              + " (id, movement_id, wallet_id, account_type, direction, amount, transaction_id,"
+              + " created_at)"
+              + " SELECT UUID_TO_BIN(UUID(), 1), e.movement_id, e.movement_id, 1, 2, e.amount,"
+              + " NULL, :now FROM ledger_entries e"
+              + " WHERE e.account_type = 3 AND e.wallet_id IS NULL"
+              + " AND NOT EXISTS (SELECT 1 FROM ledger_entries c"
+              + " WHERE c.movement_id = e.movement_id AND c.direction = 2)",
+      nativeQuery = true)
+  int insertOpeningCredits(Instant now);
+}
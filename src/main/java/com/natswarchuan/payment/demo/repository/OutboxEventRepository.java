@@ -0,0 +1,65 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.entity.OutboxEvent;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/** Repository để truy cập dữ liệu của thực thể {@link OutboxEvent}. */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+
+  /**
+   * Lấy các sự kiện đã commit nhưng chưa được relay nhận của một partition.
+   *
+   * @param partitionNo Partition cần đọc.
+   * @param limit Số sự kiện tối đa.
+   * @return các sự kiện chưa có số thứ tự, theo thứ tự {@code id} tăng dần.
+   */
+  @Query(
+      "SELECT e FROM OutboxEvent e WHERE e.partitionNo = :partitionNo AND e.publishedAt IS NULL"
+          + " AND e.sequenceNo IS NULL ORDER BY e.id")
+  List<OutboxEvent> findUnclaimed(Integer partitionNo, Limit limit);
+
+  /**
+   * Lấy các sự kiện đã được nhận nhưng chưa được chuyển tiếp của một partition.
+   *
+   * @param partitionNo Partition cần đọc.
+   * @param limit Số sự kiện tối đa.
+   * @return các sự kiện theo thứ tự {@code sequenceNo} tăng dần.
+   */
+  @Query(
+      "SELECT e FROM OutboxEvent e WHERE e.partitionNo = :partitionNo AND e.publishedAt IS NULL"
+          + " AND e.sequenceNo IS NOT NULL ORDER BY e.sequenceNo")
+  List<OutboxEvent> findPending(Integer partitionNo, Limit limit);
+
+  /**
+   * Đánh dấu các sự kiện đã được chuyển tiếp.
+   *
+   * @param ids ID của các sự kiện.
+   * @param now Thời điểm chuyển tiếp.
+   */
+  @Modifying
+  @Query("UPDATE OutboxEvent e SET e.publishedAt = :now WHERE e.id IN :ids")
+  void markPublished(List<UUID> ids, Instant now);
+
+  /**
+   * Xóa một phần các sự kiện đã được chuyển tiếp trước một thời điểm.
+   *
+   * @param before Mốc thời gian.
+   * @param limit Số hàng tối đa bị xóa.
+   * @return số hàng đã xóa.
+   */
+  @Modifying
+  @Query(
+      value =
+          "DELETE FROM outbox_events WHERE published_at IS NOT NULL AND published_at < :before"
+              + " LIMIT :limit",
+      nativeQuery = true)
+  int deletePublishedBefore(Instant before, int limit);
+}
@@ -0,0 +1,52 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.entity.OutboxPartition;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/** Repository để truy cập dữ liệu của thực thể {@link OutboxPartition}. */
+@Repository
+public interface OutboxPartitionRepository extends JpaRepository<OutboxPartition, Integer> {
+
+  /**
+   * Giữ lease của một partition cho đến hết giao dịch hiện tại, nếu chưa có instance nào giữ.
+   *
+   * @param partitionNo Partition cần giữ.
+   * @return số thứ tự cuối cùng đã cấp của partition nếu giữ được, rỗng nếu partition đang được
+   *     instance khác xử lý.
+   */
+  @Query(
+      value =
+          "SELECT last_sequence FROM outbox_partitions WHERE partition_no = :partitionNo"
+              + " FOR UPDATE SKIP LOCKED",
+      nativeQuery = true)
+  Optional<Long> tryLock(int partitionNo);
+
+  /**
+   * Ghi nhận số thứ tự cuối cùng đã cấp của một partition đang được giữ lease.
+   *
+   * @param partitionNo Partition cần cập nhật.
+   * @param lastSequence Số thứ tự cuối cùng đã cấp.
+   */
+  @Modifying
+  @Query(
+      "UPDATE OutboxPartition p SET p.lastSequence = :lastSequence"
+          + " WHERE p.partitionNo = :partitionNo")
+  void advanceSequence(int partitionNo, long lastSequence);
+
+  /**
+   * Tạo hàng của một partition nếu chưa có.
+   *
+   * @param partitionNo Partition cần tạo.
+   */
+  @Modifying
+  @Query(
+      value =
+          "INSERT IGNORE INTO outbox_partitions (partition_no, last_sequence)"
+              + " VALUES (:partitionNo, 0)",
+      nativeQuery = true)
+  void insertIfMissing(int partitionNo);
+}
@@ -0,0 +1,70 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.entity.PayoutOutbox;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/** Repository để truy cập dữ liệu của thực thể {@link PayoutOutbox}. */
+@Repository
+public interface PayoutOutboxRepository extends JpaRepository<PayoutOutbox, UUID> {
+
+  /**
+   * Tìm và khóa các yêu cầu chi trả đến hạn: đang chờ và đã tới thời điểm thử, hoặc đang xử lý
+   * nhưng lease đã hết hạn (worker trước đó đã dừng). Các hàng đang bị worker khác khóa được bỏ qua
+   * ({@code SKIP LOCKED}), nên nhiều instance có thể nhận việc song song mà không chờ nhau.
+   *
+   * @param now Thời điểm hiện tại.
+   * @param limit Số hàng tối đa.
+   * @return các yêu cầu đã bị khóa trong giao dịch hiện tại.
+   */
+  @Query(
+      value =
+          "SELECT * FROM payout_outbox"
+              + " WHERE (status = 0 AND next_attempt_at <= :now)"
+              + " OR (status = 1 AND locked_until < :now)"
+              + " ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+      nativeQuery = true)
+  List<PayoutOutbox> findDueForUpdate(Instant now, int limit);
+
+  /**
+   * Tìm yêu cầu chi trả của một giao dịch rút tiền.
+   *
+   * @param transactionId ID của giao dịch.
+   * @return yêu cầu chi trả nếu có.
+   */
+  Optional<PayoutOutbox> findByTransactionId(UUID transactionId);
+
+  /**
+   * Ghi trạng thái cuối của một yêu cầu chi trả và giải phóng lease.
+   *
+   * @param id ID của yêu cầu.
+   * @param status Trạng thái mới.
+   * @param lastError Thông điệp lỗi (có thể {@code null}).
+   * @param now Thời điểm cập nhật.
+   */
+  @Modifying
+  @Query(
+      "UPDATE PayoutOutbox o SET o.status = :status, o.lastError = :lastError,"
+          + " o.lockedUntil = NULL, o.updatedAt = :now WHERE o.id = :id")
+  void complete(UUID id, Integer status, String lastError, Instant now);
+
+  /**
+   * Đưa một yêu cầu chi trả về hàng đợi để thử lại sau.
+   *
+   * @param id ID của yêu cầu.
+   * @param nextAttemptAt Thời điểm thử lại.
+   * @param lastError Thông điệp lỗi của lần thử vừa rồi.
+   * @param now Thời điểm cập nhật.
+   */
+  @Modifying
+  @Query(
+      "UPDATE PayoutOutbox o SET o.status = 0, o.nextAttemptAt = :nextAttemptAt,"
+          + " o.lastError = :lastError, o.lockedUntil = NULL, o.updatedAt = :now WHERE o.id = :id")
+  void reschedule(UUID id, Instant nextAttemptAt, String lastError, Instant now);
+}
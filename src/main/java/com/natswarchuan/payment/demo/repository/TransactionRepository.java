@@ -1,24 +1,243 @@
 package com.natswarchuan.payment.demo.repository;
 
+import com.natswarchuan.payment.demo.dto.response.transaction.TransactionSummaryResponse;
 import com.natswarchuan.payment.demo.entity.Transaction;
+import com.natswarchuan.payment.demo.service.reconciliation.ReconciliationRow;
+import com.natswarchuan.payment.demo.util.PartitionKeyUtil;
 import jakarta.persistence.LockModeType;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface TransactionRepository
-    extends JpaRepository<Transaction, UUID>, JpaSpecificationExecutor<Transaction> {
+    extends JpaRepository<Transaction, UUID>,
+        JpaSpecificationExecutor<Transaction>,
+        TransactionSummaryRepository,
+        TransactionStatementRepository {
 
-  Page<Transaction> findByWalletId(UUID walletId, Pageable pageable);
+  /**
+   * Lấy các giao dịch gần nhất của một ví dưới dạng DTO tóm tắt, chỉ đọc các cột cần thiết.
+   *
+   * @param walletId ID của ví.
+   * @param limit Số giao dịch tối đa.
+   * @return các giao dịch mới nhất trước.
+   */
+  @Query(
+      "SELECT new com.natswarchuan.payment.demo.dto.response.transaction"
+          + ".TransactionSummaryResponse(t.id, t.amount, t.type, t.status, t.createdAt,"
+          + " t.description) FROM Transaction t WHERE t.wallet.id = :walletId"
+          + " ORDER BY t.createdAt DESC, t.id DESC")
+  List<TransactionSummaryResponse> findRecentSummariesByWalletId(UUID walletId, Limit limit);
+
+  /**
+   * Tìm và khóa một giao dịch theo ID, chỉ đọc các partition có thể chứa nó (xem {@link
+   * PartitionKeyUtil}).
+   *
+   * @param id ID của giao dịch.
+   * @return Optional chứa giao dịch nếu tồn tại.
+   */
+  default Optional<Transaction> findAndLockById(final UUID id) {
+    return findAndLockByIdCreatedBetween(
+        id, PartitionKeyUtil.createdAtLowerBound(id), PartitionKeyUtil.createdAtUpperBound(id));
+  }
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT t FROM Transaction t WHERE t.id = :id AND t.createdAt BETWEEN :from AND :to")
+  Optional<Transaction> findAndLockByIdCreatedBetween(UUID id, Instant from, Instant to);
+
+  /**
+   * Tìm và khóa một giao dịch cùng với ví của nó trong một câu lệnh ({@code SELECT ... JOIN ...
+   * FOR UPDATE}), khóa cả hàng giao dịch và hàng ví.
+   *
+   * @param id ID của giao dịch.
+   * @return Optional chứa giao dịch (với ví đã được tải) nếu tồn tại.
+   */
+  default Optional<Transaction> findAndLockWithWalletById(final UUID id) {
+    return findAndLockWithWalletByIdCreatedBetween(
+        id, PartitionKeyUtil.createdAtLowerBound(id), PartitionKeyUtil.createdAtUpperBound(id));
+  }
 
   @Lock(LockModeType.PESSIMISTIC_WRITE)
-  @Query("SELECT t FROM Transaction t WHERE t.id = :id")
-  Optional<Transaction> findAndLockById(UUID id);
+  @Query(
+      "SELECT t FROM Transaction t JOIN FETCH t.wallet"
+          + " WHERE t.id = :id AND t.createdAt BETWEEN :from AND :to")
+  Optional<Transaction> findAndLockWithWalletByIdCreatedBetween(
+      UUID id, Instant from, Instant to);
+
+  /**
+   * Tìm một giao dịch cùng với ví và phương thức thanh toán của nó trong một truy vấn, để có thể
+   * dùng các thông tin này sau khi giao dịch cơ sở dữ liệu đã kết thúc.
+   *
+   * @param id ID của giao dịch.
+   * @return giao dịch nếu tìm thấy.
+   */
+  default Optional<Transaction> findWithWalletAndPaymentMethodById(final UUID id) {
+    return findWithWalletAndPaymentMethodByIdCreatedBetween(
+        id, PartitionKeyUtil.createdAtLowerBound(id), PartitionKeyUtil.createdAtUpperBound(id));
+  }
+
+  @Query(
+      "SELECT t FROM Transaction t JOIN FETCH t.wallet LEFT JOIN FETCH t.paymentMethod"
+          + " WHERE t.id = :id AND t.createdAt BETWEEN :from AND :to")
+  Optional<Transaction> findWithWalletAndPaymentMethodByIdCreatedBetween(
+      UUID id, Instant from, Instant to);
+
+  /**
+   * Lấy ID của ví sở hữu một giao dịch mà không tải hay khóa giao dịch.
+   *
+   * @param id ID của giao dịch.
+   * @return một {@code Optional<UUID>} chứa ID của ví nếu tìm thấy giao dịch.
+   */
+  default Optional<UUID> findWalletIdById(final UUID id) {
+    return findWalletIdByIdCreatedBetween(
+        id, PartitionKeyUtil.createdAtLowerBound(id), PartitionKeyUtil.createdAtUpperBound(id));
+  }
+
+  @Query(
+      "SELECT t.wallet.id FROM Transaction t"
+          + " WHERE t.id = :id AND t.createdAt BETWEEN :from AND :to")
+  Optional<UUID> findWalletIdByIdCreatedBetween(UUID id, Instant from, Instant to);
+
+  /**
+   * Kiểm tra đã có giao dịch nào tham chiếu tới một giao dịch khác hay chưa (ví dụ: phần nhận tiền
+   * của một giao dịch chuyển tiền).
+   *
+   * @param relatedTransactionId ID của giao dịch được tham chiếu.
+   * @return {@code true} nếu đã tồn tại.
+   */
+  boolean existsByRelatedTransactionId(UUID relatedTransactionId);
+
+  /**
+   * Lấy dữ liệu đối soát của các giao dịch theo ID (khóa chính).
+   *
+   * @param ids ID của các giao dịch.
+   * @return dữ liệu đối soát của các giao dịch tìm thấy.
+   */
+  @Query(
+      "SELECT new com.natswarchuan.payment.demo.service.reconciliation.ReconciliationRow("
+          + "t.id, t.providerTransactionId, t.amount, t.status)"
+          + " FROM Transaction t WHERE t.id IN :ids")
+  List<ReconciliationRow> findReconciliationRowsByIdIn(Collection<UUID> ids);
+
+  /**
+   * Lấy dữ liệu đối soát của các giao dịch theo mã giao dịch của nhà cung cấp (dùng chỉ mục {@code
+   * idx_txn_provider_id}).
+   *
+   * @param providerTransactionIds Mã giao dịch của nhà cung cấp.
+   * @return dữ liệu đối soát của các giao dịch tìm thấy.
+   */
+  @Query(
+      "SELECT new com.natswarchuan.payment.demo.service.reconciliation.ReconciliationRow("
+          + "t.id, t.providerTransactionId, t.amount, t.status)"
+          + " FROM Transaction t WHERE t.providerTransactionId IN :providerTransactionIds")
+  List<ReconciliationRow> findReconciliationRowsByProviderTransactionIdIn(
+      Collection<String> providerTransactionIds);
+
+  /**
+   * Duyệt theo khóa (keyset) các giao dịch qua cổng thanh toán đã hoàn tất trong một khoảng thời
+   * gian, theo thứ tự ID.
+   *
+   * @param types Các loại giao dịch cần đối soát.
+   * @param status Trạng thái cần đối soát.
+   * @param from Thời điểm bắt đầu (bao gồm).
+   * @param to Thời điểm kết thúc (không bao gồm).
+   * @param afterId ID cuối cùng của trang trước.
+   * @param limit Số hàng tối đa.
+   * @return dữ liệu đối soát của trang tiếp theo.
+   */
+  @Query(
+      "SELECT new com.natswarchuan.payment.demo.service.reconciliation.ReconciliationRow("
+          + "t.id, t.providerTransactionId, t.amount, t.status)"
+          + " FROM Transaction t WHERE t.type IN :types AND t.status = :status"
+          + " AND t.createdAt >= :from AND t.createdAt < :to AND t.id > :afterId ORDER BY t.id")
+  List<ReconciliationRow> findReconciliationRowsCreatedBetween(
+      Collection<Integer> types,
+      Integer status,
+      Instant from,
+      Instant to,
+      UUID afterId,
+      Limit limit);
+
+  /**
+   * Tìm và khóa trang tiếp theo các giao dịch bị treo: cùng loại và trạng thái, được tạo trước
+   * {@code cutoff} và không được cập nhật kể từ {@code updatedBefore}, duyệt theo khóa {@code
+   * (created_at, id)} sau vị trí của trang trước. Các hàng đang bị khóa bởi giao dịch khác (IPN
+   * đang được xử lý, hoặc một node khác đang quét) được bỏ qua ({@code SKIP LOCKED}).
+   *
+   * @param type Loại giao dịch.
+   * @param status Trạng thái giao dịch.
+   * @param cutoff Chỉ lấy giao dịch được tạo trước thời điểm này.
+   * @param updatedBefore Chỉ lấy giao dịch được cập nhật lần cuối trước thời điểm này.
+   * @param afterCreatedAt Thời điểm tạo của hàng cuối cùng ở trang trước.
+   * @param afterId ID của hàng cuối cùng ở trang trước.
+   * @param limit Số hàng tối đa.
+   * @return các giao dịch đã bị khóa trong giao dịch hiện tại.
+   */
+  @Query(
+      value =
+          "SELECT * FROM transactions WHERE status = :status AND type = :type"
+              + " AND created_at < :cutoff AND (created_at > :afterCreatedAt"
+              + " OR (created_at = :afterCreatedAt AND id > :afterId))"
+              + " AND updated_at < :updatedBefore"
+              + " ORDER BY created_at, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+      nativeQuery = true)
+  List<Transaction> findStaleForUpdate(
+      Integer type,
+      Integer status,
+      Instant cutoff,
+      Instant updatedBefore,
+      Instant afterCreatedAt,
+      UUID afterId,
+      int limit);
+
+  /**
+   * Giống {@link #findStaleForUpdate}, nhưng chỉ lấy các giao dịch đã được cổng thanh toán chấp
+   * nhận (đã có mã giao dịch của nhà cung cấp).
+   *
+   * @param type Loại giao dịch.
+   * @param status Trạng thái giao dịch.
+   * @param cutoff Chỉ lấy giao dịch được tạo trước thời điểm này.
+   * @param updatedBefore Chỉ lấy giao dịch được cập nhật lần cuối trước thời điểm này.
+   * @param afterCreatedAt Thời điểm tạo của hàng cuối cùng ở trang trước.
+   * @param afterId ID của hàng cuối cùng ở trang trước.
+   * @param limit Số hàng tối đa.
+   * @return các giao dịch đã bị khóa trong giao dịch hiện tại.
+   */
+  @Query(
+      value =
+          "SELECT * FROM transactions WHERE status = :status AND type = :type"
+              + " AND created_at < :cutoff AND (created_at > :afterCreatedAt"
+              + " OR (created_at = :afterCreatedAt AND id > :afterId))"
+              + " AND provider_transaction_id IS NOT NULL AND updated_at < :updatedBefore"
+              + " ORDER BY created_at, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+      nativeQuery = true)
+  List<Transaction> findUnconfirmedForUpdate(
+      Integer type,
+      Integer status,
+      Instant cutoff,
+      Instant updatedBefore,
+      Instant afterCreatedAt,
+      UUID afterId,
+      int limit);
+
+  /**
+   * Đánh dấu các giao dịch vừa được nhận để tra cứu, để node khác và các chu kỳ kế tiếp không tra
+   * cứu lại trước khi hết khoảng chờ.
+   *
+   * @param ids ID các giao dịch.
+   * @param now Thời điểm cập nhật.
+   */
+  @Modifying
+  @Query("UPDATE Transaction t SET t.updatedAt = :now WHERE t.id IN :ids")
+  void touch(Collection<UUID> ids, Instant now);
 }
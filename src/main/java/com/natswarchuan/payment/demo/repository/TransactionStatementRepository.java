@@ -0,0 +1,28 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.service.statement.StatementLine;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/** Truy vấn đọc giao dịch cho tác vụ tạo sao kê. */
+public interface TransactionStatementRepository {
+
+  /**
+   * Đọc các dòng sao kê của mọi ví trong một khoảng ID bằng một lần quét duy nhất, qua con trỏ
+   * JDBC chỉ đi tiến.
+   *
+   * <p>Thứ tự {@code wallet_id, created_at DESC, id} trùng với thứ tự của chỉ mục {@code
+   * (wallet_id, created_at DESC)} (InnoDB lưu kèm khóa chính), nên không cần sắp xếp; các dòng của
+   * cùng một ví luôn liền nhau. Stream phải được đọc và đóng trong giao dịch đã mở nó.
+   *
+   * @param fromWalletId ID ví đầu khoảng (bao gồm).
+   * @param toWalletId ID ví cuối khoảng (bao gồm).
+   * @param from Thời điểm bắt đầu kỳ sao kê (bao gồm).
+   * @param to Thời điểm kết thúc kỳ sao kê (không bao gồm).
+   * @param fetchSize Fetch size của JDBC; {@link Integer#MIN_VALUE} bật chế độ streaming của MySQL.
+   * @return stream các dòng sao kê; cần được đóng sau khi dùng.
+   */
+  Stream<StatementLine> streamStatementLines(
+      UUID fromWalletId, UUID toWalletId, Instant from, Instant to, int fetchSize);
+}
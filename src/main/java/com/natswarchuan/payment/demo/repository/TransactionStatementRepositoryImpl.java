@@ -0,0 +1,43 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.service.statement.StatementLine;
+import jakarta.persistence.EntityManager;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
+
+/** Triển khai {@link TransactionStatementRepository} bằng truy vấn JPQL với constructor. */
+class TransactionStatementRepositoryImpl implements TransactionStatementRepository {
+
+  private static final String STATEMENT_LINES_QUERY =
+      "SELECT new com.natswarchuan.payment.demo.service.statement.StatementLine("
+          + "t.wallet.id, t.id, t.createdAt, t.type, t.status, t.amount, t.balanceAfter,"
+          + " t.description) FROM Transaction t"
+          + " WHERE t.wallet.id BETWEEN :fromWalletId AND :toWalletId"
+          + " AND t.createdAt >= :from AND t.createdAt < :to"
+          + " ORDER BY t.wallet.id, t.createdAt DESC, t.id";
+
+  private final EntityManager entityManager;
+
+  TransactionStatementRepositoryImpl(final EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  public Stream<StatementLine> streamStatementLines(
+      final UUID fromWalletId,
+      final UUID toWalletId,
+      final Instant from,
+      final Instant to,
+      final int fetchSize) {
+    return entityManager
+        .createQuery(STATEMENT_LINES_QUERY, StatementLine.class)
+        .setParameter("fromWalletId", fromWalletId)
+        .setParameter("toWalletId", toWalletId)
+        .setParameter("from", from)
+        .setParameter("to", to)
+        .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+        .getResultStream();
+  }
+}
@@ -0,0 +1,56 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.dto.response.transaction.TransactionSummaryResponse;
+import com.natswarchuan.payment.demo.entity.Transaction;
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Các truy vấn tìm kiếm giao dịch trả thẳng về {@link TransactionSummaryResponse}.
+ *
+ * <p>Chỉ các cột cần cho DTO được đọc ({@code SELECT new ...}), nên không tải các cột {@code TEXT}
+ * không dùng tới, không tạo proxy cho các quan hệ và không có thực thể nào được persistence context
+ * theo dõi.
+ */
+public interface TransactionSummaryRepository {
+
+  /**
+   * Tìm một trang giao dịch thỏa mãn điều kiện.
+   *
+   * @param spec Điều kiện lọc.
+   * @param pageable Thông tin phân trang và sắp xếp.
+   * @return một trang DTO; truy vấn đếm được bỏ qua khi kích thước trang đã đủ để suy ra tổng số.
+   */
+  Page<TransactionSummaryResponse> findSummaries(
+      Specification<Transaction> spec, Pageable pageable);
+
+  /**
+   * Tìm tối đa {@code limit} giao dịch đầu tiên thỏa mãn điều kiện, không kèm truy vấn đếm.
+   *
+   * @param spec Điều kiện lọc.
+   * @param sort Thứ tự sắp xếp.
+   * @param limit Số hàng tối đa.
+   * @return danh sách DTO.
+   */
+  List<TransactionSummaryResponse> findSummaries(
+      Specification<Transaction> spec, Sort sort, int limit);
+
+  /**
+   * Đọc lần lượt mọi giao dịch thỏa mãn điều kiện qua một con trỏ JDBC chỉ đi tiến.
+   *
+   * <p>Với MySQL, {@code fetchSize} bằng {@link Integer#MIN_VALUE} khiến driver trả từng hàng từ
+   * mạng thay vì nạp toàn bộ kết quả vào bộ nhớ. Stream phải được đọc và đóng trong giao dịch đã mở
+   * nó, và trong lúc đọc không được chạy truy vấn nào khác trên cùng kết nối.
+   *
+   * @param spec Điều kiện lọc.
+   * @param sort Thứ tự sắp xếp.
+   * @param fetchSize Fetch size của JDBC.
+   * @return stream DTO; cần được đóng sau khi dùng.
+   */
+  Stream<TransactionSummaryResponse> streamSummaries(
+      Specification<Transaction> spec, Sort sort, int fetchSize);
+}
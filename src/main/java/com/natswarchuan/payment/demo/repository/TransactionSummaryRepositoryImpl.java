@@ -0,0 +1,93 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import com.natswarchuan.payment.demo.dto.response.transaction.TransactionSummaryResponse;
+import com.natswarchuan.payment.demo.entity.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+/** Triển khai {@link TransactionSummaryRepository} bằng Criteria API với biểu thức constructor. */
+class TransactionSummaryRepositoryImpl implements TransactionSummaryRepository {
+
+  private final EntityManager entityManager;
+
+  TransactionSummaryRepositoryImpl(final EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  public Page<TransactionSummaryResponse> findSummaries(
+      final Specification<Transaction> spec, final Pageable pageable) {
+    final TypedQuery<TransactionSummaryResponse> query =
+        createQuery(spec, pageable.getSortOr(Sort.unsorted()));
+    if (pageable.isPaged()) {
+      query.setFirstResult((int) pageable.getOffset());
+      query.setMaxResults(pageable.getPageSize());
+    }
+    return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+  }
+
+  @Override
+  public List<TransactionSummaryResponse> findSummaries(
+      final Specification<Transaction> spec, final Sort sort, final int limit) {
+    return createQuery(spec, sort).setMaxResults(limit).getResultList();
+  }
+
+  @Override
+  public Stream<TransactionSummaryResponse> streamSummaries(
+      final Specification<Transaction> spec, final Sort sort, final int fetchSize) {
+    return createQuery(spec, sort)
+        .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+        .getResultStream();
+  }
+
+  private TypedQuery<TransactionSummaryResponse> createQuery(
+      final Specification<Transaction> spec, final Sort sort) {
+    final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    final CriteriaQuery<TransactionSummaryResponse> query =
+        criteriaBuilder.createQuery(TransactionSummaryResponse.class);
+    final Root<Transaction> root = query.from(Transaction.class);
+    query.select(
+        criteriaBuilder.construct(
+            TransactionSummaryResponse.class,
+            root.get(EntityConstant.FIELD_ID),
+            root.get(EntityConstant.TXN_FIELD_AMOUNT),
+            root.get(EntityConstant.TXN_FIELD_TYPE),
+            root.get(EntityConstant.TXN_FIELD_STATUS),
+            root.get(EntityConstant.TXN_FIELD_CREATED_AT),
+            root.get(EntityConstant.TXN_FIELD_DESCRIPTION)));
+    final Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+    if (predicate != null) {
+      query.where(predicate);
+    }
+    if (sort.isSorted()) {
+      query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+    }
+    return entityManager.createQuery(query);
+  }
+
+  private long count(final Specification<Transaction> spec) {
+    final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    final CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+    final Root<Transaction> root = query.from(Transaction.class);
+    query.select(criteriaBuilder.count(root));
+    final Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+    if (predicate != null) {
+      query.where(predicate);
+    }
+    return entityManager.createQuery(query).getSingleResult();
+  }
+}
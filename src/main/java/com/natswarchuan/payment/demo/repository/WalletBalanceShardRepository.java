@@ -0,0 +1,59 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.entity.WalletBalanceShard;
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/** Repository để truy cập dữ liệu của thực thể {@link WalletBalanceShard}. */
+@Repository
+public interface WalletBalanceShardRepository extends JpaRepository<WalletBalanceShard, UUID> {
+
+  /**
+   * Cộng tiền vào một shard của ví bằng một câu lệnh {@code UPDATE} duy nhất.
+   *
+   * <p>Chỉ hàng của shard được chọn bị khóa, và chỉ trong thời gian của câu lệnh; hàng {@code
+   * wallets} không bị chạm tới.
+   *
+   * @param walletId ID của ví.
+   * @param shardIndex Chỉ số của shard.
+   * @param amount Số tiền cần cộng.
+   * @param now Thời điểm cập nhật.
+   * @return số hàng bị ảnh hưởng (1 nếu thành công, 0 nếu shard không tồn tại).
+   */
+  @Modifying(flushAutomatically = true)
+  @Query(
+      "UPDATE WalletBalanceShard s SET s.balance = s.balance + :amount, s.updatedAt = :now"
+          + " WHERE s.wallet.id = :walletId AND s.shardIndex = :shardIndex")
+  int credit(UUID walletId, Integer shardIndex, BigDecimal amount, Instant now);
+
+  /**
+   * Tính tổng số dư của mọi shard của một ví mà không khóa.
+   *
+   * @param walletId ID của ví.
+   * @return tổng số dư các shard (0 nếu ví không có shard).
+   */
+  @Query(
+      "SELECT COALESCE(SUM(s.balance), 0) FROM WalletBalanceShard s WHERE s.wallet.id = :walletId")
+  BigDecimal sumBalanceByWalletId(UUID walletId);
+
+  /**
+   * Tìm và khóa mọi shard của một ví, theo thứ tự chỉ số tăng dần.
+   *
+   * <p>Thứ tự cố định giúp các giao dịch trừ tiền đồng thời khóa các shard theo cùng một thứ tự.
+   *
+   * @param walletId ID của ví.
+   * @return danh sách shard đã được khóa.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query(
+      "SELECT s FROM WalletBalanceShard s WHERE s.wallet.id = :walletId ORDER BY s.shardIndex")
+  List<WalletBalanceShard> findAndLockByWalletId(UUID walletId);
+}
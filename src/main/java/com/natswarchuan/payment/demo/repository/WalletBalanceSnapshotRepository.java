@@ -0,0 +1,61 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.entity.WalletBalanceSnapshot;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/** Repository để truy cập dữ liệu của thực thể {@link WalletBalanceSnapshot}. */
+@Repository
+public interface WalletBalanceSnapshotRepository
+    extends JpaRepository<WalletBalanceSnapshot, UUID> {
+
+  /**
+   * Tìm snapshot gần nhất của ví tại hoặc trước một thời điểm.
+   *
+   * @param walletId ID của ví.
+   * @param at Thời điểm tra cứu.
+   * @return snapshot gần nhất nếu có.
+   */
+  Optional<WalletBalanceSnapshot> findFirstByWalletIdAndSnapshotAtLessThanEqualOrderBySnapshotAtDesc(
+      UUID walletId, Instant at);
+
+  /**
+   * Chụp số dư tại {@code cutoff} cho các ví thuộc một partition, bằng một câu lệnh {@code INSERT
+   * ... SELECT} duy nhất.
+   *
+   * <p>Ví được chia partition theo {@code CRC32(id) % partitions}, để nhiều luồng có thể chụp song
+   * song mà không giẫm lên nhau. Chỉ các ví chưa có snapshot, hoặc có bút toán mới kể từ snapshot
+   * gần nhất, mới được chụp. ID được sinh bằng {@code UUID_TO_BIN(UUID(), 1)} (phần thời gian đứng
+   * đầu), nên tăng dần theo thời gian và snapshot mới được chèn vào cuối khóa chính.
+   *
+   * @param cutoff Thời điểm chụp.
+   * @param partitions Tổng số partition.
+   * @param partition Partition cần chụp.
+   * @return số snapshot được chèn.
+   */
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO wallet_balance_snapshots (id, wallet_id, snapshot_at, balance)"
+              + " SELECT UUID_TO_BIN(UUID(), 1), w.id, :cutoff, COALESCE(p.balance, 0)"
+              + " + COALESCE((SELECT"
+              + " SUM(CASE WHEN e.direction = 2 THEN e.amount ELSE -e.amount END)"
+              + " FROM ledger_entries e WHERE e.wallet_id = w.id"
+              + " AND e.created_at > COALESCE(p.snapshot_at, '1970-01-01')"
+              + " AND e.created_at <= :cutoff), 0)"
+              + " FROM wallets w"
+              + " LEFT JOIN wallet_balance_snapshots p ON p.wallet_id = w.id AND p.snapshot_at ="
+              + " (SELECT MAX(s.snapshot_at) FROM wallet_balance_snapshots s"
+              + " WHERE s.wallet_id = w.id)"
+              + " WHERE MOD(CRC32(w.id), :partitions) = :partition"
+              + " AND (p.snapshot_at IS NULL OR (p.snapshot_at < :cutoff"
+              + " AND EXISTS (SELECT 1 FROM ledger_entries e WHERE e.wallet_id = w.id"
+              + " AND e.created_at > p.snapshot_at AND e.created_at <= :cutoff)))",
+      nativeQuery = true)
+  int insertSnapshots(Instant cutoff, int partitions, int partition);
+}
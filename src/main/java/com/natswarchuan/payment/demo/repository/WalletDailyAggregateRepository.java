@@ -0,0 +1,99 @@
+package com.natswarchuan.payment.demo.repository;
+
+import com.natswarchuan.payment.demo.dto.response.wallet.WalletAggregateBucketResponse;
+import com.natswarchuan.payment.demo.entity.WalletDailyAggregate;
+import com.natswarchuan.payment.demo.entity.WalletDailyAggregateId;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/** Repository để truy cập dữ liệu của thực thể {@link WalletDailyAggregate}. */
+@Repository
+public interface WalletDailyAggregateRepository
+    extends JpaRepository<WalletDailyAggregate, WalletDailyAggregateId> {
+
+  /**
+   * Cộng dồn vào dòng tổng hợp của một ví trong một ngày, tạo dòng nếu chưa có.
+   *
+   * <p>Chỉ khóa đúng một dòng của bảng tổng hợp, trong giao dịch hiện tại.
+   *
+   * @param walletId ID của ví.
+   * @param businessDate Ngày nghiệp vụ của giao dịch.
+   * @param type Loại giao dịch.
+   * @param count Số giao dịch cần cộng.
+   * @param amount Tổng số tiền cần cộng.
+   * @param now Thời điểm cập nhật.
+   */
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO wallet_daily_aggregates"
+              + " (wallet_id, business_date, type, tx_count, total_amount, updated_at)"
+              + " VALUES (:walletId, :businessDate, :type, :count, :amount, :now)"
+              + " ON DUPLICATE KEY UPDATE tx_count = tx_count + :count,"
+              + " total_amount = total_amount + :amount, updated_at = :now",
+      nativeQuery = true)
+  void increment(
+      UUID walletId,
+      LocalDate businessDate,
+      Integer type,
+      long count,
+      BigDecimal amount,
+      Instant now);
+
+  /**
+   * Tính lại từ bảng {@code transactions} mọi dòng tổng hợp của các ví trong một khoảng ID, ghi đè
+   * giá trị hiện có.
+   *
+   * <p>Ngày nghiệp vụ là ngày của {@code created_at} (UTC) sau khi cộng độ lệch múi giờ. Ở mức cô
+   * lập {@code REPEATABLE READ}, {@code INSERT ... SELECT} khóa (shared, next-key) các hàng giao
+   * dịch được quét, nên giao dịch hoàn tất đồng thời trong khoảng ID chờ câu lệnh này commit rồi
+   * mới cộng dồn, không bị ghi đè mất.
+   *
+   * @param fromWalletId ID ví đầu khoảng (bao gồm).
+   * @param toWalletId ID ví cuối khoảng (bao gồm).
+   * @param status Trạng thái giao dịch được tính (hoàn thành).
+   * @param offsetSeconds Độ lệch (giây) của múi giờ nghiệp vụ so với UTC.
+   * @param now Thời điểm cập nhật.
+   * @return số hàng bị ảnh hưởng theo cách đếm của MySQL.
+   */
+  @Modifying
+  @Query(
+      value =
+          "INSERT INTO wallet_daily_aggregates"
+              + " (wallet_id, business_date, type, tx_count, total_amount, updated_at)"
+              + " SELECT * FROM (SELECT t.wallet_id,"
+              + " DATE(t.created_at + INTERVAL :offsetSeconds SECOND) AS business_date, t.type,"
+              + " COUNT(*) AS tx_count, SUM(t.amount) AS total_amount, :now AS updated_at"
+              + " FROM transactions t"
+              + " WHERE t.wallet_id BETWEEN :fromWalletId AND :toWalletId AND t.status = :status"
+              + " GROUP BY t.wallet_id, business_date, t.type) AS dt"
+              + " ON DUPLICATE KEY UPDATE tx_count = dt.tx_count,"
+              + " total_amount = dt.total_amount, updated_at = dt.updated_at",
+      nativeQuery = true)
+  int rebuildRange(
+      UUID fromWalletId, UUID toWalletId, Integer status, int offsetSeconds, Instant now);
+
+  /**
+   * Đọc các dòng tổng hợp của một ví trong một khoảng ngày, theo ngày rồi theo loại giao dịch.
+   *
+   * @param walletId ID của ví.
+   * @param from Ngày đầu (bao gồm).
+   * @param to Ngày cuối (bao gồm).
+   * @return danh sách tổng theo ngày và loại giao dịch.
+   */
+  @Query(
+      "SELECT new com.natswarchuan.payment.demo.dto.response.wallet"
+          + ".WalletAggregateBucketResponse(a.id.businessDate, a.id.type, a.txCount,"
+          + " a.totalAmount) FROM WalletDailyAggregate a WHERE a.id.walletId = :walletId"
+          + " AND a.id.businessDate BETWEEN :from AND :to"
+          + " ORDER BY a.id.businessDate, a.id.type")
+  List<WalletAggregateBucketResponse> findDailyBuckets(
+      UUID walletId, LocalDate from, LocalDate to);
+}
@@ -2,12 +2,17 @@ package com.natswarchuan.payment.demo.repository;
 
 import com.natswarchuan.payment.demo.entity.Wallet;
 import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -52,6 +57,141 @@ public interface WalletRepository
   @Query("SELECT w FROM Wallet w WHERE w.id = :id")
   Optional<Wallet> findAndLockById(UUID id);
 
+  /**
+   * Lấy ID của ví dựa trên ID của người dùng mà không khóa bản ghi.
+   *
+   * <p>Được dùng để xác định thứ tự khóa toàn cục trước khi khóa các ví trong giao dịch chuyển
+   * tiền.
+   *
+   * @param userId ID của người dùng.
+   * @return một {@code Optional<UUID>} chứa ID của ví nếu tìm thấy.
+   */
+  @Query("SELECT w.id FROM Wallet w WHERE w.user.id = :userId")
+  Optional<UUID> findIdByUserId(Long userId);
+
+  /**
+   * Lấy ID của ví dựa trên số ví mà không khóa bản ghi.
+   *
+   * @param number Số ví.
+   * @return một {@code Optional<UUID>} chứa ID của ví nếu tìm thấy.
+   */
+  @Query("SELECT w.id FROM Wallet w WHERE w.number = :number")
+  Optional<UUID> findIdByNumber(String number);
+
+  /**
+   * Lấy số shard số dư của ví dựa trên số ví mà không khóa bản ghi.
+   *
+   * <p>Được dùng để quyết định có cần khóa hàng {@code wallets} của người nhận hay không: ví đã chia
+   * shard nhận tiền qua các hàng shard nên không cần khóa.
+   *
+   * @param number Số ví.
+   * @return một {@code Optional<Integer>} chứa số shard nếu tìm thấy ví.
+   */
+  @Query("SELECT w.shardCount FROM Wallet w WHERE w.number = :number")
+  Optional<Integer> findShardCountByNumber(String number);
+
+  /**
+   * Tìm một ví dựa trên ID của người dùng mà không khóa và không tải các quan hệ.
+   *
+   * @param userId ID của người dùng.
+   * @return một {@code Optional<Wallet>} chứa ví nếu tìm thấy.
+   */
+  @Query("SELECT w FROM Wallet w WHERE w.user.id = :userId")
+  Optional<Wallet> findWithoutLockByUserId(Long userId);
+
+  /**
+   * Lấy số dư hiện tại của ví trực tiếp từ cơ sở dữ liệu.
+   *
+   * <p>Truy vấn vô hướng này bỏ qua persistence context, nên luôn phản ánh các câu lệnh {@code
+   * UPDATE} hàng loạt đã chạy trong cùng giao dịch.
+   *
+   * @param id ID của ví.
+   * @return một {@code Optional<BigDecimal>} chứa số dư nếu tìm thấy.
+   */
+  @Query("SELECT w.balance FROM Wallet w WHERE w.id = :id")
+  Optional<BigDecimal> findBalanceById(UUID id);
+
+  /**
+   * Trừ tiền khỏi ví bằng một câu lệnh {@code UPDATE} có điều kiện.
+   *
+   * <p>Câu lệnh chỉ tác động khi ví đang hoạt động và có đủ số dư; khóa hàng được lấy và giữ bởi
+   * chính câu lệnh này, không cần {@code SELECT ... FOR UPDATE} trước đó. Cột {@code version}
+   * cũng được tăng để các giao dịch dùng khóa lạc quan phát hiện được thay đổi này.
+   *
+   * @param id ID của ví.
+   * @param amount Số tiền cần trừ.
+   * @param status Trạng thái bắt buộc của ví (thường là {@code ACTIVE}).
+   * @param now Thời điểm cập nhật.
+   * @return số hàng bị ảnh hưởng (1 nếu thành công, 0 nếu không đủ điều kiện).
+   */
+  @Modifying(flushAutomatically = true)
+  @Query(
+      "UPDATE Wallet w SET w.balance = w.balance - :amount, w.version = w.version + 1,"
+          + " w.updatedAt = :now"
+          + " WHERE w.id = :id AND w.balance >= :amount AND w.status = :status"
+          + " AND w.deletedAt IS NULL")
+  int debitIfSufficient(UUID id, BigDecimal amount, Integer status, Instant now);
+
+  /**
+   * Cộng tiền vào ví bằng một câu lệnh {@code UPDATE} có điều kiện.
+   *
+   * @param id ID của ví.
+   * @param amount Số tiền cần cộng.
+   * @param status Trạng thái bắt buộc của ví (thường là {@code ACTIVE}).
+   * @param now Thời điểm cập nhật.
+   * @return số hàng bị ảnh hưởng (1 nếu thành công, 0 nếu không đủ điều kiện).
+   */
+  @Modifying(flushAutomatically = true)
+  @Query(
+      "UPDATE Wallet w SET w.balance = w.balance + :amount, w.version = w.version + 1,"
+          + " w.updatedAt = :now"
+          + " WHERE w.id = :id AND w.status = :status AND w.deletedAt IS NULL")
+  int creditIfActive(UUID id, BigDecimal amount, Integer status, Instant now);
+
+  /**
+   * Cộng một lượng thay đổi (có thể âm) vào số dư của ví mà không kiểm tra điều kiện.
+   *
+   * <p>Chỉ dùng bởi engine giữ số dư trong bộ nhớ khi ghi lô thay đổi xuống cơ sở dữ liệu: các điều
+   * kiện nghiệp vụ đã được kiểm tra trên số dư trong bộ nhớ trước đó.
+   *
+   * @param id ID của ví.
+   * @param delta Lượng thay đổi số dư.
+   * @param now Thời điểm cập nhật.
+   * @return số hàng bị ảnh hưởng.
+   */
+  @Modifying(flushAutomatically = true)
+  @Query(
+      "UPDATE Wallet w SET w.balance = w.balance + :delta, w.version = w.version + 1,"
+          + " w.updatedAt = :now WHERE w.id = :id")
+  int applyBalanceDelta(UUID id, BigDecimal delta, Instant now);
+
+  /**
+   * Lấy một trang ID của các ví ở một trạng thái, theo thứ tự khóa chính và bắt đầu sau một ID.
+   *
+   * <p>Thứ tự là thứ tự của cơ sở dữ liệu (so sánh byte của {@code BINARY(16)}), không phải của
+   * {@link UUID#compareTo}; ID cuối của trang trước được truyền lại làm {@code afterId}.
+   *
+   * @param status Trạng thái của ví.
+   * @param afterId ID của ví cuối cùng ở trang trước.
+   * @param limit Số ID tối đa.
+   * @return danh sách ID theo thứ tự tăng dần.
+   */
+  @Query(
+      "SELECT w.id FROM Wallet w WHERE w.status = :status AND w.id > :afterId"
+          + " AND w.deletedAt IS NULL ORDER BY w.id")
+  List<UUID> findIdsByStatusAfter(Integer status, UUID afterId, Limit limit);
+
+  /**
+   * Lấy một trang ID của mọi ví (kể cả ví đã đóng hoặc đã xóa mềm), theo thứ tự khóa chính.
+   *
+   * @param afterId ID của ví cuối cùng ở trang trước.
+   * @param limit Số ID tối đa.
+   * @return danh sách ID theo thứ tự tăng dần.
+   * @see #findIdsByStatusAfter(Integer, UUID, Limit)
+   */
+  @Query("SELECT w.id FROM Wallet w WHERE w.id > :afterId ORDER BY w.id")
+  List<UUID> findIdsAfter(UUID afterId, Limit limit);
+
   /**
    * Tìm một ví dựa trên số ví.
    *
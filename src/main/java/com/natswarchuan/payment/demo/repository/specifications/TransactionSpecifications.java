@@ -47,6 +47,27 @@ public class TransactionSpecifications {
     return spec;
   }
 
+  /**
+   * Tạo một Specification chỉ giữ các giao dịch đứng sau một vị trí trong thứ tự {@code (created_at
+   * DESC, id DESC)}, dùng cho phân trang theo cursor. Điều kiện này cùng với điều kiện lọc theo ví
+   * khớp với chỉ mục {@code (wallet_id, created_at DESC)} (InnoDB lưu kèm khóa chính trong chỉ mục
+   * phụ), nên cơ sở dữ liệu tìm thẳng tới vị trí thay vì bỏ qua {@code OFFSET} hàng. Cận trên
+   * {@code created_at <= createdAt} được viết tách riêng để MySQL loại bỏ các partition mới hơn.
+   *
+   * @param createdAt thời điểm tạo của hàng cuối cùng trên trang trước.
+   * @param id ID của hàng cuối cùng trên trang trước.
+   * @return một {@code Specification} để lọc theo vị trí.
+   */
+  public Specification<Transaction> before(final Instant createdAt, final UUID id) {
+    return (root, query, criteriaBuilder) ->
+        criteriaBuilder.and(
+            criteriaBuilder.lessThanOrEqualTo(
+                root.get(EntityConstant.TXN_FIELD_CREATED_AT), createdAt),
+            criteriaBuilder.or(
+                criteriaBuilder.lessThan(root.get(EntityConstant.TXN_FIELD_CREATED_AT), createdAt),
+                criteriaBuilder.lessThan(root.get(EntityConstant.FIELD_ID), id)));
+  }
+
   /**
    * Tạo một Specification để lọc các giao dịch thuộc về một ví cụ thể.
    *
@@ -108,6 +129,9 @@ public class TransactionSpecifications {
   /**
    * Tạo một Specification để lọc các giao dịch được tạo trong một khoảng thời gian.
    *
+   * <p>Điều kiện so sánh trực tiếp cột {@code created_at} (không bọc trong hàm), nên MySQL chỉ đọc
+   * các partition theo tháng nằm trong khoảng.
+   *
    * @param startDate thời gian bắt đầu.
    * @param endDate thời gian kết thúc.
    * @return một {@code Specification} để lọc theo khoảng thời gian.
@@ -0,0 +1,80 @@
+package com.natswarchuan.payment.demo.service;
+
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.dto.request.transaction.TransferRequest;
+import com.natswarchuan.payment.demo.entity.User;
+import com.natswarchuan.payment.demo.entity.Wallet;
+import com.natswarchuan.payment.demo.exception.custom.ResourceNotFoundException;
+import com.natswarchuan.payment.demo.helper.TransactionHelper;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.LockedTransactionContext;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferBalances;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferWallets;
+import com.natswarchuan.payment.demo.helper.TransactionRetryHelper;
+import com.natswarchuan.payment.demo.interfaces.services.IBalanceEngine;
+import com.natswarchuan.payment.demo.repository.WalletRepository;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Lớp cơ sở trừu tượng cho các engine cập nhật số dư.
+ *
+ * <p>Định nghĩa luồng chuyển tiền chung (tải ví, xác thực PIN và khóa bí mật, chuyển tiền, ghi bản
+ * ghi giao dịch) và thực thi nó qua {@link TransactionRetryHelper}. Các lớp con chỉ cần quyết định
+ * cách tải ví và cách thay đổi số dư.
+ *
+ * <p>Mặc định, ví dùng cho nạp và rút tiền được tải với khóa bi quan, vì số dư được thay đổi trên
+ * entity; engine nào có cơ chế bảo vệ khác thì ghi đè các phương thức tải tương ứng.
+ */
+public abstract class AbBalanceEngine implements IBalanceEngine {
+
+  protected final TransactionHelper transactionHelper;
+  protected final TransactionRetryHelper transactionRetryHelper;
+  protected final WalletRepository walletRepository;
+
+  protected AbBalanceEngine(
+      final TransactionHelper transactionHelper,
+      final TransactionRetryHelper transactionRetryHelper,
+      final WalletRepository walletRepository) {
+    this.transactionHelper = transactionHelper;
+    this.transactionRetryHelper = transactionRetryHelper;
+    this.walletRepository = walletRepository;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void transfer(final User senderUser, final TransferRequest request) {
+    transactionRetryHelper.runInTransaction(
+        MetricConstant.OPERATION_TRANSFER,
+        () -> {
+          final TransferWallets wallets =
+              loadTransferWallets(senderUser, request.getRecipientWalletNumber());
+          transactionHelper.validatePinAndSecretKey(request, wallets.sender());
+          final TransferBalances balances = moveFunds(wallets, request.getAmount());
+          transactionHelper.createTransferTransactions(wallets, request, balances);
+        });
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Wallet loadUserWallet(final Long userId) {
+    return walletRepository
+        .findAndLockByUserId(userId)
+        .orElseThrow(
+            () -> new ResourceNotFoundException(MessageConstant.Wallet.USER_WALLET_NOT_FOUND));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Optional<LockedTransactionContext> loadTransactionForProcessing(
+      final UUID transactionId, final Integer expectedStatus) {
+    return transactionHelper.findAndLockTransactionForProcessing(transactionId, expectedStatus);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public <T> T executeWalletOperation(final UUID walletId, final Supplier<T> operation) {
+    return operation.get();
+  }
+}
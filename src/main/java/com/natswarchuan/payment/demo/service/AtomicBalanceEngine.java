@@ -0,0 +1,166 @@
+package com.natswarchuan.payment.demo.service;
+
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.constant.WalletConstant;
+import com.natswarchuan.payment.demo.entity.User;
+import com.natswarchuan.payment.demo.exception.custom.BadRequestException;
+import com.natswarchuan.payment.demo.exception.custom.ForbiddenException;
+import com.natswarchuan.payment.demo.exception.custom.ResourceNotFoundException;
+import com.natswarchuan.payment.demo.helper.TransactionHelper;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferBalances;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferWallets;
+import com.natswarchuan.payment.demo.helper.TransactionRetryHelper;
+import com.natswarchuan.payment.demo.helper.WalletBalanceHelper;
+import com.natswarchuan.payment.demo.repository.WalletRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import org.springframework.stereotype.Service;
+
+/**
+ * Engine cập nhật số dư bằng các câu lệnh {@code UPDATE} có điều kiện.
+ *
+ * <p>Ví được đọc mà không khóa; số dư được thay đổi trực tiếp trong cơ sở dữ liệu bằng {@code
+ * balance = balance - :amount WHERE ... AND balance >= :amount AND status = ACTIVE}. Khóa hàng chỉ
+ * được lấy tại câu lệnh cập nhật, nên thời gian giữ khóa trên các ví "nóng" ngắn hơn nhiều so với
+ * {@link PessimisticBalanceEngine}: không còn giữ khóa trong lúc đọc ví và xác thực PIN.
+ *
+ * <p>Hai câu lệnh cập nhật luôn chạy theo thứ tự UUID tăng dần của ví để hai giao dịch ngược chiều
+ * không gây deadlock. Số dư sau cập nhật được đọc lại trong cùng giao dịch (hàng đã bị khóa bởi
+ * {@code UPDATE}), từ đó suy ra số dư trước giao dịch.
+ *
+ * <p>Nạp và rút tiền vẫn thay đổi số dư trên entity nên dùng cách tải có khóa mặc định của {@link
+ * AbBalanceEngine}.
+ */
+@Service
+public class AtomicBalanceEngine extends AbBalanceEngine {
+
+  private final WalletBalanceHelper walletBalanceHelper;
+  private final EntityManager entityManager;
+
+  public AtomicBalanceEngine(
+      final TransactionHelper transactionHelper,
+      final TransactionRetryHelper transactionRetryHelper,
+      final WalletRepository walletRepository,
+      final WalletBalanceHelper walletBalanceHelper,
+      final EntityManager entityManager) {
+    super(transactionHelper, transactionRetryHelper, walletRepository);
+    this.walletBalanceHelper = walletBalanceHelper;
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  public String getEngineName() {
+    return TransactionConstant.BalanceEngine.ATOMIC;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public TransferWallets loadTransferWallets(
+      final User senderUser, final String recipientWalletNumber) {
+    return transactionHelper.getWalletsForTransfer(senderUser, recipientWalletNumber);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public TransferBalances moveFunds(final TransferWallets wallets, final BigDecimal amount) {
+    if (walletBalanceHelper.isSharded(wallets.sender())
+        || walletBalanceHelper.isSharded(wallets.receiver())) {
+      return moveFundsWithShards(wallets, amount);
+    }
+    final UUID senderId = wallets.sender().getId();
+    final UUID receiverId = wallets.receiver().getId();
+    final Instant now = Instant.now();
+
+    final BigDecimal senderAfter;
+    final BigDecimal receiverAfter;
+    if (senderId.compareTo(receiverId) < 0) {
+      senderAfter = debit(senderId, amount, now);
+      receiverAfter = credit(receiverId, amount, now);
+    } else {
+      receiverAfter = credit(receiverId, amount, now);
+      senderAfter = debit(senderId, amount, now);
+    }
+    return new TransferBalances(
+        senderAfter.add(amount), senderAfter, receiverAfter.subtract(amount), receiverAfter);
+  }
+
+  /**
+   * Chuyển tiền khi ít nhất một ví đã chia shard số dư.
+   *
+   * <p>Ví người nhận đã chia shard được cộng tiền vào một shard, không chạm tới hàng {@code
+   * wallets}. Ví người gửi đã chia shard cần rút dần từ nhiều hàng nên được đọc lại với khóa bi
+   * quan rồi trừ qua {@link WalletBalanceHelper}; ví thường vẫn dùng câu lệnh cập nhật có điều kiện.
+   *
+   * @param wallets Các ví liên quan.
+   * @param amount Số tiền chuyển.
+   * @return Số dư trước và sau giao dịch của cả hai ví.
+   */
+  private TransferBalances moveFundsWithShards(
+      final TransferWallets wallets, final BigDecimal amount) {
+    final Instant now = Instant.now();
+    final BigDecimal senderAfter;
+    if (walletBalanceHelper.isSharded(wallets.sender())) {
+      entityManager.refresh(wallets.sender(), LockModeType.PESSIMISTIC_WRITE);
+      senderAfter = walletBalanceHelper.debit(wallets.sender(), amount);
+    } else {
+      senderAfter = debit(wallets.sender().getId(), amount, now);
+    }
+    final BigDecimal receiverAfter =
+        walletBalanceHelper.isSharded(wallets.receiver())
+            ? walletBalanceHelper.credit(wallets.receiver(), amount, wallets.sender().getId())
+            : credit(wallets.receiver().getId(), amount, now);
+    return new TransferBalances(
+        senderAfter.add(amount), senderAfter, receiverAfter.subtract(amount), receiverAfter);
+  }
+
+  /**
+   * Trừ tiền khỏi ví bằng câu lệnh cập nhật có điều kiện.
+   *
+   * @param walletId ID của ví.
+   * @param amount Số tiền cần trừ.
+   * @param now Thời điểm cập nhật.
+   * @return Số dư của ví sau khi trừ.
+   */
+  private BigDecimal debit(final UUID walletId, final BigDecimal amount, final Instant now) {
+    final int updated =
+        walletRepository.debitIfSufficient(walletId, amount, WalletConstant.Status.ACTIVE, now);
+    final BigDecimal balance = readBalance(walletId);
+    if (updated == 0) {
+      if (balance.compareTo(amount) < 0) {
+        throw new BadRequestException(MessageConstant.Wallet.INSUFFICIENT_BALANCE);
+      }
+      throw new ForbiddenException(MessageConstant.Transaction.WALLET_INACTIVE_ERROR);
+    }
+    return balance;
+  }
+
+  /**
+   * Cộng tiền vào ví bằng câu lệnh cập nhật có điều kiện.
+   *
+   * @param walletId ID của ví.
+   * @param amount Số tiền cần cộng.
+   * @param now Thời điểm cập nhật.
+   * @return Số dư của ví sau khi cộng.
+   */
+  private BigDecimal credit(final UUID walletId, final BigDecimal amount, final Instant now) {
+    final int updated =
+        walletRepository.creditIfActive(walletId, amount, WalletConstant.Status.ACTIVE, now);
+    if (updated == 0) {
+      throw new ForbiddenException(MessageConstant.Transaction.WALLET_INACTIVE_ERROR);
+    }
+    return readBalance(walletId);
+  }
+
+  private BigDecimal readBalance(final UUID walletId) {
+    return walletRepository
+        .findBalanceById(walletId)
+        .orElseThrow(
+            () ->
+                new ResourceNotFoundException(
+                    MessageConstant.General.ENTITY_NOT_FOUND_BY_ID, walletId));
+  }
+}
@@ -0,0 +1,67 @@
+package com.natswarchuan.payment.demo.service;
+
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.exception.custom.BadRequestException;
+import com.natswarchuan.payment.demo.interfaces.services.IBalanceEngine;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lớp factory cung cấp engine cập nhật số dư đang được kích hoạt.
+ *
+ * <p>Tương tự {@link PaymentGatewayFactory}, lớp này tự động phát hiện mọi bean triển khai {@link
+ * IBalanceEngine} và ánh xạ chúng theo tên. Engine đang dùng được chọn theo từng môi trường triển
+ * khai qua thuộc tính {@code app.transaction.balance-engine}.
+ */
+@Component
+public class BalanceEngineFactory {
+
+  private final Map<String, IBalanceEngine> engineMap;
+  private final IBalanceEngine activeEngine;
+
+  /**
+   * Khởi tạo factory, xây dựng map các engine và xác định engine đang được kích hoạt.
+   *
+   * @param engines Danh sách các engine được Spring inject tự động.
+   * @param activeEngineName Tên engine được cấu hình.
+   * @throws BadRequestException nếu tên engine được cấu hình không tồn tại, để ứng dụng dừng ngay
+   *     khi khởi động thay vì lỗi ở giao dịch đầu tiên.
+   */
+  public BalanceEngineFactory(
+      final List<IBalanceEngine> engines,
+      @Value("${app.transaction.balance-engine:PESSIMISTIC}") final String activeEngineName) {
+    this.engineMap =
+        engines.stream()
+            .collect(Collectors.toMap(e -> e.getEngineName().toUpperCase(), Function.identity()));
+    this.activeEngine = getEngine(activeEngineName);
+  }
+
+  /**
+   * Lấy engine tương ứng với tên được chỉ định (không phân biệt hoa thường).
+   *
+   * @param engineName Tên engine.
+   * @return Engine tương ứng.
+   * @throws BadRequestException nếu không có engine nào với tên này.
+   */
+  public IBalanceEngine getEngine(final String engineName) {
+    final IBalanceEngine engine = engineMap.get(engineName.toUpperCase());
+    if (engine == null) {
+      throw new BadRequestException(
+          MessageConstant.Payment.BALANCE_ENGINE_NOT_SUPPORTED, engineName);
+    }
+    return engine;
+  }
+
+  /**
+   * Lấy engine đang được kích hoạt cho môi trường hiện tại.
+   *
+   * @return Engine đang hoạt động.
+   */
+  public IBalanceEngine getActiveEngine() {
+    return activeEngine;
+  }
+}
@@ -0,0 +1,338 @@
+package com.natswarchuan.payment.demo.service;
+
+import com.fasterxml.uuid.Generators;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.dto.request.transaction.TransferRequest;
+import com.natswarchuan.payment.demo.entity.LedgerCheckpoint;
+import com.natswarchuan.payment.demo.entity.User;
+import com.natswarchuan.payment.demo.exception.custom.ResourceNotFoundException;
+import com.natswarchuan.payment.demo.helper.LedgerEntryHelper;
+import com.natswarchuan.payment.demo.helper.OutboxHelper;
+import com.natswarchuan.payment.demo.helper.TransactionHelper;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferBalances;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferWallets;
+import com.natswarchuan.payment.demo.helper.TransactionRetryHelper;
+import com.natswarchuan.payment.demo.helper.WalletAggregateHelper;
+import com.natswarchuan.payment.demo.helper.WalletBalanceHelper;
+import com.natswarchuan.payment.demo.repository.LedgerCheckpointRepository;
+import com.natswarchuan.payment.demo.repository.TransactionRepository;
+import com.natswarchuan.payment.demo.repository.WalletRepository;
+import com.natswarchuan.payment.demo.service.ledger.LedgerFlusher;
+import com.natswarchuan.payment.demo.service.ledger.LedgerJournal;
+import com.natswarchuan.payment.demo.service.ledger.LedgerPartitionProcessor;
+import com.natswarchuan.payment.demo.service.ledger.LedgerRecord;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Engine cập nhật số dư single-writer trong bộ nhớ, có write-ahead journal.
+ *
+ * <p>Ví được chia vào một số partition cố định theo ID; mỗi partition là một luồng duy nhất ({@link
+ * LedgerPartitionProcessor}) giữ số dư của các ví thuộc nó trong bộ nhớ. Giao dịch chuyển tiền
+ * không còn khóa hàng trong MySQL: partition áp dụng thay đổi lên số dư trong bộ nhớ, ghi bản ghi
+ * vào journal memory-mapped của nó, và {@link LedgerFlusher} ghi các hàng {@code transactions} cùng
+ * thay đổi số dư xuống MySQL theo lô, bất đồng bộ. Thông lượng chuyển tiền vì vậy bị giới hạn bởi
+ * CPU và tốc độ ghi journal thay vì khóa hàng.
+ *
+ * <p>Nạp tiền, rút tiền và các thao tác quản trị vẫn thay đổi số dư qua entity trong MySQL. Chúng
+ * được đưa về luồng của partition sở hữu ví qua {@link #executeWalletOperation(UUID, Supplier)}:
+ * luồng chờ mọi bản ghi của nó được ghi xuống cơ sở dữ liệu, thực thi thao tác, rồi đọc lại số dư
+ * của ví. Số dư trong MySQL (và các màn hình đọc trực tiếp từ đó) có thể chậm hơn số dư trong bộ nhớ
+ * một khoảng bằng độ trễ của lô ghi.
+ *
+ * <p>Khi khởi động, các bản ghi journal có số thứ tự lớn hơn checkpoint của partition được ghi lại
+ * xuống MySQL, các giao dịch chuyển tiền đã trừ tiền nhưng chưa kịp cộng tiền được hoàn tất trực
+ * tiếp trong cơ sở dữ liệu, rồi journal được xóa; số dư trong bộ nhớ được tải lại dần từ MySQL khi
+ * ví được dùng lần đầu.
+ *
+ * <p>Engine chỉ được tạo khi {@code app.transaction.balance-engine=IN_MEMORY}, vì nó sở hữu các
+ * luồng và file journal riêng. Chỉ nên chạy một instance ứng dụng với engine này.
+ */
+@Service
+@ConditionalOnProperty(
+    name = "app.transaction.balance-engine",
+    havingValue = TransactionConstant.BalanceEngine.IN_MEMORY)
+@Slf4j
+public class InMemoryBalanceEngine extends AbBalanceEngine implements SmartLifecycle {
+
+  private final TransactionRepository transactionRepository;
+  private final LedgerCheckpointRepository checkpointRepository;
+  private final WalletBalanceHelper walletBalanceHelper;
+  private final LedgerEntryHelper ledgerEntryHelper;
+  private final OutboxHelper outboxHelper;
+  private final WalletAggregateHelper walletAggregateHelper;
+  private final TransactionTemplate transactionTemplate;
+  private final EntityManager entityManager;
+  private final ConcurrentMap<UUID, LedgerRecord> pendingCredits = new ConcurrentHashMap<>();
+  private final List<LedgerPartitionProcessor> processors = new ArrayList<>();
+  private LedgerFlusher flusher;
+  private volatile boolean running;
+
+  @Value("${app.ledger.in-memory.partitions:8}")
+  private int partitionCount;
+
+  @Value("${app.ledger.in-memory.queue-capacity:8192}")
+  private int queueCapacity;
+
+  @Value("${app.ledger.in-memory.submit-timeout-ms:2000}")
+  private long submitTimeoutMs;
+
+  @Value("${app.ledger.in-memory.journal-dir:./data/ledger-journal}")
+  private String journalDir;
+
+  @Value("${app.ledger.in-memory.journal-size-mb:64}")
+  private int journalSizeMb;
+
+  @Value("${app.ledger.in-memory.journal-sync:true}")
+  private boolean journalSync;
+
+  @Value("${app.ledger.in-memory.flush-batch-size:500}")
+  private int flushBatchSize;
+
+  public InMemoryBalanceEngine(
+      final TransactionHelper transactionHelper,
+      final TransactionRetryHelper transactionRetryHelper,
+      final WalletRepository walletRepository,
+      final TransactionRepository transactionRepository,
+      final LedgerCheckpointRepository checkpointRepository,
+      final WalletBalanceHelper walletBalanceHelper,
+      final LedgerEntryHelper ledgerEntryHelper,
+      final OutboxHelper outboxHelper,
+      final WalletAggregateHelper walletAggregateHelper,
+      final PlatformTransactionManager transactionManager,
+      final EntityManager entityManager) {
+    super(transactionHelper, transactionRetryHelper, walletRepository);
+    this.transactionRepository = transactionRepository;
+    this.checkpointRepository = checkpointRepository;
+    this.walletBalanceHelper = walletBalanceHelper;
+    this.ledgerEntryHelper = ledgerEntryHelper;
+    this.outboxHelper = outboxHelper;
+    this.walletAggregateHelper = walletAggregateHelper;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  public String getEngineName() {
+    return TransactionConstant.BalanceEngine.IN_MEMORY;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Ví và mã PIN được xác thực trên luồng của người gọi; việc trừ và cộng tiền được thực hiện
+   * bởi partition của từng ví. Phương thức trả về khi cả hai bước đã được ghi bền vững vào journal.
+   */
+  @Override
+  public void transfer(final User senderUser, final TransferRequest request) {
+    final TransferWallets wallets =
+        loadTransferWallets(senderUser, request.getRecipientWalletNumber());
+    transactionHelper.validatePinAndSecretKey(request, wallets.sender());
+    await(submitTransfer(wallets, request.getAmount(), request.getDescription()));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public TransferWallets loadTransferWallets(
+      final User senderUser, final String recipientWalletNumber) {
+    return transactionHelper.getWalletsForTransfer(senderUser, recipientWalletNumber);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Với engine này, các hàng giao dịch được tạo bởi {@link LedgerFlusher}; người gọi không cần
+   * (và không được) tự ghi chúng.
+   */
+  @Override
+  public TransferBalances moveFunds(final TransferWallets wallets, final BigDecimal amount) {
+    return await(submitTransfer(wallets, amount, null));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public <T> T executeWalletOperation(final UUID walletId, final Supplier<T> operation) {
+    return await(processorFor(walletId).submitExclusive(walletId, operation));
+  }
+
+  @Override
+  public void start() {
+    final int journalBytes = journalSizeMb * 1024 * 1024;
+    final List<LedgerJournal> journals = new ArrayList<>();
+    for (int partition = 0; partition < partitionCount; partition++) {
+      journals.add(
+          new LedgerJournal(
+              Path.of(journalDir, "partition-" + partition + ".journal"),
+              journalBytes,
+              journalSync));
+    }
+    flusher =
+        new LedgerFlusher(
+            transactionTemplate,
+            entityManager,
+            walletRepository,
+            checkpointRepository,
+            walletBalanceHelper,
+            ledgerEntryHelper,
+            outboxHelper,
+            walletAggregateHelper,
+            queueCapacity,
+            flushBatchSize);
+
+    final Map<Integer, Long> sequences = recover(journals);
+
+    for (int partition = 0; partition < partitionCount; partition++) {
+      processors.add(
+          new LedgerPartitionProcessor(
+              partition,
+              queueCapacity,
+              partitionCount,
+              submitTimeoutMs,
+              journals.get(partition),
+              flusher,
+              this::loadBalance,
+              pendingCredits,
+              sequences.getOrDefault(partition, 0L)));
+    }
+    flusher.start();
+    processors.forEach(LedgerPartitionProcessor::start);
+    running = true;
+    log.info(LogConstant.LEDGER_STARTED, partitionCount, Path.of(journalDir).toAbsolutePath());
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    processors.forEach(LedgerPartitionProcessor::stop);
+    processors.clear();
+    flusher.stop();
+    log.info(LogConstant.LEDGER_STOPPED);
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Khởi động trước và dừng sau web server, để không có yêu cầu nào tới khi các partition chưa chạy
+   * hoặc đã dừng.
+   */
+  @Override
+  public int getPhase() {
+    return SmartLifecycle.DEFAULT_PHASE - 4096;
+  }
+
+  /**
+   * Ghi lại phần journal chưa có trong MySQL, hoàn tất các phần cộng tiền bị thiếu rồi xóa journal.
+   *
+   * @param journals Journal của từng partition.
+   * @return Số thứ tự cuối cùng đã dùng của từng partition.
+   */
+  private Map<Integer, Long> recover(final List<LedgerJournal> journals) {
+    final Map<Integer, Long> sequences =
+        checkpointRepository.findAll().stream()
+            .collect(
+                Collectors.toMap(
+                    LedgerCheckpoint::getPartitionId, LedgerCheckpoint::getLastSequence));
+
+    final List<LedgerRecord> unflushed = new ArrayList<>();
+    final Map<UUID, LedgerRecord> outs = new LinkedHashMap<>();
+    final Set<UUID> credited = new HashSet<>();
+    for (int partition = 0; partition < journals.size(); partition++) {
+      final long checkpoint = sequences.getOrDefault(partition, 0L);
+      for (LedgerRecord record : journals.get(partition).readAll()) {
+        sequences.merge(partition, record.sequence(), Math::max);
+        if (record.kind() == LedgerRecord.Kind.IN) {
+          credited.add(record.relatedTransactionId());
+        } else {
+          outs.put(record.transactionId(), record);
+        }
+        if (record.kind() != LedgerRecord.Kind.OUT_CARRIED && record.sequence() > checkpoint) {
+          unflushed.add(record);
+        }
+      }
+    }
+
+    if (!unflushed.isEmpty()) {
+      log.info(LogConstant.LEDGER_RECOVERY_REPLAY, unflushed.size());
+      flusher.writeBatch(unflushed);
+    }
+    for (LedgerRecord out : outs.values()) {
+      if (!credited.contains(out.transactionId())
+          && !transactionRepository.existsByRelatedTransactionId(out.transactionId())) {
+        log.warn(LogConstant.LEDGER_RECOVERY_CREDIT, out.transactionId());
+        flusher.completeMissingCredit(out, Generators.timeBasedEpochGenerator().generate());
+      }
+    }
+    journals.forEach(LedgerJournal::reset);
+    return sequences;
+  }
+
+  private CompletableFuture<TransferBalances> submitTransfer(
+      final TransferWallets wallets, final BigDecimal amount, final String description) {
+    final UUID senderId = wallets.sender().getId();
+    final UUID receiverId = wallets.receiver().getId();
+    return processorFor(senderId)
+        .submitTransfer(
+            senderId,
+            receiverId,
+            processorFor(receiverId),
+            amount,
+            String.format(
+                MessageConstant.Transaction.TRANSFER_OUT_DESCRIPTION,
+                wallets.receiver().getNumber(),
+                description),
+            String.format(
+                MessageConstant.Transaction.TRANSFER_IN_DESCRIPTION,
+                wallets.sender().getNumber()));
+  }
+
+  private LedgerPartitionProcessor processorFor(final UUID walletId) {
+    return processors.get(Math.floorMod(walletId.hashCode(), processors.size()));
+  }
+
+  private BigDecimal loadBalance(final UUID walletId) {
+    return walletBalanceHelper.getTotalBalance(
+        walletRepository
+            .findById(walletId)
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(
+                        MessageConstant.General.ENTITY_NOT_FOUND_BY_ID, walletId)));
+  }
+
+  private static <T> T await(final CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,250 @@
+package com.natswarchuan.payment.demo.service;
+
+import com.natswarchuan.payment.demo.config.datasource.ReplicaRoutingContext;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.dto.response.gateway.ProcessIpnResponse;
+import com.natswarchuan.payment.demo.entity.IpnInbox;
+import com.natswarchuan.payment.demo.exception.HttpException;
+import com.natswarchuan.payment.demo.helper.IpnInboxHelper;
+import com.natswarchuan.payment.demo.interfaces.services.ITransactionService;
+import com.natswarchuan.payment.demo.repository.IpnInboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Worker áp dụng các IPN trong {@code ipn_inbox} ở chế độ xử lý bất đồng bộ.
+ *
+ * <p>Mỗi chu kỳ, worker nhận tối đa số hàng bằng số chỗ còn trống bằng {@code SELECT ... FOR UPDATE
+ * SKIP LOCKED}, đánh dấu chúng đang xử lý kèm một lease rồi commit ngay. Mỗi IPN được giao cho một
+ * partition theo ID giao dịch; mỗi partition là một luồng đơn, nên các IPN của cùng một giao dịch
+ * được áp dụng tuần tự theo thứ tự nhận. Việc áp dụng dùng lại {@link
+ * ITransactionService#completeDeposit} và {@link ITransactionService#completeWithdrawal}; lỗi tạm
+ * thời (bao gồm xung đột cập nhật đồng thời và lỗi 5xx) được thử lại với thời gian chờ tăng dần,
+ * chỉ lỗi nghiệp vụ thực sự (ví dụ giao dịch không tồn tại, yêu cầu không hợp lệ) đánh dấu IPN thất
+ * bại ngay.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(
+    name = "app.ipn.ingestion.mode",
+    havingValue = TransactionConstant.IpnIngestionMode.ASYNC)
+public class IpnInboxWorker {
+
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+  private final IpnInboxRepository ipnInboxRepository;
+  private final IpnInboxHelper ipnInboxHelper;
+  private final ITransactionService transactionService;
+  private final MeterRegistry meterRegistry;
+  private final TransactionTemplate transactionTemplate;
+  private final ExecutorService[] partitions;
+  private final Semaphore slots;
+  private final Duration lease;
+  private final int maxAttempts;
+  private final long initialBackoffMs;
+  private final long maxBackoffMs;
+
+  /**
+   * Khởi tạo IpnInboxWorker.
+   *
+   * @param ipnInboxRepository Kho lưu trữ cho hàng đợi IPN.
+   * @param ipnInboxHelper Helper theo dõi số IPN tồn đọng.
+   * @param transactionService Dịch vụ áp dụng IPN nạp và rút tiền.
+   * @param meterRegistry Registry ghi nhận số liệu của worker.
+   * @param transactionManager Trình quản lý giao dịch dùng khi nhận và cập nhật hàng đợi.
+   * @param partitionCount Số partition (luồng) áp dụng IPN.
+   * @param maxInFlight Số IPN tối đa đã nhận nhưng chưa áp dụng xong.
+   * @param leaseSeconds Thời gian (giây) một hàng được giữ bởi worker đã nhận nó.
+   * @param maxAttempts Số lần thử tối đa khi gặp lỗi tạm thời.
+   * @param initialBackoffMs Thời gian chờ (ms) trước lần thử lại đầu tiên.
+   * @param maxBackoffMs Thời gian chờ (ms) tối đa giữa hai lần thử.
+   */
+  public IpnInboxWorker(
+      final IpnInboxRepository ipnInboxRepository,
+      final IpnInboxHelper ipnInboxHelper,
+      final ITransactionService transactionService,
+      final MeterRegistry meterRegistry,
+      final PlatformTransactionManager transactionManager,
+      @Value("${app.ipn.ingestion.partitions:8}") final int partitionCount,
+      @Value("${app.ipn.ingestion.max-in-flight:256}") final int maxInFlight,
+      @Value("${app.ipn.ingestion.lease-seconds:60}") final long leaseSeconds,
+      @Value("${app.ipn.ingestion.max-attempts:10}") final int maxAttempts,
+      @Value("${app.ipn.ingestion.initial-backoff-ms:500}") final long initialBackoffMs,
+      @Value("${app.ipn.ingestion.max-backoff-ms:60000}") final long maxBackoffMs) {
+    this.ipnInboxRepository = ipnInboxRepository;
+    this.ipnInboxHelper = ipnInboxHelper;
+    this.transactionService = transactionService;
+    this.meterRegistry = meterRegistry;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.partitions = new ExecutorService[partitionCount];
+    for (int i = 0; i < partitionCount; i++) {
+      partitions[i] = Executors.newSingleThreadExecutor();
+    }
+    this.slots = new Semaphore(maxInFlight);
+    this.lease = Duration.ofSeconds(leaseSeconds);
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffMs = initialBackoffMs;
+    this.maxBackoffMs = maxBackoffMs;
+    meterRegistry.gauge(
+        MetricConstant.IPN_INBOX_IN_FLIGHT, slots, s -> maxInFlight - s.availablePermits());
+  }
+
+  /** Nhận các IPN đến hạn và giao cho partition tương ứng. */
+  @Scheduled(fixedDelayString = "${app.ipn.ingestion.poll-interval-ms:100}")
+  public void poll() {
+    ReplicaRoutingContext.clear();
+    try {
+      ipnInboxHelper.refreshDepth();
+      final int free = slots.availablePermits();
+      if (free == 0) {
+        return;
+      }
+      final List<IpnInbox> claimed = transactionTemplate.execute(status -> claim(free));
+      if (claimed == null) {
+        return;
+      }
+      for (IpnInbox ipn : claimed) {
+        slots.acquireUninterruptibly();
+        partitions[Math.floorMod(ipn.getTransactionId().hashCode(), partitions.length)].execute(
+            ReplicaRoutingContext.isolated(
+                () -> {
+                  try {
+                    process(ipn);
+                  } finally {
+                    slots.release();
+                  }
+                }));
+      }
+    } finally {
+      ReplicaRoutingContext.clear();
+    }
+  }
+
+  /** Dừng nhận việc mới và chờ các IPN đang áp dụng kết thúc. */
+  @PreDestroy
+  public void shutdown() {
+    for (ExecutorService partition : partitions) {
+      partition.shutdown();
+    }
+    try {
+      for (ExecutorService partition : partitions) {
+        partition.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private List<IpnInbox> claim(final int limit) {
+    final Instant now = Instant.now();
+    final List<IpnInbox> due = ipnInboxRepository.findDueForUpdate(now, limit);
+    for (IpnInbox ipn : due) {
+      ipn.setStatus(TransactionConstant.IpnInboxStatus.PROCESSING);
+      ipn.setAttempts(ipn.getAttempts() + 1);
+      ipn.setLockedUntil(now.plus(lease));
+      ipn.setUpdatedAt(now);
+    }
+    return due;
+  }
+
+  private void process(final IpnInbox ipn) {
+    final ProcessIpnResponse ipnResponse =
+        ProcessIpnResponse.builder()
+            .transactionId(ipn.getTransactionId())
+            .providerTransactionId(ipn.getProviderTransactionId())
+            .amount(ipn.getAmount())
+            .transactionStatus(ipn.getTransactionStatus())
+            .message(ipn.getMessage())
+            .build();
+    try {
+      if (TransactionConstant.Type.WITHDRAWAL.equals(ipn.getType())) {
+        transactionService.completeWithdrawal(ipnResponse);
+      } else {
+        transactionService.completeDeposit(ipnResponse);
+      }
+    } catch (HttpException e) {
+      if (isTransient(e)) {
+        retryLater(ipn, e);
+      } else {
+        giveUp(ipn, e);
+      }
+      return;
+    } catch (RuntimeException e) {
+      retryLater(ipn, e);
+      return;
+    }
+    final Instant now = Instant.now();
+    complete(ipn, TransactionConstant.IpnInboxStatus.DONE, null, now);
+    meterRegistry
+        .timer(MetricConstant.IPN_INBOX_LAG)
+        .record(Duration.between(ipn.getCreatedAt(), now));
+  }
+
+  /**
+   * Kiểm tra một lỗi nghiệp vụ có phải lỗi tạm thời hay không: xung đột cập nhật đồng thời (409),
+   * vượt giới hạn tần suất (429) và lỗi phía máy chủ (5xx) có thể thành công nếu thử lại, còn các
+   * lỗi 4xx khác (ví dụ giao dịch không tồn tại, yêu cầu không hợp lệ) thì không.
+   */
+  private static boolean isTransient(final HttpException error) {
+    final HttpStatus status = error.getStatus();
+    return status.is5xxServerError()
+        || status == HttpStatus.CONFLICT
+        || status == HttpStatus.TOO_MANY_REQUESTS;
+  }
+
+  private void retryLater(final IpnInbox ipn, final RuntimeException error) {
+    final int attempts = ipn.getAttempts();
+    if (attempts >= maxAttempts) {
+      giveUp(ipn, error);
+      return;
+    }
+    final long backoffMs =
+        Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+    log.warn(
+        LogConstant.IPN_INBOX_RETRY,
+        ipn.getId(),
+        ipn.getTransactionId(),
+        attempts,
+        backoffMs,
+        error);
+    final Instant now = Instant.now();
+    transactionTemplate.executeWithoutResult(
+        status ->
+            ipnInboxRepository.reschedule(
+                ipn.getId(), now.plusMillis(backoffMs), error.getMessage(), now));
+  }
+
+  private void giveUp(final IpnInbox ipn, final RuntimeException error) {
+    log.error(
+        LogConstant.IPN_INBOX_GAVE_UP,
+        ipn.getId(),
+        ipn.getTransactionId(),
+        ipn.getAttempts(),
+        error);
+    meterRegistry.counter(MetricConstant.IPN_INBOX_FAILED).increment();
+    complete(ipn, TransactionConstant.IpnInboxStatus.FAILED, error.getMessage(), Instant.now());
+  }
+
+  private void complete(
+      final IpnInbox ipn, final Integer ipnStatus, final String error, final Instant now) {
+    transactionTemplate.executeWithoutResult(
+        status -> ipnInboxRepository.complete(ipn.getId(), ipnStatus, error, now));
+  }
+}
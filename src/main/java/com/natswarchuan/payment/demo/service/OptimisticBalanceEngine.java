@@ -0,0 +1,92 @@
+package com.natswarchuan.payment.demo.service;
+
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.dto.request.transaction.TransferRequest;
+import com.natswarchuan.payment.demo.entity.User;
+import com.natswarchuan.payment.demo.entity.Wallet;
+import com.natswarchuan.payment.demo.exception.custom.ResourceNotFoundException;
+import com.natswarchuan.payment.demo.helper.TransactionHelper;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.LockedTransactionContext;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferBalances;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferWallets;
+import com.natswarchuan.payment.demo.helper.TransactionRetryHelper;
+import com.natswarchuan.payment.demo.repository.WalletRepository;
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.stereotype.Service;
+
+/**
+ * Engine cập nhật số dư dựa trên khóa lạc quan ({@code @Version} của {@link Wallet}).
+ *
+ * <p>Không dùng bất kỳ truy vấn {@code findAndLock*} nào: ví được đọc bình thường, số dư được thay
+ * đổi trên entity, và Hibernate thêm điều kiện {@code WHERE version = ?} vào câu lệnh cập nhật. Nếu
+ * một giao dịch khác đã ghi trước, câu lệnh không tác động hàng nào và giao dịch bị hoàn tác với
+ * lỗi xung đột phiên bản; {@link TransactionRetryHelper} khi đó đọc lại và thử lại theo chính sách
+ * {@code app.transaction.optimistic-retry.*}. Phù hợp với các ví có tần suất ghi thấp, nơi xung đột
+ * hiếm khi xảy ra và chi phí khóa hàng là không cần thiết.
+ *
+ * <p>Vì xung đột chỉ được phát hiện khi commit, mọi tác dụng phụ không thể hoàn tác phải nằm ngoài
+ * vòng thử lại: mã PIN và khóa bí mật (bị xóa khỏi Redis sau khi dùng) được xác thực một lần trước
+ * khi bắt đầu giao dịch.
+ */
+@Service
+public class OptimisticBalanceEngine extends AbBalanceEngine {
+
+  public OptimisticBalanceEngine(
+      final TransactionHelper transactionHelper,
+      final TransactionRetryHelper transactionRetryHelper,
+      final WalletRepository walletRepository) {
+    super(transactionHelper, transactionRetryHelper, walletRepository);
+  }
+
+  @Override
+  public String getEngineName() {
+    return TransactionConstant.BalanceEngine.OPTIMISTIC;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void transfer(final User senderUser, final TransferRequest request) {
+    transactionHelper.validatePinAndSecretKey(request, loadUserWallet(senderUser.getId()));
+    transactionRetryHelper.runInTransaction(
+        MetricConstant.OPERATION_TRANSFER,
+        () -> {
+          final TransferWallets wallets =
+              loadTransferWallets(senderUser, request.getRecipientWalletNumber());
+          final TransferBalances balances = moveFunds(wallets, request.getAmount());
+          transactionHelper.createTransferTransactions(wallets, request, balances);
+        });
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public TransferWallets loadTransferWallets(
+      final User senderUser, final String recipientWalletNumber) {
+    return transactionHelper.getWalletsForTransfer(senderUser, recipientWalletNumber);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public TransferBalances moveFunds(final TransferWallets wallets, final BigDecimal amount) {
+    return transactionHelper.performBalanceUpdateAndSave(wallets, amount);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Wallet loadUserWallet(final Long userId) {
+    return walletRepository
+        .findWithoutLockByUserId(userId)
+        .orElseThrow(
+            () -> new ResourceNotFoundException(MessageConstant.Wallet.USER_WALLET_NOT_FOUND));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Optional<LockedTransactionContext> loadTransactionForProcessing(
+      final UUID transactionId, final Integer expectedStatus) {
+    return transactionHelper.findTransactionForProcessing(transactionId, expectedStatus);
+  }
+}
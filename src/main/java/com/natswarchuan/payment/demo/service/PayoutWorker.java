@@ -0,0 +1,263 @@
+package com.natswarchuan.payment.demo.service;
+
+import com.natswarchuan.payment.demo.config.datasource.ReplicaRoutingContext;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.dto.response.gateway.PayoutResponse;
+import com.natswarchuan.payment.demo.entity.PayoutOutbox;
+import com.natswarchuan.payment.demo.entity.Transaction;
+import com.natswarchuan.payment.demo.helper.TransactionHelper;
+import com.natswarchuan.payment.demo.helper.TransactionRetryHelper;
+import com.natswarchuan.payment.demo.interfaces.services.IBalanceEngine;
+import com.natswarchuan.payment.demo.interfaces.services.ISpendLimitService;
+import com.natswarchuan.payment.demo.repository.PayoutOutboxRepository;
+import com.natswarchuan.payment.demo.repository.TransactionRepository;
+import com.natswarchuan.payment.demo.service.limit.SpendLimitReservation;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Worker gửi các yêu cầu chi trả (rút tiền) trong {@code payout_outbox} tới cổng thanh toán.
+ *
+ * <p>Mỗi chu kỳ, worker nhận tối đa số hàng bằng số luồng đang rảnh bằng {@code SELECT ... FOR
+ * UPDATE SKIP LOCKED}, đánh dấu chúng đang xử lý kèm một lease rồi commit ngay; lời gọi HTTP tới
+ * cổng thanh toán diễn ra trên một nhóm luồng có kích thước cố định, ngoài mọi giao dịch cơ sở dữ
+ * liệu. Kết quả được ghi trong một giao dịch ngắn:
+ *
+ * <ul>
+ *   <li>cổng thanh toán chấp nhận: ghi mã giao dịch của nhà cung cấp, chờ IPN như trước;
+ *   <li>cổng thanh toán từ chối: hoàn lại số tiền đã giữ chỗ và trả lại giữ chỗ hạn mức rút tiền
+ *       đã lưu cùng yêu cầu chi trả;
+ *   <li>lỗi tạm thời (kết nối, hết thời gian chờ): thử lại với thời gian chờ tăng dần, tới khi hết
+ *       số lần thử thì giao dịch được giữ nguyên ở trạng thái đang xem xét để xử lý thủ công.
+ * </ul>
+ *
+ * <p>Nếu tiến trình dừng khi đang xử lý, hàng được nhận lại sau khi lease hết hạn. Yêu cầu chi trả
+ * khi đó có thể được gửi lại; cổng thanh toán nhận diện yêu cầu theo ID giao dịch ({@code
+ * vnp_TxnRef}), và kết quả chỉ được ghi khi giao dịch vẫn đang ở trạng thái đang xem xét.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(
+    name = "app.payout.worker.enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class PayoutWorker {
+
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+  private final PayoutOutboxRepository payoutOutboxRepository;
+  private final TransactionRepository transactionRepository;
+  private final TransactionHelper transactionHelper;
+  private final TransactionRetryHelper transactionRetryHelper;
+  private final BalanceEngineFactory balanceEngineFactory;
+  private final ISpendLimitService spendLimitService;
+  private final TransactionTemplate transactionTemplate;
+  private final ExecutorService executor;
+  private final Semaphore slots;
+  private final Duration lease;
+  private final int maxAttempts;
+  private final long initialBackoffMs;
+  private final long maxBackoffMs;
+
+  /**
+   * Khởi tạo PayoutWorker.
+   *
+   * @param payoutOutboxRepository Kho lưu trữ cho hàng đợi chi trả.
+   * @param transactionRepository Kho lưu trữ cho giao dịch.
+   * @param transactionHelper Helper chứa logic gọi cổng thanh toán và ghi kết quả.
+   * @param transactionRetryHelper Helper thực thi giao dịch có thử lại khi xung đột.
+   * @param balanceEngineFactory Factory cung cấp engine cập nhật số dư đang hoạt động.
+   * @param spendLimitService Dịch vụ hạn mức, dùng để trả lại giữ chỗ khi yêu cầu bị từ chối.
+   * @param transactionManager Trình quản lý giao dịch dùng khi nhận và cập nhật hàng đợi.
+   * @param concurrency Số lời gọi chi trả đồng thời tối đa.
+   * @param leaseSeconds Thời gian (giây) một hàng được giữ bởi worker đã nhận nó.
+   * @param maxAttempts Số lần thử tối đa khi gặp lỗi tạm thời.
+   * @param initialBackoffMs Thời gian chờ (ms) trước lần thử lại đầu tiên.
+   * @param maxBackoffMs Thời gian chờ (ms) tối đa giữa hai lần thử.
+   */
+  public PayoutWorker(
+      final PayoutOutboxRepository payoutOutboxRepository,
+      final TransactionRepository transactionRepository,
+      final TransactionHelper transactionHelper,
+      final TransactionRetryHelper transactionRetryHelper,
+      final BalanceEngineFactory balanceEngineFactory,
+      final ISpendLimitService spendLimitService,
+      final PlatformTransactionManager transactionManager,
+      @Value("${app.payout.worker.concurrency:8}") final int concurrency,
+      @Value("${app.payout.worker.lease-seconds:120}") final long leaseSeconds,
+      @Value("${app.payout.worker.max-attempts:5}") final int maxAttempts,
+      @Value("${app.payout.worker.initial-backoff-ms:1000}") final long initialBackoffMs,
+      @Value("${app.payout.worker.max-backoff-ms:60000}") final long maxBackoffMs) {
+    this.payoutOutboxRepository = payoutOutboxRepository;
+    this.transactionRepository = transactionRepository;
+    this.transactionHelper = transactionHelper;
+    this.transactionRetryHelper = transactionRetryHelper;
+    this.balanceEngineFactory = balanceEngineFactory;
+    this.spendLimitService = spendLimitService;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.executor = Executors.newFixedThreadPool(concurrency);
+    this.slots = new Semaphore(concurrency);
+    this.lease = Duration.ofSeconds(leaseSeconds);
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffMs = initialBackoffMs;
+    this.maxBackoffMs = maxBackoffMs;
+  }
+
+  /** Nhận các yêu cầu chi trả đến hạn và giao cho các luồng đang rảnh. */
+  @Scheduled(fixedDelayString = "${app.payout.worker.poll-interval-ms:500}")
+  public void poll() {
+    ReplicaRoutingContext.clear();
+    try {
+      final int free = slots.availablePermits();
+      if (free == 0) {
+        return;
+      }
+      final List<PayoutOutbox> claimed = transactionTemplate.execute(status -> claim(free));
+      if (claimed == null) {
+        return;
+      }
+      for (PayoutOutbox payout : claimed) {
+        slots.acquireUninterruptibly();
+        executor.execute(
+            ReplicaRoutingContext.isolated(
+                () -> {
+                  try {
+                    process(payout);
+                  } finally {
+                    slots.release();
+                  }
+                }));
+      }
+    } finally {
+      ReplicaRoutingContext.clear();
+    }
+  }
+
+  /** Dừng nhận việc mới và chờ các lời gọi đang chạy kết thúc. */
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+    try {
+      executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private List<PayoutOutbox> claim(final int limit) {
+    final Instant now = Instant.now();
+    final List<PayoutOutbox> due = payoutOutboxRepository.findDueForUpdate(now, limit);
+    for (PayoutOutbox payout : due) {
+      payout.setStatus(TransactionConstant.PayoutStatus.PROCESSING);
+      payout.setAttempts(payout.getAttempts() + 1);
+      payout.setLockedUntil(now.plus(lease));
+    }
+    return due;
+  }
+
+  private void process(final PayoutOutbox payout) {
+    final Optional<Transaction> found =
+        transactionRepository.findWithWalletAndPaymentMethodById(payout.getTransactionId());
+    if (found.isEmpty()
+        || !TransactionConstant.Status.REVIEWING.equals(found.get().getStatus())
+        || found.get().getProviderTransactionId() != null) {
+      // Đã có kết quả (IPN tới trước, hoặc lần xử lý trước đã ghi kết quả).
+      complete(payout, TransactionConstant.PayoutStatus.SENT, null);
+      return;
+    }
+    final Transaction transaction = found.get();
+
+    final PayoutResponse response;
+    try {
+      response = transactionHelper.callPayoutGateway(transaction, payout.getProvider());
+    } catch (RuntimeException e) {
+      retryLater(payout, e);
+      return;
+    }
+
+    try {
+      if (response.isSuccess()) {
+        transactionRetryHelper.runInTransaction(
+            MetricConstant.OPERATION_WITHDRAWAL,
+            () -> {
+              transactionHelper.finalizeWithdrawal(transaction.getId(), response);
+              markCompleted(payout, TransactionConstant.PayoutStatus.SENT, null);
+            });
+        log.info(LogConstant.PAYOUT_SENT, transaction.getId());
+      } else {
+        refund(transaction, payout, response);
+        log.warn(LogConstant.PAYOUT_REJECTED, transaction.getId(), response.getMessage());
+      }
+    } catch (RuntimeException e) {
+      log.error(LogConstant.PAYOUT_FINALIZE_FAILED, transaction.getId(), e);
+    }
+  }
+
+  private void refund(
+      final Transaction transaction, final PayoutOutbox payout, final PayoutResponse response) {
+    final IBalanceEngine engine = balanceEngineFactory.getActiveEngine();
+    final Long userId = transaction.getWallet().getUser().getId();
+    final boolean refunded =
+        engine.executeWalletOperation(
+            transaction.getWallet().getId(),
+            () ->
+                transactionRetryHelper.executeInTransaction(
+                    MetricConstant.OPERATION_WITHDRAWAL,
+                    () -> {
+                      final boolean credited =
+                          transactionHelper.refundRejectedWithdrawal(
+                              transaction.getId(), engine.loadUserWallet(userId), response);
+                      markCompleted(
+                          payout, TransactionConstant.PayoutStatus.REJECTED, response.getMessage());
+                      return credited;
+                    }));
+    if (refunded) {
+      spendLimitService.release(
+          SpendLimitReservation.decode(payout.getSpendLimitReservation()));
+    }
+  }
+
+  private void retryLater(final PayoutOutbox payout, final RuntimeException error) {
+    final int attempts = payout.getAttempts();
+    if (attempts >= maxAttempts) {
+      log.error(LogConstant.PAYOUT_GAVE_UP, payout.getTransactionId(), attempts, error);
+      complete(payout, TransactionConstant.PayoutStatus.FAILED, error.getMessage());
+      return;
+    }
+    final long backoffMs =
+        Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+    log.warn(LogConstant.PAYOUT_RETRY, payout.getTransactionId(), attempts, backoffMs, error);
+    final Instant now = Instant.now();
+    transactionTemplate.executeWithoutResult(
+        status ->
+            payoutOutboxRepository.reschedule(
+                payout.getId(), now.plusMillis(backoffMs), error.getMessage(), now));
+  }
+
+  private void complete(
+      final PayoutOutbox payout, final Integer payoutStatus, final String error) {
+    transactionTemplate.executeWithoutResult(
+        status -> markCompleted(payout, payoutStatus, error));
+  }
+
+  private void markCompleted(
+      final PayoutOutbox payout, final Integer payoutStatus, final String error) {
+    payoutOutboxRepository.complete(payout.getId(), payoutStatus, error, Instant.now());
+  }
+}
@@ -0,0 +1,47 @@
+package com.natswarchuan.payment.demo.service;
+
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.entity.User;
+import com.natswarchuan.payment.demo.helper.TransactionHelper;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferBalances;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferWallets;
+import com.natswarchuan.payment.demo.helper.TransactionRetryHelper;
+import com.natswarchuan.payment.demo.repository.WalletRepository;
+import java.math.BigDecimal;
+import org.springframework.stereotype.Service;
+
+/**
+ * Engine cập nhật số dư dựa trên khóa bi quan.
+ *
+ * <p>Các ví được khóa bằng {@code SELECT ... FOR UPDATE} (theo thứ tự UUID nếu bật
+ * ordered-locking), số dư được thay đổi trên entity trong Java rồi ghi lại. Khóa hàng được giữ từ
+ * lúc tải ví cho đến khi giao dịch kết thúc.
+ */
+@Service
+public class PessimisticBalanceEngine extends AbBalanceEngine {
+
+  public PessimisticBalanceEngine(
+      final TransactionHelper transactionHelper,
+      final TransactionRetryHelper transactionRetryHelper,
+      final WalletRepository walletRepository) {
+    super(transactionHelper, transactionRetryHelper, walletRepository);
+  }
+
+  @Override
+  public String getEngineName() {
+    return TransactionConstant.BalanceEngine.PESSIMISTIC;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public TransferWallets loadTransferWallets(
+      final User senderUser, final String recipientWalletNumber) {
+    return transactionHelper.getAndLockWalletsForTransfer(senderUser, recipientWalletNumber);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public TransferBalances moveFunds(final TransferWallets wallets, final BigDecimal amount) {
+    return transactionHelper.performBalanceUpdateAndSave(wallets, amount);
+  }
+}
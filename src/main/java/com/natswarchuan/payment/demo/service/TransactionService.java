@@ -2,44 +2,57 @@ package com.natswarchuan.payment.demo.service;
 
 import com.fasterxml.uuid.Generators;
 import com.natswarchuan.payment.demo.config.security.SecurityUtil;
+import com.natswarchuan.payment.demo.constant.LimitConstant;
 import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
 import com.natswarchuan.payment.demo.constant.TransactionConstant;
 import com.natswarchuan.payment.demo.dto.request.transaction.DepositRequest;
+import com.natswarchuan.payment.demo.dto.request.transaction.TransactionCursorRequest;
 import com.natswarchuan.payment.demo.dto.request.transaction.TransactionSearchRequest;
 import com.natswarchuan.payment.demo.dto.request.transaction.TransferRequest;
 import com.natswarchuan.payment.demo.dto.request.transaction.WithdrawRequest;
+import com.natswarchuan.payment.demo.dto.response.CursorPageResponse;
 import com.natswarchuan.payment.demo.dto.response.gateway.CreatePaymentResponse;
-import com.natswarchuan.payment.demo.dto.response.gateway.PayoutResponse;
 import com.natswarchuan.payment.demo.dto.response.gateway.ProcessIpnResponse;
 import com.natswarchuan.payment.demo.dto.response.transaction.TransactionSummaryResponse;
 import com.natswarchuan.payment.demo.entity.PaymentMethod;
 import com.natswarchuan.payment.demo.entity.Transaction;
 import com.natswarchuan.payment.demo.entity.User;
 import com.natswarchuan.payment.demo.entity.Wallet;
+import com.natswarchuan.payment.demo.exception.custom.BadRequestException;
 import com.natswarchuan.payment.demo.exception.custom.ForbiddenException;
 import com.natswarchuan.payment.demo.exception.custom.RateLimitExceededException;
 import com.natswarchuan.payment.demo.exception.custom.ResourceNotFoundException;
+import com.natswarchuan.payment.demo.helper.IpnDeduplicationHelper;
+import com.natswarchuan.payment.demo.helper.TransactionExportHelper;
 import com.natswarchuan.payment.demo.helper.TransactionHelper;
-import com.natswarchuan.payment.demo.helper.TransactionHelper.LockedTransactionContext;
-import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferWallets;
+import com.natswarchuan.payment.demo.helper.TransactionRetryHelper;
+import com.natswarchuan.payment.demo.interfaces.services.IBalanceEngine;
+import com.natswarchuan.payment.demo.interfaces.services.IFraudScoringService;
 import com.natswarchuan.payment.demo.interfaces.services.IRateLimiterService;
+import com.natswarchuan.payment.demo.interfaces.services.ISpendLimitService;
+import com.natswarchuan.payment.demo.interfaces.services.ITransactionArchiveService;
 import com.natswarchuan.payment.demo.interfaces.services.ITransactionService;
 import com.natswarchuan.payment.demo.repository.SecretKeyRepository;
 import com.natswarchuan.payment.demo.repository.TransactionRepository;
 import com.natswarchuan.payment.demo.repository.WalletRepository;
 import com.natswarchuan.payment.demo.repository.specifications.TransactionSpecifications;
+import com.natswarchuan.payment.demo.service.limit.SpendLimitReservation;
+import com.natswarchuan.payment.demo.util.CursorUtil;
 import com.natswarchuan.payment.demo.util.HttpUtil;
 import jakarta.servlet.http.HttpServletRequest;
-import java.math.BigDecimal;
-import java.util.Optional;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Lớp dịch vụ triển khai các nghiệp vụ liên quan đến giao dịch.
@@ -54,12 +67,20 @@ import org.springframework.transaction.annotation.Transactional;
 public class TransactionService extends AbService<Transaction, UUID>
     implements ITransactionService {
 
+  private final TransactionRepository transactionRepository;
   private final TransactionHelper transactionHelper;
   private final SecurityUtil securityUtil;
   private final SecretKeyRepository secretKeyRepository;
   private final WalletRepository walletRepository;
   private final IRateLimiterService rateLimiterService;
   private final TransactionSpecifications transactionSpecifications;
+  private final BalanceEngineFactory balanceEngineFactory;
+  private final TransactionRetryHelper transactionRetryHelper;
+  private final IpnDeduplicationHelper ipnDeduplicationHelper;
+  private final TransactionExportHelper transactionExportHelper;
+  private final ISpendLimitService spendLimitService;
+  private final IFraudScoringService fraudScoringService;
+  private final ITransactionArchiveService transactionArchiveService;
 
   @Value("${app.secret-key.rate-limit.max-requests}")
   private int maxSecretKeyRequests;
@@ -77,6 +98,13 @@ public class TransactionService extends AbService<Transaction, UUID>
    * @param walletRepository Kho lưu trữ cho ví.
    * @param rateLimiterService Dịch vụ giới hạn tần suất.
    * @param transactionSpecifications Đối tượng để xây dựng truy vấn động.
+   * @param balanceEngineFactory Factory cung cấp engine cập nhật số dư đang được kích hoạt.
+   * @param transactionRetryHelper Helper thực thi giao dịch có thử lại khi xung đột.
+   * @param ipnDeduplicationHelper Helper nhận diện IPN gửi lại cho giao dịch đã hoàn tất.
+   * @param transactionExportHelper Helper xuất lịch sử giao dịch theo kiểu streaming.
+   * @param spendLimitService Dịch vụ hạn mức rút và chuyển tiền.
+   * @param fraudScoringService Dịch vụ chấm điểm gian lận của luồng chuyển tiền.
+   * @param transactionArchiveService Kho lưu trữ lạnh, được gộp vào kết quả tìm kiếm và lịch sử.
    */
   public TransactionService(
       final TransactionRepository repository,
@@ -85,14 +113,29 @@ public class TransactionService extends AbService<Transaction, UUID>
       final SecretKeyRepository secretKeyRepository,
       final WalletRepository walletRepository,
       final IRateLimiterService rateLimiterService,
-      final TransactionSpecifications transactionSpecifications) {
+      final TransactionSpecifications transactionSpecifications,
+      final BalanceEngineFactory balanceEngineFactory,
+      final TransactionRetryHelper transactionRetryHelper,
+      final IpnDeduplicationHelper ipnDeduplicationHelper,
+      final TransactionExportHelper transactionExportHelper,
+      final ISpendLimitService spendLimitService,
+      final IFraudScoringService fraudScoringService,
+      final ITransactionArchiveService transactionArchiveService) {
     super(repository);
+    this.transactionRepository = repository;
     this.transactionHelper = transactionHelper;
     this.securityUtil = securityUtil;
     this.secretKeyRepository = secretKeyRepository;
     this.walletRepository = walletRepository;
     this.rateLimiterService = rateLimiterService;
     this.transactionSpecifications = transactionSpecifications;
+    this.balanceEngineFactory = balanceEngineFactory;
+    this.transactionRetryHelper = transactionRetryHelper;
+    this.ipnDeduplicationHelper = ipnDeduplicationHelper;
+    this.transactionExportHelper = transactionExportHelper;
+    this.spendLimitService = spendLimitService;
+    this.fraudScoringService = fraudScoringService;
+    this.transactionArchiveService = transactionArchiveService;
   }
 
   @Override
@@ -109,48 +152,143 @@ public class TransactionService extends AbService<Transaction, UUID>
         transaction, gatewayProvider, httpServletRequest);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Giao dịch và ví được tải theo cơ chế của engine cập nhật số dư đang hoạt động, và toàn bộ
+   * thao tác được thử lại qua {@link TransactionRetryHelper} khi gặp xung đột khóa hoặc xung đột
+   * phiên bản.
+   *
+   * <p>IPN gửi lại cho một giao dịch đã hoàn tất được bỏ qua ngay qua {@link
+   * IpnDeduplicationHelper} mà không truy vấn cơ sở dữ liệu.
+   */
   @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
   public void completeDeposit(final ProcessIpnResponse ipnResponse) {
-    final Optional<LockedTransactionContext> lockedContextOpt =
-        transactionHelper.findAndLockTransactionForProcessing(
-            ipnResponse.getTransactionId(), TransactionConstant.Status.PENDING);
-    lockedContextOpt.ifPresent(
-        context ->
-            transactionHelper.updateWalletBalanceAndTransactionForDeposit(ipnResponse, context));
+    if (ipnDeduplicationHelper.isDuplicate(
+        MetricConstant.OPERATION_DEPOSIT, ipnResponse.getTransactionId())) {
+      return;
+    }
+    final IBalanceEngine engine = balanceEngineFactory.getActiveEngine();
+    engine.executeWalletOperation(
+        findWalletIdOfTransaction(ipnResponse.getTransactionId()),
+        () -> {
+          transactionRetryHelper.runInTransaction(
+              MetricConstant.OPERATION_DEPOSIT,
+              () ->
+                  engine
+                      .loadTransactionForProcessing(
+                          ipnResponse.getTransactionId(), TransactionConstant.Status.PENDING)
+                      .ifPresent(
+                          context ->
+                              transactionHelper.updateWalletBalanceAndTransactionForDeposit(
+                                  ipnResponse, context)));
+          return null;
+        });
+    ipnDeduplicationHelper.markFinalized(ipnResponse.getTransactionId());
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Chỉ thực hiện phần cục bộ: giữ chỗ (trừ) số tiền khỏi ví, tạo giao dịch ở trạng thái đang
+   * xem xét và ghi một yêu cầu chi trả vào {@code payout_outbox}, tất cả trong một giao dịch được
+   * thử lại khi xung đột. Lời gọi tới cổng thanh toán do {@link PayoutWorker} thực hiện sau khi
+   * commit, nên không có khóa hay kết nối cơ sở dữ liệu nào bị giữ trong lúc chờ cổng thanh toán.
+   *
+   * <p>Hạn mức rút tiền theo ngày/tháng được giữ chỗ trong Redis trước khi khóa ví và được hoàn lại
+   * nếu phần cục bộ thất bại.
+   */
   @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
   public void initiateWithdrawal(
       final WithdrawRequest request,
       final String provider,
       final HttpServletRequest httpServletRequest) {
     final User currentUser = securityUtil.getCurrentAuthenticatedUser();
-    final Wallet userWallet =
+    final IBalanceEngine engine = balanceEngineFactory.getActiveEngine();
+    final UUID walletId =
         walletRepository
-            .findAndLockByUserId(currentUser.getId())
+            .findIdByUserId(currentUser.getId())
             .orElseThrow(
                 () -> new ResourceNotFoundException(MessageConstant.Wallet.USER_WALLET_NOT_FOUND));
+    final SpendLimitReservation reservation =
+        spendLimitService.reserve(
+            walletId,
+            securityUtil.getCurrentAuthorities(),
+            LimitConstant.Operation.WITHDRAWAL,
+            request.getAmount());
 
-    final PaymentMethod paymentMethod =
-        transactionHelper.validateWithdrawalRequest(request, userWallet);
-    final Transaction transaction =
-        transactionHelper.createPendingWithdrawalTransaction(
-            request, userWallet, paymentMethod, httpServletRequest);
-
-    final PayoutResponse payoutResponse =
-        transactionHelper.callPayoutGateway(transaction, provider);
-
-    transactionHelper.finalizeWithdrawal(transaction, userWallet, payoutResponse);
+    try {
+      engine.executeWalletOperation(
+          walletId,
+          () ->
+              transactionRetryHelper.executeInTransaction(
+                  MetricConstant.OPERATION_WITHDRAWAL,
+                  () -> {
+                    final Wallet userWallet = engine.loadUserWallet(currentUser.getId());
+                    final PaymentMethod paymentMethod =
+                        transactionHelper.validateWithdrawalRequest(request, userWallet);
+                    final Transaction pending =
+                        transactionHelper.createPendingWithdrawalTransaction(
+                            request, userWallet, paymentMethod, httpServletRequest);
+                    transactionHelper.reserveWithdrawalAmount(pending, userWallet);
+                    transactionHelper.enqueuePayout(pending, provider, reservation);
+                    return pending;
+                  }));
+    } catch (RuntimeException e) {
+      spendLimitService.release(reservation);
+      throw e;
+    }
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Giao dịch và ví được tải theo cơ chế của engine cập nhật số dư đang hoạt động, và toàn bộ
+   * thao tác được thử lại qua {@link TransactionRetryHelper} khi gặp xung đột khóa hoặc xung đột
+   * phiên bản.
+   *
+   * <p>IPN gửi lại cho một giao dịch đã hoàn tất được bỏ qua ngay qua {@link
+   * IpnDeduplicationHelper} mà không truy vấn cơ sở dữ liệu.
+   *
+   * <p>Nếu giao dịch thất bại và được hoàn tiền, giữ chỗ hạn mức rút tiền lưu cùng yêu cầu chi trả
+   * được trả lại sau khi commit.
+   */
   @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
   public void completeWithdrawal(final ProcessIpnResponse ipnResponse) {
-    final Optional<LockedTransactionContext> lockedContextOpt =
-        transactionHelper.findAndLockTransactionForProcessing(
-            ipnResponse.getTransactionId(), TransactionConstant.Status.REVIEWING);
-    lockedContextOpt.ifPresent(
-        context ->
-            transactionHelper.updateWalletBalanceAndTransactionForWithdrawal(ipnResponse, context));
+    if (ipnDeduplicationHelper.isDuplicate(
+        MetricConstant.OPERATION_WITHDRAWAL, ipnResponse.getTransactionId())) {
+      return;
+    }
+    final IBalanceEngine engine = balanceEngineFactory.getActiveEngine();
+    final AtomicBoolean refunded = new AtomicBoolean();
+    engine.executeWalletOperation(
+        findWalletIdOfTransaction(ipnResponse.getTransactionId()),
+        () -> {
+          transactionRetryHelper.runInTransaction(
+              MetricConstant.OPERATION_WITHDRAWAL,
+              () ->
+                  refunded.set(
+                      engine
+                          .loadTransactionForProcessing(
+                              ipnResponse.getTransactionId(), TransactionConstant.Status.REVIEWING)
+                          .map(
+                              context -> {
+                                transactionHelper.updateWalletBalanceAndTransactionForWithdrawal(
+                                    ipnResponse, context);
+                                return TransactionConstant.Status.FAILED.equals(
+                                    context.transaction().getStatus());
+                              })
+                          .orElse(false)));
+          return null;
+        });
+    if (refunded.get()) {
+      spendLimitService.release(
+          transactionHelper.findSpendLimitReservation(ipnResponse.getTransactionId()));
+    }
+    ipnDeduplicationHelper.markFinalized(ipnResponse.getTransactionId());
   }
 
   /** {@inheritDoc} */
@@ -179,22 +317,52 @@ public class TransactionService extends AbService<Transaction, UUID>
     return secretKey;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Phương thức này không tham gia giao dịch của lớp; việc khóa hoặc cập nhật số dư, ghi giao
+   * dịch và thử lại khi gặp deadlock hoặc hết thời gian chờ khóa được ủy quyền cho engine cập nhật
+   * số dư đang được cấu hình (xem {@link BalanceEngineFactory}). Trước khi khóa ví, lần chuyển tiền
+   * được chấm điểm gian lận trong bộ nhớ (xem {@link IFraudScoringService}), rồi hạn mức chuyển
+   * tiền được giữ chỗ và được hoàn lại nếu chuyển tiền thất bại.
+   */
   @Override
-  public void initiateTransfer(final TransferRequest request) {
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public void initiateTransfer(
+      final TransferRequest request, final HttpServletRequest httpServletRequest) {
     final User senderUser = securityUtil.getCurrentAuthenticatedUser();
-    final TransferWallets wallets =
-        transactionHelper.getAndLockWalletsForTransfer(
-            senderUser, request.getRecipientWalletNumber());
-
-    final BigDecimal senderBalanceBefore = wallets.sender().getBalance();
-    final BigDecimal receiverBalanceBefore = wallets.receiver().getBalance();
-
-    transactionHelper.validatePinAndSecretKey(request, wallets.sender());
-
-    transactionHelper.performBalanceUpdateAndSave(wallets, request.getAmount());
+    final UUID walletId =
+        walletRepository
+            .findIdByUserId(senderUser.getId())
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(MessageConstant.Wallet.SENDER_WALLET_NOT_FOUND));
+    fraudScoringService.screenTransfer(
+        walletId,
+        request.getRecipientWalletNumber(),
+        request.getAmount(),
+        HttpUtil.getClientIp(httpServletRequest));
+    final SpendLimitReservation reservation =
+        spendLimitService.reserve(
+            walletId,
+            securityUtil.getCurrentAuthorities(),
+            LimitConstant.Operation.TRANSFER,
+            request.getAmount());
+    try {
+      balanceEngineFactory.getActiveEngine().transfer(senderUser, request);
+    } catch (RuntimeException e) {
+      spendLimitService.release(reservation);
+      throw e;
+    }
+  }
 
-    transactionHelper.createTransferTransactions(
-        wallets, request, senderBalanceBefore, receiverBalanceBefore);
+  private UUID findWalletIdOfTransaction(final UUID transactionId) {
+    return transactionRepository
+        .findWalletIdById(transactionId)
+        .orElseThrow(
+            () ->
+                new ResourceNotFoundException(
+                    MessageConstant.General.ENTITY_NOT_FOUND_BY_ID, transactionId));
   }
 
   /** {@inheritDoc} */
@@ -202,23 +370,61 @@ public class TransactionService extends AbService<Transaction, UUID>
   @Transactional(readOnly = true)
   public Page<TransactionSummaryResponse> searchTransactionsForCurrentUser(
       final TransactionSearchRequest searchRequest, final Pageable pageable) {
-    final User currentUser = securityUtil.getCurrentAuthenticatedUser();
-    final Wallet userWallet =
-        walletRepository
-            .findByUserId(currentUser.getId())
-            .orElseThrow(
-                () -> new ResourceNotFoundException(MessageConstant.Wallet.USER_WALLET_NOT_FOUND));
-
+    final UUID walletId = findCurrentUserWalletId();
     final Specification<Transaction> spec =
-        transactionSpecifications.fromSearchRequest(searchRequest, userWallet.getId());
+        transactionSpecifications.fromSearchRequest(searchRequest, walletId);
 
-    final Page<Transaction> transactionPage = specificationExecutor.findAll(spec, pageable);
+    return transactionArchiveService.search(walletId, searchRequest, spec, pageable);
+  }
 
-    return transactionPage.map(
-        transaction -> {
-          final TransactionSummaryResponse dto = new TransactionSummaryResponse();
-          dto.fromEntity(transaction);
-          return dto;
-        });
+  /** {@inheritDoc} */
+  @Override
+  @Transactional(readOnly = true)
+  public CursorPageResponse<TransactionSummaryResponse> scrollTransactionsForCurrentUser(
+      final TransactionCursorRequest cursorRequest) {
+    final UUID walletId = findCurrentUserWalletId();
+    Specification<Transaction> spec =
+        transactionSpecifications.fromSearchRequest(cursorRequest, walletId);
+    CursorUtil.Position position = null;
+    if (cursorRequest.getCursor() != null && !cursorRequest.getCursor().isBlank()) {
+      try {
+        position = CursorUtil.decode(cursorRequest.getCursor());
+      } catch (IllegalArgumentException e) {
+        throw new BadRequestException(MessageConstant.Transaction.INVALID_CURSOR);
+      }
+      spec = spec.and(transactionSpecifications.before(position.createdAt(), position.id()));
+    }
+
+    final int size = cursorRequest.getSize();
+    // Lấy dư một hàng để biết còn trang kế tiếp hay không mà không cần COUNT.
+    final List<TransactionSummaryResponse> rows =
+        transactionArchiveService.scroll(walletId, cursorRequest, spec, position, size + 1);
+
+    final boolean hasNext = rows.size() > size;
+    final List<TransactionSummaryResponse> items = hasNext ? rows.subList(0, size) : rows;
+    final TransactionSummaryResponse last = hasNext ? items.get(items.size() - 1) : null;
+    return new CursorPageResponse<>(
+        items, last != null ? CursorUtil.encode(last.getCreatedAt(), last.getId()) : null);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  @Transactional(readOnly = true)
+  public StreamingResponseBody exportTransactionsForCurrentUser(
+      final TransactionSearchRequest searchRequest, final String format) {
+    final String resolvedFormat = transactionExportHelper.resolveFormat(format);
+    final UUID walletId = findCurrentUserWalletId();
+    final Specification<Transaction> spec =
+        transactionSpecifications.fromSearchRequest(searchRequest, walletId);
+    return transactionExportHelper.export(walletId, searchRequest, spec, resolvedFormat);
+  }
+
+  private UUID findCurrentUserWalletId() {
+    final User currentUser = securityUtil.getCurrentAuthenticatedUser();
+    return walletRepository
+        .findByUserId(currentUser.getId())
+        .map(Wallet::getId)
+        .orElseThrow(
+            () -> new ResourceNotFoundException(MessageConstant.Wallet.USER_WALLET_NOT_FOUND));
   }
 }
@@ -0,0 +1,335 @@
+package com.natswarchuan.payment.demo.service;
+
+import com.natswarchuan.payment.demo.config.datasource.ReplicaRoutingContext;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.constant.OutboxConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.dto.response.gateway.ProcessIpnResponse;
+import com.natswarchuan.payment.demo.entity.BaseEntity;
+import com.natswarchuan.payment.demo.entity.PayoutOutbox;
+import com.natswarchuan.payment.demo.entity.Transaction;
+import com.natswarchuan.payment.demo.helper.OutboxHelper;
+import com.natswarchuan.payment.demo.interfaces.services.ITransactionService;
+import com.natswarchuan.payment.demo.repository.PayoutOutboxRepository;
+import com.natswarchuan.payment.demo.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tác vụ định kỳ dọn các giao dịch bị treo.
+ *
+ * <ul>
+ *   <li>Giao dịch nạp tiền ở trạng thái chờ quá thời hạn được tra cứu lại qua cổng thanh toán đã
+ *       tạo nó trước khi hủy: nếu cổng thanh toán đã có kết quả cuối cùng (IPN bị mất), kết quả
+ *       được ghi theo đúng luồng xử lý IPN; chỉ giao dịch mà cổng thanh toán không tìm thấy hoặc
+ *       chưa được thanh toán (người dùng bỏ dở trang thanh toán) mới bị chuyển sang trạng thái đã
+ *       hủy. Thời hạn này phải dài hơn thời hạn của URL thanh toán ({@code vnp_ExpireDate}) để giao
+ *       dịch không thể được thanh toán sau khi bị hủy.
+ *   <li>Giao dịch rút tiền đã được cổng thanh toán chấp nhận nhưng không nhận được IPN được tra cứu
+ *       lại qua {@link com.natswarchuan.payment.demo.interfaces.services.IPaymentGatewayService};
+ *       kết quả cuối cùng được ghi theo đúng luồng xử lý IPN.
+ * </ul>
+ *
+ * <p>Các hàng được duyệt theo khóa {@code (created_at, id)} và nhận theo lô bằng {@code SELECT ...
+ * FOR UPDATE SKIP LOCKED}, nên nhiều node có thể quét song song mà không chờ nhau. Lời gọi tra cứu
+ * tới cổng thanh toán diễn ra sau khi lô đã được commit, ngoài mọi giao dịch cơ sở dữ liệu; thời
+ * điểm cập nhật của hàng được đẩy lên khi nhận để node khác không tra cứu lại ngay. Kích thước lô,
+ * số lô mỗi chu kỳ và tần suất gọi tra cứu đều cấu hình được.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "app.sweeper.enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionSweeper {
+
+  private static final Cursor START = new Cursor(Instant.EPOCH, new UUID(0L, 0L));
+
+  private final TransactionRepository transactionRepository;
+  private final PayoutOutboxRepository payoutOutboxRepository;
+  private final PaymentGatewayFactory paymentGatewayFactory;
+  private final ITransactionService transactionService;
+  private final OutboxHelper outboxHelper;
+  private final MeterRegistry meterRegistry;
+  private final TransactionTemplate transactionTemplate;
+  private final Duration depositExpiry;
+  private final Duration withdrawalStaleAfter;
+  private final Duration requeryInterval;
+  private final int batchSize;
+  private final int maxBatchesPerRun;
+  private final long queryIntervalNanos;
+  private long nextQueryAt = System.nanoTime();
+
+  /**
+   * Khởi tạo TransactionSweeper.
+   *
+   * @param transactionRepository Kho lưu trữ cho giao dịch.
+   * @param payoutOutboxRepository Kho lưu trữ cho hàng đợi chi trả, dùng để biết nhà cung cấp.
+   * @param paymentGatewayFactory Factory cung cấp dịch vụ cổng thanh toán theo nhà cung cấp.
+   * @param transactionService Dịch vụ giao dịch, dùng để ghi kết quả tra cứu như một IPN.
+   * @param outboxHelper Helper ghi sự kiện giao dịch vào outbox.
+   * @param meterRegistry Registry ghi nhận số liệu của tác vụ.
+   * @param transactionManager Trình quản lý giao dịch dùng khi nhận các lô.
+   * @param depositExpiryMinutes Số phút sau khi tạo mà giao dịch nạp tiền chưa thanh toán bị hủy.
+   * @param withdrawalStaleMinutes Số phút sau khi tạo mà giao dịch rút tiền chưa có IPN được tra
+   *     cứu lại.
+   * @param requeryIntervalMinutes Khoảng chờ (phút) giữa hai lần tra cứu cùng một giao dịch.
+   * @param batchSize Số hàng tối đa mỗi lô.
+   * @param maxBatchesPerRun Số lô tối đa mỗi loại trong một chu kỳ.
+   * @param queriesPerSecond Số lời gọi tra cứu cổng thanh toán tối đa mỗi giây ({@code 0} để không
+   *     giới hạn).
+   */
+  public TransactionSweeper(
+      final TransactionRepository transactionRepository,
+      final PayoutOutboxRepository payoutOutboxRepository,
+      final PaymentGatewayFactory paymentGatewayFactory,
+      final ITransactionService transactionService,
+      final OutboxHelper outboxHelper,
+      final MeterRegistry meterRegistry,
+      final PlatformTransactionManager transactionManager,
+      @Value("${app.sweeper.deposit-expiry-minutes:60}") final long depositExpiryMinutes,
+      @Value("${app.sweeper.withdrawal-stale-minutes:30}") final long withdrawalStaleMinutes,
+      @Value("${app.sweeper.requery-interval-minutes:15}") final long requeryIntervalMinutes,
+      @Value("${app.sweeper.batch-size:200}") final int batchSize,
+      @Value("${app.sweeper.max-batches-per-run:10}") final int maxBatchesPerRun,
+      @Value("${app.sweeper.gateway-queries-per-second:5}") final int queriesPerSecond) {
+    this.transactionRepository = transactionRepository;
+    this.payoutOutboxRepository = payoutOutboxRepository;
+    this.paymentGatewayFactory = paymentGatewayFactory;
+    this.transactionService = transactionService;
+    this.outboxHelper = outboxHelper;
+    this.meterRegistry = meterRegistry;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.depositExpiry = Duration.ofMinutes(depositExpiryMinutes);
+    this.withdrawalStaleAfter = Duration.ofMinutes(withdrawalStaleMinutes);
+    this.requeryInterval = Duration.ofMinutes(requeryIntervalMinutes);
+    this.batchSize = batchSize;
+    this.maxBatchesPerRun = maxBatchesPerRun;
+    this.queryIntervalNanos =
+        queriesPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / queriesPerSecond : 0;
+  }
+
+  /** Dọn các giao dịch nạp tiền quá hạn và tra cứu lại các giao dịch rút tiền chưa có kết quả. */
+  @Scheduled(
+      fixedDelayString = "${app.sweeper.poll-interval-ms:60000}",
+      initialDelayString = "${app.sweeper.poll-interval-ms:60000}")
+  public void sweep() {
+    ReplicaRoutingContext.clear();
+    try {
+      expireDeposits();
+      requeryWithdrawals();
+    } finally {
+      ReplicaRoutingContext.clear();
+    }
+  }
+
+  private void expireDeposits() {
+    final Instant now = Instant.now();
+    final Instant cutoff = now.minus(depositExpiry);
+    final Instant updatedBefore = now.minus(requeryInterval);
+    final String description =
+        String.format(MessageConstant.Transaction.DEPOSIT_EXPIRED, depositExpiry.toMinutes());
+    final AtomicInteger expired = new AtomicInteger();
+    forEachBatch(
+        cursor -> {
+          final List<Transaction> stale =
+              transactionRepository.findStaleForUpdate(
+                  TransactionConstant.Type.DEPOSIT,
+                  TransactionConstant.Status.PENDING,
+                  cutoff,
+                  updatedBefore,
+                  cursor.createdAt(),
+                  cursor.id(),
+                  batchSize);
+          if (!stale.isEmpty()) {
+            transactionRepository.touch(stale.stream().map(BaseEntity::getId).toList(), now);
+          }
+          return stale;
+        },
+        claimed -> {
+          for (Transaction transaction : claimed) {
+            if (resolveDeposit(transaction, description)) {
+              expired.incrementAndGet();
+            }
+          }
+        });
+    if (expired.get() > 0) {
+      meterRegistry
+          .counter(
+              MetricConstant.SWEEPER_SWEPT,
+              MetricConstant.TAG_OPERATION,
+              MetricConstant.OPERATION_DEPOSIT)
+          .increment(expired.get());
+      log.info(LogConstant.SWEEPER_DEPOSITS_EXPIRED, expired.get(), cutoff);
+    }
+  }
+
+  /**
+   * Tra cứu một giao dịch nạp tiền quá hạn rồi ghi kết quả của cổng thanh toán, hoặc hủy giao dịch
+   * nếu cổng thanh toán không có kết quả cuối cùng. Giao dịch được giữ nguyên nếu lời gọi tra cứu
+   * thất bại, để được tra cứu lại ở chu kỳ sau. Giao dịch không rõ cổng thanh toán (tạo trước khi
+   * cổng thanh toán được lưu) bị hủy ngay.
+   *
+   * @return {@code true} nếu giao dịch đã bị hủy.
+   */
+  private boolean resolveDeposit(final Transaction transaction, final String description) {
+    if (transaction.getProvider() != null) {
+      awaitQuerySlot();
+      try {
+        final Optional<ProcessIpnResponse> result =
+            paymentGatewayFactory
+                .getGateway(transaction.getProvider())
+                .queryTransaction(transaction);
+        if (result.isPresent()) {
+          transactionService.completeDeposit(result.get());
+          log.info(
+              LogConstant.SWEEPER_DEPOSIT_RESOLVED,
+              transaction.getId(),
+              result.get().getTransactionStatus());
+          return false;
+        }
+      } catch (RuntimeException e) {
+        meterRegistry.counter(MetricConstant.SWEEPER_GATEWAY_QUERY_FAILED).increment();
+        log.warn(LogConstant.SWEEPER_QUERY_FAILED, transaction.getId(), e);
+        return false;
+      }
+    }
+    return Boolean.TRUE.equals(
+        transactionTemplate.execute(status -> cancelIfPending(transaction.getId(), description)));
+  }
+
+  /** Hủy một giao dịch nạp tiền nếu nó vẫn đang chờ (IPN có thể đã đến trong lúc tra cứu). */
+  private boolean cancelIfPending(final UUID transactionId, final String description) {
+    final Optional<Transaction> pending =
+        transactionRepository
+            .findAndLockById(transactionId)
+            .filter(t -> TransactionConstant.Status.PENDING.equals(t.getStatus()));
+    if (pending.isEmpty()) {
+      return false;
+    }
+    final Transaction transaction = pending.get();
+    transaction.setStatus(TransactionConstant.Status.CANCELLED);
+    transaction.setDescription(description);
+    outboxHelper.record(
+        transaction.getWallet().getId(),
+        OutboxConstant.EventType.TRANSACTION_CANCELLED,
+        transaction);
+    return true;
+  }
+
+  private void requeryWithdrawals() {
+    final Instant now = Instant.now();
+    final Instant cutoff = now.minus(withdrawalStaleAfter);
+    final Instant updatedBefore = now.minus(requeryInterval);
+    forEachBatch(
+        cursor -> {
+          final List<Transaction> stale =
+              transactionRepository.findUnconfirmedForUpdate(
+                  TransactionConstant.Type.WITHDRAWAL,
+                  TransactionConstant.Status.REVIEWING,
+                  cutoff,
+                  updatedBefore,
+                  cursor.createdAt(),
+                  cursor.id(),
+                  batchSize);
+          if (!stale.isEmpty()) {
+            transactionRepository.touch(stale.stream().map(BaseEntity::getId).toList(), now);
+          }
+          return stale;
+        },
+        claimed -> claimed.forEach(this::requery));
+  }
+
+  private void requery(final Transaction transaction) {
+    final Optional<String> provider =
+        payoutOutboxRepository
+            .findByTransactionId(transaction.getId())
+            .map(PayoutOutbox::getProvider);
+    if (provider.isEmpty()) {
+      return;
+    }
+    awaitQuerySlot();
+    try {
+      final Optional<ProcessIpnResponse> result =
+          paymentGatewayFactory.getGateway(provider.get()).queryTransaction(transaction);
+      if (result.isEmpty()) {
+        return;
+      }
+      transactionService.completeWithdrawal(result.get());
+      meterRegistry
+          .counter(
+              MetricConstant.SWEEPER_SWEPT,
+              MetricConstant.TAG_OPERATION,
+              MetricConstant.OPERATION_WITHDRAWAL)
+          .increment();
+      log.info(
+          LogConstant.SWEEPER_WITHDRAWAL_RESOLVED,
+          transaction.getId(),
+          result.get().getTransactionStatus());
+    } catch (RuntimeException e) {
+      meterRegistry.counter(MetricConstant.SWEEPER_GATEWAY_QUERY_FAILED).increment();
+      log.warn(LogConstant.SWEEPER_QUERY_FAILED, transaction.getId(), e);
+    }
+  }
+
+  /**
+   * Nhận lần lượt các lô theo khóa {@code (created_at, id)}, mỗi lô trong một giao dịch riêng.
+   *
+   * @param claimBatch Nhận (và xử lý) một lô bắt đầu sau vị trí cho trước, trong giao dịch.
+   * @param afterCommit Xử lý lô sau khi giao dịch nhận lô đã commit.
+   * @return tổng số hàng đã nhận.
+   */
+  private int forEachBatch(
+      final Function<Cursor, List<Transaction>> claimBatch,
+      final Consumer<List<Transaction>> afterCommit) {
+    Cursor cursor = START;
+    int total = 0;
+    for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+      final Cursor from = cursor;
+      final List<Transaction> claimed =
+          transactionTemplate.execute(status -> claimBatch.apply(from));
+      if (claimed == null || claimed.isEmpty()) {
+        break;
+      }
+      total += claimed.size();
+      afterCommit.accept(claimed);
+      final Transaction last = claimed.get(claimed.size() - 1);
+      cursor = new Cursor(last.getCreatedAt(), last.getId());
+      if (claimed.size() < batchSize) {
+        break;
+      }
+    }
+    return total;
+  }
+
+  /** Chờ tới lượt gọi tra cứu kế tiếp để không vượt quá tần suất đã cấu hình. */
+  private void awaitQuerySlot() {
+    if (queryIntervalNanos == 0) {
+      return;
+    }
+    final long wait = nextQueryAt - System.nanoTime();
+    if (wait > 0) {
+      LockSupport.parkNanos(wait);
+    }
+    nextQueryAt = Math.max(System.nanoTime(), nextQueryAt) + queryIntervalNanos;
+  }
+
+  /** Vị trí trong thứ tự {@code (created_at, id)} của hàng cuối cùng đã nhận. */
+  private record Cursor(Instant createdAt, UUID id) {}
+}
@@ -15,6 +15,7 @@ import com.natswarchuan.payment.demo.exception.custom.BadRequestException;
 import com.natswarchuan.payment.demo.exception.custom.ConflictException;
 import com.natswarchuan.payment.demo.exception.custom.ResourceNotFoundException;
 import com.natswarchuan.payment.demo.helper.UserHelper;
+import com.natswarchuan.payment.demo.helper.WalletBalanceHelper;
 import com.natswarchuan.payment.demo.interfaces.services.IUserService;
 import com.natswarchuan.payment.demo.repository.RoleRepository;
 import com.natswarchuan.payment.demo.repository.RoleRepository.AuthorityProjection;
@@ -50,6 +51,7 @@ public class UserService extends AbService<User, Long> implements IUserService {
   private final UserRepository userRepository;
   private final UserHelper userHelper;
   private final UserSpecifications userSpecifications;
+  private final WalletBalanceHelper walletBalanceHelper;
 
   /**
    * Khởi tạo UserService với các dependency cần thiết.
@@ -58,17 +60,20 @@ public class UserService extends AbService<User, Long> implements IUserService {
    * @param roleRepository repository cho Role.
    * @param userHelper helper chứa các logic nghiệp vụ phụ trợ.
    * @param userSpecifications lớp chứa các Specification để xây dựng truy vấn động.
+   * @param walletBalanceHelper helper để đọc số dư thực của ví (kể cả ví đã chia shard).
    */
   public UserService(
       final UserRepository repository,
       final RoleRepository roleRepository,
       final UserHelper userHelper,
-      final UserSpecifications userSpecifications) {
+      final UserSpecifications userSpecifications,
+      final WalletBalanceHelper walletBalanceHelper) {
     super(repository);
     this.userRepository = repository;
     this.roleRepository = roleRepository;
     this.userHelper = userHelper;
     this.userSpecifications = userSpecifications;
+    this.walletBalanceHelper = walletBalanceHelper;
   }
 
   @Override
@@ -168,6 +173,9 @@ public class UserService extends AbService<User, Long> implements IUserService {
 
     final UserDetailResponse userDetail = new UserDetailResponse();
     userDetail.fromEntity(user);
+    if (userDetail.getWallet() != null) {
+      userDetail.getWallet().setBalance(walletBalanceHelper.getTotalBalance(user.getWallet()));
+    }
     userDetail.setPermissions(permissions);
     userDetail.setRoles(roles);
 
@@ -1,5 +1,6 @@
 package com.natswarchuan.payment.demo.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.natswarchuan.payment.demo.constant.AppConfigConstant;
 import com.natswarchuan.payment.demo.constant.LogConstant;
@@ -9,11 +10,14 @@ import com.natswarchuan.payment.demo.constant.VnpayConstant;
 import com.natswarchuan.payment.demo.dto.request.gateway.CreatePaymentRequest;
 import com.natswarchuan.payment.demo.dto.request.gateway.VnpayPaymentRequest;
 import com.natswarchuan.payment.demo.dto.request.gateway.VnpayPayoutRequest;
+import com.natswarchuan.payment.demo.dto.request.gateway.VnpayQueryRequest;
 import com.natswarchuan.payment.demo.dto.response.gateway.CreatePaymentResponse;
 import com.natswarchuan.payment.demo.dto.response.gateway.PayoutResponse;
 import com.natswarchuan.payment.demo.dto.response.gateway.ProcessIpnResponse;
 import com.natswarchuan.payment.demo.dto.response.gateway.VnpayApiResponse;
+import com.natswarchuan.payment.demo.dto.response.gateway.VnpayQueryResponse;
 import com.natswarchuan.payment.demo.entity.Transaction;
+import com.natswarchuan.payment.demo.exception.custom.ServiceUnavailableException;
 import com.natswarchuan.payment.demo.helper.VnpayHelper;
 import com.natswarchuan.payment.demo.interfaces.services.IPaymentGatewayService;
 import com.natswarchuan.payment.demo.util.VnpayUtil;
@@ -26,6 +30,7 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
+import java.util.Optional;
 import java.util.TimeZone;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -35,6 +40,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -54,6 +60,9 @@ public class VnpayService implements IPaymentGatewayService {
   @Value("${vnpay.payout-url}")
   private String vnpayPayoutUrl;
 
+  @Value("${vnpay.api-url}")
+  private String vnpayApiUrl;
+
   @Value("${vnpay.tmn-code}")
   private String tmnCode;
 
@@ -63,6 +72,9 @@ public class VnpayService implements IPaymentGatewayService {
   @Value("${vnpay.version}")
   private String version;
 
+  @Value("${vnpay.payment-expiry-minutes:15}")
+  private int paymentExpiryMinutes;
+
   private final RestTemplate restTemplate;
   private final ObjectMapper objectMapper;
   private final VnpayHelper vnpayServiceHelper;
@@ -72,11 +84,21 @@ public class VnpayService implements IPaymentGatewayService {
     return "VNPAY";
   }
 
-  /** {@inheritDoc} */
+  /**
+   * {@inheritDoc}
+   *
+   * <p>URL thanh toán hết hạn sau {@code vnpay.payment-expiry-minutes} phút ({@code
+   * vnp_ExpireDate}), để sau thời hạn hủy giao dịch nạp tiền chờ của {@link TransactionSweeper}
+   * người dùng không thể thanh toán thêm.
+   */
   @Override
   public CreatePaymentResponse createPayment(CreatePaymentRequest request) {
     Calendar cld = Calendar.getInstance(TimeZone.getTimeZone(AppConfigConstant.TIMEZONE_GMT7));
     SimpleDateFormat formatter = new SimpleDateFormat(AppConfigConstant.DATE_FORMAT_YYYYMMDDHHMMSS);
+    formatter.setTimeZone(cld.getTimeZone());
+    String createDate = formatter.format(cld.getTime());
+    cld.add(Calendar.MINUTE, paymentExpiryMinutes);
+    String expireDate = formatter.format(cld.getTime());
 
     VnpayPaymentRequest vnpayRequest =
         VnpayPaymentRequest.builder()
@@ -91,7 +113,8 @@ public class VnpayService implements IPaymentGatewayService {
             .vnp_Locale(VnpayConstant.LOCALE_VN)
             .vnp_ReturnUrl(request.getReturnUrl())
             .vnp_IpAddr(request.getIpAddr())
-            .vnp_CreateDate(formatter.format(cld.getTime()))
+            .vnp_CreateDate(createDate)
+            .vnp_ExpireDate(expireDate)
             .build();
 
     String hashData = VnpayUtil.hashAllFields(vnpayRequest, hashSecret);
@@ -193,4 +216,84 @@ public class VnpayService implements IPaymentGatewayService {
     log.info("Đang xử lý IPN chung từ VNPAY...");
     return vnpayServiceHelper.processGenericIpn(request);
   }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Gọi API {@code querydr} của VNPAY. Chỉ các trạng thái cuối cùng được trả về: {@code 00} là
+   * thành công, các trạng thái khác ngoài {@code 01} (đang xử lý) là thất bại.
+   */
+  @Override
+  public Optional<ProcessIpnResponse> queryTransaction(Transaction transaction) {
+    SimpleDateFormat formatter = new SimpleDateFormat(AppConfigConstant.DATE_FORMAT_YYYYMMDDHHMMSS);
+    formatter.setTimeZone(TimeZone.getTimeZone(AppConfigConstant.TIMEZONE_GMT7));
+
+    VnpayQueryRequest queryRequest =
+        VnpayQueryRequest.builder()
+            .vnp_RequestId(transaction.getId().toString() + "_" + System.currentTimeMillis())
+            .vnp_Version(version)
+            .vnp_Command(VnpayConstant.COMMAND_QUERY_DR)
+            .vnp_TmnCode(tmnCode)
+            .vnp_TxnRef(transaction.getId().toString())
+            .vnp_OrderInfo(transaction.getId().toString())
+            .vnp_TransactionNo(transaction.getProviderTransactionId())
+            .vnp_TransactionDate(formatter.format(Date.from(transaction.getCreatedAt())))
+            .vnp_CreateDate(formatter.format(new Date()))
+            .vnp_IpAddr(transaction.getIpAddress())
+            .build();
+    queryRequest.setVnp_SecureHash(
+        VnpayUtil.hmacSHA512(hashSecret, queryRequest.toHashData()));
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+
+    VnpayQueryResponse response;
+    try {
+      HttpEntity<String> entity =
+          new HttpEntity<>(objectMapper.writeValueAsString(queryRequest), headers);
+      response =
+          restTemplate.postForEntity(vnpayApiUrl, entity, VnpayQueryResponse.class).getBody();
+    } catch (JsonProcessingException | RestClientException e) {
+      log.error(LogConstant.VNPAY_QUERY_ERROR, transaction.getId(), e);
+      throw new ServiceUnavailableException(MessageConstant.Vnpay.QUERY_FAILED, e.getMessage());
+    }
+    if (response == null) {
+      throw new ServiceUnavailableException(
+          MessageConstant.Vnpay.QUERY_FAILED, MessageConstant.Vnpay.UNKNOWN_ERROR);
+    }
+    log.info(
+        LogConstant.VNPAY_QUERY_RESPONSE_RECEIVE,
+        transaction.getId(),
+        response.getResponseCode(),
+        response.getTransactionStatus());
+
+    if (VnpayConstant.API_RESPONSE_TXN_NOT_FOUND_CODE.equals(response.getResponseCode())) {
+      return Optional.empty();
+    }
+    if (!VnpayConstant.API_RESPONSE_SUCCESS_CODE.equals(response.getResponseCode())) {
+      throw new ServiceUnavailableException(
+          MessageConstant.Vnpay.QUERY_FAILED, response.getResponseCode());
+    }
+    if (response.getTransactionStatus() == null
+        || VnpayConstant.TRANSACTION_STATUS_PENDING.equals(response.getTransactionStatus())) {
+      return Optional.empty();
+    }
+    boolean success =
+        VnpayConstant.TRANSACTION_STATUS_SUCCESS.equals(response.getTransactionStatus());
+    return Optional.of(
+        ProcessIpnResponse.builder()
+            .transactionId(transaction.getId())
+            .providerTransactionId(response.getTransactionNo())
+            .amount(
+                response.getAmount() != null
+                    ? new BigDecimal(response.getAmount()).divide(new BigDecimal(100))
+                    : transaction.getAmount())
+            .transactionStatus(
+                success ? TransactionConstant.Status.COMPLETED : TransactionConstant.Status.FAILED)
+            .message(
+                String.format(
+                    MessageConstant.Vnpay.QUERY_TRANSACTION_STATUS,
+                    response.getTransactionStatus()))
+            .build());
+  }
 }
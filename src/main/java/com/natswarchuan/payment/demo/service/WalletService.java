@@ -4,23 +4,24 @@ import com.fasterxml.uuid.Generators;
 import com.natswarchuan.payment.demo.constant.MessageConstant;
 import com.natswarchuan.payment.demo.constant.WalletConstant;
 import com.natswarchuan.payment.demo.dto.response.transaction.TransactionSummaryResponse;
+import com.natswarchuan.payment.demo.dto.response.wallet.WalletBalanceAsOfResponse;
 import com.natswarchuan.payment.demo.dto.response.wallet.WalletDetailResponse;
-import com.natswarchuan.payment.demo.entity.Transaction;
+import com.natswarchuan.payment.demo.dto.response.wallet.WalletLedgerBalanceResponse;
 import com.natswarchuan.payment.demo.entity.User;
 import com.natswarchuan.payment.demo.entity.Wallet;
 import com.natswarchuan.payment.demo.exception.custom.ResourceNotFoundException;
+import com.natswarchuan.payment.demo.helper.BalanceSnapshotHelper;
+import com.natswarchuan.payment.demo.helper.LedgerEntryHelper;
+import com.natswarchuan.payment.demo.helper.WalletBalanceHelper;
 import com.natswarchuan.payment.demo.interfaces.services.IWalletService;
 import com.natswarchuan.payment.demo.repository.TransactionRepository;
 import com.natswarchuan.payment.demo.repository.WalletRepository;
-import com.natswarchuan.payment.demo.util.DtoMapper;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,6 +39,9 @@ public class WalletService extends AbService<Wallet, UUID> implements IWalletSer
   private final TransactionRepository transactionRepository;
   private final PasswordEncoder passwordEncoder;
   private final WalletRepository walletRepository;
+  private final WalletBalanceHelper walletBalanceHelper;
+  private final LedgerEntryHelper ledgerEntryHelper;
+  private final BalanceSnapshotHelper balanceSnapshotHelper;
 
   /**
    * Khởi tạo WalletService với các dependency cần thiết.
@@ -46,15 +50,24 @@ public class WalletService extends AbService<Wallet, UUID> implements IWalletSer
    * @param transactionRepository repository cho Transaction.
    * @param passwordEncoder đối tượng để mã hóa mật khẩu/PIN. Sử dụng {@code @Lazy} để phá vỡ chu
    * trình phụ thuộc (circular dependency) tại thời điểm khởi tạo.
+   * @param walletBalanceHelper helper để đọc và cấu hình số dư của ví (kể cả ví đã chia shard).
+   * @param ledgerEntryHelper helper đọc số dư suy ra từ sổ cái kép.
+   * @param balanceSnapshotHelper helper tra cứu số dư tại một thời điểm trong quá khứ.
    */
   public WalletService(
       final WalletRepository repository,
       final TransactionRepository transactionRepository,
-      @Lazy final PasswordEncoder passwordEncoder) {
+      @Lazy final PasswordEncoder passwordEncoder,
+      final WalletBalanceHelper walletBalanceHelper,
+      final LedgerEntryHelper ledgerEntryHelper,
+      final BalanceSnapshotHelper balanceSnapshotHelper) {
     super(repository);
     this.transactionRepository = transactionRepository;
     this.passwordEncoder = passwordEncoder;
     this.walletRepository = repository;
+    this.walletBalanceHelper = walletBalanceHelper;
+    this.ledgerEntryHelper = ledgerEntryHelper;
+    this.balanceSnapshotHelper = balanceSnapshotHelper;
   }
 
   /** {@inheritDoc} */
@@ -103,15 +116,13 @@ public class WalletService extends AbService<Wallet, UUID> implements IWalletSer
   public WalletDetailResponse findWalletForUser(final Long userId) {
     final Wallet wallet = findWalletEntityByUserId(userId);
 
-    final Pageable recentTransactionsPageable =
-        PageRequest.of(0, 10, Sort.by("createdAt").descending());
-    final Page<Transaction> recentTransactions =
-        transactionRepository.findByWalletId(wallet.getId(), recentTransactionsPageable);
     final List<TransactionSummaryResponse> transactionDtos =
-        DtoMapper.toDtoList(recentTransactions.getContent(), TransactionSummaryResponse::new);
+        transactionRepository.findRecentSummariesByWalletId(
+            wallet.getId(), Limit.of(WalletConstant.RECENT_TRANSACTIONS_LIMIT));
 
     final WalletDetailResponse response = new WalletDetailResponse();
     response.fromEntity(wallet);
+    response.setBalance(walletBalanceHelper.getTotalBalance(wallet));
     response.setTransactions(transactionDtos);
     return response;
   }
@@ -124,6 +135,52 @@ public class WalletService extends AbService<Wallet, UUID> implements IWalletSer
     walletRepository.save(wallet);
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public void configureBalanceShards(final String number, final int shardCount) {
+    final Wallet wallet =
+        walletRepository
+            .findAndLockByNumber(number)
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(
+                        MessageConstant.Wallet.NOT_FOUND_BY_NUMBER, number));
+    walletBalanceHelper.configureShards(wallet, shardCount);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  @Transactional(readOnly = true)
+  public WalletLedgerBalanceResponse getLedgerBalance(final String number) {
+    final Wallet wallet =
+        walletRepository
+            .findByNumber(number)
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(
+                        MessageConstant.Wallet.NOT_FOUND_BY_NUMBER, number));
+    final BigDecimal balance = walletBalanceHelper.getTotalBalance(wallet);
+    final BigDecimal ledgerBalance = ledgerEntryHelper.getLedgerBalance(wallet.getId());
+    return new WalletLedgerBalanceResponse(
+        number, balance, ledgerBalance, balance.compareTo(ledgerBalance) == 0);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  @Transactional(readOnly = true)
+  public WalletBalanceAsOfResponse getBalanceAsOf(final String number, final Instant at) {
+    final Wallet wallet =
+        walletRepository
+            .findByNumber(number)
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(
+                        MessageConstant.Wallet.NOT_FOUND_BY_NUMBER, number));
+    final BalanceSnapshotHelper.BalanceAsOf result =
+        balanceSnapshotHelper.getBalanceAsOf(wallet.getId(), at);
+    return new WalletBalanceAsOfResponse(number, at, result.balance(), result.snapshotAt());
+  }
+
   /** {@inheritDoc} */
   @Override
   public Wallet findWalletEntityByUserId(final Long userId) {
@@ -0,0 +1,253 @@
+package com.natswarchuan.payment.demo.service.aggregate;
+
+import com.natswarchuan.payment.demo.config.datasource.ReplicaRoutingContext;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.constant.WalletConstant;
+import com.natswarchuan.payment.demo.dto.request.wallet.WalletAggregateRequest;
+import com.natswarchuan.payment.demo.dto.response.wallet.WalletAggregateBackfillResponse;
+import com.natswarchuan.payment.demo.dto.response.wallet.WalletAggregateBucketResponse;
+import com.natswarchuan.payment.demo.dto.response.wallet.WalletAggregateResponse;
+import com.natswarchuan.payment.demo.entity.Wallet;
+import com.natswarchuan.payment.demo.exception.custom.BadRequestException;
+import com.natswarchuan.payment.demo.exception.custom.ConflictException;
+import com.natswarchuan.payment.demo.exception.custom.ResourceNotFoundException;
+import com.natswarchuan.payment.demo.helper.WalletAggregateHelper;
+import com.natswarchuan.payment.demo.interfaces.services.IWalletAggregateService;
+import com.natswarchuan.payment.demo.repository.WalletDailyAggregateRepository;
+import com.natswarchuan.payment.demo.repository.WalletRepository;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Dịch vụ đọc và dựng lại bảng tổng hợp giao dịch theo ngày ({@code wallet_daily_aggregates}).
+ *
+ * <p>Truy vấn đọc chỉ quét các dòng tổng hợp của ví trong khoảng ngày (tối đa một dòng cho mỗi
+ * ngày và loại giao dịch); tổng theo tháng được gộp từ các dòng theo ngày trong bộ nhớ.
+ *
+ * <p>Việc dựng lại chia mọi ví thành các partition theo khoảng ID (phân trang theo khóa chính) và
+ * xử lý song song trên một pool có kích thước cố định; mỗi partition là một câu lệnh {@code INSERT
+ * ... SELECT ... GROUP BY} trong giao dịch riêng, ghi đè giá trị hiện có, nên có thể chạy lại bất
+ * cứ lúc nào để sửa sai lệch.
+ */
+@Service
+@Slf4j
+public class WalletAggregateService implements IWalletAggregateService {
+
+  private static final UUID MIN_ID = new UUID(0L, 0L);
+
+  private final WalletRepository walletRepository;
+  private final WalletDailyAggregateRepository aggregateRepository;
+  private final WalletAggregateHelper walletAggregateHelper;
+  private final TransactionTemplate readOnlyTemplate;
+  private final TransactionTemplate writeTemplate;
+  private final int partitionSize;
+  private final int parallelism;
+  private final AtomicBoolean backfilling = new AtomicBoolean();
+
+  /**
+   * Khởi tạo WalletAggregateService.
+   *
+   * @param walletRepository Kho lưu trữ cho ví.
+   * @param aggregateRepository Kho lưu trữ cho bảng tổng hợp.
+   * @param walletAggregateHelper Helper cung cấp độ lệch múi giờ của ngày nghiệp vụ.
+   * @param transactionManager Trình quản lý giao dịch.
+   * @param partitionSize Số ví trong một partition khi dựng lại.
+   * @param parallelism Số partition được dựng lại song song (mỗi partition giữ một kết nối).
+   */
+  public WalletAggregateService(
+      final WalletRepository walletRepository,
+      final WalletDailyAggregateRepository aggregateRepository,
+      final WalletAggregateHelper walletAggregateHelper,
+      final PlatformTransactionManager transactionManager,
+      @Value("${app.aggregates.backfill.partition-size:500}") final int partitionSize,
+      @Value("${app.aggregates.backfill.parallelism:4}") final int parallelism) {
+    this.walletRepository = walletRepository;
+    this.aggregateRepository = aggregateRepository;
+    this.walletAggregateHelper = walletAggregateHelper;
+    this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+    this.readOnlyTemplate.setReadOnly(true);
+    this.writeTemplate = new TransactionTemplate(transactionManager);
+    this.partitionSize = partitionSize;
+    this.parallelism = parallelism;
+  }
+
+  @Override
+  public WalletAggregateResponse getAggregatesForUser(
+      final Long userId, final WalletAggregateRequest request) {
+    final Wallet wallet =
+        walletRepository
+            .findByUserId(userId)
+            .orElseThrow(
+                () -> new ResourceNotFoundException(MessageConstant.Wallet.USER_WALLET_NOT_FOUND));
+    return aggregate(wallet, request);
+  }
+
+  @Override
+  public WalletAggregateResponse getAggregates(
+      final String number, final WalletAggregateRequest request) {
+    final Wallet wallet =
+        walletRepository
+            .findByNumber(number)
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(
+                        MessageConstant.Wallet.NOT_FOUND_BY_NUMBER, number));
+    return aggregate(wallet, request);
+  }
+
+  @Override
+  public WalletAggregateBackfillResponse backfill() {
+    if (!backfilling.compareAndSet(false, true)) {
+      throw new ConflictException(MessageConstant.Wallet.AGGREGATE_BACKFILL_IN_PROGRESS);
+    }
+    try {
+      return runBackfill();
+    } finally {
+      backfilling.set(false);
+    }
+  }
+
+  private WalletAggregateResponse aggregate(
+      final Wallet wallet, final WalletAggregateRequest request) {
+    final String granularity = request.getGranularity().toUpperCase(Locale.ROOT);
+    final boolean monthly = WalletConstant.Aggregate.GRANULARITY_MONTHLY.equals(granularity);
+    if (!monthly && !WalletConstant.Aggregate.GRANULARITY_DAILY.equals(granularity)) {
+      throw new BadRequestException(
+          MessageConstant.Wallet.AGGREGATE_GRANULARITY_UNSUPPORTED, request.getGranularity());
+    }
+    final LocalDate from = request.getFrom();
+    final LocalDate to = request.getTo();
+    if (to.isBefore(from)
+        || ChronoUnit.DAYS.between(from, to) >= WalletConstant.Aggregate.MAX_RANGE_DAYS) {
+      throw new BadRequestException(
+          MessageConstant.Wallet.AGGREGATE_INVALID_RANGE,
+          from,
+          to,
+          WalletConstant.Aggregate.MAX_RANGE_DAYS);
+    }
+    final List<WalletAggregateBucketResponse> daily =
+        readOnlyTemplate.execute(
+            status -> aggregateRepository.findDailyBuckets(wallet.getId(), from, to));
+    return new WalletAggregateResponse(
+        wallet.getNumber(), granularity, from, to, monthly ? rollUpByMonth(daily) : daily);
+  }
+
+  /** Gộp các dòng theo ngày thành dòng theo tháng và loại giao dịch. */
+  private static List<WalletAggregateBucketResponse> rollUpByMonth(
+      final List<WalletAggregateBucketResponse> daily) {
+    final Map<LocalDate, Map<Integer, WalletAggregateBucketResponse>> months = new TreeMap<>();
+    for (final WalletAggregateBucketResponse day : daily) {
+      final LocalDate monthStart = day.getPeriodStart().withDayOfMonth(1);
+      months
+          .computeIfAbsent(monthStart, month -> new TreeMap<>())
+          .merge(
+              day.getType(),
+              new WalletAggregateBucketResponse(
+                  monthStart, day.getType(), day.getCount(), day.getAmount()),
+              (total, next) -> {
+                total.setCount(total.getCount() + next.getCount());
+                total.setAmount(total.getAmount().add(next.getAmount()));
+                return total;
+              });
+    }
+    final List<WalletAggregateBucketResponse> result = new ArrayList<>();
+    months.values().forEach(types -> result.addAll(types.values()));
+    return result;
+  }
+
+  private WalletAggregateBackfillResponse runBackfill() {
+    final int offsetSeconds = walletAggregateHelper.offset().getTotalSeconds();
+    log.info(LogConstant.AGGREGATE_BACKFILL_STARTED, walletAggregateHelper.offset(), partitionSize);
+    final long start = System.nanoTime();
+    final LongAdder partitions = new LongAdder();
+    final LongAdder failedPartitions = new LongAdder();
+    final LongAdder wallets = new LongAdder();
+    final LongAdder rows = new LongAdder();
+
+    final ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+    final Semaphore slots = new Semaphore(parallelism * 2);
+    try {
+      UUID afterId = MIN_ID;
+      List<UUID> ids;
+      do {
+        ids = walletRepository.findIdsAfter(afterId, Limit.of(partitionSize));
+        if (ids.isEmpty()) {
+          break;
+        }
+        final UUID first = ids.get(0);
+        final UUID last = ids.get(ids.size() - 1);
+        final int walletCount = ids.size();
+        afterId = last;
+        slots.acquireUninterruptibly();
+        pool.execute(
+            ReplicaRoutingContext.isolated(
+                () -> {
+                  try {
+                    final Integer written =
+                        writeTemplate.execute(
+                            status ->
+                                aggregateRepository.rebuildRange(
+                                    first,
+                                    last,
+                                    TransactionConstant.Status.COMPLETED,
+                                    offsetSeconds,
+                                    Instant.now()));
+                    rows.add(written != null ? written : 0);
+                    wallets.add(walletCount);
+                  } catch (RuntimeException e) {
+                    failedPartitions.increment();
+                    log.error(LogConstant.AGGREGATE_BACKFILL_PARTITION_FAILED, first, last, e);
+                  } finally {
+                    partitions.increment();
+                    slots.release();
+                  }
+                }));
+      } while (ids.size() == partitionSize);
+    } finally {
+      pool.shutdown();
+      awaitTermination(pool);
+    }
+
+    final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    log.info(
+        LogConstant.AGGREGATE_BACKFILL_FINISHED,
+        wallets.sum(),
+        rows.sum(),
+        elapsedMs,
+        failedPartitions.sum());
+    return new WalletAggregateBackfillResponse(
+        partitions.sum(), failedPartitions.sum(), wallets.sum(), rows.sum(), elapsedMs);
+  }
+
+  private static void awaitTermination(final ExecutorService pool) {
+    try {
+      while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+        // Chờ các partition đang chạy hoàn tất.
+      }
+    } catch (InterruptedException e) {
+      pool.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.natswarchuan.payment.demo.service.archive;
+
+import com.natswarchuan.payment.demo.constant.ArchiveConstant;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/** Mã hóa và giải mã giá trị của từng cột trong file segment. */
+final class ArchiveCodec {
+
+  private ArchiveCodec() {}
+
+  static long micros(final Instant instant) {
+    return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+  }
+
+  static Instant instant(final long micros) {
+    return Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+  }
+
+  static long units(final BigDecimal amount) {
+    return units(amount, RoundingMode.UNNECESSARY);
+  }
+
+  static long units(final BigDecimal amount, final RoundingMode rounding) {
+    return amount
+        .setScale(ArchiveConstant.AMOUNT_SCALE, rounding)
+        .unscaledValue()
+        .longValueExact();
+  }
+
+  static BigDecimal amount(final long units) {
+    return BigDecimal.valueOf(units, ArchiveConstant.AMOUNT_SCALE);
+  }
+
+  /**
+   * So sánh hai UUID theo thứ tự byte của cột {@code BINARY(16)} (không dấu), khác với {@link
+   * UUID#compareTo}.
+   */
+  static int compare(final UUID left, final UUID right) {
+    final int high =
+        Long.compareUnsigned(left.getMostSignificantBits(), right.getMostSignificantBits());
+    return high != 0
+        ? high
+        : Long.compareUnsigned(left.getLeastSignificantBits(), right.getLeastSignificantBits());
+  }
+
+  static void writeUuid(final DataOutput out, final UUID value) throws IOException {
+    out.writeLong(value.getMostSignificantBits());
+    out.writeLong(value.getLeastSignificantBits());
+  }
+
+  static UUID readUuid(final DataInput in) throws IOException {
+    return new UUID(in.readLong(), in.readLong());
+  }
+
+  static void writeNullableUuid(final DataOutput out, final UUID value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      writeUuid(out, value);
+    }
+  }
+
+  static void writeNullableInstant(final DataOutput out, final Instant value) throws IOException {
+    out.writeLong(value != null ? micros(value) : ArchiveConstant.NULL_LONG);
+  }
+
+  static void writeNullableAmount(final DataOutput out, final BigDecimal value)
+      throws IOException {
+    out.writeLong(value != null ? units(value) : ArchiveConstant.NULL_LONG);
+  }
+
+  static void writeString(final DataOutput out, final String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  static String readString(final DataInput in) throws IOException {
+    final int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  static void skipString(final DataInputStream in) throws IOException {
+    final int length = in.readInt();
+    if (length > 0) {
+      in.skipNBytes(length);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.natswarchuan.payment.demo.service.archive;
+
+import com.natswarchuan.payment.demo.dto.request.transaction.TransactionSearchRequest;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Điều kiện tìm kiếm trên kho lưu trữ, đã quy đổi sang cùng đơn vị với dữ liệu trong file (micro
+ * giây, số tiền nhân {@code 10^4}).
+ */
+record ArchiveQuery(
+    UUID walletId,
+    Integer type,
+    Integer status,
+    long fromMicros,
+    long toMicros,
+    long minAmount,
+    long maxAmount) {
+
+  static ArchiveQuery of(final UUID walletId, final TransactionSearchRequest request) {
+    return new ArchiveQuery(
+        walletId,
+        request.getType(),
+        request.getStatus(),
+        request.getFromDate() != null ? ArchiveCodec.micros(request.getFromDate()) : Long.MIN_VALUE,
+        request.getToDate() != null ? ArchiveCodec.micros(request.getToDate()) : Long.MAX_VALUE,
+        request.getMinAmount() != null
+            ? ArchiveCodec.units(request.getMinAmount(), RoundingMode.CEILING)
+            : Long.MIN_VALUE,
+        request.getMaxAmount() != null
+            ? ArchiveCodec.units(request.getMaxAmount(), RoundingMode.FLOOR)
+            : Long.MAX_VALUE);
+  }
+
+  /**
+   * Thu hẹp cận trên của thời điểm tạo về vị trí của một cursor (bao gồm cả mốc đó; hàng trùng thời
+   * điểm được lọc tiếp theo ID).
+   *
+   * @param createdAt Thời điểm tạo của hàng cuối trang trước.
+   * @return điều kiện đã thu hẹp.
+   */
+  ArchiveQuery before(final Instant createdAt) {
+    return new ArchiveQuery(
+        walletId,
+        type,
+        status,
+        fromMicros,
+        Math.min(toMicros, ArchiveCodec.micros(createdAt)),
+        minAmount,
+        maxAmount);
+  }
+}
@@ -0,0 +1,186 @@
+package com.natswarchuan.payment.demo.service.archive;
+
+import com.natswarchuan.payment.demo.constant.ArchiveConstant;
+import com.natswarchuan.payment.demo.dto.response.transaction.TransactionSummaryResponse;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Phần đầu của một file segment lưu trữ: số hàng, chỉ mục min/max và vị trí của từng cột.
+ *
+ * <p>Chỉ mục min/max (ví, thời điểm tạo, số tiền) được giữ trong bộ nhớ để loại các segment không
+ * liên quan mà không mở file. Khi đọc, chỉ các cột cần cho kết quả tìm kiếm được giải nén; các cột
+ * như {@code provider_response} không bao giờ được đọc.
+ *
+ * @param path Đường dẫn file.
+ * @param rows Số hàng.
+ * @param minWalletId ID ví nhỏ nhất (theo thứ tự byte).
+ * @param maxWalletId ID ví lớn nhất.
+ * @param minCreatedAt Thời điểm tạo nhỏ nhất (micro giây).
+ * @param maxCreatedAt Thời điểm tạo lớn nhất (micro giây).
+ * @param minAmount Số tiền nhỏ nhất (đã quy đổi).
+ * @param maxAmount Số tiền lớn nhất (đã quy đổi).
+ * @param columnOffsets Vị trí bắt đầu của từng cột trong file.
+ */
+record ArchiveSegment(
+    Path path,
+    int rows,
+    UUID minWalletId,
+    UUID maxWalletId,
+    long minCreatedAt,
+    long maxCreatedAt,
+    long minAmount,
+    long maxAmount,
+    long[] columnOffsets) {
+
+  /**
+   * Đọc phần đầu của một file segment.
+   *
+   * @param path Đường dẫn file.
+   * @return phần đầu đã đọc.
+   * @throws IOException nếu file không đọc được hoặc không phải file segment.
+   */
+  static ArchiveSegment open(final Path path) throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readInt() != ArchiveConstant.MAGIC || in.readShort() != ArchiveConstant.VERSION) {
+        throw new IOException(path + " is not an archive segment");
+      }
+      final int rows = in.readInt();
+      final UUID minWalletId = ArchiveCodec.readUuid(in);
+      final UUID maxWalletId = ArchiveCodec.readUuid(in);
+      final long minCreatedAt = in.readLong();
+      final long maxCreatedAt = in.readLong();
+      final long minAmount = in.readLong();
+      final long maxAmount = in.readLong();
+      final int columnCount = in.readShort();
+      final long[] offsets = new long[columnCount];
+      long offset = Integer.BYTES + Short.BYTES + Integer.BYTES;
+      offset += 4L * Long.BYTES + 4L * Long.BYTES + Short.BYTES + (long) columnCount * Long.BYTES;
+      for (int column = 0; column < columnCount; column++) {
+        offsets[column] = offset;
+        offset += in.readLong();
+      }
+      return new ArchiveSegment(
+          path,
+          rows,
+          minWalletId,
+          maxWalletId,
+          minCreatedAt,
+          maxCreatedAt,
+          minAmount,
+          maxAmount,
+          offsets);
+    }
+  }
+
+  /**
+   * Kiểm tra theo chỉ mục min/max segment có thể chứa hàng thỏa mãn điều kiện hay không.
+   *
+   * @param query Điều kiện tìm kiếm.
+   * @return {@code false} nếu chắc chắn không có hàng nào thỏa mãn.
+   */
+  boolean mayMatch(final ArchiveQuery query) {
+    return ArchiveCodec.compare(minWalletId, query.walletId()) <= 0
+        && ArchiveCodec.compare(query.walletId(), maxWalletId) <= 0
+        && minCreatedAt <= query.toMicros()
+        && query.fromMicros() <= maxCreatedAt
+        && minAmount <= query.maxAmount()
+        && query.minAmount() <= maxAmount;
+  }
+
+  /**
+   * Đọc các hàng của ví thỏa mãn điều kiện, theo thứ tự trong file ({@code created_at} giảm dần).
+   *
+   * @param query Điều kiện tìm kiếm.
+   * @param sink Nơi nhận từng hàng thỏa mãn.
+   * @throws IOException nếu đọc file thất bại.
+   */
+  void scan(final ArchiveQuery query, final Consumer<TransactionSummaryResponse> sink)
+      throws IOException {
+    long start = 0;
+    int length = 0;
+    try (DataInputStream runs = column(ArchiveConstant.Column.WALLET_ID)) {
+      while (start < rows) {
+        final UUID walletId = ArchiveCodec.readUuid(runs);
+        final int run = runs.readInt();
+        final int order = ArchiveCodec.compare(walletId, query.walletId());
+        if (order == 0) {
+          length = run;
+          break;
+        }
+        if (order > 0) {
+          return;
+        }
+        start += run;
+      }
+    }
+    if (length == 0) {
+      return;
+    }
+
+    try (DataInputStream ids = column(ArchiveConstant.Column.ID);
+        DataInputStream createdAts = column(ArchiveConstant.Column.CREATED_AT);
+        DataInputStream types = column(ArchiveConstant.Column.TYPE);
+        DataInputStream statuses = column(ArchiveConstant.Column.STATUS);
+        DataInputStream amounts = column(ArchiveConstant.Column.AMOUNT);
+        DataInputStream descriptions = column(ArchiveConstant.Column.DESCRIPTION)) {
+      ids.skipNBytes(start * 2 * Long.BYTES);
+      createdAts.skipNBytes(start * Long.BYTES);
+      types.skipNBytes(start);
+      statuses.skipNBytes(start);
+      amounts.skipNBytes(start * Long.BYTES);
+      for (long row = 0; row < start; row++) {
+        ArchiveCodec.skipString(descriptions);
+      }
+
+      for (int row = 0; row < length; row++) {
+        final UUID id = ArchiveCodec.readUuid(ids);
+        final long createdAt = createdAts.readLong();
+        final int type = types.readByte();
+        final int status = statuses.readByte();
+        final long amount = amounts.readLong();
+        if (createdAt < query.fromMicros()
+            || createdAt > query.toMicros()
+            || amount < query.minAmount()
+            || amount > query.maxAmount()
+            || (query.type() != null && query.type() != type)
+            || (query.status() != null && query.status() != status)) {
+          ArchiveCodec.skipString(descriptions);
+          continue;
+        }
+        sink.accept(
+            new TransactionSummaryResponse(
+                id,
+                ArchiveCodec.amount(amount),
+                type,
+                status,
+                ArchiveCodec.instant(createdAt),
+                ArchiveCodec.readString(descriptions)));
+      }
+    }
+  }
+
+  private DataInputStream column(final int column) throws IOException {
+    final FileChannel channel = FileChannel.open(path);
+    try {
+      channel.position(columnOffsets[column]);
+      return new DataInputStream(
+          new BufferedInputStream(
+              new InflaterInputStream(
+                  new BufferedInputStream(
+                      Channels.newInputStream(channel), ArchiveConstant.FILE_BUFFER_BYTES))));
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+}
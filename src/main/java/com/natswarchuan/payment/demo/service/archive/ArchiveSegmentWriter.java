@@ -0,0 +1,226 @@
+package com.natswarchuan.payment.demo.service.archive;
+
+import com.natswarchuan.payment.demo.constant.ArchiveConstant;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Ghi một file segment lưu trữ dạng cột.
+ *
+ * <p>Mỗi cột được nén deflate vào một file tạm riêng trong lúc duyệt các hàng, nên bộ nhớ không phụ
+ * thuộc vào số hàng. {@link #finish()} ghép phần đầu (số hàng, min/max của ví, thời điểm tạo và số
+ * tiền, độ dài từng cột) với các cột thành file {@code .tmp} đã được đồng bộ xuống đĩa; {@link
+ * #publish()} đổi tên nguyên khối thành file chính thức. Các hàng phải được ghi theo thứ tự {@code
+ * wallet_id} tăng dần.
+ */
+class ArchiveSegmentWriter implements Closeable {
+
+  private final Path target;
+  private final Path tmp;
+  private final Path[] columnFiles = new Path[ArchiveConstant.Column.COUNT];
+  private final DataOutputStream[] columns = new DataOutputStream[ArchiveConstant.Column.COUNT];
+  private int rows;
+  private UUID minWalletId;
+  private UUID currentWalletId;
+  private int currentRun;
+  private long minCreatedAt = Long.MAX_VALUE;
+  private long maxCreatedAt = Long.MIN_VALUE;
+  private long minAmount = Long.MAX_VALUE;
+  private long maxAmount = Long.MIN_VALUE;
+  private boolean finished;
+
+  /**
+   * Mở các file tạm của một segment.
+   *
+   * @param target Đường dẫn file segment chính thức.
+   * @throws IOException nếu không thể tạo file.
+   */
+  ArchiveSegmentWriter(final Path target) throws IOException {
+    this.target = target;
+    this.tmp = target.resolveSibling(target.getFileName() + ArchiveConstant.TEMP_SUFFIX);
+    Files.createDirectories(target.getParent());
+    try {
+      for (int column = 0; column < ArchiveConstant.Column.COUNT; column++) {
+        columnFiles[column] =
+            target.resolveSibling(
+                target.getFileName() + "." + column + ArchiveConstant.COLUMN_SUFFIX);
+        columns[column] =
+            new DataOutputStream(
+                new DeflaterOutputStream(
+                    new BufferedOutputStream(
+                        Files.newOutputStream(columnFiles[column]),
+                        ArchiveConstant.FILE_BUFFER_BYTES)));
+      }
+    } catch (IOException e) {
+      abort();
+      throw e;
+    }
+  }
+
+  /**
+   * Ghi một hàng.
+   *
+   * @param row Hàng giao dịch.
+   * @throws IOException nếu ghi thất bại.
+   */
+  void append(final ArchivedTransaction row) throws IOException {
+    if (!row.walletId().equals(currentWalletId)) {
+      flushRun();
+      currentWalletId = row.walletId();
+      if (minWalletId == null) {
+        minWalletId = currentWalletId;
+      }
+    }
+    currentRun++;
+
+    final long createdAt = ArchiveCodec.micros(row.createdAt());
+    final long amount = ArchiveCodec.units(row.amount());
+    minCreatedAt = Math.min(minCreatedAt, createdAt);
+    maxCreatedAt = Math.max(maxCreatedAt, createdAt);
+    minAmount = Math.min(minAmount, amount);
+    maxAmount = Math.max(maxAmount, amount);
+
+    ArchiveCodec.writeUuid(columns[ArchiveConstant.Column.ID], row.id());
+    columns[ArchiveConstant.Column.CREATED_AT].writeLong(createdAt);
+    ArchiveCodec.writeNullableInstant(columns[ArchiveConstant.Column.UPDATED_AT], row.updatedAt());
+    ArchiveCodec.writeNullableInstant(columns[ArchiveConstant.Column.DELETED_AT], row.deletedAt());
+    columns[ArchiveConstant.Column.TYPE].writeByte(row.type());
+    columns[ArchiveConstant.Column.STATUS].writeByte(row.status());
+    columns[ArchiveConstant.Column.AMOUNT].writeLong(amount);
+    ArchiveCodec.writeNullableAmount(
+        columns[ArchiveConstant.Column.TRANSACTION_FEE], row.transactionFee());
+    ArchiveCodec.writeNullableAmount(columns[ArchiveConstant.Column.NET_AMOUNT], row.netAmount());
+    ArchiveCodec.writeNullableAmount(
+        columns[ArchiveConstant.Column.BALANCE_BEFORE], row.balanceBefore());
+    ArchiveCodec.writeNullableAmount(
+        columns[ArchiveConstant.Column.BALANCE_AFTER], row.balanceAfter());
+    ArchiveCodec.writeString(columns[ArchiveConstant.Column.DESCRIPTION], row.description());
+    ArchiveCodec.writeString(
+        columns[ArchiveConstant.Column.PROVIDER_TRANSACTION_ID], row.providerTransactionId());
+    ArchiveCodec.writeString(
+        columns[ArchiveConstant.Column.PROVIDER_RESPONSE], row.providerResponse());
+    ArchiveCodec.writeNullableUuid(
+        columns[ArchiveConstant.Column.PAYMENT_METHOD_ID], row.paymentMethodId());
+    ArchiveCodec.writeNullableUuid(
+        columns[ArchiveConstant.Column.RELATED_TRANSACTION_ID], row.relatedTransactionId());
+    ArchiveCodec.writeString(columns[ArchiveConstant.Column.IP_ADDRESS], row.ipAddress());
+    rows++;
+  }
+
+  /** Số hàng đã ghi. */
+  int rows() {
+    return rows;
+  }
+
+  /**
+   * Ghép phần đầu và các cột thành file tạm đã được đồng bộ xuống đĩa.
+   *
+   * @throws IOException nếu ghi thất bại.
+   */
+  void finish() throws IOException {
+    flushRun();
+    for (final DataOutputStream column : columns) {
+      column.close();
+    }
+    try (FileChannel channel =
+            FileChannel.open(
+                tmp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        DataOutputStream out =
+            new DataOutputStream(
+                new BufferedOutputStream(
+                    Channels.newOutputStream(channel),
+                    ArchiveConstant.FILE_BUFFER_BYTES))) {
+      out.writeInt(ArchiveConstant.MAGIC);
+      out.writeShort(ArchiveConstant.VERSION);
+      out.writeInt(rows);
+      ArchiveCodec.writeUuid(out, minWalletId);
+      ArchiveCodec.writeUuid(out, currentWalletId);
+      out.writeLong(minCreatedAt);
+      out.writeLong(maxCreatedAt);
+      out.writeLong(minAmount);
+      out.writeLong(maxAmount);
+      out.writeShort(ArchiveConstant.Column.COUNT);
+      for (final Path columnFile : columnFiles) {
+        out.writeLong(Files.size(columnFile));
+      }
+      for (final Path columnFile : columnFiles) {
+        Files.copy(columnFile, out);
+      }
+      out.flush();
+      channel.force(true);
+    }
+    deleteColumnFiles();
+    finished = true;
+  }
+
+  /**
+   * Đổi tên nguyên khối file tạm đã hoàn tất thành file segment chính thức.
+   *
+   * @return đường dẫn file segment.
+   * @throws IOException nếu đổi tên thất bại.
+   */
+  Path publish() throws IOException {
+    return Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /** Hủy các file tạm khi việc ghi thất bại. */
+  void abort() {
+    for (final OutputStream column : columns) {
+      if (column != null) {
+        try {
+          column.close();
+        } catch (IOException ignored) {
+          // File cột bị xóa ngay sau đó.
+        }
+      }
+    }
+    deleteColumnFiles();
+    try {
+      Files.deleteIfExists(tmp);
+    } catch (IOException ignored) {
+      // File tạm còn sót được dọn khi khởi động.
+    }
+  }
+
+  @Override
+  public void close() {
+    if (!finished) {
+      abort();
+    }
+  }
+
+  private void flushRun() throws IOException {
+    if (currentWalletId != null && currentRun > 0) {
+      final DataOutputStream walletColumn = columns[ArchiveConstant.Column.WALLET_ID];
+      ArchiveCodec.writeUuid(walletColumn, currentWalletId);
+      walletColumn.writeInt(currentRun);
+      currentRun = 0;
+    }
+  }
+
+  private void deleteColumnFiles() {
+    for (final Path columnFile : columnFiles) {
+      if (columnFile != null) {
+        try {
+          Files.deleteIfExists(columnFile);
+        } catch (IOException ignored) {
+          // File cột còn sót được dọn khi khởi động.
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.natswarchuan.payment.demo.service.archive;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/** Một hàng đầy đủ của bảng {@code transactions} được chuyển sang kho lưu trữ. */
+record ArchivedTransaction(
+    UUID id,
+    UUID walletId,
+    Instant createdAt,
+    Instant updatedAt,
+    Instant deletedAt,
+    int type,
+    int status,
+    BigDecimal amount,
+    BigDecimal transactionFee,
+    BigDecimal netAmount,
+    BigDecimal balanceBefore,
+    BigDecimal balanceAfter,
+    String description,
+    String providerTransactionId,
+    String providerResponse,
+    UUID paymentMethodId,
+    UUID relatedTransactionId,
+    String ipAddress) {}
@@ -0,0 +1,650 @@
+package com.natswarchuan.payment.demo.service.archive;
+
+import com.natswarchuan.payment.demo.config.datasource.ReplicaRoutingContext;
+import com.natswarchuan.payment.demo.constant.ArchiveConstant;
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.dto.request.transaction.TransactionSearchRequest;
+import com.natswarchuan.payment.demo.dto.response.transaction.TransactionSummaryResponse;
+import com.natswarchuan.payment.demo.entity.Transaction;
+import com.natswarchuan.payment.demo.exception.custom.BadRequestException;
+import com.natswarchuan.payment.demo.interfaces.services.ITransactionArchiveService;
+import com.natswarchuan.payment.demo.repository.TransactionRepository;
+import com.natswarchuan.payment.demo.util.CursorUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Dịch vụ lưu trữ lạnh các giao dịch cũ ra file segment dạng cột trên đĩa.
+ *
+ * <p>Giao dịch ở trạng thái cuối và cũ hơn {@code min-age-months} tháng (tính theo tháng UTC) được
+ * ghi thành các file {@code yyyyMM/<ví đầu>-<ví cuối>-<thời điểm>.seg}, mỗi file một khoảng ví của
+ * một tháng (xem {@link ArchiveSegmentWriter}), rồi bị xóa khỏi MySQL. Thứ tự các bước bảo đảm dữ
+ * liệu không bị mất: file tạm được ghi và đồng bộ xuống đĩa, các hàng được xóa trong một giao dịch,
+ * file được đổi tên thành chính thức rồi giao dịch mới commit; nếu commit thất bại file bị xóa lại.
+ * Hàng bị cập nhật sau khi được đọc không bị xóa và tiếp tục nằm trong MySQL.
+ *
+ * <p>Khi tìm kiếm, chỉ mục min/max của các segment (giữ trong bộ nhớ) loại các file không liên
+ * quan. Nếu còn segment phù hợp, kết quả của MySQL và của kho lưu trữ được gộp theo thứ tự yêu cầu:
+ * mỗi bên chỉ giữ tối đa {@code offset + size} hàng đầu tiên, nên chi phí phụ thuộc vào độ sâu của
+ * trang chứ không vào độ dài lịch sử, và bị giới hạn bởi {@code max-merge-rows}. Lịch sử theo
+ * cursor gộp theo cùng cách với cửa sổ {@code size + 1} hàng sau cursor; việc xuất dữ liệu gộp
+ * luồng của MySQL với kho lưu trữ được đọc lần lượt từng tháng.
+ *
+ * <p>Thư mục lưu trữ là cục bộ: chỉ bật việc lưu trữ trên một instance; các instance khác đọc cùng
+ * thư mục (ổ dùng chung) và nạp lại danh mục segment định kỳ.
+ */
+@Service
+@Slf4j
+public class TransactionArchiveService implements ITransactionArchiveService {
+
+  private static final Sort DEFAULT_SORT =
+      Sort.by(
+          Sort.Order.desc(EntityConstant.TXN_FIELD_CREATED_AT),
+          Sort.Order.desc(EntityConstant.FIELD_ID));
+  private static final Comparator<TransactionSummaryResponse> NEWEST_FIRST =
+      comparator(DEFAULT_SORT);
+  private static final Comparator<TransactionSummaryResponse> CHRONOLOGICAL =
+      NEWEST_FIRST.reversed();
+  private static final String FINAL_STATUSES =
+      TransactionConstant.Status.COMPLETED
+          + ", "
+          + TransactionConstant.Status.FAILED
+          + ", "
+          + TransactionConstant.Status.CANCELLED;
+  private static final String ROW_COLUMNS =
+      "id, wallet_id, created_at, updated_at, deleted_at, type, status, amount, transaction_fee,"
+          + " net_amount, balance_before, balance_after, description, provider_transaction_id,"
+          + " provider_response, payment_method_id, related_transaction_id, ip_address";
+
+  private final TransactionRepository transactionRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final JdbcTemplate streamingJdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final MeterRegistry meterRegistry;
+  private final List<ArchiveSegment> catalog = new CopyOnWriteArrayList<>();
+  private final AtomicBoolean running = new AtomicBoolean();
+  private final boolean enabled;
+  private final Path directory;
+  private final int minAgeMonths;
+  private final int walletsPerSegment;
+  private final int deleteBatchSize;
+  private final int maxMergeRows;
+
+  /**
+   * Khởi tạo TransactionArchiveService và nạp danh mục segment hiện có.
+   *
+   * @param transactionRepository Kho lưu trữ cho giao dịch (phần dữ liệu nóng khi tìm kiếm).
+   * @param dataSource Nguồn dữ liệu, dùng để đọc theo kiểu streaming và xóa các hàng đã lưu trữ.
+   * @param transactionManager Trình quản lý giao dịch dùng khi xóa.
+   * @param meterRegistry Registry ghi nhận số liệu của kho lưu trữ.
+   * @param enabled Bật việc chuyển dữ liệu sang kho lưu trữ trên instance này.
+   * @param directory Thư mục chứa các file segment.
+   * @param minAgeMonths Số tháng tối thiểu trước khi một giao dịch được lưu trữ.
+   * @param walletsPerSegment Số ví tối đa trong một file segment.
+   * @param fetchSize Fetch size của JDBC; {@link Integer#MIN_VALUE} bật chế độ streaming của MySQL.
+   * @param deleteBatchSize Số ID mỗi câu lệnh xóa.
+   * @param maxMergeRows Độ sâu tối đa ({@code offset + size}) của trang khi gộp với kho lưu trữ.
+   */
+  public TransactionArchiveService(
+      final TransactionRepository transactionRepository,
+      final DataSource dataSource,
+      final PlatformTransactionManager transactionManager,
+      final MeterRegistry meterRegistry,
+      @Value("${app.archive.enabled:false}") final boolean enabled,
+      @Value("${app.archive.directory:./data/archive}") final String directory,
+      @Value("${app.archive.min-age-months:12}") final int minAgeMonths,
+      @Value("${app.archive.wallets-per-segment:1000}") final int walletsPerSegment,
+      @Value("${app.archive.fetch-size:-2147483648}") final int fetchSize,
+      @Value("${app.archive.delete-batch-size:500}") final int deleteBatchSize,
+      @Value("${app.archive.max-merge-rows:10000}") final int maxMergeRows) {
+    this.transactionRepository = transactionRepository;
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+    this.streamingJdbcTemplate.setFetchSize(fetchSize);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.directory = Path.of(directory).toAbsolutePath().normalize();
+    this.minAgeMonths = minAgeMonths;
+    this.walletsPerSegment = walletsPerSegment;
+    this.deleteBatchSize = deleteBatchSize;
+    this.maxMergeRows = maxMergeRows;
+    refreshCatalog();
+  }
+
+  /** Chuyển dữ liệu sang kho lưu trữ theo lịch {@code app.archive.cron}. */
+  @Scheduled(cron = "${app.archive.cron:0 40 2 * * *}", zone = "UTC")
+  public void archiveScheduled() {
+    ReplicaRoutingContext.clear();
+    try {
+      if (enabled) {
+        archive();
+      }
+    } finally {
+      ReplicaRoutingContext.clear();
+    }
+  }
+
+  /** Nạp lại danh mục segment từ thư mục lưu trữ (segment do instance khác ghi). */
+  @Scheduled(
+      fixedDelayString = "${app.archive.catalog-refresh-ms:300000}",
+      initialDelayString = "${app.archive.catalog-refresh-ms:300000}")
+  public void refreshCatalog() {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    final Set<Path> known =
+        catalog.stream().map(ArchiveSegment::path).collect(Collectors.toSet());
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (final Path file : (Iterable<Path>) files::iterator) {
+        final String name = file.getFileName().toString();
+        if (name.endsWith(ArchiveConstant.FILE_SUFFIX) && !known.contains(file)) {
+          catalog.add(ArchiveSegment.open(file));
+        }
+      }
+    } catch (IOException e) {
+      log.warn(LogConstant.ARCHIVE_CATALOG_FAILED, directory, e);
+    }
+  }
+
+  @Override
+  public long archive() {
+    if (!running.compareAndSet(false, true)) {
+      log.info(LogConstant.ARCHIVE_ALREADY_RUNNING);
+      return 0;
+    }
+    try {
+      cleanUpTemporaryFiles();
+      final YearMonth cutoff = YearMonth.now(ZoneOffset.UTC).minusMonths(minAgeMonths);
+      final LocalDateTime oldest =
+          jdbcTemplate.queryForObject(
+              "SELECT MIN(created_at) FROM transactions WHERE created_at < ?",
+              LocalDateTime.class,
+              cutoff.atDay(1).atStartOfDay());
+      if (oldest == null) {
+        return 0;
+      }
+      long archived = 0;
+      for (YearMonth month = YearMonth.from(oldest);
+          month.isBefore(cutoff);
+          month = month.plusMonths(1)) {
+        archived += archiveMonth(month);
+      }
+      return archived;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      running.set(false);
+    }
+  }
+
+  private long archiveMonth(final YearMonth month) throws IOException {
+    final LocalDateTime from = month.atDay(1).atStartOfDay();
+    final LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+    final List<UUID> wallets =
+        jdbcTemplate.query(
+            "SELECT DISTINCT wallet_id FROM transactions"
+                + " WHERE created_at >= ? AND created_at < ? AND status IN ("
+                + FINAL_STATUSES
+                + ") ORDER BY wallet_id",
+            (rs, rowNum) -> uuid(rs.getBytes(1)),
+            from,
+            to);
+    long archived = 0;
+    for (int first = 0; first < wallets.size(); first += walletsPerSegment) {
+      final List<UUID> range =
+          wallets.subList(first, Math.min(first + walletsPerSegment, wallets.size()));
+      archived += archiveRange(month, from, to, range.get(0), range.get(range.size() - 1));
+    }
+    if (archived > 0) {
+      log.info(LogConstant.ARCHIVE_MONTH_FINISHED, month, wallets.size(), archived);
+    }
+    return archived;
+  }
+
+  private long archiveRange(
+      final YearMonth month,
+      final LocalDateTime from,
+      final LocalDateTime to,
+      final UUID firstWallet,
+      final UUID lastWallet)
+      throws IOException {
+    final Instant snapshot = Instant.now();
+    final Path target =
+        directory
+            .resolve(month.format(ArchiveConstant.MONTH_FORMAT))
+            .resolve(
+                hex(firstWallet)
+                    + "-"
+                    + hex(lastWallet)
+                    + "-"
+                    + snapshot.toEpochMilli()
+                    + ArchiveConstant.FILE_SUFFIX);
+    final List<UUID> ids = new ArrayList<>();
+    try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(target)) {
+      streamingJdbcTemplate.query(
+          "SELECT "
+              + ROW_COLUMNS
+              + " FROM transactions WHERE wallet_id BETWEEN ? AND ?"
+              + " AND created_at >= ? AND created_at < ? AND status IN ("
+              + FINAL_STATUSES
+              + ") ORDER BY wallet_id, created_at DESC, id DESC",
+          rs -> {
+            final ArchivedTransaction row = mapRow(rs);
+            try {
+              writer.append(row);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+            ids.add(row.id());
+          },
+          bytes(firstWallet),
+          bytes(lastWallet),
+          from,
+          to);
+      if (ids.isEmpty()) {
+        return 0;
+      }
+      writer.finish();
+
+      final long deleted =
+          transactionTemplate.execute(
+              status -> {
+                final long count = delete(ids, from, to, snapshot);
+                try {
+                  writer.publish();
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+                return count;
+              });
+      catalog.add(ArchiveSegment.open(target));
+      meterRegistry.counter(MetricConstant.ARCHIVE_TRANSACTIONS).increment(writer.rows());
+      if (deleted < ids.size()) {
+        log.warn(LogConstant.ARCHIVE_ROWS_KEPT, target, ids.size() - deleted);
+      }
+      return deleted;
+    } catch (RuntimeException e) {
+      // Giao dịch xóa đã bị rollback: file chính thức (nếu đã đổi tên) không còn hợp lệ.
+      Files.deleteIfExists(target);
+      log.error(LogConstant.ARCHIVE_RANGE_FAILED, month, firstWallet, lastWallet, e);
+      throw e;
+    }
+  }
+
+  private long delete(
+      final List<UUID> ids,
+      final LocalDateTime from,
+      final LocalDateTime to,
+      final Instant snapshot) {
+    long deleted = 0;
+    for (int first = 0; first < ids.size(); first += deleteBatchSize) {
+      final List<UUID> batch = ids.subList(first, Math.min(first + deleteBatchSize, ids.size()));
+      final List<Object> args = new ArrayList<>(batch.size() + 3);
+      args.add(from);
+      args.add(to);
+      args.add(LocalDateTime.ofInstant(snapshot, ZoneOffset.UTC));
+      batch.forEach(id -> args.add(bytes(id)));
+      deleted +=
+          jdbcTemplate.update(
+              "DELETE FROM transactions WHERE created_at >= ? AND created_at < ?"
+                  + " AND updated_at <= ? AND id IN ("
+                  + String.join(", ", Collections.nCopies(batch.size(), "?"))
+                  + ")",
+              args.toArray());
+    }
+    return deleted;
+  }
+
+  @Override
+  public Page<TransactionSummaryResponse> search(
+      final UUID walletId,
+      final TransactionSearchRequest searchRequest,
+      final Specification<Transaction> spec,
+      final Pageable pageable) {
+    final ArchiveQuery query = ArchiveQuery.of(walletId, searchRequest);
+    final List<ArchiveSegment> segments = matching(query);
+    if (segments.isEmpty()) {
+      return transactionRepository.findSummaries(spec, pageable);
+    }
+
+    final long window = pageable.getOffset() + pageable.getPageSize();
+    if (window > maxMergeRows) {
+      throw new BadRequestException(
+          MessageConstant.Transaction.ARCHIVE_PAGE_TOO_DEEP, maxMergeRows);
+    }
+    final Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : DEFAULT_SORT;
+    final Comparator<TransactionSummaryResponse> order = comparator(sort);
+
+    final PriorityQueue<TransactionSummaryResponse> top = new PriorityQueue<>(order.reversed());
+    final long archivedTotal = collectTop(segments, query, row -> true, top, window);
+
+    final List<TransactionSummaryResponse> hot =
+        transactionRepository.findSummaries(spec, sort, (int) window);
+    final long hotTotal = hot.size() < window ? hot.size() : transactionRepository.count(spec);
+
+    final List<TransactionSummaryResponse> rows = merge(hot, top, order);
+    final int fromIndex = (int) Math.min(pageable.getOffset(), rows.size());
+    final int toIndex = (int) Math.min(window, rows.size());
+    return new PageImpl<>(rows.subList(fromIndex, toIndex), pageable, hotTotal + archivedTotal);
+  }
+
+  @Override
+  public List<TransactionSummaryResponse> scroll(
+      final UUID walletId,
+      final TransactionSearchRequest searchRequest,
+      final Specification<Transaction> spec,
+      final CursorUtil.Position after,
+      final int limit) {
+    final List<TransactionSummaryResponse> hot =
+        transactionRepository.findSummaries(spec, DEFAULT_SORT, limit);
+    final ArchiveQuery all = ArchiveQuery.of(walletId, searchRequest);
+    final ArchiveQuery query = after != null ? all.before(after.createdAt()) : all;
+    final List<ArchiveSegment> segments = matching(query);
+    if (segments.isEmpty()) {
+      return hot;
+    }
+
+    final PriorityQueue<TransactionSummaryResponse> top =
+        new PriorityQueue<>(NEWEST_FIRST.reversed());
+    collectTop(segments, query, row -> after == null || isBefore(row, after), top, limit);
+    final List<TransactionSummaryResponse> rows = merge(hot, top, NEWEST_FIRST);
+    return rows.subList(0, Math.min(limit, rows.size()));
+  }
+
+  @Override
+  public Stream<TransactionSummaryResponse> mergeChronological(
+      final UUID walletId,
+      final TransactionSearchRequest searchRequest,
+      final Stream<TransactionSummaryResponse> hot) {
+    final ArchiveQuery query = ArchiveQuery.of(walletId, searchRequest);
+    final List<ArchiveSegment> segments = matching(query);
+    if (segments.isEmpty()) {
+      return hot;
+    }
+    meterRegistry.counter(MetricConstant.ARCHIVE_SEGMENTS_SCANNED).increment(segments.size());
+
+    // Mỗi segment nằm trọn trong một tháng: các tháng được đọc lần lượt khi luồng được tiêu thụ.
+    final Map<YearMonth, List<ArchiveSegment>> months =
+        segments.stream()
+            .collect(
+                Collectors.groupingBy(
+                    segment ->
+                        YearMonth.from(
+                            ArchiveCodec.instant(segment.minCreatedAt()).atOffset(ZoneOffset.UTC)),
+                    TreeMap::new,
+                    Collectors.toList()));
+    final Iterator<TransactionSummaryResponse> archived =
+        months.values().stream().flatMap(month -> readMonth(month, query).stream()).iterator();
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                new ChronologicalMerge(hot.iterator(), archived),
+                Spliterator.ORDERED | Spliterator.NONNULL),
+            false)
+        .onClose(hot::close);
+  }
+
+  private List<ArchiveSegment> matching(final ArchiveQuery query) {
+    return catalog.stream().filter(segment -> segment.mayMatch(query)).toList();
+  }
+
+  /** Giữ {@code window} hàng đầu tiên của kho lưu trữ: hàng "tệ" nhất nằm ở đỉnh heap. */
+  private long collectTop(
+      final List<ArchiveSegment> segments,
+      final ArchiveQuery query,
+      final Predicate<TransactionSummaryResponse> filter,
+      final PriorityQueue<TransactionSummaryResponse> top,
+      final long window) {
+    final long[] matched = new long[1];
+    try {
+      for (final ArchiveSegment segment : segments) {
+        segment.scan(
+            query,
+            row -> {
+              if (!filter.test(row)) {
+                return;
+              }
+              matched[0]++;
+              top.offer(row);
+              if (top.size() > window) {
+                top.poll();
+              }
+            });
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    meterRegistry.counter(MetricConstant.ARCHIVE_SEGMENTS_SCANNED).increment(segments.size());
+    return matched[0];
+  }
+
+  private static List<TransactionSummaryResponse> merge(
+      final List<TransactionSummaryResponse> hot,
+      final Collection<TransactionSummaryResponse> archived,
+      final Comparator<TransactionSummaryResponse> order) {
+    // Hàng còn trong MySQL (ví dụ bị cập nhật sau khi được lưu trữ) được ưu tiên.
+    final Map<UUID, TransactionSummaryResponse> merged = new LinkedHashMap<>();
+    hot.forEach(row -> merged.put(row.getId(), row));
+    archived.forEach(row -> merged.putIfAbsent(row.getId(), row));
+    final List<TransactionSummaryResponse> rows = new ArrayList<>(merged.values());
+    rows.sort(order);
+    return rows;
+  }
+
+  private static List<TransactionSummaryResponse> readMonth(
+      final List<ArchiveSegment> segments, final ArchiveQuery query) {
+    // Một hàng có thể nằm trong nhiều segment của cùng tháng nếu lần lưu trữ trước không xóa được.
+    final Map<UUID, TransactionSummaryResponse> rows = new LinkedHashMap<>();
+    try {
+      for (final ArchiveSegment segment : segments) {
+        segment.scan(query, row -> rows.putIfAbsent(row.getId(), row));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    final List<TransactionSummaryResponse> sorted = new ArrayList<>(rows.values());
+    sorted.sort(CHRONOLOGICAL);
+    return sorted;
+  }
+
+  private static boolean isBefore(
+      final TransactionSummaryResponse row, final CursorUtil.Position position) {
+    final int order = row.getCreatedAt().compareTo(position.createdAt());
+    return order < 0 || (order == 0 && ArchiveCodec.compare(row.getId(), position.id()) < 0);
+  }
+
+  private static Comparator<TransactionSummaryResponse> comparator(final Sort sort) {
+    Comparator<TransactionSummaryResponse> order = null;
+    for (final Sort.Order property : sort) {
+      Comparator<TransactionSummaryResponse> next =
+          switch (property.getProperty()) {
+            case EntityConstant.TXN_FIELD_CREATED_AT -> Comparator.comparing(
+                TransactionSummaryResponse::getCreatedAt);
+            case EntityConstant.TXN_FIELD_AMOUNT -> Comparator.comparing(
+                TransactionSummaryResponse::getAmount);
+            case EntityConstant.TXN_FIELD_TYPE -> Comparator.comparing(
+                TransactionSummaryResponse::getType);
+            case EntityConstant.TXN_FIELD_STATUS -> Comparator.comparing(
+                TransactionSummaryResponse::getStatus);
+            case EntityConstant.FIELD_ID -> (left, right) ->
+                ArchiveCodec.compare(left.getId(), right.getId());
+            default -> throw new BadRequestException(
+                MessageConstant.Transaction.ARCHIVE_SORT_UNSUPPORTED, property.getProperty());
+          };
+      if (property.isDescending()) {
+        next = next.reversed();
+      }
+      order = order == null ? next : order.thenComparing(next);
+    }
+    final Comparator<TransactionSummaryResponse> byId =
+        (left, right) -> ArchiveCodec.compare(left.getId(), right.getId());
+    return order == null ? byId : order.thenComparing(byId);
+  }
+
+  private void cleanUpTemporaryFiles() throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    final Set<Path> leftovers = new HashSet<>();
+    try (Stream<Path> files = Files.walk(directory)) {
+      files
+          .filter(
+              file -> {
+                final String name = file.getFileName().toString();
+                return name.endsWith(ArchiveConstant.TEMP_SUFFIX)
+                    || name.endsWith(ArchiveConstant.COLUMN_SUFFIX);
+              })
+          .forEach(leftovers::add);
+    }
+    for (final Path leftover : leftovers) {
+      Files.deleteIfExists(leftover);
+    }
+  }
+
+  private static ArchivedTransaction mapRow(final ResultSet rs) throws SQLException {
+    return new ArchivedTransaction(
+        uuid(rs.getBytes("id")),
+        uuid(rs.getBytes("wallet_id")),
+        instant(rs.getObject("created_at", LocalDateTime.class)),
+        instant(rs.getObject("updated_at", LocalDateTime.class)),
+        instant(rs.getObject("deleted_at", LocalDateTime.class)),
+        rs.getInt("type"),
+        rs.getInt("status"),
+        rs.getBigDecimal("amount"),
+        rs.getBigDecimal("transaction_fee"),
+        rs.getBigDecimal("net_amount"),
+        rs.getBigDecimal("balance_before"),
+        rs.getBigDecimal("balance_after"),
+        rs.getString("description"),
+        rs.getString("provider_transaction_id"),
+        rs.getString("provider_response"),
+        uuid(rs.getBytes("payment_method_id")),
+        uuid(rs.getBytes("related_transaction_id")),
+        rs.getString("ip_address"));
+  }
+
+  private static Instant instant(final LocalDateTime value) {
+    return value != null ? value.toInstant(ZoneOffset.UTC) : null;
+  }
+
+  private static UUID uuid(final byte[] bytes) {
+    if (bytes == null) {
+      return null;
+    }
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+
+  private static byte[] bytes(final UUID id) {
+    return ByteBuffer.allocate(2 * Long.BYTES)
+        .putLong(id.getMostSignificantBits())
+        .putLong(id.getLeastSignificantBits())
+        .array();
+  }
+
+  private static String hex(final UUID id) {
+    return id.toString().replace("-", "");
+  }
+
+  /**
+   * Gộp hai luồng đã sắp theo thứ tự thời gian; hàng có trong cả hai luồng chỉ được trả một lần,
+   * lấy bản trong MySQL.
+   */
+  private static final class ChronologicalMerge implements Iterator<TransactionSummaryResponse> {
+
+    private final Iterator<TransactionSummaryResponse> hot;
+    private final Iterator<TransactionSummaryResponse> archived;
+    private TransactionSummaryResponse nextHot;
+    private TransactionSummaryResponse nextArchived;
+
+    ChronologicalMerge(
+        final Iterator<TransactionSummaryResponse> hot,
+        final Iterator<TransactionSummaryResponse> archived) {
+      this.hot = hot;
+      this.archived = archived;
+      this.nextHot = advance(hot);
+      this.nextArchived = advance(archived);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextHot != null || nextArchived != null;
+    }
+
+    @Override
+    public TransactionSummaryResponse next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final int order =
+          nextHot == null
+              ? 1
+              : nextArchived == null ? -1 : CHRONOLOGICAL.compare(nextHot, nextArchived);
+      if (order > 0) {
+        final TransactionSummaryResponse row = nextArchived;
+        nextArchived = advance(archived);
+        return row;
+      }
+      if (order == 0) {
+        nextArchived = advance(archived);
+      }
+      final TransactionSummaryResponse row = nextHot;
+      nextHot = advance(hot);
+      return row;
+    }
+
+    private static TransactionSummaryResponse advance(
+        final Iterator<TransactionSummaryResponse> rows) {
+      return rows.hasNext() ? rows.next() : null;
+    }
+  }
+}
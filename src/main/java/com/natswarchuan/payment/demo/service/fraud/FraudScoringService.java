@@ -0,0 +1,197 @@
+package com.natswarchuan.payment.demo.service.fraud;
+
+import com.natswarchuan.payment.demo.constant.FraudConstant;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.exception.custom.ForbiddenException;
+import com.natswarchuan.payment.demo.interfaces.services.IFraudScoringService;
+import com.natswarchuan.payment.demo.util.AmountUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Lớp dịch vụ chấm điểm gian lận trong bộ nhớ cho luồng chuyển tiền.
+ *
+ * <p>Mỗi ví gửi có một {@link VelocityWindow} chứa các lần chuyển tiền trong {@code window-seconds}
+ * gần nhất. Các luật được chấm trên cửa sổ này:
+ *
+ * <ul>
+ *   <li>{@link FraudConstant.Rule#SMALL_BURST}: nhiều giao dịch nhỏ tới nhiều ví nhận khác nhau;
+ *   <li>{@link FraudConstant.Rule#REPEATED_AMOUNT}: cùng số tiền lặp lại tới cùng một ví;
+ *   <li>{@link FraudConstant.Rule#IP_SPREAD}: nhiều IP khác nhau cho cùng một ví.
+ * </ul>
+ *
+ * <p>Điểm của các luật bị kích hoạt được cộng lại rồi so với ngưỡng gắn cờ và ngưỡng chặn. Mọi lần
+ * thử (kể cả lần bị chặn) đều được ghi vào cửa sổ, nên một ví liên tục thử lại vẫn bị chặn cho tới
+ * khi các lần cũ ra khỏi cửa sổ.
+ *
+ * <p>Bộ nhớ bị giới hạn bởi số ví tối đa và kích thước cố định của mỗi cửa sổ; cửa sổ không hoạt
+ * động được dọn định kỳ. Khi đã đủ số ví, các ví mới không được theo dõi cho tới lần dọn kế tiếp.
+ * Cửa sổ là cục bộ cho từng instance: sau load balancer, mỗi instance chỉ thấy phần yêu cầu của nó.
+ */
+@Service
+@Slf4j
+public class FraudScoringService implements IFraudScoringService {
+
+  private final Map<UUID, VelocityWindow> windows = new ConcurrentHashMap<>();
+  private final MeterRegistry meterRegistry;
+  private final Timer scoringTimer;
+  private final boolean enabled;
+  private final long windowMillis;
+  private final int windowCapacity;
+  private final int maxWallets;
+  private final long smallAmountUnits;
+  private final int smallBurstRecipients;
+  private final int repeatedAmountCount;
+  private final int ipSpreadCount;
+  private final int flagScore;
+  private final int blockScore;
+  private final long latencyBudgetNanos;
+
+  /**
+   * Khởi tạo FraudScoringService.
+   *
+   * @param meterRegistry Registry ghi nhận quyết định, luật bị kích hoạt và thời gian chấm điểm.
+   * @param enabled Bật hoặc tắt bước chấm điểm.
+   * @param windowSeconds Độ dài cửa sổ trượt (giây).
+   * @param windowCapacity Số lần chuyển tiền tối đa giữ trong cửa sổ của một ví.
+   * @param maxWallets Số ví tối đa được theo dõi cùng lúc.
+   * @param smallAmount Ngưỡng số tiền để coi là giao dịch nhỏ.
+   * @param smallBurstRecipients Số ví nhận khác nhau của giao dịch nhỏ để kích hoạt luật.
+   * @param repeatedAmountCount Số lần cùng số tiền tới cùng ví nhận để kích hoạt luật.
+   * @param ipSpreadCount Số IP khác nhau để kích hoạt luật.
+   * @param flagScore Điểm tối thiểu để gắn cờ.
+   * @param blockScore Điểm tối thiểu để chặn.
+   * @param latencyBudgetMicros Ngân sách thời gian chấm điểm (micro giây); vượt quá được đếm riêng.
+   */
+  public FraudScoringService(
+      final MeterRegistry meterRegistry,
+      @Value("${app.fraud.enabled:true}") final boolean enabled,
+      @Value("${app.fraud.window-seconds:600}") final long windowSeconds,
+      @Value("${app.fraud.window-capacity:32}") final int windowCapacity,
+      @Value("${app.fraud.max-wallets:50000}") final int maxWallets,
+      @Value("${app.fraud.small-amount:100000}") final BigDecimal smallAmount,
+      @Value("${app.fraud.rules.small-burst.recipients:5}") final int smallBurstRecipients,
+      @Value("${app.fraud.rules.repeated-amount.count:3}") final int repeatedAmountCount,
+      @Value("${app.fraud.rules.ip-spread.count:3}") final int ipSpreadCount,
+      @Value("${app.fraud.flag-score:40}") final int flagScore,
+      @Value("${app.fraud.block-score:80}") final int blockScore,
+      @Value("${app.fraud.latency-budget-micros:1000}") final long latencyBudgetMicros) {
+    this.meterRegistry = meterRegistry;
+    this.scoringTimer =
+        Timer.builder(MetricConstant.FRAUD_SCORING_LATENCY)
+            .publishPercentiles(0.5, 0.99, 0.999)
+            .register(meterRegistry);
+    this.enabled = enabled;
+    this.windowMillis = TimeUnit.SECONDS.toMillis(windowSeconds);
+    this.windowCapacity = windowCapacity;
+    this.maxWallets = maxWallets;
+    this.smallAmountUnits = AmountUtil.toUnits(smallAmount);
+    this.smallBurstRecipients = smallBurstRecipients;
+    this.repeatedAmountCount = repeatedAmountCount;
+    this.ipSpreadCount = ipSpreadCount;
+    this.flagScore = flagScore;
+    this.blockScore = blockScore;
+    this.latencyBudgetNanos = TimeUnit.MICROSECONDS.toNanos(latencyBudgetMicros);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void screenTransfer(
+      final UUID walletId,
+      final String recipientWalletNumber,
+      final BigDecimal amount,
+      final String clientIp) {
+    if (!enabled) {
+      return;
+    }
+    final long startedAt = System.nanoTime();
+    final VelocityWindow window = windowFor(walletId);
+    if (window == null) {
+      record(FraudConstant.Decision.UNTRACKED, startedAt);
+      return;
+    }
+    final VelocityWindow.Counts counts =
+        window.observe(
+            System.currentTimeMillis(),
+            windowMillis,
+            AmountUtil.toUnits(amount),
+            recipientWalletNumber.hashCode(),
+            clientIp == null ? 0 : clientIp.hashCode(),
+            smallAmountUnits);
+
+    int score = 0;
+    List<String> rules = null;
+    if (counts.smallRecipients() >= smallBurstRecipients) {
+      score += FraudConstant.Rule.SMALL_BURST_WEIGHT;
+      rules = addRule(rules, FraudConstant.Rule.SMALL_BURST);
+    }
+    if (counts.repeatedAmount() >= repeatedAmountCount) {
+      score += FraudConstant.Rule.REPEATED_AMOUNT_WEIGHT;
+      rules = addRule(rules, FraudConstant.Rule.REPEATED_AMOUNT);
+    }
+    if (counts.distinctIps() >= ipSpreadCount) {
+      score += FraudConstant.Rule.IP_SPREAD_WEIGHT;
+      rules = addRule(rules, FraudConstant.Rule.IP_SPREAD);
+    }
+
+    if (score >= blockScore) {
+      record(FraudConstant.Decision.BLOCK, startedAt);
+      log.warn(LogConstant.FRAUD_TRANSFER_BLOCKED, walletId, score, rules);
+      throw new ForbiddenException(MessageConstant.Transaction.TRANSFER_BLOCKED_BY_RISK);
+    }
+    if (score >= flagScore) {
+      record(FraudConstant.Decision.FLAG, startedAt);
+      log.warn(LogConstant.FRAUD_TRANSFER_FLAGGED, walletId, score, rules);
+      return;
+    }
+    record(FraudConstant.Decision.ALLOW, startedAt);
+  }
+
+  /** Bỏ cửa sổ của các ví không chuyển tiền trong suốt một cửa sổ. */
+  @Scheduled(fixedDelayString = "${app.fraud.eviction-interval-ms:60000}")
+  public void evictIdleWindows() {
+    final long cutoff = System.currentTimeMillis() - windowMillis;
+    windows.values().removeIf(window -> window.isIdleSince(cutoff));
+  }
+
+  private VelocityWindow windowFor(final UUID walletId) {
+    final VelocityWindow window = windows.get(walletId);
+    if (window != null || windows.size() >= maxWallets) {
+      return window;
+    }
+    return windows.computeIfAbsent(walletId, id -> new VelocityWindow(windowCapacity));
+  }
+
+  private void record(final String decision, final long startedAt) {
+    final long elapsed = System.nanoTime() - startedAt;
+    scoringTimer.record(elapsed, TimeUnit.NANOSECONDS);
+    meterRegistry
+        .counter(MetricConstant.FRAUD_DECISION, MetricConstant.TAG_DECISION, decision)
+        .increment();
+    if (elapsed > latencyBudgetNanos) {
+      meterRegistry.counter(MetricConstant.FRAUD_SCORING_OVER_BUDGET).increment();
+    }
+  }
+
+  private List<String> addRule(final List<String> rules, final String rule) {
+    meterRegistry
+        .counter(MetricConstant.FRAUD_RULE_TRIGGERED, MetricConstant.TAG_RULE, rule)
+        .increment();
+    final List<String> result = rules == null ? new ArrayList<>(3) : rules;
+    result.add(rule);
+    return result;
+  }
+}
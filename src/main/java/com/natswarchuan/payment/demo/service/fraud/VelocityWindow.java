@@ -0,0 +1,130 @@
+package com.natswarchuan.payment.demo.service.fraud;
+
+/**
+ * Cửa sổ trượt các lần chuyển tiền gần đây của một ví, lưu trong bộ đệm vòng gồm các mảng kiểu
+ * nguyên thủy có kích thước cố định.
+ *
+ * <p>Mỗi phần tử chỉ gồm thời điểm, số tiền (đã quy đổi sang số nguyên), mã băm của ví nhận và mã
+ * băm của IP, nên bộ nhớ của một ví không phụ thuộc vào số giao dịch. Khi bộ đệm đầy, phần tử cũ
+ * nhất bị ghi đè. Mọi thao tác đều đồng bộ trên chính cửa sổ; tranh chấp chỉ xảy ra giữa các yêu
+ * cầu của cùng một ví.
+ */
+final class VelocityWindow {
+
+  private final long[] times;
+  private final long[] amounts;
+  private final int[] recipients;
+  private final int[] ips;
+  private int head;
+  private int size;
+  private volatile long lastSeenMillis;
+
+  VelocityWindow(final int capacity) {
+    this.times = new long[capacity];
+    this.amounts = new long[capacity];
+    this.recipients = new int[capacity];
+    this.ips = new int[capacity];
+  }
+
+  /**
+   * Bỏ các phần tử quá hạn, đếm các chỉ số của luật có tính cả lần chuyển tiền hiện tại, rồi ghi
+   * lần chuyển tiền đó vào cửa sổ.
+   *
+   * @param nowMillis Thời điểm hiện tại.
+   * @param windowMillis Độ dài cửa sổ.
+   * @param amount Số tiền đã quy đổi sang số nguyên.
+   * @param recipient Mã băm của số ví nhận.
+   * @param ip Mã băm của IP client.
+   * @param smallAmount Ngưỡng (đã quy đổi) để coi là giao dịch nhỏ.
+   * @return các chỉ số của cửa sổ sau khi ghi.
+   */
+  synchronized Counts observe(
+      final long nowMillis,
+      final long windowMillis,
+      final long amount,
+      final int recipient,
+      final int ip,
+      final long smallAmount) {
+    final int capacity = times.length;
+    final long horizon = nowMillis - windowMillis;
+    while (size > 0 && times[index(0)] < horizon) {
+      size--;
+    }
+
+    final boolean small = amount <= smallAmount;
+    int repeated = 1;
+    int smallRecipients = small ? 1 : 0;
+    int distinctIps = 1;
+    for (int i = 0; i < size; i++) {
+      final int at = index(i);
+      if (recipients[at] == recipient && amounts[at] == amount) {
+        repeated++;
+      }
+      // Chỉ đếm phần tử cuối cùng của mỗi giá trị để ra số giá trị khác nhau.
+      if (amounts[at] <= smallAmount
+          && !(small && recipients[at] == recipient)
+          && isLastSmallRecipient(i, smallAmount)) {
+        smallRecipients++;
+      }
+      if (ips[at] != ip && isLastIp(i)) {
+        distinctIps++;
+      }
+    }
+
+    times[head] = nowMillis;
+    amounts[head] = amount;
+    recipients[head] = recipient;
+    ips[head] = ip;
+    head = (head + 1) % capacity;
+    if (size < capacity) {
+      size++;
+    }
+    lastSeenMillis = nowMillis;
+    return new Counts(smallRecipients, repeated, distinctIps);
+  }
+
+  /**
+   * Kiểm tra cửa sổ đã không có lần chuyển tiền nào kể từ một thời điểm.
+   *
+   * @param cutoffMillis Thời điểm mốc.
+   * @return {@code true} nếu có thể bỏ cửa sổ này.
+   */
+  boolean isIdleSince(final long cutoffMillis) {
+    return lastSeenMillis < cutoffMillis;
+  }
+
+  private boolean isLastSmallRecipient(final int position, final long smallAmount) {
+    final int value = recipients[index(position)];
+    for (int j = position + 1; j < size; j++) {
+      final int at = index(j);
+      if (recipients[at] == value && amounts[at] <= smallAmount) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isLastIp(final int position) {
+    final int value = ips[index(position)];
+    for (int j = position + 1; j < size; j++) {
+      if (ips[index(j)] == value) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Vị trí trong mảng của phần tử thứ {@code position} tính từ phần tử cũ nhất. */
+  private int index(final int position) {
+    return Math.floorMod(head - size + position, times.length);
+  }
+
+  /**
+   * Các chỉ số của cửa sổ dùng cho luật.
+   *
+   * @param smallRecipients Số ví nhận khác nhau của các giao dịch nhỏ.
+   * @param repeatedAmount Số lần cùng số tiền tới cùng ví nhận với lần hiện tại.
+   * @param distinctIps Số IP khác nhau.
+   */
+  record Counts(int smallRecipients, int repeatedAmount, int distinctIps) {}
+}
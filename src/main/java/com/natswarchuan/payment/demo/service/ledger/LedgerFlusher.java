@@ -0,0 +1,335 @@
+package com.natswarchuan.payment.demo.service.ledger;
+
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.OutboxConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.entity.LedgerCheckpoint;
+import com.natswarchuan.payment.demo.entity.Transaction;
+import com.natswarchuan.payment.demo.entity.Wallet;
+import com.natswarchuan.payment.demo.helper.LedgerEntryHelper;
+import com.natswarchuan.payment.demo.helper.OutboxHelper;
+import com.natswarchuan.payment.demo.helper.WalletAggregateHelper;
+import com.natswarchuan.payment.demo.helper.WalletBalanceHelper;
+import com.natswarchuan.payment.demo.repository.LedgerCheckpointRepository;
+import com.natswarchuan.payment.demo.repository.WalletRepository;
+import com.natswarchuan.payment.demo.util.PartitionKeyUtil;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Luồng duy nhất ghi các bản ghi journal của mọi partition xuống MySQL theo lô.
+ *
+ * <p>Mỗi lô được ghi trong một giao dịch: chèn các hàng {@link Transaction} (với ID đã được cấp
+ * trước), gộp thay đổi số dư theo từng ví thành một câu lệnh {@code UPDATE ... balance = balance +
+ * delta} cho mỗi ví, và cập nhật {@link LedgerCheckpoint} của từng partition. Nếu ghi thất bại, lô
+ * được thử lại với thời gian chờ tăng dần; hàng đợi có giới hạn, nên khi cơ sở dữ liệu chậm, các
+ * partition sẽ bị chặn lại thay vì tích lũy vô hạn trong bộ nhớ.
+ */
+@Slf4j
+public class LedgerFlusher implements Runnable {
+
+  private static final long MAX_RETRY_BACKOFF_MS = 5_000;
+  private static final long INITIAL_RETRY_BACKOFF_MS = 100;
+  private static final long STOP_TIMEOUT_MS = 30_000;
+  private static final Object STOP = new Object();
+
+  private final BlockingQueue<Object> queue;
+  private final TransactionTemplate transactionTemplate;
+  private final EntityManager entityManager;
+  private final WalletRepository walletRepository;
+  private final LedgerCheckpointRepository checkpointRepository;
+  private final WalletBalanceHelper walletBalanceHelper;
+  private final LedgerEntryHelper ledgerEntryHelper;
+  private final OutboxHelper outboxHelper;
+  private final WalletAggregateHelper walletAggregateHelper;
+  private final int batchSize;
+  private Thread thread;
+
+  /**
+   * Khởi tạo LedgerFlusher.
+   *
+   * @param transactionTemplate Template mở giao dịch cho mỗi lô.
+   * @param entityManager EntityManager dùng để chèn các hàng giao dịch.
+   * @param walletRepository Kho lưu trữ cho ví.
+   * @param checkpointRepository Kho lưu trữ cho checkpoint của journal.
+   * @param walletBalanceHelper Helper đọc số dư thực của ví.
+   * @param ledgerEntryHelper Helper ghi bút toán kép cho các giao dịch chuyển tiền.
+   * @param outboxHelper Helper ghi sự kiện của các giao dịch chuyển tiền vào outbox.
+   * @param walletAggregateHelper Helper cộng dồn các giao dịch chuyển tiền vào bảng tổng hợp.
+   * @param queueCapacity Số lô tối đa đang chờ ghi.
+   * @param batchSize Số phần tử tối đa được gộp trong một giao dịch.
+   */
+  public LedgerFlusher(
+      final TransactionTemplate transactionTemplate,
+      final EntityManager entityManager,
+      final WalletRepository walletRepository,
+      final LedgerCheckpointRepository checkpointRepository,
+      final WalletBalanceHelper walletBalanceHelper,
+      final LedgerEntryHelper ledgerEntryHelper,
+      final OutboxHelper outboxHelper,
+      final WalletAggregateHelper walletAggregateHelper,
+      final int queueCapacity,
+      final int batchSize) {
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.transactionTemplate = transactionTemplate;
+    this.entityManager = entityManager;
+    this.walletRepository = walletRepository;
+    this.checkpointRepository = checkpointRepository;
+    this.walletBalanceHelper = walletBalanceHelper;
+    this.ledgerEntryHelper = ledgerEntryHelper;
+    this.outboxHelper = outboxHelper;
+    this.walletAggregateHelper = walletAggregateHelper;
+    this.batchSize = batchSize;
+  }
+
+  /** Khởi động luồng ghi. */
+  public void start() {
+    thread = new Thread(this, "ledger-flusher");
+    thread.start();
+  }
+
+  /**
+   * Ghi hết các lô đang chờ rồi dừng luồng ghi.
+   *
+   * <p>Nếu cơ sở dữ liệu không phản hồi trong thời gian chờ, luồng bị ngắt; các bản ghi chưa ghi
+   * vẫn nằm trong journal và được ghi lại ở lần khởi động sau.
+   */
+  public void stop() {
+    enqueue(STOP);
+    try {
+      thread.join(STOP_TIMEOUT_MS);
+      if (thread.isAlive()) {
+        thread.interrupt();
+        thread.join();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Đưa một lô bản ghi (đã được ghi bền vững vào journal) vào hàng đợi ghi.
+   *
+   * @param records Các bản ghi theo thứ tự của partition.
+   */
+  public void submit(final List<LedgerRecord> records) {
+    enqueue(List.copyOf(records));
+  }
+
+  /**
+   * Tạo một barrier hoàn tất khi mọi lô được gửi trước nó đã được ghi xuống cơ sở dữ liệu.
+   *
+   * @return Future hoàn tất sau khi các lô trước đó đã được commit.
+   */
+  public CompletableFuture<Void> barrier() {
+    final CompletableFuture<Void> barrier = new CompletableFuture<>();
+    enqueue(barrier);
+    return barrier;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void run() {
+    final List<Object> items = new ArrayList<>();
+    boolean running = true;
+    while (running) {
+      try {
+        items.add(queue.take());
+      } catch (InterruptedException e) {
+        return;
+      }
+      queue.drainTo(items, batchSize - 1);
+
+      final List<LedgerRecord> records = new ArrayList<>();
+      final List<CompletableFuture<Void>> barriers = new ArrayList<>();
+      for (Object item : items) {
+        if (item == STOP) {
+          running = false;
+        } else if (item instanceof CompletableFuture<?> barrier) {
+          barriers.add((CompletableFuture<Void>) barrier);
+        } else {
+          records.addAll((List<LedgerRecord>) item);
+        }
+      }
+      items.clear();
+
+      if (!records.isEmpty() && !writeWithRetry(records)) {
+        return;
+      }
+      barriers.forEach(barrier -> barrier.complete(null));
+    }
+  }
+
+  /**
+   * Ghi một lô bản ghi và checkpoint tương ứng trong một giao dịch.
+   *
+   * <p>Được dùng bởi luồng ghi và khi khôi phục lúc khởi động. Các bản ghi {@code OUT} được chèn
+   * trước các bản ghi {@code IN} để khóa ngoại {@code related_transaction_id} luôn hợp lệ.
+   *
+   * @param records Các bản ghi cần ghi.
+   */
+  public void writeBatch(final List<LedgerRecord> records) {
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          final Map<Integer, Long> checkpoints = writeRecords(records);
+          checkpoints.forEach(this::saveCheckpoint);
+        });
+  }
+
+  /**
+   * Hoàn tất trực tiếp trong cơ sở dữ liệu phần cộng tiền của một giao dịch chuyển tiền mà phần
+   * trừ tiền đã được ghi nhưng phần cộng tiền bị mất khi tiến trình dừng.
+   *
+   * @param out Bản ghi {@code OUT} (hoặc {@code OUT_CARRIED}) của giao dịch chuyển tiền.
+   * @param transactionId ID được cấp cho giao dịch nhận tiền.
+   */
+  public void completeMissingCredit(final LedgerRecord out, final UUID transactionId) {
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          final Wallet receiver =
+              walletRepository.findAndLockById(out.counterpartyWalletId()).orElseThrow();
+          final String senderNumber =
+              walletRepository.findById(out.walletId()).map(Wallet::getNumber).orElse(null);
+          final LedgerRecord in =
+              new LedgerRecord(
+                  out.partition(),
+                  0L,
+                  LedgerRecord.Kind.IN,
+                  transactionId,
+                  receiver.getId(),
+                  out.walletId(),
+                  out.transactionId(),
+                  out.amount(),
+                  walletBalanceHelper.getTotalBalance(receiver).add(out.amount()),
+                  String.format(
+                      MessageConstant.Transaction.TRANSFER_IN_DESCRIPTION, senderNumber));
+          writeRecords(List.of(in));
+        });
+  }
+
+  private Map<Integer, Long> writeRecords(final List<LedgerRecord> records) {
+    final List<LedgerRecord> ordered = new ArrayList<>(records);
+    ordered.sort(Comparator.comparing(record -> record.kind() != LedgerRecord.Kind.OUT));
+
+    final Map<UUID, BigDecimal> deltas = new TreeMap<>();
+    final Map<Integer, Long> checkpoints = new HashMap<>();
+    final List<LedgerRecord> credits = new ArrayList<>();
+    final WalletAggregateHelper.Batch aggregates = walletAggregateHelper.batch();
+    for (LedgerRecord record : ordered) {
+      checkpoints.merge(record.partition(), record.sequence(), Math::max);
+      if (record.kind() == LedgerRecord.Kind.OUT_CARRIED) {
+        continue;
+      }
+      final Transaction transaction = toTransaction(record);
+      entityManager.persist(transaction);
+      outboxHelper.record(
+          record.walletId(), OutboxConstant.EventType.TRANSACTION_COMPLETED, transaction);
+      aggregates.add(
+          record.walletId(), transaction.getCreatedAt(), transaction.getType(), record.amount());
+      deltas.merge(record.walletId(), record.balanceDelta(), BigDecimal::add);
+      if (record.kind() == LedgerRecord.Kind.IN) {
+        credits.add(record);
+      }
+    }
+
+    final Instant now = Instant.now();
+    deltas.forEach(
+        (walletId, delta) -> {
+          if (delta.signum() != 0) {
+            walletRepository.applyBalanceDelta(walletId, delta, now);
+          }
+        });
+    // Cặp bút toán của một giao dịch chuyển tiền được ghi cùng phần cộng tiền của nó.
+    for (LedgerRecord credit : credits) {
+      ledgerEntryHelper.recordTransfer(
+          credit.counterpartyWalletId(),
+          credit.relatedTransactionId(),
+          credit.walletId(),
+          credit.transactionId(),
+          credit.amount());
+    }
+    aggregates.flush();
+    return checkpoints;
+  }
+
+  private Transaction toTransaction(final LedgerRecord record) {
+    final boolean out = record.kind() == LedgerRecord.Kind.OUT;
+    final Transaction transaction =
+        Transaction.builder()
+            .wallet(entityManager.getReference(Wallet.class, record.walletId()))
+            .amount(record.amount())
+            .transactionFee(BigDecimal.ZERO)
+            .balanceBefore(record.balanceAfter().subtract(record.balanceDelta()))
+            .balanceAfter(record.balanceAfter())
+            .type(
+                out
+                    ? TransactionConstant.Type.TRANSFER_OUT
+                    : TransactionConstant.Type.TRANSFER_IN)
+            .status(TransactionConstant.Status.COMPLETED)
+            .description(record.description())
+            .relatedTransaction(
+                record.relatedTransactionId() == null
+                    ? null
+                    : entityManager.getReference(
+                        Transaction.class, record.relatedTransactionId()))
+            .build();
+    transaction.setId(record.transactionId());
+    // created_at lấy theo ID (cấp khi ghi journal) thay vì thời điểm ghi lô, để hàng được ghi lại
+    // sau một lần khởi động muộn vẫn nằm trong khoảng partition mà PartitionKeyUtil suy ra từ ID.
+    transaction.setCreatedAt(PartitionKeyUtil.timestampOf(record.transactionId()));
+    return transaction;
+  }
+
+  private void saveCheckpoint(final Integer partitionId, final Long sequence) {
+    final LedgerCheckpoint checkpoint =
+        checkpointRepository
+            .findById(partitionId)
+            .orElseGet(() -> LedgerCheckpoint.builder().partitionId(partitionId).build());
+    if (checkpoint.getLastSequence() == null || checkpoint.getLastSequence() < sequence) {
+      checkpoint.setLastSequence(sequence);
+      checkpointRepository.save(checkpoint);
+    }
+  }
+
+  private boolean writeWithRetry(final List<LedgerRecord> records) {
+    long backoffMs = INITIAL_RETRY_BACKOFF_MS;
+    while (true) {
+      try {
+        writeBatch(records);
+        return true;
+      } catch (RuntimeException e) {
+        log.error(LogConstant.LEDGER_FLUSH_FAILED, records.size(), backoffMs, e);
+        try {
+          TimeUnit.MILLISECONDS.sleep(backoffMs);
+        } catch (InterruptedException interrupted) {
+          return false;
+        }
+        backoffMs = Math.min(MAX_RETRY_BACKOFF_MS, backoffMs * 2);
+      }
+    }
+  }
+
+  private void enqueue(final Object item) {
+    try {
+      queue.put(item);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
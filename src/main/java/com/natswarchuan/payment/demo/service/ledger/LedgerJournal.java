@@ -0,0 +1,229 @@
+package com.natswarchuan.payment.demo.service.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal của một partition, ghi trên một file được ánh xạ vào bộ nhớ (memory-mapped).
+ *
+ * <p>Mỗi bản ghi có dạng {@code [độ dài][CRC32][nội dung]}, ngay sau bản ghi cuối luôn là một số
+ * 0 đánh dấu điểm kết thúc. Số tiền được lưu dưới dạng số nguyên không scale với scale 4 (giống cột
+ * {@code DECIMAL(19,4)}). Khi đọc lại, việc quét dừng ở điểm kết thúc, ở bản ghi sai CRC (ghi dở
+ * khi tiến trình bị dừng) hoặc ở bản ghi có số thứ tự không tăng (dữ liệu cũ còn sót sau khi quay
+ * vòng).
+ *
+ * <p>Lớp này không an toàn luồng: mỗi journal chỉ được dùng bởi luồng của partition sở hữu nó (và
+ * bởi luồng khởi động trước khi partition chạy).
+ */
+public class LedgerJournal implements AutoCloseable {
+
+  private static final int AMOUNT_SCALE = 4;
+  private static final int HEADER_BYTES = Integer.BYTES * 2;
+
+  private final Path path;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final boolean sync;
+  private int forcedPosition;
+
+  /**
+   * Mở (hoặc tạo) file journal và ánh xạ nó vào bộ nhớ.
+   *
+   * @param path Đường dẫn file journal.
+   * @param sizeBytes Kích thước của vùng ánh xạ.
+   * @param sync {@code true} để {@link #force()} ghi xuống đĩa; {@code false} để chỉ dựa vào page
+   *     cache của hệ điều hành (vẫn an toàn khi tiến trình bị dừng, không an toàn khi mất điện).
+   */
+  public LedgerJournal(final Path path, final int sizeBytes, final boolean sync) {
+    try {
+      Files.createDirectories(path.getParent());
+      this.path = path;
+      this.channel =
+          FileChannel.open(
+              path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, sizeBytes);
+      this.sync = sync;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Đọc mọi bản ghi hợp lệ từ đầu journal và đặt vị trí ghi ngay sau bản ghi cuối cùng.
+   *
+   * @return Danh sách bản ghi theo thứ tự ghi.
+   */
+  public List<LedgerRecord> readAll() {
+    final List<LedgerRecord> records = new ArrayList<>();
+    long lastSequence = Long.MIN_VALUE;
+    int position = 0;
+    while (position + HEADER_BYTES <= buffer.capacity()) {
+      final int length = buffer.getInt(position);
+      if (length <= 0 || position + HEADER_BYTES + length > buffer.capacity()) {
+        break;
+      }
+      final byte[] payload = new byte[length];
+      buffer.get(position + HEADER_BYTES, payload);
+      if (crc(payload) != buffer.getInt(position + Integer.BYTES)) {
+        break;
+      }
+      final LedgerRecord record = decode(payload);
+      if (record.sequence() <= lastSequence) {
+        break;
+      }
+      records.add(record);
+      lastSequence = record.sequence();
+      position += HEADER_BYTES + length;
+    }
+    buffer.position(position);
+    forcedPosition = position;
+    return records;
+  }
+
+  /**
+   * Ghi thêm một bản ghi (chưa đảm bảo bền vững cho đến khi gọi {@link #force()}).
+   *
+   * @param record Bản ghi cần ghi.
+   * @return {@code false} nếu journal không còn đủ chỗ; khi đó cần quay vòng journal.
+   */
+  public boolean append(final LedgerRecord record) {
+    final byte[] payload = encode(record);
+    final int position = buffer.position();
+    if (position + HEADER_BYTES + payload.length + Integer.BYTES > buffer.capacity()) {
+      return false;
+    }
+    buffer.putInt(position + HEADER_BYTES + payload.length, 0);
+    buffer.putInt(position + Integer.BYTES, crc(payload));
+    buffer.put(position + HEADER_BYTES, payload);
+    buffer.putInt(position, payload.length);
+    buffer.position(position + HEADER_BYTES + payload.length);
+    return true;
+  }
+
+  /** Đảm bảo mọi bản ghi đã ghi thêm kể từ lần gọi trước được ghi bền vững. */
+  public void force() {
+    final int position = buffer.position();
+    if (sync && position > forcedPosition) {
+      buffer.force(forcedPosition, position - forcedPosition + Integer.BYTES);
+    }
+    forcedPosition = position;
+  }
+
+  /** Xóa toàn bộ journal (sau khi mọi bản ghi đã được ghi xuống cơ sở dữ liệu). */
+  public void reset() {
+    buffer.putInt(0, 0);
+    buffer.position(0);
+    if (sync) {
+      buffer.force(0, Integer.BYTES);
+    }
+    forcedPosition = 0;
+  }
+
+  /**
+   * Lấy đường dẫn của file journal.
+   *
+   * @return Đường dẫn file.
+   */
+  public Path getPath() {
+    return path;
+  }
+
+  @Override
+  public void close() {
+    try {
+      force();
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static int crc(final byte[] payload) {
+    final CRC32 crc = new CRC32();
+    crc.update(payload);
+    return (int) crc.getValue();
+  }
+
+  private static byte[] encode(final LedgerRecord record) {
+    final byte[] description =
+        record.description() == null
+            ? new byte[0]
+            : record.description().getBytes(StandardCharsets.UTF_8);
+    final ByteBuffer out =
+        ByteBuffer.allocate(
+            Integer.BYTES
+                + Long.BYTES
+                + 1
+                + Long.BYTES * 8
+                + Long.BYTES * 2
+                + Integer.BYTES
+                + description.length);
+    out.putInt(record.partition());
+    out.putLong(record.sequence());
+    out.put((byte) record.kind().ordinal());
+    putUuid(out, record.transactionId());
+    putUuid(out, record.walletId());
+    putUuid(out, record.counterpartyWalletId());
+    putUuid(out, record.relatedTransactionId());
+    out.putLong(toUnscaled(record.amount()));
+    out.putLong(toUnscaled(record.balanceAfter()));
+    out.putInt(description.length);
+    out.put(description);
+    return out.array();
+  }
+
+  private static LedgerRecord decode(final byte[] payload) {
+    final ByteBuffer in = ByteBuffer.wrap(payload);
+    final int partition = in.getInt();
+    final long sequence = in.getLong();
+    final LedgerRecord.Kind kind = LedgerRecord.Kind.values()[in.get()];
+    final UUID transactionId = getUuid(in);
+    final UUID walletId = getUuid(in);
+    final UUID counterpartyWalletId = getUuid(in);
+    final UUID relatedTransactionId = getUuid(in);
+    final BigDecimal amount = BigDecimal.valueOf(in.getLong(), AMOUNT_SCALE);
+    final BigDecimal balanceAfter = BigDecimal.valueOf(in.getLong(), AMOUNT_SCALE);
+    final byte[] description = new byte[in.getInt()];
+    in.get(description);
+    return new LedgerRecord(
+        partition,
+        sequence,
+        kind,
+        transactionId,
+        walletId,
+        counterpartyWalletId,
+        relatedTransactionId,
+        amount,
+        balanceAfter,
+        new String(description, StandardCharsets.UTF_8));
+  }
+
+  private static void putUuid(final ByteBuffer out, final UUID uuid) {
+    out.putLong(uuid == null ? 0L : uuid.getMostSignificantBits());
+    out.putLong(uuid == null ? 0L : uuid.getLeastSignificantBits());
+  }
+
+  private static UUID getUuid(final ByteBuffer in) {
+    final long most = in.getLong();
+    final long least = in.getLong();
+    return most == 0L && least == 0L ? null : new UUID(most, least);
+  }
+
+  private static long toUnscaled(final BigDecimal value) {
+    final BigInteger unscaled = value.setScale(AMOUNT_SCALE).unscaledValue();
+    return unscaled.longValueExact();
+  }
+}
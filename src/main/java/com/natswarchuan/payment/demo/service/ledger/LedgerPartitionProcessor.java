@@ -0,0 +1,381 @@
+package com.natswarchuan.payment.demo.service.ledger;
+
+import com.fasterxml.uuid.Generators;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.exception.custom.BadRequestException;
+import com.natswarchuan.payment.demo.exception.custom.ConflictException;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferBalances;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Một partition của engine số dư trong bộ nhớ: một luồng duy nhất sở hữu số dư của mọi ví được
+ * băm vào partition này.
+ *
+ * <p>Các lệnh được đưa vào một hàng đợi vòng có giới hạn và được xử lý tuần tự, nên không cần khóa
+ * cho số dư. Luồng lấy ra một loạt lệnh, áp dụng chúng lên số dư trong bộ nhớ, ghi các bản ghi vào
+ * {@link LedgerJournal}, gọi {@link LedgerJournal#force()} một lần cho cả loạt (group commit), rồi
+ * mới chuyển bản ghi cho {@link LedgerFlusher} và trả kết quả cho người gọi.
+ *
+ * <p>Một giao dịch chuyển tiền giữa hai partition được xử lý làm hai bước: partition của ví gửi trừ
+ * tiền và ghi bản ghi {@code OUT}, sau đó chuyển lệnh cộng tiền sang partition của ví nhận; người
+ * gọi nhận kết quả khi bản ghi {@code IN} đã bền vững. Cho đến lúc đó, bản ghi {@code OUT} được giữ
+ * trong danh sách chờ cộng tiền dùng chung, để có thể được chép sang journal mới khi quay vòng.
+ *
+ * <p>Số lệnh từ bên ngoài đang chờ của mỗi partition bị giới hạn bởi một semaphore; một lệnh chỉ
+ * trả lại chỗ khi đã hoàn tất (kể cả bước cộng tiền ở partition khác). Vì vậy số lệnh cộng tiền
+ * được chuyển tới một partition không bao giờ vượt quá tổng số chỗ của mọi partition, và hàng đợi
+ * có dung lượng đủ cho cả hai loại lệnh mà không bao giờ chặn luồng của partition khác.
+ */
+@Slf4j
+public class LedgerPartitionProcessor implements Runnable {
+
+  private final int partition;
+  private final BlockingQueue<Command> queue;
+  private final Semaphore permits;
+  private final long submitTimeoutMs;
+  private final int maxBatchSize;
+  private final LedgerJournal journal;
+  private final LedgerFlusher flusher;
+  private final Function<UUID, BigDecimal> balanceLoader;
+  private final ConcurrentMap<UUID, LedgerRecord> pendingCredits;
+  private final Map<UUID, BigDecimal> balances = new HashMap<>();
+  private final List<LedgerRecord> unforced = new ArrayList<>();
+  private final List<Runnable> afterForce = new ArrayList<>();
+  private long sequence;
+  private Thread thread;
+
+  /**
+   * Khởi tạo một partition.
+   *
+   * @param partition Chỉ số của partition.
+   * @param capacity Số lệnh từ bên ngoài tối đa đang chờ.
+   * @param partitionCount Tổng số partition (dùng để tính dung lượng hàng đợi).
+   * @param submitTimeoutMs Thời gian tối đa chờ chỗ trống khi gửi lệnh.
+   * @param journal Journal của partition.
+   * @param flusher Luồng ghi xuống cơ sở dữ liệu.
+   * @param balanceLoader Hàm đọc số dư thực của một ví từ cơ sở dữ liệu.
+   * @param pendingCredits Danh sách bản ghi {@code OUT} đang chờ cộng tiền, dùng chung mọi partition.
+   * @param initialSequence Số thứ tự cuối cùng đã dùng của partition.
+   */
+  public LedgerPartitionProcessor(
+      final int partition,
+      final int capacity,
+      final int partitionCount,
+      final long submitTimeoutMs,
+      final LedgerJournal journal,
+      final LedgerFlusher flusher,
+      final Function<UUID, BigDecimal> balanceLoader,
+      final ConcurrentMap<UUID, LedgerRecord> pendingCredits,
+      final long initialSequence) {
+    this.partition = partition;
+    this.queue = new ArrayBlockingQueue<>(capacity * (partitionCount + 1) + 1);
+    this.permits = new Semaphore(capacity);
+    this.submitTimeoutMs = submitTimeoutMs;
+    this.maxBatchSize = capacity;
+    this.journal = journal;
+    this.flusher = flusher;
+    this.balanceLoader = balanceLoader;
+    this.pendingCredits = pendingCredits;
+    this.sequence = initialSequence;
+  }
+
+  /** Khởi động luồng của partition. */
+  public void start() {
+    thread = new Thread(this, "ledger-partition-" + partition);
+    thread.start();
+  }
+
+  /** Xử lý hết các lệnh đã nhận, dừng luồng của partition và đóng journal. */
+  public void stop() {
+    enqueue(new Stop());
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    journal.close();
+  }
+
+  /**
+   * Gửi một lệnh chuyển tiền tới partition này (partition của ví gửi).
+   *
+   * @param senderWalletId Ví gửi.
+   * @param receiverWalletId Ví nhận.
+   * @param receiverPartition Partition của ví nhận.
+   * @param amount Số tiền chuyển.
+   * @param outDescription Mô tả của giao dịch trừ tiền.
+   * @param inDescription Mô tả của giao dịch nhận tiền.
+   * @return Future hoàn tất với số dư trước và sau của cả hai ví khi cả hai bước đã bền vững.
+   * @throws ConflictException nếu partition quá tải.
+   */
+  public CompletableFuture<TransferBalances> submitTransfer(
+      final UUID senderWalletId,
+      final UUID receiverWalletId,
+      final LedgerPartitionProcessor receiverPartition,
+      final BigDecimal amount,
+      final String outDescription,
+      final String inDescription) {
+    final CompletableFuture<TransferBalances> result = acquire();
+    enqueue(
+        new Transfer(
+            senderWalletId,
+            receiverWalletId,
+            receiverPartition,
+            amount,
+            outDescription,
+            inDescription,
+            result));
+    return result;
+  }
+
+  /**
+   * Thực thi một thao tác trên luồng của partition, sau khi mọi bản ghi của partition đã được ghi
+   * xuống cơ sở dữ liệu. Số dư trong bộ nhớ của ví được đọc lại từ cơ sở dữ liệu sau thao tác.
+   *
+   * @param walletId Ví bị thay đổi bởi thao tác.
+   * @param operation Thao tác cần thực thi.
+   * @param <T> Kiểu dữ liệu trả về.
+   * @return Future hoàn tất với kết quả của thao tác.
+   * @throws ConflictException nếu partition quá tải.
+   */
+  public <T> CompletableFuture<T> submitExclusive(
+      final UUID walletId, final Supplier<T> operation) {
+    final CompletableFuture<T> result = acquire();
+    enqueue(new Exclusive<>(walletId, operation, result));
+    return result;
+  }
+
+  @Override
+  public void run() {
+    final List<Command> batch = new ArrayList<>(maxBatchSize);
+    boolean running = true;
+    while (running) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        break;
+      }
+      queue.drainTo(batch, maxBatchSize - 1);
+      for (Command command : batch) {
+        if (command instanceof Transfer transfer) {
+          handleTransfer(transfer);
+        } else if (command instanceof Credit credit) {
+          handleCredit(credit);
+        } else if (command instanceof Exclusive<?> exclusive) {
+          commit();
+          handleExclusive(exclusive);
+        } else if (command instanceof Stop) {
+          running = false;
+        }
+      }
+      batch.clear();
+      commit();
+    }
+    failRemaining();
+  }
+
+  private void handleTransfer(final Transfer transfer) {
+    try {
+      final BigDecimal before = balance(transfer.senderWalletId());
+      if (before.compareTo(transfer.amount()) < 0) {
+        transfer.result().completeExceptionally(
+            new BadRequestException(MessageConstant.Wallet.INSUFFICIENT_BALANCE));
+        return;
+      }
+      final BigDecimal after = before.subtract(transfer.amount());
+      final LedgerRecord out =
+          append(
+              new LedgerRecord(
+                  partition,
+                  0L,
+                  LedgerRecord.Kind.OUT,
+                  Generators.timeBasedEpochGenerator().generate(),
+                  transfer.senderWalletId(),
+                  transfer.receiverWalletId(),
+                  null,
+                  transfer.amount(),
+                  after,
+                  transfer.outDescription()));
+      balances.put(transfer.senderWalletId(), after);
+      pendingCredits.put(out.transactionId(), out);
+      afterForce.add(
+          () ->
+              transfer
+                  .receiverPartition()
+                  .enqueue(new Credit(out, before, transfer.inDescription(), transfer.result())));
+    } catch (RuntimeException e) {
+      transfer.result().completeExceptionally(e);
+    }
+  }
+
+  private void handleCredit(final Credit credit) {
+    final LedgerRecord out = credit.out();
+    try {
+      final BigDecimal before = balance(out.counterpartyWalletId());
+      final BigDecimal after = before.add(out.amount());
+      append(
+          new LedgerRecord(
+              partition,
+              0L,
+              LedgerRecord.Kind.IN,
+              Generators.timeBasedEpochGenerator().generate(),
+              out.counterpartyWalletId(),
+              out.walletId(),
+              out.transactionId(),
+              out.amount(),
+              after,
+              credit.description()));
+      balances.put(out.counterpartyWalletId(), after);
+      afterForce.add(
+          () -> {
+            pendingCredits.remove(out.transactionId());
+            credit
+                .result()
+                .complete(
+                    new TransferBalances(credit.senderBefore(), out.balanceAfter(), before, after));
+          });
+    } catch (RuntimeException e) {
+      // Phần trừ tiền đã bền vững; phần cộng tiền được hoàn tất khi khôi phục.
+      credit.result().completeExceptionally(e);
+    }
+  }
+
+  private <T> void handleExclusive(final Exclusive<T> exclusive) {
+    try {
+      flusher.barrier().join();
+      exclusive.result().complete(exclusive.operation().get());
+    } catch (RuntimeException e) {
+      exclusive.result().completeExceptionally(e);
+    } finally {
+      balances.remove(exclusive.walletId());
+    }
+  }
+
+  /**
+   * Ghi một bản ghi vào journal với số thứ tự tiếp theo; quay vòng journal nếu đã đầy.
+   *
+   * @param record Bản ghi (số thứ tự sẽ được gán lại).
+   * @return Bản ghi đã được ghi.
+   */
+  private LedgerRecord append(final LedgerRecord record) {
+    LedgerRecord sequenced = record.withSequence(++sequence, record.kind());
+    if (journal.append(sequenced)) {
+      unforced.add(sequenced);
+      return sequenced;
+    }
+    rotateJournal();
+    sequenced = record.withSequence(++sequence, record.kind());
+    if (!journal.append(sequenced)) {
+      throw new IllegalStateException(MessageConstant.Transaction.LEDGER_JOURNAL_TOO_SMALL);
+    }
+    unforced.add(sequenced);
+    return sequenced;
+  }
+
+  /**
+   * Quay vòng journal: chờ mọi bản ghi của partition được ghi xuống cơ sở dữ liệu, xóa journal và
+   * chép lại các bản ghi {@code OUT} của partition vẫn đang chờ cộng tiền.
+   */
+  private void rotateJournal() {
+    commit();
+    flusher.barrier().join();
+    journal.reset();
+    for (LedgerRecord out : pendingCredits.values()) {
+      if (out.partition() == partition) {
+        journal.append(out.withSequence(++sequence, LedgerRecord.Kind.OUT_CARRIED));
+      }
+    }
+    journal.force();
+    log.info(LogConstant.LEDGER_JOURNAL_ROTATED, partition);
+  }
+
+  /** Ghi bền vững các bản ghi đang chờ, chuyển chúng cho luồng ghi rồi trả kết quả. */
+  private void commit() {
+    if (!unforced.isEmpty()) {
+      journal.force();
+      flusher.submit(unforced);
+      unforced.clear();
+    }
+    afterForce.forEach(Runnable::run);
+    afterForce.clear();
+  }
+
+  private BigDecimal balance(final UUID walletId) {
+    return balances.computeIfAbsent(walletId, balanceLoader);
+  }
+
+  private <T> CompletableFuture<T> acquire() {
+    try {
+      if (!permits.tryAcquire(submitTimeoutMs, TimeUnit.MILLISECONDS)) {
+        throw new ConflictException(MessageConstant.Transaction.LEDGER_BUSY);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ConflictException(MessageConstant.Transaction.LEDGER_BUSY);
+    }
+    final CompletableFuture<T> result = new CompletableFuture<>();
+    result.whenComplete((value, error) -> permits.release());
+    return result;
+  }
+
+  private void enqueue(final Command command) {
+    if (!queue.offer(command)) {
+      throw new ConflictException(MessageConstant.Transaction.LEDGER_BUSY);
+    }
+  }
+
+  private void failRemaining() {
+    final List<Command> remaining = new ArrayList<>();
+    queue.drainTo(remaining);
+    final ConflictException stopped =
+        new ConflictException(MessageConstant.Transaction.LEDGER_BUSY);
+    for (Command command : remaining) {
+      if (command instanceof Transfer transfer) {
+        transfer.result().completeExceptionally(stopped);
+      } else if (command instanceof Credit credit) {
+        credit.result().completeExceptionally(stopped);
+      } else if (command instanceof Exclusive<?> exclusive) {
+        exclusive.result().completeExceptionally(stopped);
+      }
+    }
+  }
+
+  private sealed interface Command permits Transfer, Credit, Exclusive, Stop {}
+
+  private record Transfer(
+      UUID senderWalletId,
+      UUID receiverWalletId,
+      LedgerPartitionProcessor receiverPartition,
+      BigDecimal amount,
+      String outDescription,
+      String inDescription,
+      CompletableFuture<TransferBalances> result)
+      implements Command {}
+
+  private record Credit(
+      LedgerRecord out,
+      BigDecimal senderBefore,
+      String description,
+      CompletableFuture<TransferBalances> result)
+      implements Command {}
+
+  private record Exclusive<T>(UUID walletId, Supplier<T> operation, CompletableFuture<T> result)
+      implements Command {}
+
+  private record Stop() implements Command {}
+}
@@ -0,0 +1,85 @@
+package com.natswarchuan.payment.demo.service.ledger;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Một bản ghi journal của engine số dư trong bộ nhớ.
+ *
+ * <p>Mỗi bản ghi tương ứng với đúng một hàng {@code transactions} và một thay đổi số dư của một ví:
+ *
+ * <ul>
+ *   <li>{@link Kind#OUT}: phần trừ tiền của một giao dịch chuyển tiền, ghi ở partition của ví gửi.
+ *   <li>{@link Kind#IN}: phần cộng tiền, ghi ở partition của ví nhận; {@code relatedTransactionId}
+ *       trỏ về bản ghi {@code OUT}.
+ *   <li>{@link Kind#OUT_CARRIED}: bản sao của một {@code OUT} đã được ghi xuống cơ sở dữ liệu nhưng
+ *       phần cộng tiền chưa được xác nhận, được chép sang journal mới khi quay vòng; chỉ dùng để khôi
+ *       phục phần cộng tiền còn thiếu, không bao giờ được ghi lại.
+ * </ul>
+ *
+ * @param partition Partition sở hữu bản ghi.
+ * @param sequence Số thứ tự tăng dần trong partition.
+ * @param kind Loại bản ghi.
+ * @param transactionId ID của hàng {@code transactions} tương ứng (được cấp trước).
+ * @param walletId Ví bị thay đổi số dư.
+ * @param counterpartyWalletId Ví đối ứng (ví nhận với {@code OUT}, ví gửi với {@code IN}).
+ * @param relatedTransactionId ID của giao dịch {@code OUT} tương ứng với một {@code IN}, hoặc {@code
+ *     null}.
+ * @param amount Số tiền (luôn dương).
+ * @param balanceAfter Số dư của ví sau khi áp dụng bản ghi.
+ * @param description Mô tả của giao dịch.
+ */
+public record LedgerRecord(
+    int partition,
+    long sequence,
+    Kind kind,
+    UUID transactionId,
+    UUID walletId,
+    UUID counterpartyWalletId,
+    UUID relatedTransactionId,
+    BigDecimal amount,
+    BigDecimal balanceAfter,
+    String description) {
+
+  /** Loại của một bản ghi journal. */
+  public enum Kind {
+    OUT,
+    IN,
+    OUT_CARRIED
+  }
+
+  /**
+   * Tạo bản sao của bản ghi này với số thứ tự và loại mới.
+   *
+   * @param newSequence Số thứ tự mới.
+   * @param newKind Loại mới.
+   * @return Bản ghi mới.
+   */
+  public LedgerRecord withSequence(final long newSequence, final Kind newKind) {
+    return new LedgerRecord(
+        partition,
+        newSequence,
+        newKind,
+        transactionId,
+        walletId,
+        counterpartyWalletId,
+        relatedTransactionId,
+        amount,
+        balanceAfter,
+        description);
+  }
+
+  /**
+   * Lượng thay đổi số dư của ví do bản ghi này gây ra.
+   *
+   * @return {@code -amount} với {@code OUT}, {@code amount} với {@code IN}, 0 với {@code
+   *     OUT_CARRIED}.
+   */
+  public BigDecimal balanceDelta() {
+    return switch (kind) {
+      case OUT -> amount.negate();
+      case IN -> amount;
+      case OUT_CARRIED -> BigDecimal.ZERO;
+    };
+  }
+}
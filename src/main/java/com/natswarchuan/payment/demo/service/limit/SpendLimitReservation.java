@@ -0,0 +1,76 @@
+package com.natswarchuan.payment.demo.service.limit;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Một lần giữ chỗ hạn mức, cần được trả lại nếu thao tác không thành công.
+ *
+ * <p>Giữ chỗ của một lần rút tiền được lưu cùng yêu cầu chi trả (xem {@link #encode()}), để có thể
+ * trả lại khi cổng thanh toán từ chối yêu cầu, sau khi tiến trình đã tạo giữ chỗ kết thúc.
+ *
+ * @param walletId ID của ví.
+ * @param operation Thao tác đã giữ chỗ.
+ * @param keys Các khóa Redis của từng cửa sổ.
+ * @param amountUnits Số tiền đã giữ chỗ, quy đổi sang số nguyên.
+ * @param buckets Bucket đã cộng vào, theo thứ tự của {@code keys}.
+ */
+public record SpendLimitReservation(
+    UUID walletId, String operation, List<String> keys, long amountUnits, List<Long> buckets) {
+
+  /** Giữ chỗ rỗng, dùng khi hạn mức bị tắt hoặc bỏ qua; trả lại không có tác dụng. */
+  public static final SpendLimitReservation NONE =
+      new SpendLimitReservation(null, null, List.of(), 0L, List.of());
+
+  private static final String FIELD_SEPARATOR = "|";
+  private static final String LIST_SEPARATOR = ",";
+
+  /**
+   * Khôi phục một giữ chỗ từ dạng chuỗi của {@link #encode()}.
+   *
+   * @param encoded Chuỗi đã mã hóa, có thể {@code null}.
+   * @return giữ chỗ đã khôi phục, hoặc {@link #NONE} nếu chuỗi rỗng.
+   */
+  public static SpendLimitReservation decode(final String encoded) {
+    if (encoded == null || encoded.isEmpty()) {
+      return NONE;
+    }
+    final String[] fields = encoded.split(Pattern.quote(FIELD_SEPARATOR), -1);
+    return new SpendLimitReservation(
+        UUID.fromString(fields[0]),
+        fields[1],
+        List.of(fields[2].split(LIST_SEPARATOR)),
+        Long.parseLong(fields[3]),
+        Arrays.stream(fields[4].split(LIST_SEPARATOR)).map(Long::valueOf).toList());
+  }
+
+  /**
+   * Kiểm tra giữ chỗ có rỗng hay không.
+   *
+   * @return {@code true} nếu không có gì cần trả lại.
+   */
+  public boolean isEmpty() {
+    return keys.isEmpty();
+  }
+
+  /**
+   * Mã hóa giữ chỗ thành một chuỗi để lưu trữ ({@code walletId|operation|keys|amountUnits|buckets},
+   * các phần tử danh sách cách nhau bởi dấu phẩy).
+   *
+   * @return chuỗi đã mã hóa, hoặc {@code null} nếu giữ chỗ rỗng.
+   */
+  public String encode() {
+    if (isEmpty()) {
+      return null;
+    }
+    return String.join(
+        FIELD_SEPARATOR,
+        walletId.toString(),
+        operation,
+        String.join(LIST_SEPARATOR, keys),
+        Long.toString(amountUnits),
+        String.join(LIST_SEPARATOR, buckets.stream().map(String::valueOf).toList()));
+  }
+}
@@ -0,0 +1,271 @@
+package com.natswarchuan.payment.demo.service.limit;
+
+import com.natswarchuan.payment.demo.constant.AppConfigConstant;
+import com.natswarchuan.payment.demo.constant.LimitConstant;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.constant.SecurityConstant;
+import com.natswarchuan.payment.demo.exception.custom.RateLimitExceededException;
+import com.natswarchuan.payment.demo.exception.custom.ServiceUnavailableException;
+import com.natswarchuan.payment.demo.interfaces.services.ISpendLimitService;
+import com.natswarchuan.payment.demo.util.AmountUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+/**
+ * Dịch vụ hạn mức giao dịch theo cửa sổ trượt, lưu trong Redis.
+ *
+ * <p>Mỗi (ví, thao tác, kỳ) là một hash Redis chia thành các bucket thời gian (24 bucket 1 giờ cho
+ * kỳ ngày, 30 bucket 1 ngày cho kỳ tháng). Việc kiểm tra mọi kỳ và cộng vào bucket hiện tại được
+ * thực hiện trong một script Lua, nên hai yêu cầu đồng thời của cùng một ví không thể cùng vượt qua
+ * hạn mức; khóa của các kỳ dùng chung hash tag {@code {walletId}} để nằm trên cùng một slot khi
+ * chạy Redis Cluster. Không có truy vấn {@code SUM} nào trên MySQL và không khóa nào của MySQL bị
+ * giữ trong lúc kiểm tra.
+ *
+ * <p>Một near-cache cục bộ ghi nhớ các lần từ chối trong thời gian ngắn: yêu cầu lặp lại với số
+ * tiền không nhỏ hơn (hoặc khi đã hết số lần) bị từ chối ngay mà không gọi Redis. Các lần chấp nhận
+ * luôn đi qua Redis, vì chỉ Redis biết mức sử dụng của mọi instance.
+ *
+ * <p>Bậc hạn mức được chọn theo vai trò: người dùng có {@code ROLE_VERIFIED_USER} dùng bậc đã xác
+ * minh, những người dùng khác dùng bậc mặc định.
+ */
+@Service
+@Slf4j
+public class SpendLimitService implements ISpendLimitService {
+
+  private static final String VERIFIED_AUTHORITY =
+      SecurityConstant.ROLE_PREFIX + SecurityConstant.ROLE_VERIFIED_USER;
+
+  private final StringRedisTemplate redisTemplate;
+  private final MeterRegistry meterRegistry;
+
+  @SuppressWarnings("rawtypes")
+  private final RedisScript<List> reserveScript =
+      RedisScript.of(new ClassPathResource(LimitConstant.RESERVE_SCRIPT), List.class);
+
+  @SuppressWarnings("rawtypes")
+  private final RedisScript<List> releaseScript =
+      RedisScript.of(new ClassPathResource(LimitConstant.RELEASE_SCRIPT), List.class);
+
+  private final boolean enabled;
+  private final boolean failOpen;
+  private final long denialTtlMs;
+  private final Map<String, List<SpendLimitWindow>> defaultTier;
+  private final Map<String, List<SpendLimitWindow>> verifiedTier;
+  private final Map<String, Denial> denials;
+
+  /**
+   * Khởi tạo SpendLimitService.
+   *
+   * <p>Mỗi hạn mức có dạng {@code <số tiền ngày>/<số lần ngày>,<số tiền tháng>/<số lần tháng>}.
+   *
+   * @param redisTemplate Template truy cập Redis.
+   * @param meterRegistry Registry ghi nhận số liệu của hạn mức.
+   * @param enabled Bật hoặc tắt việc kiểm tra hạn mức.
+   * @param failOpen Cho phép thao tác khi không kết nối được Redis.
+   * @param denialTtlMs Thời gian (ms) near-cache ghi nhớ một lần từ chối.
+   * @param nearCacheSize Số lần từ chối tối đa được ghi nhớ.
+   * @param userWithdrawal Hạn mức rút tiền của bậc mặc định.
+   * @param userTransfer Hạn mức chuyển tiền của bậc mặc định.
+   * @param verifiedWithdrawal Hạn mức rút tiền của bậc đã xác minh.
+   * @param verifiedTransfer Hạn mức chuyển tiền của bậc đã xác minh.
+   */
+  public SpendLimitService(
+      final StringRedisTemplate redisTemplate,
+      final MeterRegistry meterRegistry,
+      @Value("${app.limits.enabled:true}") final boolean enabled,
+      @Value("${app.limits.fail-open:false}") final boolean failOpen,
+      @Value("${app.limits.near-cache.denial-ttl-ms:1000}") final long denialTtlMs,
+      @Value("${app.limits.near-cache.size:100000}") final int nearCacheSize,
+      @Value("${app.limits.tier.user.withdrawal:20000000/10,100000000/100}")
+          final String userWithdrawal,
+      @Value("${app.limits.tier.user.transfer:20000000/50,100000000/500}")
+          final String userTransfer,
+      @Value("${app.limits.tier.verified-user.withdrawal:100000000/20,1000000000/300}")
+          final String verifiedWithdrawal,
+      @Value("${app.limits.tier.verified-user.transfer:100000000/100,1000000000/2000}")
+          final String verifiedTransfer) {
+    this.redisTemplate = redisTemplate;
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.failOpen = failOpen;
+    this.denialTtlMs = denialTtlMs;
+    this.defaultTier =
+        Map.of(
+            LimitConstant.Operation.WITHDRAWAL, parseWindows(userWithdrawal),
+            LimitConstant.Operation.TRANSFER, parseWindows(userTransfer));
+    this.verifiedTier =
+        Map.of(
+            LimitConstant.Operation.WITHDRAWAL, parseWindows(verifiedWithdrawal),
+            LimitConstant.Operation.TRANSFER, parseWindows(verifiedTransfer));
+    this.denials =
+        Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(final Map.Entry<String, Denial> eldest) {
+                return size() > nearCacheSize;
+              }
+            });
+  }
+
+  @Override
+  public SpendLimitReservation reserve(
+      final UUID walletId,
+      final Collection<String> authorities,
+      final String operation,
+      final BigDecimal amount) {
+    if (!enabled) {
+      return SpendLimitReservation.NONE;
+    }
+    final List<SpendLimitWindow> windows =
+        (authorities.contains(VERIFIED_AUTHORITY) ? verifiedTier : defaultTier).get(operation);
+    if (windows == null || windows.isEmpty()) {
+      return SpendLimitReservation.NONE;
+    }
+    final long amountUnits = AmountUtil.toUnits(amount);
+    final String cacheKey = walletId + ":" + operation;
+    final long nowMillis = System.currentTimeMillis();
+    final Denial denial = denials.get(cacheKey);
+    if (denial != null) {
+      if (denial.expiresAtMillis() > nowMillis && amountUnits >= denial.minAmountUnits()) {
+        meterRegistry
+            .counter(
+                MetricConstant.SPEND_LIMIT_NEAR_CACHE_HIT, MetricConstant.TAG_OPERATION, operation)
+            .increment();
+        throw new RateLimitExceededException(denial.message());
+      }
+      if (denial.expiresAtMillis() <= nowMillis) {
+        denials.remove(cacheKey);
+      }
+    }
+
+    final List<String> keys = new ArrayList<>(windows.size());
+    final List<String> args = new ArrayList<>(2 + windows.size() * 4);
+    args.add(Long.toString(nowMillis / 1000));
+    args.add(Long.toString(amountUnits));
+    for (final SpendLimitWindow window : windows) {
+      keys.add(key(walletId, operation, window.period()));
+      args.add(Long.toString(window.bucketSeconds()));
+      args.add(Integer.toString(window.buckets()));
+      args.add(Long.toString(window.maxAmountUnits()));
+      args.add(Long.toString(window.maxCount()));
+    }
+
+    final List<?> result;
+    try {
+      result = redisTemplate.execute(reserveScript, keys, args.toArray());
+    } catch (DataAccessException e) {
+      meterRegistry
+          .counter(MetricConstant.SPEND_LIMIT_UNAVAILABLE, MetricConstant.TAG_OPERATION, operation)
+          .increment();
+      if (failOpen) {
+        log.warn(LogConstant.SPEND_LIMIT_UNAVAILABLE_FAIL_OPEN, operation, walletId, e);
+        return SpendLimitReservation.NONE;
+      }
+      log.error(LogConstant.SPEND_LIMIT_UNAVAILABLE_FAIL_CLOSED, operation, walletId, e);
+      throw new ServiceUnavailableException(MessageConstant.Wallet.SPEND_LIMIT_UNAVAILABLE);
+    }
+
+    final long violated = ((Number) result.get(0)).longValue();
+    if (violated == 0) {
+      final List<Long> buckets = new ArrayList<>(windows.size());
+      for (int i = 1; i < result.size(); i++) {
+        buckets.add(((Number) result.get(i)).longValue());
+      }
+      return new SpendLimitReservation(walletId, operation, keys, amountUnits, buckets);
+    }
+
+    final SpendLimitWindow window = windows.get((int) violated - 1);
+    final boolean byAmount = ((Number) result.get(1)).longValue() == LimitConstant.Rejection.AMOUNT;
+    final String message =
+        String.format(
+            byAmount
+                ? MessageConstant.Wallet.SPEND_LIMIT_AMOUNT_EXCEEDED
+                : MessageConstant.Wallet.SPEND_LIMIT_COUNT_EXCEEDED,
+            operation,
+            window.period());
+    denials.put(
+        cacheKey, new Denial(nowMillis + denialTtlMs, byAmount ? amountUnits : 0L, message));
+    meterRegistry
+        .counter(
+            MetricConstant.SPEND_LIMIT_REJECTED,
+            MetricConstant.TAG_OPERATION,
+            operation,
+            MetricConstant.TAG_PERIOD,
+            window.period())
+        .increment();
+    throw new RateLimitExceededException(message);
+  }
+
+  @Override
+  public void release(final SpendLimitReservation reservation) {
+    if (reservation.isEmpty()) {
+      return;
+    }
+    final List<String> args = new ArrayList<>(1 + reservation.buckets().size());
+    args.add(Long.toString(reservation.amountUnits()));
+    reservation.buckets().forEach(bucket -> args.add(Long.toString(bucket)));
+    try {
+      redisTemplate.execute(releaseScript, reservation.keys(), args.toArray());
+      denials.remove(reservation.walletId() + ":" + reservation.operation());
+    } catch (DataAccessException e) {
+      log.warn(
+          LogConstant.SPEND_LIMIT_RELEASE_FAILED,
+          reservation.operation(),
+          reservation.walletId(),
+          e);
+    }
+  }
+
+  private static String key(final UUID walletId, final String operation, final String period) {
+    return AppConfigConstant.REDIS_SPEND_LIMIT_PREFIX
+        + "{"
+        + walletId
+        + "}:"
+        + operation
+        + ":"
+        + period;
+  }
+
+  /** Đọc hạn mức dạng {@code <số tiền ngày>/<số lần ngày>,<số tiền tháng>/<số lần tháng>}. */
+  private static List<SpendLimitWindow> parseWindows(final String spec) {
+    final String[] periods = spec.split(",");
+    if (periods.length != 2) {
+      throw new IllegalArgumentException(
+          String.format(MessageConstant.Wallet.SPEND_LIMIT_CONFIG_INVALID, spec));
+    }
+    final String[] day = periods[0].trim().split("/");
+    final String[] month = periods[1].trim().split("/");
+    return List.of(
+        new SpendLimitWindow(
+            LimitConstant.Period.DAY,
+            LimitConstant.Period.DAY_BUCKET_SECONDS,
+            LimitConstant.Period.DAY_BUCKETS,
+            AmountUtil.toUnits(new BigDecimal(day[0].trim())),
+            Long.parseLong(day[1].trim())),
+        new SpendLimitWindow(
+            LimitConstant.Period.MONTH,
+            LimitConstant.Period.MONTH_BUCKET_SECONDS,
+            LimitConstant.Period.MONTH_BUCKETS,
+            AmountUtil.toUnits(new BigDecimal(month[0].trim())),
+            Long.parseLong(month[1].trim())));
+  }
+
+  /** Một lần từ chối được ghi nhớ trong near-cache. */
+  private record Denial(long expiresAtMillis, long minAmountUnits, String message) {}
+}
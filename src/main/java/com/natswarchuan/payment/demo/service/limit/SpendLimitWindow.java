@@ -0,0 +1,13 @@
+package com.natswarchuan.payment.demo.service.limit;
+
+/**
+ * Hạn mức của một thao tác trong một cửa sổ trượt.
+ *
+ * @param period Tên kỳ (xem {@link com.natswarchuan.payment.demo.constant.LimitConstant.Period}).
+ * @param bucketSeconds Kích thước một bucket (giây).
+ * @param buckets Số bucket của cửa sổ.
+ * @param maxAmountUnits Tổng số tiền tối đa, quy đổi sang số nguyên.
+ * @param maxCount Số giao dịch tối đa.
+ */
+public record SpendLimitWindow(
+    String period, long bucketSeconds, int buckets, long maxAmountUnits, long maxCount) {}
@@ -0,0 +1,26 @@
+package com.natswarchuan.payment.demo.service.outbox;
+
+import com.natswarchuan.payment.demo.entity.OutboxEvent;
+import com.natswarchuan.payment.demo.interfaces.services.IOutboxEventSink;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Đích mặc định của outbox: phát từng sự kiện tới các {@code @EventListener} trong ứng dụng.
+ *
+ * <p>Listener được gọi đồng bộ trên luồng của relay; ngoại lệ từ listener làm lô được chuyển tiếp
+ * lại.
+ */
+@Component
+@RequiredArgsConstructor
+public class ApplicationEventOutboxSink implements IOutboxEventSink {
+
+  private final ApplicationEventPublisher eventPublisher;
+
+  @Override
+  public void publish(final List<OutboxEvent> events) {
+    events.forEach(eventPublisher::publishEvent);
+  }
+}
@@ -0,0 +1,226 @@
+package com.natswarchuan.payment.demo.service.outbox;
+
+import com.natswarchuan.payment.demo.config.datasource.ReplicaRoutingContext;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.entity.OutboxEvent;
+import com.natswarchuan.payment.demo.helper.OutboxHelper;
+import com.natswarchuan.payment.demo.interfaces.services.IOutboxEventSink;
+import com.natswarchuan.payment.demo.repository.OutboxEventRepository;
+import com.natswarchuan.payment.demo.repository.OutboxPartitionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Relay chuyển tiếp các sự kiện trong {@code outbox_events} tới các {@link IOutboxEventSink}.
+ *
+ * <p>Mỗi chu kỳ, các partition được xử lý song song. Với mỗi partition, relay chạy hai giao dịch,
+ * mỗi giao dịch đều giữ lease của partition bằng {@code SELECT ... FOR UPDATE SKIP LOCKED} trên
+ * {@code outbox_partitions} (bỏ qua nếu instance khác đang giữ). Giao dịch thứ nhất nhận (claim)
+ * các sự kiện đã commit nhưng chưa có số thứ tự và cấp cho chúng số thứ tự tiếp theo của partition;
+ * vì chỉ sự kiện đã commit mới được nhìn thấy, số thứ tự phản ánh thứ tự commit chứ không phải thứ
+ * tự {@code id}. Giao dịch thứ hai đọc một lô sự kiện đã nhận nhưng chưa chuyển tiếp theo số thứ
+ * tự, giao cho các sink rồi đánh dấu đã chuyển tiếp. Nếu một sink ném ngoại lệ, chỉ giao dịch thứ
+ * hai bị rollback và lô được chuyển tiếp lại ở chu kỳ sau với cùng số thứ tự: việc chuyển tiếp là
+ * ít nhất một lần, và sự kiện commit muộn không bao giờ vượt lên trước sự kiện đã được nhận.
+ *
+ * <p>Số sự kiện đã chuyển tiếp, độ trễ từ lúc ghi đến lúc chuyển tiếp và tuổi của sự kiện cũ nhất
+ * còn tồn đọng được ghi nhận qua Micrometer.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "app.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay implements SmartInitializingSingleton {
+
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+  private static final int CLEANUP_CHUNK_SIZE = 1_000;
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final OutboxPartitionRepository outboxPartitionRepository;
+  private final List<IOutboxEventSink> sinks;
+  private final MeterRegistry meterRegistry;
+  private final TransactionTemplate transactionTemplate;
+  private final ExecutorService executor;
+  private final int partitions;
+  private final int batchSize;
+  private final Duration retention;
+  private final AtomicLong backlogAgeMs = new AtomicLong();
+
+  /**
+   * Khởi tạo OutboxRelay.
+   *
+   * @param outboxEventRepository Kho lưu trữ cho sự kiện outbox.
+   * @param outboxPartitionRepository Kho lưu trữ cho lease của các partition.
+   * @param outboxHelper Helper ghi outbox, cung cấp số partition.
+   * @param sinks Các đích nhận sự kiện.
+   * @param meterRegistry Registry ghi nhận số liệu của relay.
+   * @param transactionManager Trình quản lý giao dịch dùng cho mỗi lô.
+   * @param threads Số partition được xử lý đồng thời.
+   * @param batchSize Số sự kiện tối đa của một lô.
+   * @param retentionDays Số ngày giữ lại các sự kiện đã chuyển tiếp.
+   */
+  public OutboxRelay(
+      final OutboxEventRepository outboxEventRepository,
+      final OutboxPartitionRepository outboxPartitionRepository,
+      final OutboxHelper outboxHelper,
+      final List<IOutboxEventSink> sinks,
+      final MeterRegistry meterRegistry,
+      final PlatformTransactionManager transactionManager,
+      @Value("${app.outbox.relay.threads:4}") final int threads,
+      @Value("${app.outbox.relay.batch-size:200}") final int batchSize,
+      @Value("${app.outbox.retention-days:7}") final long retentionDays) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.outboxPartitionRepository = outboxPartitionRepository;
+    this.sinks = sinks;
+    this.meterRegistry = meterRegistry;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.executor = Executors.newFixedThreadPool(threads);
+    this.partitions = outboxHelper.getPartitions();
+    this.batchSize = batchSize;
+    this.retention = Duration.ofDays(retentionDays);
+    meterRegistry.gauge(MetricConstant.OUTBOX_BACKLOG_AGE, backlogAgeMs);
+  }
+
+  /** Tạo các hàng lease còn thiếu cho mọi partition. */
+  @Override
+  public void afterSingletonsInstantiated() {
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          for (int partition = 0; partition < partitions; partition++) {
+            outboxPartitionRepository.insertIfMissing(partition);
+          }
+        });
+  }
+
+  /** Chuyển tiếp một lô sự kiện của mỗi partition. */
+  @Scheduled(fixedDelayString = "${app.outbox.relay.poll-interval-ms:200}")
+  public void poll() {
+    ReplicaRoutingContext.clear();
+    try {
+      final List<CompletableFuture<Long>> heads = new ArrayList<>(partitions);
+      for (int partition = 0; partition < partitions; partition++) {
+        final int partitionNo = partition;
+        heads.add(
+            CompletableFuture.supplyAsync(
+                () -> ReplicaRoutingContext.call(() -> relayPartition(partitionNo)), executor));
+      }
+      long maxAgeMs = 0;
+      for (CompletableFuture<Long> head : heads) {
+        maxAgeMs = Math.max(maxAgeMs, head.join());
+      }
+      backlogAgeMs.set(maxAgeMs);
+    } finally {
+      ReplicaRoutingContext.clear();
+    }
+  }
+
+  /** Xóa dần các sự kiện đã chuyển tiếp quá thời gian lưu giữ. */
+  @Scheduled(cron = "${app.outbox.cleanup-cron:0 30 3 * * *}")
+  public void cleanup() {
+    ReplicaRoutingContext.clear();
+    try {
+      final Instant before = Instant.now().minus(retention);
+      int deleted;
+      do {
+        deleted =
+            transactionTemplate.execute(
+                status -> outboxEventRepository.deletePublishedBefore(before, CLEANUP_CHUNK_SIZE));
+      } while (deleted == CLEANUP_CHUNK_SIZE);
+    } finally {
+      ReplicaRoutingContext.clear();
+    }
+  }
+
+  /** Dừng các luồng chuyển tiếp. */
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+    try {
+      executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Chuyển tiếp một lô của một partition.
+   *
+   * @return tuổi (ms) của sự kiện cũ nhất còn tồn đọng trước lô này, 0 nếu không có.
+   */
+  private long relayPartition(final int partitionNo) {
+    try {
+      transactionTemplate.executeWithoutResult(status -> claimBatch(partitionNo));
+      final Long ageMs = transactionTemplate.execute(status -> relayBatch(partitionNo));
+      return ageMs == null ? 0 : ageMs;
+    } catch (RuntimeException e) {
+      meterRegistry.counter(MetricConstant.OUTBOX_RELAY_FAILED).increment();
+      log.error(LogConstant.OUTBOX_RELAY_FAILED, partitionNo, e);
+      return 0;
+    }
+  }
+
+  private void claimBatch(final int partitionNo) {
+    final Optional<Long> lastSequence = outboxPartitionRepository.tryLock(partitionNo);
+    if (lastSequence.isEmpty()) {
+      return;
+    }
+    final List<OutboxEvent> events =
+        outboxEventRepository.findUnclaimed(partitionNo, Limit.of(batchSize));
+    if (events.isEmpty()) {
+      return;
+    }
+    long sequenceNo = lastSequence.get();
+    for (OutboxEvent event : events) {
+      event.claim(++sequenceNo);
+    }
+    outboxPartitionRepository.advanceSequence(partitionNo, sequenceNo);
+  }
+
+  private long relayBatch(final int partitionNo) {
+    if (outboxPartitionRepository.tryLock(partitionNo).isEmpty()) {
+      return 0;
+    }
+    final List<OutboxEvent> events =
+        outboxEventRepository.findPending(partitionNo, Limit.of(batchSize));
+    if (events.isEmpty()) {
+      return 0;
+    }
+    for (IOutboxEventSink sink : sinks) {
+      sink.publish(events);
+    }
+    final Instant now = Instant.now();
+    outboxEventRepository.markPublished(events.stream().map(OutboxEvent::getId).toList(), now);
+    for (OutboxEvent event : events) {
+      meterRegistry
+          .counter(
+              MetricConstant.OUTBOX_PUBLISHED,
+              MetricConstant.TAG_EVENT_TYPE,
+              event.getEventType())
+          .increment();
+      meterRegistry
+          .timer(MetricConstant.OUTBOX_PUBLISH_LAG)
+          .record(Duration.between(event.getCreatedAt(), now));
+    }
+    return events.get(0).getCreatedAt().until(now, ChronoUnit.MILLIS);
+  }
+}
@@ -0,0 +1,241 @@
+package com.natswarchuan.payment.demo.service.partition;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.PartitionConstant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tác vụ định kỳ quản lý phân vùng theo tháng của bảng {@code transactions}.
+ *
+ * <p>Bảng được phân vùng {@code RANGE COLUMNS(created_at)}, mỗi tháng (theo UTC) một partition
+ * {@code pYYYYMM}, cộng một partition {@code p_future} nhận mọi hàng vượt quá tháng cuối cùng đã
+ * tạo, nên việc ghi không bao giờ thất bại kể cả khi tác vụ bị trễ. Mỗi lần chạy:
+ *
+ * <ul>
+ *   <li>nếu bảng chưa được phân vùng: bỏ các khóa ngoại liên quan, đổi khóa chính thành {@code (id,
+ *       created_at)} (MySQL yêu cầu mọi khóa duy nhất chứa cột phân vùng) và phân vùng bảng từ
+ *       tháng của hàng cũ nhất. Câu lệnh này chép lại toàn bộ bảng, nên chỉ bật tác vụ trong khung
+ *       giờ bảo trì lần đầu;
+ *   <li>tạo trước các partition cho {@code months-ahead} tháng tới bằng cách tách {@code p_future}
+ *       (rỗng, nên không phải chép dữ liệu);
+ *   <li>nếu {@code retention-months > 0}: tách các partition cũ hơn ra bảng riêng {@code
+ *       transactions_pYYYYMM} ({@code EXCHANGE PARTITION}, không chép dữ liệu) rồi bỏ partition
+ *       rỗng, để lưu trữ hoặc xóa sau.
+ * </ul>
+ *
+ * <p>Các câu lệnh chạy trên cùng một kết nối, giữ khóa tên {@link
+ * PartitionConstant#MAINTENANCE_LOCK}, nên khi có nhiều instance chỉ một instance thực hiện.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "app.transactions.partitioning.enabled", havingValue = "true")
+public class TransactionPartitionManager {
+
+  private static final String TABLE = EntityConstant.TABLE_TRANSACTIONS;
+  private static final String CREATED_AT = EntityConstant.COLUMN_CREATED_AT;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final int monthsAhead;
+  private final int retentionMonths;
+
+  /**
+   * Khởi tạo TransactionPartitionManager.
+   *
+   * @param jdbcTemplate JdbcTemplate dùng để mượn một kết nối cho cả lần bảo trì.
+   * @param monthsAhead Số tháng tới cần có sẵn partition.
+   * @param retentionMonths Số tháng giữ trong bảng trước khi tách partition ra ({@code 0} để không
+   *     tách).
+   */
+  public TransactionPartitionManager(
+      final JdbcTemplate jdbcTemplate,
+      @Value("${app.transactions.partitioning.months-ahead:3}") final int monthsAhead,
+      @Value("${app.transactions.partitioning.retention-months:0}") final int retentionMonths) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.monthsAhead = monthsAhead;
+    this.retentionMonths = retentionMonths;
+  }
+
+  /** Phân vùng bảng nếu cần, tạo trước partition sắp tới và tách các partition hết hạn. */
+  @Scheduled(cron = "${app.transactions.partitioning.cron:0 20 2 * * *}", zone = "UTC")
+  public void maintain() {
+    jdbcTemplate.execute(
+        (ConnectionCallback<Void>)
+            connection -> {
+              final JdbcTemplate session =
+                  new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+              final Integer locked =
+                  session.queryForObject(
+                      "SELECT GET_LOCK(?, 0)", Integer.class, PartitionConstant.MAINTENANCE_LOCK);
+              if (locked == null || locked != 1) {
+                log.info(LogConstant.PARTITION_MAINTENANCE_SKIPPED);
+                return null;
+              }
+              try {
+                maintain(session, YearMonth.now(ZoneOffset.UTC));
+              } finally {
+                session.queryForObject(
+                    "SELECT RELEASE_LOCK(?)", Integer.class, PartitionConstant.MAINTENANCE_LOCK);
+              }
+              return null;
+            });
+  }
+
+  private void maintain(final JdbcTemplate session, final YearMonth current) {
+    final List<String> partitions =
+        session.queryForList(
+            "SELECT PARTITION_NAME FROM information_schema.PARTITIONS"
+                + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?"
+                + " AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION",
+            String.class,
+            TABLE);
+    final YearMonth last = current.plusMonths(monthsAhead);
+    if (partitions.isEmpty()) {
+      partitionTable(session, current, last);
+      return;
+    }
+    createUpcoming(session, partitions, last);
+    if (retentionMonths > 0) {
+      detachBefore(session, partitions, current.minusMonths(retentionMonths));
+    }
+  }
+
+  private void partitionTable(
+      final JdbcTemplate session, final YearMonth current, final YearMonth last) {
+    final LocalDateTime oldest =
+        session.queryForObject(
+            "SELECT MIN(" + CREATED_AT + ") FROM " + TABLE, LocalDateTime.class);
+    final YearMonth first = oldest == null ? current : YearMonth.from(oldest);
+    log.info(LogConstant.PARTITION_CONVERTING, TABLE, first, last);
+
+    for (final Map<String, Object> foreignKey :
+        session.queryForList(
+            "SELECT TABLE_NAME, CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS"
+                + " WHERE CONSTRAINT_SCHEMA = DATABASE()"
+                + " AND (TABLE_NAME = ? OR REFERENCED_TABLE_NAME = ?)",
+            TABLE,
+            TABLE)) {
+      session.execute(
+          "ALTER TABLE `"
+              + foreignKey.get("TABLE_NAME")
+              + "` DROP FOREIGN KEY `"
+              + foreignKey.get("CONSTRAINT_NAME")
+              + "`");
+    }
+    session.execute(
+        "ALTER TABLE "
+            + TABLE
+            + " DROP PRIMARY KEY, ADD PRIMARY KEY (id, "
+            + CREATED_AT
+            + ") PARTITION BY RANGE COLUMNS("
+            + CREATED_AT
+            + ") ("
+            + definitions(first, last, true)
+            + ")");
+    log.info(LogConstant.PARTITION_CONVERTED, TABLE);
+  }
+
+  private void createUpcoming(
+      final JdbcTemplate session, final List<String> partitions, final YearMonth last) {
+    YearMonth newest = null;
+    for (final String name : partitions) {
+      final YearMonth month = monthOf(name);
+      if (month != null && (newest == null || month.isAfter(newest))) {
+        newest = month;
+      }
+    }
+    if (newest == null || !newest.isBefore(last)) {
+      return;
+    }
+    final YearMonth first = newest.plusMonths(1);
+    if (partitions.contains(PartitionConstant.FUTURE_PARTITION)) {
+      session.execute(
+          "ALTER TABLE "
+              + TABLE
+              + " REORGANIZE PARTITION "
+              + PartitionConstant.FUTURE_PARTITION
+              + " INTO ("
+              + definitions(first, last, true)
+              + ")");
+    } else {
+      session.execute(
+          "ALTER TABLE " + TABLE + " ADD PARTITION (" + definitions(first, last, false) + ")");
+    }
+    log.info(LogConstant.PARTITION_CREATED, TABLE, first, last);
+  }
+
+  private void detachBefore(
+      final JdbcTemplate session, final List<String> partitions, final YearMonth cutoff) {
+    for (final String name : partitions) {
+      final YearMonth month = monthOf(name);
+      if (month == null || !month.isBefore(cutoff)) {
+        continue;
+      }
+      final String archive = TABLE + PartitionConstant.ARCHIVE_TABLE_SEPARATOR + name;
+      final Integer exists =
+          session.queryForObject(
+              "SELECT COUNT(*) FROM information_schema.TABLES"
+                  + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+              Integer.class,
+              archive);
+      if (exists != null && exists > 0) {
+        log.warn(LogConstant.PARTITION_ARCHIVE_EXISTS, name, archive);
+        continue;
+      }
+      session.execute("CREATE TABLE " + archive + " LIKE " + TABLE);
+      session.execute("ALTER TABLE " + archive + " REMOVE PARTITIONING");
+      session.execute(
+          "ALTER TABLE " + TABLE + " EXCHANGE PARTITION " + name + " WITH TABLE " + archive);
+      session.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + name);
+      log.info(LogConstant.PARTITION_DETACHED, name, archive);
+    }
+  }
+
+  /** Định nghĩa các partition theo tháng từ {@code first} tới {@code last} (bao gồm cả hai). */
+  private static String definitions(
+      final YearMonth first, final YearMonth last, final boolean withFuture) {
+    final List<String> definitions = new ArrayList<>();
+    for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+      definitions.add(
+          "PARTITION "
+              + PartitionConstant.MONTHLY_PREFIX
+              + month.format(PartitionConstant.MONTH_FORMAT)
+              + " VALUES LESS THAN ('"
+              + month.plusMonths(1).atDay(1)
+              + "')");
+    }
+    if (withFuture) {
+      definitions.add(
+          "PARTITION " + PartitionConstant.FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+    }
+    return String.join(", ", definitions);
+  }
+
+  /** Tháng của một partition theo tháng, hoặc {@code null} với các partition khác. */
+  private static YearMonth monthOf(final String partition) {
+    if (!partition.startsWith(PartitionConstant.MONTHLY_PREFIX)) {
+      return null;
+    }
+    try {
+      return YearMonth.parse(
+          partition.substring(PartitionConstant.MONTHLY_PREFIX.length()),
+          PartitionConstant.MONTH_FORMAT);
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+}
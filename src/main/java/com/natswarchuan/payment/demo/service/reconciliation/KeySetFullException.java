@@ -0,0 +1,29 @@
+package com.natswarchuan.payment.demo.service.reconciliation;
+
+/**
+ * Ngoại lệ được ném khi một {@link TransactionKeySet} đã đầy.
+ *
+ * <p>Đây là lỗi nội bộ của việc chia lượt đối soát (ví dụ hash của ID giao dịch phân bố lệch nên
+ * một lượt nhận nhiều ID hơn dung lượng), không phải lỗi của file quyết toán, nên được tách khỏi
+ * {@link IllegalStateException} mà {@link SettlementFileReader} dùng cho file không hợp lệ.
+ */
+final class KeySetFullException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int capacity;
+
+  /**
+   * Tạo ngoại lệ cho một tập có dung lượng đã cho.
+   *
+   * @param capacity Dung lượng của tập.
+   */
+  KeySetFullException(final int capacity) {
+    super("Tập ID giao dịch đã đầy (" + capacity + ")");
+    this.capacity = capacity;
+  }
+
+  int getCapacity() {
+    return capacity;
+  }
+}
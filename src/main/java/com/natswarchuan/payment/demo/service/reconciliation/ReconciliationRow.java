@@ -0,0 +1,11 @@
+package com.natswarchuan.payment.demo.service.reconciliation;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Các cột của một giao dịch cần cho đối soát, được đọc trực tiếp bằng constructor expression để
+ * không phải tải entity {@link com.natswarchuan.payment.demo.entity.Transaction}.
+ */
+public record ReconciliationRow(
+    UUID id, String providerTransactionId, BigDecimal amount, Integer status) {}
@@ -0,0 +1,319 @@
+package com.natswarchuan.payment.demo.service.reconciliation;
+
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.ReconciliationConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.dto.request.reconciliation.ReconcileSettlementRequest;
+import com.natswarchuan.payment.demo.dto.response.reconciliation.ReconciliationSummaryResponse;
+import com.natswarchuan.payment.demo.exception.HttpException;
+import com.natswarchuan.payment.demo.exception.custom.BadRequestException;
+import com.natswarchuan.payment.demo.interfaces.services.IReconciliationService;
+import com.natswarchuan.payment.demo.repository.TransactionRepository;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+/**
+ * Dịch vụ đối soát file quyết toán của VNPAY với bảng {@code transactions}.
+ *
+ * <p>File được đọc tuần tự bằng {@link SettlementFileReader} (memory-mapped) và đối chiếu theo lô:
+ * mỗi lô tra cứu các giao dịch theo khóa chính ({@code vnp_TxnRef} chính là ID giao dịch), rồi tra
+ * cứu các dòng không tìm thấy theo {@code providerTransactionId} (chỉ mục {@code
+ * idx_txn_provider_id}) để phân biệt dòng thuộc về giao dịch khác với dòng không có trong cơ sở dữ
+ * liệu. Chỉ các cột cần đối soát được đọc, không tải entity. Sau khi đọc hết file, các giao dịch
+ * nạp/rút đã hoàn tất trong kỳ được duyệt theo khóa (keyset) để tìm giao dịch không có trong file.
+ *
+ * <p>Để bộ nhớ có giới hạn với file hàng triệu dòng, các ID đã khớp được giữ trong một {@link
+ * TransactionKeySet} có dung lượng cố định ({@code app.reconciliation.max-keys-per-pass}). Khi file
+ * có nhiều dòng hơn, việc đối soát được chia thành nhiều lượt theo hash của ID giao dịch; mỗi lượt
+ * đọc lại file (rẻ nhờ memory-mapped I/O) và chỉ xử lý các giao dịch thuộc lượt đó. Nếu hash phân
+ * bố lệch khiến một lượt vượt quá dung lượng, lần đối soát dừng với lỗi 500 thay vì báo file không
+ * hợp lệ.
+ */
+@Service
+@Slf4j
+public class ReconciliationService implements IReconciliationService {
+
+  private static final UUID MIN_ID = new UUID(0, 0);
+  private static final List<Integer> GATEWAY_TYPES =
+      List.of(TransactionConstant.Type.DEPOSIT, TransactionConstant.Type.WITHDRAWAL);
+  private static final double PASS_FILL_RATIO = 0.9;
+
+  private final TransactionRepository transactionRepository;
+  private final Path inputDir;
+  private final Path reportDir;
+  private final int batchSize;
+  private final int maxKeysPerPass;
+  private final int mapWindowBytes;
+
+  /**
+   * Khởi tạo ReconciliationService.
+   *
+   * @param transactionRepository Kho lưu trữ cho giao dịch.
+   * @param inputDir Thư mục chứa các file quyết toán.
+   * @param reportDir Thư mục ghi báo cáo đối soát.
+   * @param batchSize Số dòng được tra cứu trong một truy vấn.
+   * @param maxKeysPerPass Số ID giao dịch tối đa được giữ trong bộ nhớ trong một lượt.
+   * @param mapWindowMb Kích thước (MB) của cửa sổ ánh xạ file.
+   */
+  public ReconciliationService(
+      final TransactionRepository transactionRepository,
+      @Value("${app.reconciliation.input-dir:./data/settlement}") final String inputDir,
+      @Value("${app.reconciliation.report-dir:./data/reconciliation}") final String reportDir,
+      @Value("${app.reconciliation.batch-size:1000}") final int batchSize,
+      @Value("${app.reconciliation.max-keys-per-pass:2000000}") final int maxKeysPerPass,
+      @Value("${app.reconciliation.map-window-mb:64}") final int mapWindowMb) {
+    this.transactionRepository = transactionRepository;
+    this.inputDir = Path.of(inputDir).toAbsolutePath().normalize();
+    this.reportDir = Path.of(reportDir).toAbsolutePath().normalize();
+    this.batchSize = batchSize;
+    this.maxKeysPerPass = maxKeysPerPass;
+    this.mapWindowBytes = mapWindowMb * 1024 * 1024;
+  }
+
+  @Override
+  public ReconciliationSummaryResponse reconcile(final ReconcileSettlementRequest request) {
+    if (!request.getFrom().isBefore(request.getTo())) {
+      throw new BadRequestException(MessageConstant.Reconciliation.INVALID_PERIOD);
+    }
+    final Path file = inputDir.resolve(request.getFileName()).normalize();
+    if (!file.startsWith(inputDir) || !Files.isRegularFile(file)) {
+      throw new BadRequestException(
+          MessageConstant.Reconciliation.SETTLEMENT_FILE_NOT_FOUND, request.getFileName());
+    }
+    final Path report =
+        reportDir.resolve(
+            file.getFileName()
+                + "."
+                + System.currentTimeMillis()
+                + ReconciliationConstant.REPORT_SUFFIX);
+
+    try (SettlementFileReader reader = new SettlementFileReader(file, mapWindowBytes)) {
+      Files.createDirectories(reportDir);
+      try (BufferedWriter writer = Files.newBufferedWriter(report)) {
+        writer.write(ReconciliationConstant.REPORT_HEADER);
+        writer.newLine();
+        final long rows = reader.countRecords();
+        final int passes =
+            (int) Math.max(1, Math.ceil(rows / (maxKeysPerPass * PASS_FILL_RATIO)));
+        log.info(LogConstant.RECONCILIATION_STARTED, file.getFileName(), rows, passes);
+
+        final Run run = new Run(request, writer, passes);
+        for (int pass = 0; pass < passes; pass++) {
+          run.reconcilePass(
+              reader, pass, passes == 1 ? (int) Math.max(1, rows) : maxKeysPerPass);
+        }
+        final long mismatched = run.mismatches.values().stream().mapToLong(Long::longValue).sum();
+        log.info(
+            LogConstant.RECONCILIATION_FINISHED,
+            file.getFileName(),
+            run.matched,
+            mismatched,
+            report);
+        return new ReconciliationSummaryResponse(
+            file.getFileName().toString(),
+            report.toString(),
+            rows,
+            run.matched,
+            passes,
+            run.mismatches);
+      }
+    } catch (KeySetFullException e) {
+      log.error(LogConstant.RECONCILIATION_PASS_OVERFLOW, file.getFileName(), e.getCapacity(), e);
+      throw new HttpException(
+          HttpStatus.INTERNAL_SERVER_ERROR,
+          MessageConstant.Reconciliation.PASS_CAPACITY_EXCEEDED,
+          e.getCapacity());
+    } catch (IllegalStateException e) {
+      throw new BadRequestException(
+          MessageConstant.Reconciliation.SETTLEMENT_FILE_INVALID, e.getMessage());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Trạng thái của một lần đối soát. */
+  private final class Run {
+
+    private final ReconcileSettlementRequest request;
+    private final BufferedWriter writer;
+    private final int passes;
+    private final Map<String, Long> mismatches = new LinkedHashMap<>();
+    private long matched;
+
+    private Run(
+        final ReconcileSettlementRequest request, final BufferedWriter writer, final int passes) {
+      this.request = request;
+      this.writer = writer;
+      this.passes = passes;
+      for (String type :
+          List.of(
+              ReconciliationConstant.Mismatch.AMOUNT,
+              ReconciliationConstant.Mismatch.STATUS,
+              ReconciliationConstant.Mismatch.PROVIDER_ID,
+              ReconciliationConstant.Mismatch.REFERENCE,
+              ReconciliationConstant.Mismatch.MISSING_IN_DATABASE,
+              ReconciliationConstant.Mismatch.MISSING_IN_FILE,
+              ReconciliationConstant.Mismatch.MALFORMED)) {
+        mismatches.put(type, 0L);
+      }
+    }
+
+    private void reconcilePass(
+        final SettlementFileReader reader, final int pass, final int capacity) {
+      final TransactionKeySet seen = new TransactionKeySet(capacity);
+      final List<SettlementRecord> batch = new ArrayList<>(batchSize);
+      reader.forEach(
+          record -> {
+            if (!record.isValid()) {
+              if (pass == 0) {
+                report(ReconciliationConstant.Mismatch.MALFORMED, record, null);
+              }
+              return;
+            }
+            if (partitionOf(record.transactionId()) != pass) {
+              return;
+            }
+            batch.add(record);
+            if (batch.size() == batchSize) {
+              matchBatch(batch, seen);
+              batch.clear();
+            }
+          });
+      if (!batch.isEmpty()) {
+        matchBatch(batch, seen);
+      }
+      findMissingInFile(pass, seen);
+    }
+
+    private void matchBatch(final List<SettlementRecord> batch, final TransactionKeySet seen) {
+      final Map<UUID, ReconciliationRow> byId = new HashMap<>();
+      final List<UUID> ids = batch.stream().map(SettlementRecord::transactionId).toList();
+      transactionRepository
+          .findReconciliationRowsByIdIn(ids)
+          .forEach(row -> byId.put(row.id(), row));
+
+      final List<String> unmatchedProviderIds =
+          batch.stream()
+              .filter(record -> !byId.containsKey(record.transactionId()))
+              .map(SettlementRecord::providerTransactionId)
+              .filter(id -> id != null && !id.isEmpty())
+              .toList();
+      final Map<String, ReconciliationRow> byProviderId = new HashMap<>();
+      if (!unmatchedProviderIds.isEmpty()) {
+        transactionRepository
+            .findReconciliationRowsByProviderTransactionIdIn(unmatchedProviderIds)
+            .forEach(row -> byProviderId.put(row.providerTransactionId(), row));
+      }
+
+      for (SettlementRecord record : batch) {
+        final ReconciliationRow row = byId.get(record.transactionId());
+        if (row == null) {
+          final ReconciliationRow other = byProviderId.get(record.providerTransactionId());
+          report(
+              other != null
+                  ? ReconciliationConstant.Mismatch.REFERENCE
+                  : ReconciliationConstant.Mismatch.MISSING_IN_DATABASE,
+              record,
+              other);
+          continue;
+        }
+        seen.add(row.id());
+        boolean consistent = true;
+        if (row.amount().compareTo(record.amount()) != 0) {
+          report(ReconciliationConstant.Mismatch.AMOUNT, record, row);
+          consistent = false;
+        }
+        if (!statusMatches(record, row)) {
+          report(ReconciliationConstant.Mismatch.STATUS, record, row);
+          consistent = false;
+        }
+        if (row.providerTransactionId() != null
+            && !Objects.equals(row.providerTransactionId(), record.providerTransactionId())) {
+          report(ReconciliationConstant.Mismatch.PROVIDER_ID, record, row);
+          consistent = false;
+        }
+        if (consistent) {
+          matched++;
+        }
+      }
+    }
+
+    private void findMissingInFile(final int pass, final TransactionKeySet seen) {
+      UUID afterId = MIN_ID;
+      List<ReconciliationRow> page;
+      do {
+        page =
+            transactionRepository.findReconciliationRowsCreatedBetween(
+                GATEWAY_TYPES,
+                TransactionConstant.Status.COMPLETED,
+                request.getFrom(),
+                request.getTo(),
+                afterId,
+                Limit.of(batchSize));
+        for (ReconciliationRow row : page) {
+          if (partitionOf(row.id()) == pass && !seen.contains(row.id())) {
+            report(ReconciliationConstant.Mismatch.MISSING_IN_FILE, null, row);
+          }
+        }
+        if (!page.isEmpty()) {
+          afterId = page.get(page.size() - 1).id();
+        }
+      } while (page.size() == batchSize);
+    }
+
+    private boolean statusMatches(final SettlementRecord record, final ReconciliationRow row) {
+      if (record.success()) {
+        return TransactionConstant.Status.COMPLETED.equals(row.status());
+      }
+      return TransactionConstant.Status.FAILED.equals(row.status())
+          || TransactionConstant.Status.CANCELLED.equals(row.status());
+    }
+
+    private int partitionOf(final UUID transactionId) {
+      return Math.floorMod(transactionId.hashCode(), passes);
+    }
+
+    private void report(
+        final String type, final SettlementRecord record, final ReconciliationRow row) {
+      mismatches.merge(type, 1L, Long::sum);
+      final StringBuilder line = new StringBuilder(type);
+      append(line, record == null ? null : record.line());
+      append(line, record != null ? record.transactionId() : row.id());
+      append(line, record == null ? null : record.providerTransactionId());
+      append(line, record == null ? null : record.amount());
+      append(line, row == null ? null : row.amount());
+      append(line, record == null ? null : record.success());
+      append(line, row == null ? null : row.status());
+      append(line, row == null ? null : row.providerTransactionId());
+      try {
+        writer.write(line.toString());
+        writer.newLine();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void append(final StringBuilder line, final Object value) {
+      line.append(ReconciliationConstant.FIELD_SEPARATOR);
+      if (value != null) {
+        line.append(value);
+      }
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package com.natswarchuan.payment.demo.service.reconciliation;
+
+import com.natswarchuan.payment.demo.constant.ReconciliationConstant;
+import com.natswarchuan.payment.demo.constant.VnpayConstant;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Bộ đọc tuần tự file quyết toán (CSV) của VNPAY bằng memory-mapped I/O.
+ *
+ * <p>File được ánh xạ vào bộ nhớ theo từng cửa sổ có kích thước cố định thay vì đọc toàn bộ; dòng
+ * nằm vắt qua ranh giới hai cửa sổ được đọc lại từ đầu dòng ở cửa sổ kế tiếp. Bộ nhớ dùng chỉ gồm
+ * một cửa sổ ánh xạ (do hệ điều hành quản lý) và bộ đệm của một dòng, không phụ thuộc kích thước
+ * file. Các cột được xác định theo tên trong dòng tiêu đề ({@code vnp_TxnRef}, {@code
+ * vnp_TransactionNo}, {@code vnp_Amount}, {@code vnp_ResponseCode}), nên thứ tự cột và các cột
+ * khác không ảnh hưởng. Dòng trống bị bỏ qua; dòng không đọc được được trả về với {@link
+ * SettlementRecord#isValid()} bằng {@code false}.
+ */
+public class SettlementFileReader implements Closeable {
+
+  private static final byte NEW_LINE = '\n';
+  private static final byte CARRIAGE_RETURN = '\r';
+
+  private final FileChannel channel;
+  private final long size;
+  private final int windowSize;
+  private byte[] line = new byte[256];
+
+  /**
+   * Mở một file quyết toán.
+   *
+   * @param file Đường dẫn file.
+   * @param windowSize Kích thước (byte) của mỗi cửa sổ ánh xạ; phải lớn hơn dòng dài nhất.
+   * @throws UncheckedIOException nếu không mở được file.
+   */
+  public SettlementFileReader(final Path file, final int windowSize) {
+    try {
+      this.channel = FileChannel.open(file, StandardOpenOption.READ);
+      this.size = channel.size();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.windowSize = windowSize;
+  }
+
+  /**
+   * Đếm số dòng dữ liệu (không kể dòng tiêu đề và dòng trống) mà không phân tích nội dung.
+   *
+   * @return số dòng dữ liệu.
+   */
+  public long countRecords() {
+    final long[] nonEmpty = {0};
+    scanLines(
+        (bytes, length, lineNumber) -> {
+          if (length > 0) {
+            nonEmpty[0]++;
+          }
+        });
+    return Math.max(0, nonEmpty[0] - 1);
+  }
+
+  /**
+   * Đọc tuần tự mọi dòng dữ liệu của file.
+   *
+   * @param consumer Hàm nhận từng dòng theo thứ tự trong file.
+   * @throws IllegalStateException nếu file thiếu cột bắt buộc hoặc có dòng dài hơn cửa sổ ánh xạ.
+   */
+  public void forEach(final Consumer<SettlementRecord> consumer) {
+    final int[][] columns = {null};
+    scanLines(
+        (bytes, length, lineNumber) -> {
+          if (length == 0) {
+            return;
+          }
+          final List<String> fields = split(bytes, length);
+          if (columns[0] == null) {
+            columns[0] = resolveColumns(fields);
+            return;
+          }
+          consumer.accept(parse(lineNumber, fields, columns[0]));
+        });
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  @FunctionalInterface
+  private interface LineHandler {
+    void handle(byte[] bytes, int length, long lineNumber);
+  }
+
+  private void scanLines(final LineHandler handler) {
+    long position = 0;
+    long lineNumber = 0;
+    try {
+      while (position < size) {
+        final long windowLength = Math.min(windowSize, size - position);
+        final boolean lastWindow = position + windowLength == size;
+        final MappedByteBuffer window =
+            channel.map(FileChannel.MapMode.READ_ONLY, position, windowLength);
+        int lineStart = 0;
+        for (int i = 0; i < windowLength; i++) {
+          if (window.get(i) == NEW_LINE) {
+            handler.handle(line, copyLine(window, lineStart, i), ++lineNumber);
+            lineStart = i + 1;
+          }
+        }
+        if (lastWindow) {
+          if (lineStart < windowLength) {
+            handler.handle(line, copyLine(window, lineStart, (int) windowLength), ++lineNumber);
+          }
+          return;
+        }
+        if (lineStart == 0) {
+          throw new IllegalStateException(
+              "Dòng " + (lineNumber + 1) + " dài hơn cửa sổ ánh xạ " + windowSize + " byte");
+        }
+        position += lineStart;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Chép một dòng (bỏ ký tự {@code \r} cuối dòng) vào bộ đệm dòng và trả về độ dài. */
+  private int copyLine(final MappedByteBuffer window, final int start, final int end) {
+    int length = end - start;
+    if (length > line.length) {
+      line = new byte[Math.max(length, line.length * 2)];
+    }
+    window.get(start, line, 0, length);
+    if (length > 0 && line[length - 1] == CARRIAGE_RETURN) {
+      length--;
+    }
+    return length;
+  }
+
+  private static List<String> split(final byte[] bytes, final int length) {
+    final List<String> fields = new ArrayList<>();
+    int start = 0;
+    for (int i = 0; i <= length; i++) {
+      if (i == length || bytes[i] == ReconciliationConstant.FIELD_SEPARATOR) {
+        fields.add(new String(bytes, start, i - start, StandardCharsets.UTF_8).trim());
+        start = i + 1;
+      }
+    }
+    return fields;
+  }
+
+  private static int[] resolveColumns(final List<String> header) {
+    final String[] names = {
+      VnpayConstant.VNP_TXN_REF,
+      VnpayConstant.VNP_TRANSACTION_NO,
+      VnpayConstant.VNP_AMOUNT,
+      VnpayConstant.VNP_RESPONSE_CODE
+    };
+    final int[] columns = new int[names.length];
+    for (int i = 0; i < names.length; i++) {
+      columns[i] = header.indexOf(names[i]);
+      if (columns[i] < 0) {
+        throw new IllegalStateException("File quyết toán thiếu cột " + names[i]);
+      }
+    }
+    return columns;
+  }
+
+  private static SettlementRecord parse(
+      final long lineNumber, final List<String> fields, final int[] columns) {
+    final String providerTransactionId = field(fields, columns[1]);
+    final boolean success =
+        VnpayConstant.RESPONSE_SUCCESS_CODE.equals(field(fields, columns[3]));
+    UUID transactionId;
+    BigDecimal amount;
+    try {
+      transactionId = UUID.fromString(field(fields, columns[0]));
+      amount =
+          new BigDecimal(field(fields, columns[2]))
+              .divide(BigDecimal.valueOf(ReconciliationConstant.VNPAY_AMOUNT_SCALE));
+    } catch (RuntimeException e) {
+      transactionId = null;
+      amount = null;
+    }
+    return new SettlementRecord(lineNumber, transactionId, providerTransactionId, amount, success);
+  }
+
+  private static String field(final List<String> fields, final int index) {
+    return index < fields.size() ? fields.get(index) : null;
+  }
+}
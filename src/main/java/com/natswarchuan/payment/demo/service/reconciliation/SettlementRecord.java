@@ -0,0 +1,26 @@
+package com.natswarchuan.payment.demo.service.reconciliation;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Một dòng của file quyết toán.
+ *
+ * @param line Số dòng trong file (bắt đầu từ 1, kể cả dòng tiêu đề).
+ * @param transactionId ID giao dịch ({@code vnp_TxnRef}), {@code null} nếu dòng không hợp lệ.
+ * @param providerTransactionId Mã giao dịch của nhà cung cấp ({@code vnp_TransactionNo}).
+ * @param amount Số tiền đã quy đổi về đơn vị tiền tệ, {@code null} nếu dòng không hợp lệ.
+ * @param success Cổng thanh toán ghi nhận giao dịch thành công hay không.
+ */
+public record SettlementRecord(
+    long line,
+    UUID transactionId,
+    String providerTransactionId,
+    BigDecimal amount,
+    boolean success) {
+
+  /** Dòng có đọc được đầy đủ các trường cần đối soát hay không. */
+  public boolean isValid() {
+    return transactionId != null && amount != null;
+  }
+}
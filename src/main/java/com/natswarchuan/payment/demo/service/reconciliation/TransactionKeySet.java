@@ -0,0 +1,90 @@
+package com.natswarchuan.payment.demo.service.reconciliation;
+
+import java.util.UUID;
+
+/**
+ * Tập ID giao dịch có dung lượng cố định, lưu UUID dưới dạng hai mảng {@code long} (địa chỉ mở,
+ * dò tuyến tính) thay vì một đối tượng cho mỗi phần tử.
+ *
+ * <p>Mỗi phần tử tốn khoảng 32 byte bất kể số lượng, nên bộ nhớ của một lượt đối soát có thể tính
+ * trước từ số khóa tối đa của lượt. UUID rỗng ({@code 0-0}) được dùng làm ô trống và không thể được
+ * thêm vào tập.
+ */
+final class TransactionKeySet {
+
+  private final long[] high;
+  private final long[] low;
+  private final int mask;
+  private final int capacity;
+  private int size;
+
+  /**
+   * Tạo một tập chứa được tối đa {@code capacity} ID.
+   *
+   * @param capacity Số ID tối đa.
+   */
+  TransactionKeySet(final int capacity) {
+    final int slots = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+    this.high = new long[slots];
+    this.low = new long[slots];
+    this.mask = slots - 1;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Thêm một ID vào tập.
+   *
+   * @param id ID giao dịch.
+   * @return {@code true} nếu ID chưa có trong tập.
+   * @throws KeySetFullException nếu tập đã đầy.
+   */
+  boolean add(final UUID id) {
+    final long msb = id.getMostSignificantBits();
+    final long lsb = id.getLeastSignificantBits();
+    int slot = slotOf(msb, lsb);
+    while (high[slot] != 0 || low[slot] != 0) {
+      if (high[slot] == msb && low[slot] == lsb) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    if (size == capacity) {
+      throw new KeySetFullException(capacity);
+    }
+    high[slot] = msb;
+    low[slot] = lsb;
+    size++;
+    return true;
+  }
+
+  /**
+   * Kiểm tra một ID có trong tập hay không.
+   *
+   * @param id ID giao dịch.
+   * @return {@code true} nếu ID có trong tập.
+   */
+  boolean contains(final UUID id) {
+    final long msb = id.getMostSignificantBits();
+    final long lsb = id.getLeastSignificantBits();
+    int slot = slotOf(msb, lsb);
+    while (high[slot] != 0 || low[slot] != 0) {
+      if (high[slot] == msb && low[slot] == lsb) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  int size() {
+    return size;
+  }
+
+  private int slotOf(final long msb, final long lsb) {
+    long hash = msb ^ lsb;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return (int) hash & mask;
+  }
+}
@@ -0,0 +1,327 @@
+package com.natswarchuan.payment.demo.service.statement;
+
+import com.natswarchuan.payment.demo.config.datasource.ReplicaRoutingContext;
+import com.natswarchuan.payment.demo.constant.LogConstant;
+import com.natswarchuan.payment.demo.constant.MessageConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.constant.WalletConstant;
+import com.natswarchuan.payment.demo.dto.response.statement.MonthlyStatementSummaryResponse;
+import com.natswarchuan.payment.demo.exception.custom.BadRequestException;
+import com.natswarchuan.payment.demo.exception.custom.ConflictException;
+import com.natswarchuan.payment.demo.interfaces.services.IStatementService;
+import com.natswarchuan.payment.demo.repository.TransactionRepository;
+import com.natswarchuan.payment.demo.repository.WalletRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Dịch vụ tạo sao kê hàng tháng cho mọi ví đang hoạt động.
+ *
+ * <p>ID của các ví đang hoạt động được đọc theo trang (keyset trên khóa chính); mỗi trang là một
+ * partition theo khoảng ID và được giao cho một luồng trong pool có kích thước cố định. Mỗi
+ * partition đọc giao dịch của cả khoảng ID bằng một lần quét duy nhất theo thứ tự của chỉ mục
+ * {@code (wallet_id, created_at DESC)} qua con trỏ JDBC chỉ đi tiến, rồi ghi một file CSV nén gzip
+ * cho mỗi ví (giao dịch mới nhất trước) vào {@code app.statement.output-dir/yyyy-MM}. Số partition
+ * đang chờ được giới hạn bằng semaphore, nên bộ nhớ không phụ thuộc vào số ví.
+ *
+ * <p>Tiến độ được lưu bằng {@link StatementCheckpoint}: lần chạy lại của cùng tháng bắt đầu sau ví
+ * cuối cùng chắc chắn đã có sao kê. Thông lượng (giao dịch/giây, ví/giây) được ghi log theo từng
+ * partition, trả về trong kết quả và ghi nhận qua Micrometer.
+ */
+@Service
+@Slf4j
+public class MonthlyStatementService implements IStatementService {
+
+  private static final UUID MIN_ID = new UUID(0L, 0L);
+
+  private final WalletRepository walletRepository;
+  private final TransactionRepository transactionRepository;
+  private final TransactionTemplate readOnlyTemplate;
+  private final MeterRegistry meterRegistry;
+  private final Path outputDir;
+  private final int partitionSize;
+  private final int parallelism;
+  private final int fetchSize;
+  private final ZoneId zone;
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  /**
+   * Khởi tạo MonthlyStatementService.
+   *
+   * @param walletRepository Kho lưu trữ cho ví.
+   * @param transactionRepository Kho lưu trữ cho giao dịch.
+   * @param transactionManager Trình quản lý giao dịch, dùng để mở giao dịch chỉ đọc cho từng
+   *     partition.
+   * @param meterRegistry Registry ghi nhận số liệu của tác vụ.
+   * @param outputDir Thư mục gốc ghi file sao kê.
+   * @param partitionSize Số ví trong một partition.
+   * @param parallelism Số partition được xử lý song song (mỗi partition giữ một kết nối).
+   * @param fetchSize Fetch size của JDBC; {@link Integer#MIN_VALUE} bật chế độ streaming của MySQL.
+   * @param zone Múi giờ dùng để xác định ranh giới của tháng.
+   */
+  public MonthlyStatementService(
+      final WalletRepository walletRepository,
+      final TransactionRepository transactionRepository,
+      final PlatformTransactionManager transactionManager,
+      final MeterRegistry meterRegistry,
+      @Value("${app.statement.output-dir:./data/statements}") final String outputDir,
+      @Value("${app.statement.partition-size:1000}") final int partitionSize,
+      @Value("${app.statement.parallelism:4}") final int parallelism,
+      @Value("${app.statement.fetch-size:-2147483648}") final int fetchSize,
+      @Value("${app.statement.zone:Asia/Ho_Chi_Minh}") final String zone) {
+    this.walletRepository = walletRepository;
+    this.transactionRepository = transactionRepository;
+    this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+    this.readOnlyTemplate.setReadOnly(true);
+    this.meterRegistry = meterRegistry;
+    this.outputDir = Path.of(outputDir).toAbsolutePath().normalize();
+    this.partitionSize = partitionSize;
+    this.parallelism = parallelism;
+    this.fetchSize = fetchSize;
+    this.zone = ZoneId.of(zone);
+  }
+
+  /** Tạo sao kê của tháng trước theo lịch {@code app.statement.cron} (mặc định tắt). */
+  @Scheduled(
+      cron = "${app.statement.cron:-}",
+      zone = "${app.statement.zone:Asia/Ho_Chi_Minh}")
+  public void generatePreviousMonth() {
+    ReplicaRoutingContext.clear();
+    try {
+      try {
+        generate(YearMonth.now(zone).minusMonths(1));
+      } catch (ConflictException e) {
+        log.warn(LogConstant.STATEMENT_SCHEDULED_SKIPPED, e.getMessage());
+      }
+    } finally {
+      ReplicaRoutingContext.clear();
+    }
+  }
+
+  @Override
+  public MonthlyStatementSummaryResponse generate(final YearMonth month) {
+    if (!month.isBefore(YearMonth.now(zone))) {
+      throw new BadRequestException(MessageConstant.Statement.MONTH_NOT_FINISHED, month);
+    }
+    if (!running.compareAndSet(false, true)) {
+      throw new ConflictException(MessageConstant.Statement.GENERATION_IN_PROGRESS);
+    }
+    try {
+      return new Run(month).execute();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      running.set(false);
+    }
+  }
+
+  /** Trạng thái của một lần tạo sao kê. */
+  private final class Run {
+    private final YearMonth month;
+    private final Instant from;
+    private final Instant to;
+    private final Path directory;
+    private final LongAdder partitions = new LongAdder();
+    private final LongAdder failedPartitions = new LongAdder();
+    private final LongAdder wallets = new LongAdder();
+    private final LongAdder transactions = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private long startNanos;
+
+    private Run(final YearMonth month) {
+      this.month = month;
+      this.from = month.atDay(1).atStartOfDay(zone).toInstant();
+      this.to = month.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant();
+      this.directory = outputDir.resolve(month.toString());
+    }
+
+    private MonthlyStatementSummaryResponse execute() throws IOException {
+      Files.createDirectories(directory);
+      final StatementCheckpoint checkpoint = StatementCheckpoint.open(directory);
+      final UUID resumeAfter = checkpoint.read().orElse(null);
+      log.info(LogConstant.STATEMENT_STARTED, month, directory, resumeAfter);
+      startNanos = System.nanoTime();
+
+      final ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+      final Semaphore slots = new Semaphore(parallelism * 2);
+      try {
+        UUID afterId = resumeAfter != null ? resumeAfter : MIN_ID;
+        long sequence = 0;
+        List<UUID> ids;
+        do {
+          ids =
+              walletRepository.findIdsByStatusAfter(
+                  WalletConstant.Status.ACTIVE, afterId, Limit.of(partitionSize));
+          if (ids.isEmpty()) {
+            break;
+          }
+          afterId = ids.get(ids.size() - 1);
+          final long partition = sequence++;
+          final List<UUID> walletIds = ids;
+          checkpoint.register(partition, afterId);
+          slots.acquireUninterruptibly();
+          pool.execute(
+              ReplicaRoutingContext.isolated(
+                  () -> {
+                    try {
+                      writePartition(walletIds);
+                      checkpoint.complete(partition);
+                    } catch (RuntimeException e) {
+                      failedPartitions.increment();
+                      meterRegistry
+                          .counter(MetricConstant.STATEMENT_PARTITIONS_FAILED)
+                          .increment();
+                      log.error(LogConstant.STATEMENT_PARTITION_FAILED, month, partition, e);
+                    } finally {
+                      partitions.increment();
+                      slots.release();
+                    }
+                  }));
+        } while (ids.size() == partitionSize);
+      } finally {
+        pool.shutdown();
+        awaitTermination(pool);
+      }
+
+      final long failed = failedPartitions.sum();
+      if (failed == 0) {
+        checkpoint.clear();
+      }
+      final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+      log.info(
+          LogConstant.STATEMENT_FINISHED,
+          month,
+          wallets.sum(),
+          transactions.sum(),
+          bytes.sum(),
+          elapsedMs,
+          failed);
+      return new MonthlyStatementSummaryResponse(
+          month.toString(),
+          directory.toString(),
+          resumeAfter != null ? resumeAfter.toString() : null,
+          partitions.sum(),
+          failed,
+          wallets.sum(),
+          transactions.sum(),
+          bytes.sum(),
+          elapsedMs,
+          perSecond(transactions.sum(), elapsedMs),
+          perSecond(wallets.sum(), elapsedMs));
+    }
+
+    /**
+     * Ghi sao kê cho một partition bằng một lần quét giao dịch của cả khoảng ID.
+     *
+     * <p>Khoảng ID có thể chứa ví không hoạt động; giao dịch của chúng bị bỏ qua. Ví không có giao
+     * dịch trong tháng vẫn nhận một file sao kê chỉ có dòng tiêu đề.
+     */
+    private void writePartition(final List<UUID> walletIds) {
+      final Set<UUID> pending = new LinkedHashSet<>(walletIds);
+      final long[] written = new long[2];
+      readOnlyTemplate.executeWithoutResult(
+          status -> {
+            try (Stream<StatementLine> lines =
+                transactionRepository.streamStatementLines(
+                    walletIds.get(0), walletIds.get(walletIds.size() - 1), from, to, fetchSize)) {
+              StatementFileWriter writer = null;
+              try {
+                for (final var iterator = lines.iterator(); iterator.hasNext(); ) {
+                  final StatementLine line = iterator.next();
+                  if (writer == null || !line.walletId().equals(writer.walletId())) {
+                    if (writer != null) {
+                      finish(writer, written);
+                      writer = null;
+                    }
+                    if (!pending.remove(line.walletId())) {
+                      continue;
+                    }
+                    writer = new StatementFileWriter(directory, line.walletId());
+                  }
+                  writer.write(line);
+                }
+                if (writer != null) {
+                  finish(writer, written);
+                  writer = null;
+                }
+              } catch (IOException e) {
+                if (writer != null) {
+                  writer.abort();
+                }
+                throw new UncheckedIOException(e);
+              }
+            }
+          });
+      try {
+        for (final UUID walletId : pending) {
+          finish(new StatementFileWriter(directory, walletId), written);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      record(walletIds.size(), written[0], written[1]);
+    }
+
+    private void finish(final StatementFileWriter writer, final long[] written)
+        throws IOException {
+      writer.close();
+      written[0] += writer.rows();
+      written[1] += writer.bytes();
+    }
+
+    private void record(final long walletCount, final long rowCount, final long byteCount) {
+      wallets.add(walletCount);
+      transactions.add(rowCount);
+      bytes.add(byteCount);
+      meterRegistry.counter(MetricConstant.STATEMENT_WALLETS).increment(walletCount);
+      meterRegistry.counter(MetricConstant.STATEMENT_TRANSACTIONS).increment(rowCount);
+      final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+      log.info(
+          LogConstant.STATEMENT_PROGRESS,
+          month,
+          partitions.sum() + 1,
+          wallets.sum(),
+          transactions.sum(),
+          Math.round(perSecond(transactions.sum(), elapsedMs)));
+    }
+  }
+
+  private static void awaitTermination(final ExecutorService pool) {
+    try {
+      while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+        // Chờ các partition đang chạy hoàn tất.
+      }
+    } catch (InterruptedException e) {
+      pool.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static double perSecond(final long count, final long elapsedMs) {
+    return elapsedMs == 0 ? count : count * 1000.0 / elapsedMs;
+  }
+}
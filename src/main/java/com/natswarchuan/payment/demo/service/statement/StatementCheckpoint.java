@@ -0,0 +1,109 @@
+package com.natswarchuan.payment.demo.service.statement;
+
+import com.natswarchuan.payment.demo.constant.StatementConstant;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Điểm kiểm tra (checkpoint) của một lần tạo sao kê, lưu trong thư mục sao kê của tháng.
+ *
+ * <p>Các partition được đánh số theo thứ tự ID ví nhưng hoàn tất không theo thứ tự. File checkpoint
+ * chỉ ghi ID ví cuối của dãy partition liên tiếp đầu tiên đã hoàn tất (watermark), nên mọi ví
+ * trước watermark chắc chắn đã có file sao kê; lần chạy lại bắt đầu ngay sau watermark. Các
+ * partition sau watermark có thể được ghi lại lần nữa, điều này an toàn vì mỗi file sao kê được
+ * thay thế nguyên khối.
+ */
+class StatementCheckpoint {
+
+  private final Path file;
+  private final Map<Long, UUID> lastIds = new HashMap<>();
+  private final Map<Long, Boolean> completed = new HashMap<>();
+  private long nextSequence;
+
+  private StatementCheckpoint(final Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Mở checkpoint trong thư mục sao kê của một tháng.
+   *
+   * @param directory Thư mục sao kê của tháng.
+   * @return checkpoint của thư mục.
+   */
+  static StatementCheckpoint open(final Path directory) {
+    return new StatementCheckpoint(directory.resolve(StatementConstant.CHECKPOINT_FILE));
+  }
+
+  /**
+   * Đọc watermark đã lưu.
+   *
+   * @return ID ví cuối cùng đã chắc chắn có sao kê, hoặc rỗng nếu chưa có checkpoint.
+   */
+  Optional<UUID> read() {
+    if (!Files.isRegularFile(file)) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(UUID.fromString(Files.readString(file, StandardCharsets.UTF_8).trim()));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Ghi nhận một partition sắp được xử lý.
+   *
+   * @param sequence Số thứ tự của partition (bắt đầu từ 0, tăng dần theo ID ví).
+   * @param lastWalletId ID ví cuối cùng của partition.
+   */
+  synchronized void register(final long sequence, final UUID lastWalletId) {
+    lastIds.put(sequence, lastWalletId);
+  }
+
+  /**
+   * Đánh dấu một partition đã hoàn tất và đẩy watermark lên nếu có thể.
+   *
+   * <p>Partition thất bại không bao giờ được đánh dấu, nên watermark dừng lại trước nó.
+   *
+   * @param sequence Số thứ tự của partition.
+   */
+  synchronized void complete(final long sequence) {
+    completed.put(sequence, Boolean.TRUE);
+    UUID watermark = null;
+    while (completed.remove(nextSequence) != null) {
+      watermark = lastIds.remove(nextSequence);
+      nextSequence++;
+    }
+    if (watermark != null) {
+      write(watermark);
+    }
+  }
+
+  /** Xóa checkpoint sau khi mọi partition đã hoàn tất. */
+  void clear() {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void write(final UUID watermark) {
+    final Path tmp = file.resolveSibling(file.getFileName() + StatementConstant.TEMP_SUFFIX);
+    try {
+      Files.writeString(tmp, watermark.toString(), StandardCharsets.UTF_8);
+      Files.move(
+          tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.natswarchuan.payment.demo.service.statement;
+
+import com.natswarchuan.payment.demo.constant.ExportConstant;
+import com.natswarchuan.payment.demo.constant.StatementConstant;
+import com.natswarchuan.payment.demo.util.CsvUtil;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ghi file sao kê nén gzip của một ví.
+ *
+ * <p>Dữ liệu được ghi vào một file tạm rồi đổi tên nguyên khối khi đóng, nên một file sao kê hoặc
+ * đầy đủ hoặc không tồn tại, kể cả khi tiến trình dừng giữa chừng.
+ */
+class StatementFileWriter implements Closeable {
+
+  private final UUID walletId;
+  private final Path target;
+  private final Path tmp;
+  private final CountingOutputStream counter;
+  private final Writer writer;
+  private long rows;
+
+  /**
+   * Mở file sao kê của một ví và ghi dòng tiêu đề.
+   *
+   * @param directory Thư mục sao kê của tháng.
+   * @param walletId ID của ví.
+   * @throws IOException nếu không thể tạo file.
+   */
+  StatementFileWriter(final Path directory, final UUID walletId) throws IOException {
+    this.walletId = walletId;
+    this.target = directory.resolve(walletId + StatementConstant.FILE_SUFFIX);
+    this.tmp = target.resolveSibling(target.getFileName() + StatementConstant.TEMP_SUFFIX);
+    this.counter =
+        new CountingOutputStream(
+            new BufferedOutputStream(
+                Files.newOutputStream(tmp), StatementConstant.FILE_BUFFER_BYTES));
+    this.writer =
+        new OutputStreamWriter(
+            new GZIPOutputStream(counter, StatementConstant.FILE_BUFFER_BYTES),
+            StandardCharsets.UTF_8);
+    writer.write(StatementConstant.CSV_HEADER);
+    writer.write(ExportConstant.LINE_SEPARATOR);
+  }
+
+  /**
+   * Ghi một dòng sao kê.
+   *
+   * @param line Dòng sao kê.
+   * @throws IOException nếu ghi thất bại.
+   */
+  void write(final StatementLine line) throws IOException {
+    writer.write(line.id().toString());
+    writer.write(ExportConstant.CSV_SEPARATOR);
+    writer.write(line.createdAt().toString());
+    writer.write(ExportConstant.CSV_SEPARATOR);
+    writer.write(String.valueOf(line.type()));
+    writer.write(ExportConstant.CSV_SEPARATOR);
+    writer.write(String.valueOf(line.status()));
+    writer.write(ExportConstant.CSV_SEPARATOR);
+    writer.write(line.amount().toPlainString());
+    writer.write(ExportConstant.CSV_SEPARATOR);
+    if (line.balanceAfter() != null) {
+      writer.write(line.balanceAfter().toPlainString());
+    }
+    writer.write(ExportConstant.CSV_SEPARATOR);
+    CsvUtil.writeText(writer, line.description());
+    writer.write(ExportConstant.LINE_SEPARATOR);
+    rows++;
+  }
+
+  /** ID của ví sở hữu file sao kê. */
+  UUID walletId() {
+    return walletId;
+  }
+
+  /** Số dòng giao dịch đã ghi. */
+  long rows() {
+    return rows;
+  }
+
+  /** Số byte nén đã ghi xuống đĩa; chỉ chính xác sau khi đóng. */
+  long bytes() {
+    return counter.count;
+  }
+
+  @Override
+  public void close() throws IOException {
+    writer.close();
+    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /** Hủy file tạm khi việc ghi thất bại. */
+  void abort() {
+    try {
+      writer.close();
+    } catch (IOException ignored) {
+      // File tạm bị xóa ngay sau đó.
+    }
+    try {
+      Files.deleteIfExists(tmp);
+    } catch (IOException ignored) {
+      // Lần chạy lại sẽ ghi đè file tạm.
+    }
+  }
+
+  private static final class CountingOutputStream extends OutputStream {
+    private final OutputStream delegate;
+    private long count;
+
+    private CountingOutputStream(final OutputStream delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      delegate.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      delegate.write(b, off, len);
+      count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.natswarchuan.payment.demo.service.statement;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Một dòng sao kê: các cột của giao dịch cần cho file sao kê, đọc bằng projection.
+ *
+ * @param walletId ID của ví.
+ * @param id ID của giao dịch.
+ * @param createdAt Thời điểm tạo giao dịch.
+ * @param type Loại giao dịch.
+ * @param status Trạng thái giao dịch.
+ * @param amount Số tiền.
+ * @param balanceAfter Số dư sau giao dịch (có thể {@code null}).
+ * @param description Mô tả.
+ */
+public record StatementLine(
+    UUID walletId,
+    UUID id,
+    Instant createdAt,
+    Integer type,
+    Integer status,
+    BigDecimal amount,
+    BigDecimal balanceAfter,
+    String description) {}
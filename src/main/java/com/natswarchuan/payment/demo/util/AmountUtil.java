@@ -0,0 +1,32 @@
+package com.natswarchuan.payment.demo.util;
+
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Lớp tiện ích quy đổi số tiền sang số nguyên (đơn vị nhỏ nhất của cột {@code DECIMAL(19,4)}), dùng
+ * chung bởi các bộ đếm trong bộ nhớ và trong Redis.
+ */
+public final class AmountUtil {
+
+  private AmountUtil() {}
+
+  /**
+   * Quy đổi số tiền sang số nguyên với {@link TransactionConstant#AMOUNT_SCALE} chữ số thập phân.
+   *
+   * <p>Phần lẻ vượt quá độ chính xác được làm tròn lên, để một số tiền không bao giờ được tính nhỏ
+   * hơn thực tế khi so với hạn mức hoặc ngưỡng.
+   *
+   * @param amount Số tiền.
+   * @return số tiền dưới dạng số nguyên.
+   * @throws ArithmeticException nếu số tiền vượt quá phạm vi của {@code long}; số tiền trong các
+   *     yêu cầu giao dịch đã bị giới hạn bởi {@link TransactionConstant#AMOUNT_INTEGER_DIGITS}.
+   */
+  public static long toUnits(final BigDecimal amount) {
+    return amount
+        .setScale(TransactionConstant.AMOUNT_SCALE, RoundingMode.UP)
+        .unscaledValue()
+        .longValueExact();
+  }
+}
@@ -0,0 +1,44 @@
+package com.natswarchuan.payment.demo.util;
+
+import com.natswarchuan.payment.demo.constant.ExportConstant;
+import java.io.IOException;
+import java.io.Writer;
+
+/** Lớp tiện ích ghi dữ liệu CSV cho các file xuất cho người dùng (sao kê, lịch sử giao dịch). */
+public final class CsvUtil {
+
+  private CsvUtil() {}
+
+  /**
+   * Ghi một ô văn bản theo RFC 4180: đặt trong dấu nháy kép khi cần, nhân đôi dấu nháy kép bên
+   * trong, và thêm dấu nháy đơn phía trước nếu ô có thể bị bảng tính hiểu là công thức.
+   *
+   * @param writer Writer đích.
+   * @param value Giá trị của ô; {@code null} được ghi thành ô rỗng.
+   * @throws IOException nếu ghi thất bại.
+   */
+  public static void writeText(final Writer writer, final String value) throws IOException {
+    if (value == null || value.isEmpty()) {
+      return;
+    }
+    final String text =
+        ExportConstant.CSV_FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0
+            ? ExportConstant.CSV_FORMULA_ESCAPE + value
+            : value;
+    final boolean quote =
+        text.indexOf(ExportConstant.CSV_SEPARATOR) >= 0
+            || text.indexOf(ExportConstant.CSV_QUOTE) >= 0
+            || text.indexOf('\n') >= 0
+            || text.indexOf('\r') >= 0;
+    if (!quote) {
+      writer.write(text);
+      return;
+    }
+    writer.write(ExportConstant.CSV_QUOTE);
+    writer.write(
+        text.replace(
+            String.valueOf(ExportConstant.CSV_QUOTE),
+            String.valueOf(ExportConstant.CSV_QUOTE) + ExportConstant.CSV_QUOTE));
+    writer.write(ExportConstant.CSV_QUOTE);
+  }
+}
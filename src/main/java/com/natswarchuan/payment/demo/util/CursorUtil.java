@@ -0,0 +1,62 @@
+package com.natswarchuan.payment.demo.util;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Lớp tiện ích mã hóa vị trí phân trang theo khóa {@code (created_at, id)} thành một chuỗi cursor
+ * mờ (opaque) trả cho client, và giải mã ngược lại.
+ *
+ * <p>Cursor gồm giây và nano giây của {@code created_at} cùng 16 byte của ID, mã hóa Base64 an
+ * toàn cho URL. Client chỉ cần gửi lại nguyên chuỗi, không cần (và không nên) hiểu nội dung.
+ */
+public final class CursorUtil {
+
+  private static final int CURSOR_BYTES = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+  private CursorUtil() {}
+
+  /** Vị trí của hàng cuối cùng trên trang trước. */
+  public record Position(Instant createdAt, UUID id) {}
+
+  /**
+   * Mã hóa vị trí của một hàng thành cursor.
+   *
+   * @param createdAt Thời điểm tạo của hàng.
+   * @param id ID của hàng.
+   * @return chuỗi cursor.
+   */
+  public static String encode(final Instant createdAt, final UUID id) {
+    final ByteBuffer buffer = ByteBuffer.allocate(CURSOR_BYTES);
+    buffer.putLong(createdAt.getEpochSecond());
+    buffer.putInt(createdAt.getNano());
+    buffer.putLong(id.getMostSignificantBits());
+    buffer.putLong(id.getLeastSignificantBits());
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+  }
+
+  /**
+   * Giải mã một cursor.
+   *
+   * @param cursor Chuỗi cursor do {@link #encode} tạo ra.
+   * @return vị trí tương ứng.
+   * @throws IllegalArgumentException nếu chuỗi không phải là một cursor hợp lệ.
+   */
+  public static Position decode(final String cursor) {
+    try {
+      final byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+      if (bytes.length != CURSOR_BYTES) {
+        throw new IllegalArgumentException(cursor);
+      }
+      final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      final Instant createdAt = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+      return new Position(createdAt, new UUID(buffer.getLong(), buffer.getLong()));
+    } catch (BufferUnderflowException | DateTimeException e) {
+      throw new IllegalArgumentException(cursor, e);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.natswarchuan.payment.demo.util;
+
+import com.natswarchuan.payment.demo.constant.PartitionConstant;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Lớp tiện ích suy ra khoảng {@code created_at} của một giao dịch từ ID của nó.
+ *
+ * <p>ID được tạo theo UUID v7 ngay trước khi lưu (hoặc {@code created_at} được gán theo ID khi ID
+ * được cấp trước), nên 48 bit đầu (mili giây Unix) gần như trùng với {@code created_at}. Thêm điều
+ * kiện {@code created_at} trong khoảng này vào truy vấn theo ID cho phép MySQL chỉ đọc một hoặc hai
+ * partition thay vì dò khóa chính trên mọi partition.
+ */
+public final class PartitionKeyUtil {
+
+  private PartitionKeyUtil() {}
+
+  /**
+   * Cận dưới của {@code created_at} cho một ID.
+   *
+   * @param id ID của giao dịch.
+   * @return cận dưới (đã trừ độ lệch cho phép), hoặc {@link PartitionConstant#MIN_CREATED_AT} nếu
+   *     ID không phải UUID v7.
+   */
+  public static Instant createdAtLowerBound(final UUID id) {
+    if (id.version() != PartitionConstant.UUID_VERSION_TIME_ORDERED) {
+      return PartitionConstant.MIN_CREATED_AT;
+    }
+    return timestampOf(id).minus(PartitionConstant.ID_TIMESTAMP_SLACK);
+  }
+
+  /**
+   * Cận trên của {@code created_at} cho một ID.
+   *
+   * @param id ID của giao dịch.
+   * @return cận trên (đã cộng độ lệch cho phép), hoặc {@link PartitionConstant#MAX_CREATED_AT} nếu
+   *     ID không phải UUID v7.
+   */
+  public static Instant createdAtUpperBound(final UUID id) {
+    if (id.version() != PartitionConstant.UUID_VERSION_TIME_ORDERED) {
+      return PartitionConstant.MAX_CREATED_AT;
+    }
+    return timestampOf(id).plus(PartitionConstant.ID_TIMESTAMP_SLACK);
+  }
+
+  /**
+   * Dấu thời gian (mili giây Unix) được mã hóa trong 48 bit đầu của một UUID v7.
+   *
+   * @param id ID dạng UUID v7.
+   * @return thời điểm ID được tạo.
+   */
+  public static Instant timestampOf(final UUID id) {
+    return Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16);
+  }
+}
@@ -0,0 +1,12 @@
+-- Trả lại một lần giữ chỗ hạn mức đã tạo bởi spend-limit-reserve.lua.
+--
+-- KEYS giống lần giữ chỗ; ARGV[1]: số tiền đã giữ chỗ (số nguyên); ARGV[1 + i]: bucket đã dùng cho
+-- KEYS[i]. Bucket đã hết hạn (đã bị xóa) được bỏ qua để không tạo giá trị âm.
+for i, key in ipairs(KEYS) do
+  local bucket = ARGV[i + 1]
+  if redis.call('HEXISTS', key, 'a:' .. bucket) == 1 then
+    redis.call('HINCRBY', key, 'a:' .. bucket, '-' .. ARGV[1])
+    redis.call('HINCRBY', key, 'c:' .. bucket, -1)
+  end
+end
+return 1
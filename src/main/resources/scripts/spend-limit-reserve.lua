@@ -0,0 +1,55 @@
+-- Kiểm tra và giữ chỗ hạn mức trên nhiều cửa sổ trượt trong một bước nguyên tử.
+--
+-- Mỗi KEYS[i] là một hash của (ví, thao tác, kỳ); các trường "a:<bucket>" và "c:<bucket>" giữ tổng
+-- số tiền (đơn vị nhỏ nhất, số nguyên) và số giao dịch của từng bucket thời gian.
+-- ARGV[1]: thời điểm hiện tại (giây); ARGV[2]: số tiền cần giữ chỗ (số nguyên);
+-- ARGV[3 + 4(i-1) ..]: kích thước bucket (giây), số bucket, tổng tiền tối đa, số giao dịch tối đa.
+--
+-- Trả về {0, bucket_1, bucket_2, ...} nếu đã giữ chỗ, hoặc {i, lý do} nếu cửa sổ thứ i bị vượt
+-- (lý do 1: số tiền, 2: số giao dịch). Bucket đã hết hạn được xóa trong lúc đọc.
+local now = tonumber(ARGV[1])
+local amount = tonumber(ARGV[2])
+local buckets = {}
+
+for i, key in ipairs(KEYS) do
+  local base = 2 + (i - 1) * 4
+  local size = tonumber(ARGV[base + 1])
+  local count = tonumber(ARGV[base + 2])
+  local maxAmount = tonumber(ARGV[base + 3])
+  local maxCount = tonumber(ARGV[base + 4])
+  local current = math.floor(now / size)
+  local oldest = current - count + 1
+  local usedAmount = 0
+  local usedCount = 0
+
+  local fields = redis.call('HGETALL', key)
+  for j = 1, #fields, 2 do
+    local kind, bucket = string.match(fields[j], '^(%a):(%d+)$')
+    if tonumber(bucket) < oldest then
+      redis.call('HDEL', key, fields[j])
+    elseif kind == 'a' then
+      usedAmount = usedAmount + tonumber(fields[j + 1])
+    else
+      usedCount = usedCount + tonumber(fields[j + 1])
+    end
+  end
+
+  if usedAmount + amount > maxAmount then
+    return {i, 1}
+  end
+  if usedCount + 1 > maxCount then
+    return {i, 2}
+  end
+  buckets[i] = string.format('%d', current)
+end
+
+local result = {0}
+for i, key in ipairs(KEYS) do
+  local base = 2 + (i - 1) * 4
+  local ttl = tonumber(ARGV[base + 1]) * tonumber(ARGV[base + 2])
+  redis.call('HINCRBY', key, 'a:' .. buckets[i], ARGV[2])
+  redis.call('HINCRBY', key, 'c:' .. buckets[i], 1)
+  redis.call('EXPIRE', key, ttl)
+  result[i + 1] = tonumber(buckets[i])
+end
+return result
@@ -0,0 +1,168 @@
+package com.natswarchuan.payment.demo.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.entity.Wallet;
+import com.natswarchuan.payment.demo.exception.HttpException;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferWallets;
+import com.natswarchuan.payment.demo.helper.TransactionRetryHelper;
+import com.natswarchuan.payment.demo.interfaces.services.IBalanceEngine;
+import com.natswarchuan.payment.demo.repository.UserRepository;
+import com.natswarchuan.payment.demo.repository.WalletRepository;
+import com.natswarchuan.payment.demo.service.BalanceEngineFactory;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Benchmark so sánh các engine cập nhật số dư khi có nhiều giao dịch chuyển tiền đồng thời trên một
+ * nhóm nhỏ ví "nóng".
+ *
+ * <p>Cần một cơ sở dữ liệu MySQL thật nên chỉ chạy khi bật thuộc tính hệ thống: {@code mvn test
+ * -Dtest=BalanceEngineBenchmarkTests -Dbenchmark=true}. Số luồng, số ví và số giao dịch mỗi luồng
+ * có thể điều chỉnh qua {@code -Dbenchmark.threads}, {@code -Dbenchmark.wallets} và {@code
+ * -Dbenchmark.transfers}. Engine {@code IN_MEMORY} chỉ được đo thêm khi nó là engine đang hoạt
+ * động ({@code -Dapp.transaction.balance-engine=IN_MEMORY}).
+ */
+@SpringBootTest
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BalanceEngineBenchmarkTests {
+
+  private static final BigDecimal TRANSFER_AMOUNT = new BigDecimal("1.0000");
+
+  private final int threads = Integer.getInteger("benchmark.threads", 32);
+  private final int walletCount = Integer.getInteger("benchmark.wallets", 4);
+  private final int transfersPerThread = Integer.getInteger("benchmark.transfers", 200);
+
+  @Autowired private BalanceEngineFactory balanceEngineFactory;
+  @Autowired private TransactionRetryHelper transactionRetryHelper;
+  @Autowired private UserRepository userRepository;
+  @Autowired private WalletRepository walletRepository;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private BenchmarkWallets benchmarkWallets;
+
+  @BeforeEach
+  void createFixture() {
+    benchmarkWallets = new BenchmarkWallets(userRepository, walletRepository, jdbcTemplate);
+  }
+
+  @AfterEach
+  void deleteFixture() {
+    benchmarkWallets.deleteAll();
+  }
+
+  @Test
+  void compareBalanceEngines() throws InterruptedException {
+    for (final String engineName :
+        List.of(
+            TransactionConstant.BalanceEngine.PESSIMISTIC,
+            TransactionConstant.BalanceEngine.ATOMIC,
+            TransactionConstant.BalanceEngine.OPTIMISTIC)) {
+      run(balanceEngineFactory.getEngine(engineName));
+    }
+    if (TransactionConstant.BalanceEngine.IN_MEMORY.equals(
+        balanceEngineFactory.getActiveEngine().getEngineName())) {
+      run(balanceEngineFactory.getActiveEngine());
+    }
+  }
+
+  private void run(final IBalanceEngine engine) throws InterruptedException {
+    final List<Wallet> wallets = benchmarkWallets.create(walletCount);
+    final AtomicInteger succeeded = new AtomicInteger();
+    final AtomicInteger rejected = new AtomicInteger();
+    final long[] latencies = new long[threads * transfersPerThread];
+    final AtomicInteger latencyIndex = new AtomicInteger();
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    for (int t = 0; t < threads; t++) {
+      executor.submit(
+          () -> {
+            start.await();
+            for (int i = 0; i < transfersPerThread; i++) {
+              final ThreadLocalRandom random = ThreadLocalRandom.current();
+              final Wallet sender = wallets.get(random.nextInt(wallets.size()));
+              Wallet receiver = wallets.get(random.nextInt(wallets.size()));
+              while (receiver == sender) {
+                receiver = wallets.get(random.nextInt(wallets.size()));
+              }
+              final Wallet target = receiver;
+              final long begin = System.nanoTime();
+              try {
+                transactionRetryHelper.runInTransaction(
+                    MetricConstant.OPERATION_TRANSFER,
+                    () -> {
+                      final TransferWallets loaded =
+                          engine.loadTransferWallets(sender.getUser(), target.getNumber());
+                      engine.moveFunds(loaded, TRANSFER_AMOUNT);
+                    });
+                succeeded.incrementAndGet();
+              } catch (HttpException e) {
+                rejected.incrementAndGet();
+              }
+              latencies[latencyIndex.getAndIncrement()] = System.nanoTime() - begin;
+            }
+            return null;
+          });
+    }
+
+    final long begin = System.nanoTime();
+    start.countDown();
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.MINUTES);
+    final long elapsedNanos = System.nanoTime() - begin;
+
+    final long[] sorted = Arrays.copyOf(latencies, latencyIndex.get());
+    Arrays.sort(sorted);
+    log.info(
+        String.format(
+            Locale.ROOT,
+            "[%s] threads=%d wallets=%d ok=%d rejected=%d throughput=%.1f tx/s p50=%.2f ms"
+                + " p99=%.2f ms",
+            engine.getEngineName(),
+            threads,
+            walletCount,
+            succeeded.get(),
+            rejected.get(),
+            succeeded.get() / (elapsedNanos / 1_000_000_000.0),
+            percentile(sorted, 0.50),
+            percentile(sorted, 0.99)));
+
+    // Chờ các engine ghi bất đồng bộ (IN_MEMORY) ghi hết thay đổi xuống cơ sở dữ liệu.
+    wallets.forEach(w -> engine.executeWalletOperation(w.getId(), () -> null));
+    final BigDecimal total =
+        wallets.stream()
+            .map(w -> walletRepository.findBalanceById(w.getId()).orElseThrow())
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+    final BigDecimal expected =
+        BenchmarkWallets.INITIAL_BALANCE.multiply(BigDecimal.valueOf(walletCount));
+    assertEquals(0, expected.compareTo(total));
+  }
+
+  private static double percentile(final long[] sortedNanos, final double quantile) {
+    if (sortedNanos.length == 0) {
+      return 0;
+    }
+    final int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+    return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+  }
+}
@@ -0,0 +1,120 @@
+package com.natswarchuan.payment.demo.benchmark;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import com.natswarchuan.payment.demo.entity.User;
+import com.natswarchuan.payment.demo.entity.Wallet;
+import com.natswarchuan.payment.demo.repository.UserRepository;
+import com.natswarchuan.payment.demo.repository.WalletRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Dữ liệu mẫu dùng chung cho các benchmark: tạo người dùng và ví có số dư ban đầu, rồi xóa các hàng
+ * đã tạo cùng mọi dữ liệu phát sinh trên các ví đó (giao dịch, bút toán, snapshot, sự kiện outbox,
+ * ...) khi benchmark kết thúc.
+ */
+final class BenchmarkWallets {
+
+  static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.0000");
+
+  private static final String CURRENCY = "VND";
+  private static final String WALLET_ID = EntityConstant.COLUMN_WALLET_ID + " = UUID_TO_BIN(?)";
+  private static final String TRANSACTIONS_OF_WALLET =
+      " IN (SELECT id FROM " + EntityConstant.TABLE_TRANSACTIONS + " WHERE " + WALLET_ID + ")";
+
+  private final UserRepository userRepository;
+  private final WalletRepository walletRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final List<Wallet> created = new ArrayList<>();
+
+  BenchmarkWallets(
+      final UserRepository userRepository,
+      final WalletRepository walletRepository,
+      final JdbcTemplate jdbcTemplate) {
+    this.userRepository = userRepository;
+    this.walletRepository = walletRepository;
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /** Tạo một người dùng và ví của họ với số dư {@link #INITIAL_BALANCE}. */
+  Wallet create() {
+    final String suffix = UUID.randomUUID().toString().replace("-", "");
+    final User user = new User();
+    user.setEmail("bench-" + suffix + "@example.com");
+    userRepository.save(user);
+
+    final Wallet wallet = new Wallet();
+    wallet.setUser(user);
+    wallet.setNumber("BENCH" + suffix);
+    wallet.setBalance(INITIAL_BALANCE);
+    wallet.setCurrency(CURRENCY);
+    created.add(walletRepository.save(wallet));
+    return wallet;
+  }
+
+  /** Tạo {@code count} ví bằng {@link #create()}. */
+  List<Wallet> create(final int count) {
+    final List<Wallet> wallets = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      wallets.add(create());
+    }
+    return wallets;
+  }
+
+  /** Xóa mọi ví đã tạo, người dùng của chúng và các hàng tham chiếu tới chúng. */
+  void deleteAll() {
+    // Bỏ liên kết giữa các giao dịch trước, vì giao dịch chuyển tiền của hai ví trỏ vào nhau.
+    for (final Wallet wallet : created) {
+      jdbcTemplate.update(
+          "UPDATE "
+              + EntityConstant.TABLE_TRANSACTIONS
+              + " SET "
+              + EntityConstant.COLUMN_RELATED_TRANSACTION_ID
+              + " = NULL WHERE "
+              + WALLET_ID,
+          wallet.getId().toString());
+    }
+    for (final Wallet wallet : created) {
+      final String walletId = wallet.getId().toString();
+      delete(
+          EntityConstant.TABLE_IPN_INBOX,
+          EntityConstant.COLUMN_TRANSACTION_ID + TRANSACTIONS_OF_WALLET,
+          walletId);
+      delete(
+          EntityConstant.TABLE_PAYOUT_OUTBOX,
+          EntityConstant.COLUMN_TRANSACTION_ID + TRANSACTIONS_OF_WALLET,
+          walletId);
+      // Xóa cả bút toán đối ứng (ở tài khoản hệ thống hoặc ví khác) của cùng lần di chuyển tiền.
+      delete(
+          EntityConstant.TABLE_LEDGER_ENTRIES,
+          EntityConstant.COLUMN_MOVEMENT_ID
+              + " IN (SELECT m."
+              + EntityConstant.COLUMN_MOVEMENT_ID
+              + " FROM (SELECT "
+              + EntityConstant.COLUMN_MOVEMENT_ID
+              + " FROM "
+              + EntityConstant.TABLE_LEDGER_ENTRIES
+              + " WHERE "
+              + WALLET_ID
+              + ") m)",
+          walletId);
+      delete(EntityConstant.TABLE_WALLET_BALANCE_SNAPSHOTS, WALLET_ID, walletId);
+      delete(EntityConstant.TABLE_WALLET_BALANCE_SHARDS, WALLET_ID, walletId);
+      delete(EntityConstant.TABLE_WALLET_DAILY_AGGREGATES, WALLET_ID, walletId);
+      delete(EntityConstant.TABLE_OUTBOX_EVENTS, "aggregate_id = UUID_TO_BIN(?)", walletId);
+      delete(EntityConstant.TABLE_TRANSACTIONS, WALLET_ID, walletId);
+      delete(EntityConstant.TABLE_PAYMENT_METHODS, WALLET_ID, walletId);
+      delete(EntityConstant.TABLE_WALLETS, "id = UUID_TO_BIN(?)", walletId);
+      delete(
+          EntityConstant.TABLE_USERS, "id = UUID_TO_BIN(?)", wallet.getUser().getId().toString());
+    }
+    created.clear();
+  }
+
+  private void delete(final String table, final String condition, final String id) {
+    jdbcTemplate.update("DELETE FROM " + table + " WHERE " + condition, id);
+  }
+}
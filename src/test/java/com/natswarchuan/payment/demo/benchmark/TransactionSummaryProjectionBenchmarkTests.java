@@ -0,0 +1,182 @@
+package com.natswarchuan.payment.demo.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.natswarchuan.payment.demo.constant.EntityConstant;
+import com.natswarchuan.payment.demo.constant.TransactionConstant;
+import com.natswarchuan.payment.demo.dto.request.transaction.TransactionSearchRequest;
+import com.natswarchuan.payment.demo.dto.response.transaction.TransactionSummaryResponse;
+import com.natswarchuan.payment.demo.entity.Transaction;
+import com.natswarchuan.payment.demo.entity.Wallet;
+import com.natswarchuan.payment.demo.repository.TransactionRepository;
+import com.natswarchuan.payment.demo.repository.UserRepository;
+import com.natswarchuan.payment.demo.repository.WalletRepository;
+import com.natswarchuan.payment.demo.repository.specifications.TransactionSpecifications;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Benchmark so sánh tìm kiếm giao dịch khi tải thực thể rồi chép sang DTO và khi đọc thẳng vào DTO
+ * bằng projection: số hàng mỗi giây và số byte được cấp phát cho mỗi trang.
+ *
+ * <p>Số byte cấp phát được đọc từ {@code ThreadMXBean} của HotSpot cho luồng đang chạy. Cần một cơ
+ * sở dữ liệu MySQL thật nên chỉ chạy khi bật thuộc tính hệ thống: {@code mvn test
+ * -Dtest=TransactionSummaryProjectionBenchmarkTests -Dbenchmark=true}. Số giao dịch của ví, kích
+ * thước trang và số vòng đo có thể điều chỉnh qua {@code -Dbenchmark.rows}, {@code
+ * -Dbenchmark.pageSize} và {@code -Dbenchmark.rounds}.
+ */
+@SpringBootTest
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransactionSummaryProjectionBenchmarkTests {
+
+  private static final BigDecimal AMOUNT = new BigDecimal("1.0000");
+  private static final int INSERT_BATCH = 500;
+  // Phản hồi thô của cổng thanh toán, cỡ thường gặp của một IPN.
+  private static final String PROVIDER_RESPONSE = "x".repeat(1024);
+
+  private final int rows = Integer.getInteger("benchmark.rows", 5000);
+  private final int pageSize = Integer.getInteger("benchmark.pageSize", 50);
+  private final int rounds = Integer.getInteger("benchmark.rounds", 5);
+
+  @Autowired private TransactionRepository transactionRepository;
+  @Autowired private TransactionSpecifications transactionSpecifications;
+  @Autowired private UserRepository userRepository;
+  @Autowired private WalletRepository walletRepository;
+  @Autowired private PlatformTransactionManager transactionManager;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private BenchmarkWallets benchmarkWallets;
+
+  @BeforeEach
+  void createFixture() {
+    benchmarkWallets = new BenchmarkWallets(userRepository, walletRepository, jdbcTemplate);
+  }
+
+  @AfterEach
+  void deleteFixture() {
+    benchmarkWallets.deleteAll();
+  }
+
+  @Test
+  void compareEntityAndProjectionPaths() {
+    final Wallet wallet = createWalletWithTransactions();
+    final Specification<Transaction> spec =
+        transactionSpecifications.fromSearchRequest(new TransactionSearchRequest(), wallet.getId());
+    final TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+
+    final IntFunction<Page<TransactionSummaryResponse>> entityPath =
+        page ->
+            readOnly.execute(
+                status ->
+                    transactionRepository
+                        .findAll(spec, pageRequest(page))
+                        .map(
+                            transaction -> {
+                              final TransactionSummaryResponse dto =
+                                  new TransactionSummaryResponse();
+                              dto.fromEntity(transaction);
+                              return dto;
+                            }));
+    final IntFunction<Page<TransactionSummaryResponse>> projectionPath =
+        page ->
+            readOnly.execute(
+                status -> transactionRepository.findSummaries(spec, pageRequest(page)));
+
+    // Khởi động (JIT, cache câu lệnh) trước khi đo.
+    run(entityPath);
+    run(projectionPath);
+
+    final Result entity = measure(entityPath);
+    final Result projection = measure(projectionPath);
+    log.info(
+        String.format(
+            Locale.ROOT,
+            "entity: %.0f rows/s, %.0f bytes/page; projection: %.0f rows/s, %.0f bytes/page",
+            entity.rowsPerSecond(),
+            entity.bytesPerPage(),
+            projection.rowsPerSecond(),
+            projection.bytesPerPage()));
+    assertEquals(entity.rows(), projection.rows());
+  }
+
+  private Result measure(final IntFunction<Page<TransactionSummaryResponse>> path) {
+    final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final long threadId = Thread.currentThread().getId();
+    long totalRows = 0;
+    int pages = 0;
+    final long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+    final long start = System.nanoTime();
+    for (int round = 0; round < rounds; round++) {
+      final int[] counts = run(path);
+      totalRows += counts[0];
+      pages += counts[1];
+    }
+    final long elapsed = System.nanoTime() - start;
+    final long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+    return new Result(totalRows, totalRows * 1e9 / elapsed, (double) allocated / pages);
+  }
+
+  /** Duyệt hết các trang, trả về số hàng và số trang đã đọc. */
+  private int[] run(final IntFunction<Page<TransactionSummaryResponse>> path) {
+    int count = 0;
+    int page = 0;
+    Page<TransactionSummaryResponse> result;
+    do {
+      result = path.apply(page++);
+      count += result.getNumberOfElements();
+    } while (result.hasNext());
+    return new int[] {count, page};
+  }
+
+  private Pageable pageRequest(final int page) {
+    return PageRequest.of(
+        page, pageSize, Sort.by(EntityConstant.TXN_FIELD_CREATED_AT).descending());
+  }
+
+  private Wallet createWalletWithTransactions() {
+    final Wallet wallet = benchmarkWallets.create();
+
+    final List<Transaction> batch = new ArrayList<>(INSERT_BATCH);
+    for (int i = 0; i < rows; i++) {
+      batch.add(
+          Transaction.builder()
+              .wallet(wallet)
+              .amount(AMOUNT)
+              .type(TransactionConstant.Type.DEPOSIT)
+              .status(TransactionConstant.Status.COMPLETED)
+              .description("Benchmark " + i)
+              .providerTransactionId("BENCH-" + i)
+              .providerResponse(PROVIDER_RESPONSE)
+              .build());
+      if (batch.size() == INSERT_BATCH || i == rows - 1) {
+        transactionRepository.saveAll(batch);
+        batch.clear();
+      }
+    }
+    return wallet;
+  }
+
+  private record Result(long rows, double rowsPerSecond, double bytesPerPage) {}
+}
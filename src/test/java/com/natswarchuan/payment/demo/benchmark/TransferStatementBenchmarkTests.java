@@ -0,0 +1,119 @@
+package com.natswarchuan.payment.demo.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import com.natswarchuan.payment.demo.dto.request.transaction.TransferRequest;
+import com.natswarchuan.payment.demo.entity.Wallet;
+import com.natswarchuan.payment.demo.helper.TransactionHelper;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferBalances;
+import com.natswarchuan.payment.demo.helper.TransactionHelper.TransferWallets;
+import com.natswarchuan.payment.demo.helper.TransactionRetryHelper;
+import com.natswarchuan.payment.demo.interfaces.services.IBalanceEngine;
+import com.natswarchuan.payment.demo.repository.UserRepository;
+import com.natswarchuan.payment.demo.repository.WalletRepository;
+import com.natswarchuan.payment.demo.service.BalanceEngineFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.Locale;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Benchmark đếm số câu lệnh JDBC cho mỗi giao dịch chuyển tiền, khi tắt và khi bật gom lô JDBC.
+ *
+ * <p>Số câu lệnh được đọc từ thống kê của Hibernate ({@code prepareStatementCount}): mỗi lô JDBC
+ * chỉ chuẩn bị câu lệnh một lần, còn khi tắt gom lô (kích thước lô của session bằng 1) mỗi hàng
+ * được ghi bằng một câu lệnh riêng. Cần một cơ sở dữ liệu MySQL thật nên chỉ chạy khi bật thuộc
+ * tính hệ thống: {@code mvn test -Dtest=TransferStatementBenchmarkTests -Dbenchmark=true}. Số giao
+ * dịch có thể điều chỉnh qua {@code -Dbenchmark.transfers}.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransferStatementBenchmarkTests {
+
+  private static final BigDecimal TRANSFER_AMOUNT = new BigDecimal("1.0000");
+  private static final int UNBATCHED = 1;
+
+  private final int transfers = Integer.getInteger("benchmark.transfers", 200);
+
+  @Autowired private BalanceEngineFactory balanceEngineFactory;
+  @Autowired private TransactionRetryHelper transactionRetryHelper;
+  @Autowired private TransactionHelper transactionHelper;
+  @Autowired private UserRepository userRepository;
+  @Autowired private WalletRepository walletRepository;
+  @Autowired private EntityManager entityManager;
+  @Autowired private EntityManagerFactory entityManagerFactory;
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private BenchmarkWallets benchmarkWallets;
+
+  @BeforeEach
+  void createFixture() {
+    benchmarkWallets = new BenchmarkWallets(userRepository, walletRepository, jdbcTemplate);
+  }
+
+  @AfterEach
+  void deleteFixture() {
+    benchmarkWallets.deleteAll();
+  }
+
+  @Test
+  void countStatementsPerTransfer() {
+    final IBalanceEngine engine = balanceEngineFactory.getActiveEngine();
+    final Wallet sender = benchmarkWallets.create();
+    final Wallet receiver = benchmarkWallets.create();
+
+    final double unbatched = run(engine, sender, receiver, UNBATCHED);
+    final double batched = run(engine, sender, receiver, null);
+    log.info(
+        String.format(
+            Locale.ROOT,
+            "[%s] statements/transfer: unbatched=%.2f batched=%.2f",
+            engine.getEngineName(),
+            unbatched,
+            batched));
+    assertTrue(batched <= unbatched);
+  }
+
+  /**
+   * Thực hiện các giao dịch chuyển tiền và trả về số câu lệnh trung bình mỗi giao dịch.
+   *
+   * @param batchSize kích thước lô JDBC của session, {@code null} để dùng cấu hình của ứng dụng.
+   */
+  private double run(
+      final IBalanceEngine engine,
+      final Wallet sender,
+      final Wallet receiver,
+      final Integer batchSize) {
+    final Statistics statistics =
+        entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    for (int i = 0; i < transfers; i++) {
+      final TransferRequest request = new TransferRequest();
+      request.setRecipientWalletNumber(receiver.getNumber());
+      request.setAmount(TRANSFER_AMOUNT);
+      transactionRetryHelper.runInTransaction(
+          MetricConstant.OPERATION_TRANSFER,
+          () -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            final TransferWallets wallets =
+                engine.loadTransferWallets(sender.getUser(), receiver.getNumber());
+            final TransferBalances balances = engine.moveFunds(wallets, TRANSFER_AMOUNT);
+            transactionHelper.createTransferTransactions(wallets, request, balances);
+          });
+    }
+    return (double) statistics.getPrepareStatementCount() / transfers;
+  }
+}
@@ -0,0 +1,170 @@
+package com.natswarchuan.payment.demo.config.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.natswarchuan.payment.demo.constant.DataSourceConstant;
+import com.natswarchuan.payment.demo.constant.MetricConstant;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Kiểm thử định tuyến primary/replica trên hai cơ sở dữ liệu H2 chạy ở chế độ tương thích MySQL,
+ * mỗi cơ sở dữ liệu có một hàng cho biết tên của nó. Việc sao chép heartbeat được giả lập bằng cách
+ * ghi thẳng vào replica.
+ */
+class ReplicaRoutingDataSourceTests {
+
+  private static final long MAX_LAG_MILLIS = 1000;
+  private static final long HEARTBEAT_INTERVAL_MILLIS = 500;
+  private static final int QUERY_TIMEOUT_SECONDS = 1;
+
+  private DataSource primary;
+  private DataSource replica;
+  private ReplicaLagMonitor lagMonitor;
+  private SimpleMeterRegistry meterRegistry;
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate readWrite;
+  private TransactionTemplate readOnly;
+
+  @BeforeEach
+  void setUp() {
+    primary = database(DataSourceConstant.PRIMARY);
+    replica = database(DataSourceConstant.REPLICA_PREFIX + 0);
+    meterRegistry = new SimpleMeterRegistry();
+    lagMonitor =
+        new ReplicaLagMonitor(
+            primary,
+            List.of(replica),
+            MAX_LAG_MILLIS,
+            HEARTBEAT_INTERVAL_MILLIS,
+            QUERY_TIMEOUT_SECONDS,
+            meterRegistry);
+    final ReplicaRoutingDataSource routing =
+        new ReplicaRoutingDataSource(primary, List.of(replica), lagMonitor, meterRegistry);
+    routing.afterPropertiesSet();
+    final DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    final DataSourceTransactionManager transactionManager =
+        new DataSourceTransactionManager(dataSource);
+    readWrite = new TransactionTemplate(transactionManager);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+  }
+
+  @AfterEach
+  void clearContext() {
+    ReplicaRoutingContext.clear();
+  }
+
+  @Test
+  void routesReadOnlyTransactionsToHealthyReplica() {
+    replicateHeartbeat(Instant.now());
+    lagMonitor.checkReplicas(Instant.now());
+
+    assertEquals(DataSourceConstant.REPLICA_PREFIX + 0, readOnly.execute(status -> node()));
+    assertEquals(DataSourceConstant.PRIMARY, node());
+  }
+
+  @Test
+  void routesWritesAndLaterReadsOfTheSameRequestToPrimary() {
+    replicateHeartbeat(Instant.now());
+    lagMonitor.checkReplicas(Instant.now());
+
+    assertEquals(DataSourceConstant.PRIMARY, readWrite.execute(status -> node()));
+    assertTrue(ReplicaRoutingContext.hasWritten());
+    assertEquals(DataSourceConstant.PRIMARY, readOnly.execute(status -> node()));
+
+    ReplicaRoutingContext.clear();
+    assertEquals(DataSourceConstant.REPLICA_PREFIX + 0, readOnly.execute(status -> node()));
+  }
+
+  @Test
+  void scopesWrittenFlagToEachUnitOfBackgroundWork() {
+    replicateHeartbeat(Instant.now());
+    lagMonitor.checkReplicas(Instant.now());
+    readWrite.execute(status -> node());
+
+    ReplicaRoutingContext.run(
+        () -> {
+          assertEquals(DataSourceConstant.REPLICA_PREFIX + 0, readOnly.execute(status -> node()));
+          readWrite.execute(status -> node());
+          assertEquals(DataSourceConstant.PRIMARY, readOnly.execute(status -> node()));
+        });
+    assertFalse(ReplicaRoutingContext.hasWritten());
+
+    ReplicaRoutingContext.markWritten();
+    assertEquals(
+        DataSourceConstant.REPLICA_PREFIX + 0,
+        ReplicaRoutingContext.call(() -> readOnly.execute(status -> node())));
+  }
+
+  @Test
+  void fallsBackToPrimaryWhenReplicaLags() {
+    final Instant now = Instant.now();
+    replicateHeartbeat(now.minusMillis(MAX_LAG_MILLIS + 500));
+    lagMonitor.checkReplicas(now);
+
+    assertFalse(lagMonitor.isHealthy(0));
+    assertEquals(DataSourceConstant.PRIMARY, readOnly.execute(status -> node()));
+    assertEquals(
+        1.0, meterRegistry.get(MetricConstant.DATASOURCE_REPLICA_FALLBACK).counter().count());
+
+    replicateHeartbeat(now);
+    lagMonitor.checkReplicas(now);
+    assertEquals(DataSourceConstant.REPLICA_PREFIX + 0, readOnly.execute(status -> node()));
+  }
+
+  @Test
+  void treatsReplicaWithoutHeartbeatAsLagging() {
+    lagMonitor.writeHeartbeat(Instant.now());
+    lagMonitor.writeHeartbeat(Instant.now());
+    lagMonitor.checkReplicas(Instant.now());
+
+    assertEquals(
+        1,
+        new JdbcTemplate(primary)
+            .queryForObject("SELECT COUNT(*) FROM replication_heartbeat", Integer.class));
+    assertFalse(lagMonitor.isHealthy(0));
+    assertEquals(DataSourceConstant.PRIMARY, readOnly.execute(status -> node()));
+  }
+
+  private String node() {
+    return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+  }
+
+  private void replicateHeartbeat(final Instant beatAt) {
+    final JdbcTemplate replicaTemplate = new JdbcTemplate(replica);
+    replicaTemplate.update("DELETE FROM replication_heartbeat");
+    replicaTemplate.update(
+        "INSERT INTO replication_heartbeat (id, beat_at) VALUES (?, ?)",
+        DataSourceConstant.HEARTBEAT_ID,
+        LocalDateTime.ofInstant(beatAt, ZoneOffset.UTC));
+  }
+
+  private static DataSource database(final String name) {
+    final DataSource dataSource =
+        new DriverManagerDataSource(
+            "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+    final JdbcTemplate template = new JdbcTemplate(dataSource);
+    template.execute(
+        "CREATE TABLE replication_heartbeat (id INT PRIMARY KEY, beat_at DATETIME(6) NOT NULL)");
+    template.execute("CREATE TABLE node (name VARCHAR(16) NOT NULL)");
+    template.update("INSERT INTO node (name) VALUES (?)", name);
+    return dataSource;
+  }
+}
@@ -0,0 +1,193 @@
+package com.natswarchuan.payment.demo.service.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.natswarchuan.payment.demo.dto.request.transaction.TransactionSearchRequest;
+import com.natswarchuan.payment.demo.dto.response.transaction.TransactionSummaryResponse;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Kiểm thử ghi và đọc lại file segment lưu trữ: chỉ mục min/max, bỏ qua ví khác và lọc hàng. */
+class ArchiveSegmentTests {
+
+  private static final UUID WALLET_A = new UUID(1, 0);
+  private static final UUID WALLET_B = new UUID(2, 0);
+  private static final UUID WALLET_MISSING = new UUID(2, 1);
+  // Bit cao nhất được bật: lớn nhất theo thứ tự byte dù UUID#compareTo coi là nhỏ nhất.
+  private static final UUID WALLET_C = new UUID(0x8000_0000_0000_0000L, 0);
+  private static final Instant T0 = Instant.parse("2024-03-01T00:00:00.123456Z");
+
+  @Test
+  void writesAndReadsBackSegment(@TempDir final Path dir) throws IOException {
+    final ArchiveSegment segment = writeSample(dir);
+
+    assertEquals(6, segment.rows());
+    assertEquals(WALLET_A, segment.minWalletId());
+    assertEquals(WALLET_C, segment.maxWalletId());
+    assertEquals(ArchiveCodec.micros(T0), segment.minCreatedAt());
+    assertEquals(ArchiveCodec.micros(T0.plusSeconds(50)), segment.maxCreatedAt());
+    assertEquals(ArchiveCodec.units(new BigDecimal("0.0001")), segment.minAmount());
+    assertEquals(ArchiveCodec.units(new BigDecimal("900000")), segment.maxAmount());
+    try (Stream<Path> files = Files.list(dir)) {
+      assertEquals(List.of(dir.resolve("segment.seg")), files.toList());
+    }
+
+    final List<TransactionSummaryResponse> rows = scan(segment, all(WALLET_B));
+    assertEquals(2, rows.size());
+    final TransactionSummaryResponse first = rows.get(0);
+    assertEquals(new UUID(2, 30), first.getId());
+    assertEquals(T0.plusSeconds(30), first.getCreatedAt());
+    assertEquals(new BigDecimal("12345.6789"), first.getAmount());
+    assertEquals(2, first.getType());
+    assertEquals(3, first.getStatus());
+    assertEquals("Chuyển tiền, \"quà\" tặng", first.getDescription());
+    assertNull(rows.get(1).getDescription());
+  }
+
+  @Test
+  void skipsRowsOfOtherWallets(@TempDir final Path dir) throws IOException {
+    final ArchiveSegment segment = writeSample(dir);
+
+    assertEquals(List.of(new UUID(1, 20), new UUID(1, 10)), ids(scan(segment, all(WALLET_A))));
+    assertEquals(List.of(new UUID(3, 50), new UUID(3, 40)), ids(scan(segment, all(WALLET_C))));
+    assertEquals("cuối", scan(segment, all(WALLET_C)).get(0).getDescription());
+    assertTrue(scan(segment, all(WALLET_MISSING)).isEmpty());
+  }
+
+  @Test
+  void prunesSegmentsByMinMaxIndex(@TempDir final Path dir) throws IOException {
+    final ArchiveSegment segment = writeSample(dir);
+
+    assertTrue(segment.mayMatch(all(WALLET_MISSING)));
+    assertFalse(segment.mayMatch(all(new UUID(0, 1))));
+    assertFalse(segment.mayMatch(all(new UUID(0xFFFF_0000_0000_0000L, 0))));
+
+    final TransactionSearchRequest later = new TransactionSearchRequest();
+    later.setFromDate(T0.plusSeconds(51));
+    assertFalse(segment.mayMatch(ArchiveQuery.of(WALLET_A, later)));
+
+    final TransactionSearchRequest larger = new TransactionSearchRequest();
+    larger.setMinAmount(new BigDecimal("900000.00001"));
+    assertFalse(segment.mayMatch(ArchiveQuery.of(WALLET_A, larger)));
+
+    assertFalse(segment.mayMatch(all(WALLET_A).before(T0.minusNanos(1_000))));
+    assertTrue(segment.mayMatch(all(WALLET_A).before(T0)));
+  }
+
+  @Test
+  void filtersRowsWithinWallet(@TempDir final Path dir) throws IOException {
+    final ArchiveSegment segment = writeSample(dir);
+
+    final TransactionSearchRequest byAmount = new TransactionSearchRequest();
+    byAmount.setMinAmount(new BigDecimal("0.00005"));
+    byAmount.setMaxAmount(new BigDecimal("0.0001"));
+    assertEquals(List.of(new UUID(1, 10)), ids(scan(segment, ArchiveQuery.of(WALLET_A, byAmount))));
+
+    final TransactionSearchRequest byDate = new TransactionSearchRequest();
+    byDate.setFromDate(T0.plusSeconds(41));
+    assertEquals(List.of(new UUID(3, 50)), ids(scan(segment, ArchiveQuery.of(WALLET_C, byDate))));
+
+    final TransactionSearchRequest byStatus = new TransactionSearchRequest();
+    byStatus.setType(2);
+    byStatus.setStatus(4);
+    assertEquals(List.of(new UUID(2, 25)), ids(scan(segment, ArchiveQuery.of(WALLET_B, byStatus))));
+  }
+
+  @Test
+  void abandonedWriterLeavesNoFiles(@TempDir final Path dir) throws IOException {
+    try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(dir.resolve("segment.seg"))) {
+      writer.append(row(WALLET_A, new UUID(1, 10), T0, "1", 2, 3, null));
+    }
+    try (Stream<Path> files = Files.list(dir)) {
+      assertEquals(0, files.count());
+    }
+  }
+
+  @Test
+  void comparesUuidsAsUnsignedBytes() {
+    assertTrue(ArchiveCodec.compare(WALLET_B, WALLET_C) < 0);
+    assertTrue(WALLET_B.compareTo(WALLET_C) > 0);
+    assertEquals(0, ArchiveCodec.compare(WALLET_A, new UUID(1, 0)));
+    assertThrows(ArithmeticException.class, () -> ArchiveCodec.units(new BigDecimal("0.00001")));
+  }
+
+  private static ArchiveSegment writeSample(final Path dir) throws IOException {
+    final Path target = dir.resolve("segment.seg");
+    try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(target)) {
+      writer.append(row(WALLET_A, new UUID(1, 20), T0.plusSeconds(20), "900000", 1, 3, "nạp"));
+      writer.append(row(WALLET_A, new UUID(1, 10), T0, "0.0001", 1, 3, null));
+      writer.append(
+          row(
+              WALLET_B,
+              new UUID(2, 30),
+              T0.plusSeconds(30),
+              "12345.6789",
+              2,
+              3,
+              "Chuyển tiền, \"quà\" tặng"));
+      writer.append(row(WALLET_B, new UUID(2, 25), T0.plusSeconds(25), "10", 2, 4, null));
+      writer.append(row(WALLET_C, new UUID(3, 50), T0.plusSeconds(50), "5", 3, 3, "cuối"));
+      writer.append(row(WALLET_C, new UUID(3, 40), T0.plusSeconds(40), "6", 3, 3, ""));
+      writer.finish();
+      writer.publish();
+    }
+    return ArchiveSegment.open(target);
+  }
+
+  private static ArchivedTransaction row(
+      final UUID walletId,
+      final UUID id,
+      final Instant createdAt,
+      final String amount,
+      final int type,
+      final int status,
+      final String description) {
+    return new ArchivedTransaction(
+        id,
+        walletId,
+        createdAt,
+        createdAt.plusSeconds(1),
+        null,
+        type,
+        status,
+        new BigDecimal(amount),
+        BigDecimal.ZERO,
+        new BigDecimal(amount),
+        null,
+        new BigDecimal("1000000"),
+        description,
+        "provider-" + id,
+        "{\"vnp_ResponseCode\":\"00\"}",
+        null,
+        null,
+        "127.0.0.1");
+  }
+
+  private static ArchiveQuery all(final UUID walletId) {
+    return ArchiveQuery.of(walletId, new TransactionSearchRequest());
+  }
+
+  private static List<TransactionSummaryResponse> scan(
+      final ArchiveSegment segment, final ArchiveQuery query) throws IOException {
+    final List<TransactionSummaryResponse> rows = new ArrayList<>();
+    segment.scan(query, rows::add);
+    return rows;
+  }
+
+  private static List<UUID> ids(final List<TransactionSummaryResponse> rows) {
+    return rows.stream().map(TransactionSummaryResponse::getId).toList();
+  }
+}
@@ -0,0 +1,101 @@
+package com.natswarchuan.payment.demo.service.fraud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/** Kiểm thử cửa sổ trượt của bước chấm điểm gian lận: hết hạn, ghi đè vòng và các chỉ số luật. */
+class VelocityWindowTests {
+
+  private static final long WINDOW = 60_000;
+  private static final long SMALL = 100;
+  private static final int RECIPIENT_A = 1;
+  private static final int RECIPIENT_B = 2;
+  private static final int RECIPIENT_C = 3;
+  private static final int IP_1 = 11;
+  private static final int IP_2 = 12;
+  private static final int IP_3 = 13;
+
+  @Test
+  void countsRepeatedAmountToSameRecipient() {
+    final VelocityWindow window = new VelocityWindow(8);
+
+    assertEquals(1, observe(window, 0, 500, RECIPIENT_A, IP_1).repeatedAmount());
+    assertEquals(2, observe(window, 1, 500, RECIPIENT_A, IP_1).repeatedAmount());
+    assertEquals(1, observe(window, 2, 500, RECIPIENT_B, IP_1).repeatedAmount());
+    assertEquals(1, observe(window, 3, 501, RECIPIENT_A, IP_1).repeatedAmount());
+    assertEquals(3, observe(window, 4, 500, RECIPIENT_A, IP_1).repeatedAmount());
+  }
+
+  @Test
+  void dropsEntriesOlderThanWindow() {
+    final VelocityWindow window = new VelocityWindow(8);
+    observe(window, 0, 500, RECIPIENT_A, IP_1);
+    observe(window, 10, 500, RECIPIENT_A, IP_2);
+
+    // Phần tử ở đúng mốc cửa sổ vẫn được giữ.
+    assertEquals(3, observe(window, WINDOW, 500, RECIPIENT_A, IP_1).repeatedAmount());
+
+    final VelocityWindow.Counts counts = observe(window, WINDOW + 11, 500, RECIPIENT_A, IP_3);
+    assertEquals(2, counts.repeatedAmount());
+    assertEquals(2, counts.distinctIps());
+  }
+
+  @Test
+  void overwritesOldestEntryWhenFull() {
+    final VelocityWindow window = new VelocityWindow(3);
+    for (int i = 0; i < 3; i++) {
+      observe(window, i, 500, RECIPIENT_A, IP_1);
+    }
+
+    assertEquals(4, observe(window, 3, 500, RECIPIENT_A, IP_1).repeatedAmount());
+    assertEquals(4, observe(window, 4, 500, RECIPIENT_A, IP_1).repeatedAmount());
+
+    // Sau khi ghi đè vòng còn lại t=2, 3, 4; hết hạn vẫn bắt đầu từ phần tử cũ nhất.
+    assertEquals(3, observe(window, WINDOW + 3, 500, RECIPIENT_A, IP_1).repeatedAmount());
+  }
+
+  @Test
+  void countsDistinctRecipientsOfSmallTransfers() {
+    final VelocityWindow window = new VelocityWindow(8);
+
+    assertEquals(1, observe(window, 0, SMALL, RECIPIENT_A, IP_1).smallRecipients());
+    assertEquals(1, observe(window, 1, SMALL - 1, RECIPIENT_A, IP_1).smallRecipients());
+    assertEquals(2, observe(window, 2, 10, RECIPIENT_B, IP_1).smallRecipients());
+    // Giao dịch lớn không được tính, kể cả tới ví nhận mới.
+    assertEquals(2, observe(window, 3, SMALL + 1, RECIPIENT_C, IP_1).smallRecipients());
+    assertEquals(2, observe(window, 4, 10, RECIPIENT_A, IP_1).smallRecipients());
+    assertEquals(3, observe(window, 5, 10, RECIPIENT_C, IP_1).smallRecipients());
+  }
+
+  @Test
+  void countsDistinctIps() {
+    final VelocityWindow window = new VelocityWindow(8);
+
+    assertEquals(1, observe(window, 0, 500, RECIPIENT_A, IP_1).distinctIps());
+    assertEquals(1, observe(window, 1, 500, RECIPIENT_A, IP_1).distinctIps());
+    assertEquals(2, observe(window, 2, 500, RECIPIENT_A, IP_2).distinctIps());
+    assertEquals(2, observe(window, 3, 500, RECIPIENT_A, IP_1).distinctIps());
+    assertEquals(3, observe(window, 4, 500, RECIPIENT_A, IP_3).distinctIps());
+  }
+
+  @Test
+  void reportsIdleWindow() {
+    final VelocityWindow window = new VelocityWindow(8);
+    observe(window, 1_000, 500, RECIPIENT_A, IP_1);
+
+    assertFalse(window.isIdleSince(1_000));
+    assertTrue(window.isIdleSince(1_001));
+  }
+
+  private static VelocityWindow.Counts observe(
+      final VelocityWindow window,
+      final long nowMillis,
+      final long amount,
+      final int recipient,
+      final int ip) {
+    return window.observe(nowMillis, WINDOW, amount, recipient, ip, SMALL);
+  }
+}
@@ -0,0 +1,92 @@
+package com.natswarchuan.payment.demo.service.reconciliation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Kiểm thử bộ đọc file quyết toán trên file mẫu {@code vnpay-settlement-sample.csv}. */
+class SettlementFileReaderTests {
+
+  private static final int SMALL_WINDOW = 128;
+  private static final int LARGE_WINDOW = 64 * 1024;
+
+  @Test
+  void readsSampleFile() throws Exception {
+    final List<SettlementRecord> records = read(sample(), LARGE_WINDOW);
+
+    assertEquals(5, records.size());
+    final SettlementRecord first = records.get(0);
+    assertEquals(UUID.fromString("0192a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a01"), first.transactionId());
+    assertEquals("14567801", first.providerTransactionId());
+    assertEquals(0, new BigDecimal("150000").compareTo(first.amount()));
+    assertTrue(first.success());
+    assertEquals(2, first.line());
+
+    assertFalse(records.get(2).success());
+    assertFalse(records.get(3).isValid());
+    assertEquals(0, new BigDecimal("999").compareTo(records.get(4).amount()));
+  }
+
+  @Test
+  void readsLinesSpanningMappedWindows() throws Exception {
+    assertEquals(read(sample(), LARGE_WINDOW), read(sample(), SMALL_WINDOW));
+  }
+
+  @Test
+  void countsRecordsWithoutHeaderAndBlankLines() throws Exception {
+    try (SettlementFileReader reader = new SettlementFileReader(sample(), SMALL_WINDOW)) {
+      assertEquals(5, reader.countRecords());
+    }
+  }
+
+  @Test
+  void rejectsFileWithoutRequiredColumns(@TempDir final Path dir) throws IOException {
+    final Path file = dir.resolve("missing-columns.csv");
+    Files.writeString(file, "vnp_TxnRef,vnp_Amount\n0192a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a01,100\n");
+    try (SettlementFileReader reader = new SettlementFileReader(file, LARGE_WINDOW)) {
+      assertThrows(IllegalStateException.class, () -> reader.forEach(record -> {}));
+    }
+  }
+
+  @Test
+  void keySetTracksIdsUpToCapacity() {
+    final TransactionKeySet keys = new TransactionKeySet(2);
+    final UUID first = UUID.fromString("0192a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a01");
+    final UUID second = UUID.fromString("0192a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a02");
+
+    assertTrue(keys.add(first));
+    assertFalse(keys.add(first));
+    assertTrue(keys.add(second));
+    assertTrue(keys.contains(second));
+    assertFalse(keys.contains(UUID.fromString("0192a1b2-c3d4-7e5f-8a9b-0c1d2e3f4a03")));
+    assertThrows(KeySetFullException.class, () -> keys.add(UUID.randomUUID()));
+  }
+
+  private static List<SettlementRecord> read(final Path file, final int window)
+      throws IOException {
+    final List<SettlementRecord> records = new ArrayList<>();
+    try (SettlementFileReader reader = new SettlementFileReader(file, window)) {
+      reader.forEach(records::add);
+    }
+    return records;
+  }
+
+  private static Path sample() throws URISyntaxException {
+    return Path.of(
+        SettlementFileReaderTests.class
+            .getResource("/reconciliation/vnpay-settlement-sample.csv")
+            .toURI());
+  }
+}